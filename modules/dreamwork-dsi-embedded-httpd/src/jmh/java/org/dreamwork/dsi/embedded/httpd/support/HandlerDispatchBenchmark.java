@@ -0,0 +1,88 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import org.dreamwork.dsi.embedded.httpd.annotation.APathVariable;
+import org.dreamwork.dsi.embedded.httpd.annotation.AWebHandler;
+import org.dreamwork.dsi.embedded.httpd.annotation.AWebMapping;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用处理器的方法：按名称查找实例再反射调用，和注册时绑定实例的调用器的对比.
+ *
+ * <p>{@code lookupAndReflect} 和 2.1.3 之前的分派路径相同，每个请求按 bean 名称查找处理器的实例，
+ * 再通过 {@link Method#invoke(Object, Object...)} 调用；{@code lookupAndInvoke} 是没有绑定时的退路
+ * {@link WebMappedMethod#invoke(Object, Object...)}；{@code bound} 通过 {@link WebMappedMethod#call(Object...)}
+ * 调用注册时绑定的调用器。实例按名称的查找和上下文快照一样是一次 {@link HashMap} 的查找</p>
+ *
+ * <pre>mvn -P jmh verify -pl modules/dreamwork-dsi-embedded-httpd -Djmh.args="HandlerDispatchBenchmark"</pre>
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class HandlerDispatchBenchmark {
+    @AWebHandler ("api")
+    public static class Handler {
+        @AWebMapping ("ping")
+        public String ping () {
+            return "pong";
+        }
+
+        @AWebMapping ("echo/${id}")
+        public String echo (@APathVariable ("id") String id) {
+            return id;
+        }
+    }
+
+    private static final String BEAN_NAME = "handler";
+
+    @Param ({"ping", "echo"})
+    public String handler;
+
+    private final Map<String, Object> beans = new HashMap<> ();
+    private WebMappedMethod wmm;
+    private Object[] args;
+
+    @Setup
+    public void setUp () throws Exception {
+        Handler instance = new Handler ();
+        // 模拟上下文中的其他 bean
+        for (int i = 0; i < 64; i ++) {
+            beans.put ("bean" + i, new Object ());
+        }
+        beans.put (BEAN_NAME, instance);
+
+        Method method;
+        if ("ping".equals (handler)) {
+            method = Handler.class.getMethod ("ping");
+            args = new Object[0];
+        } else {
+            method = Handler.class.getMethod ("echo", String.class);
+            args = new Object[] {"42"};
+        }
+        wmm = new WebMappedMethod (method, "/api/" + handler, HandlerType.API_HANDLER);
+        wmm.beanName = BEAN_NAME;
+        wmm.bind (instance);
+    }
+
+    @Benchmark
+    public Object lookupAndReflect () throws Exception {
+        return wmm.method.invoke (beans.get (wmm.beanName), args);
+    }
+
+    @Benchmark
+    public Object lookupAndInvoke () throws Exception {
+        return wmm.invoke (beans.get (wmm.beanName), args);
+    }
+
+    @Benchmark
+    public Object bound () throws Exception {
+        return wmm.call (args);
+    }
+}
@@ -1,10 +1,10 @@
 package org.dreamwork.dsi.embedded.httpd.starter;
 
 import org.apache.catalina.LifecycleException;
+import org.apache.catalina.LifecycleState;
 import org.apache.catalina.Wrapper;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.startup.Tomcat;
-import org.dreamwork.concurrent.Looper;
 import org.dreamwork.dsi.embedded.httpd.annotation.AWebPackages;
 import org.dreamwork.dsi.embedded.httpd.support.BackendServlet;
 import org.dreamwork.dsi.embedded.httpd.support.WebComponentHelper;
@@ -13,8 +13,11 @@ import org.dreamwork.dsi.embedded.httpd.support.websocket.InternalWebsocketScann
 import org.dreamwork.injection.AConfigured;
 import org.dreamwork.injection.AInjectionContext;
 import org.dreamwork.injection.IObjectContext;
+import org.dreamwork.injection.IWarmUpTask;
+import org.dreamwork.injection.impl.ExecutorRegistry;
 import org.dreamwork.injection.impl.ScannerHelper;
 import org.dreamwork.util.CollectionCreator;
+import org.dreamwork.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,15 +28,20 @@ import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServlet;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.dreamwork.injection.IObjectContext.CONTEXT_DESCRIBER;
 import static org.dreamwork.util.CollectionHelper.isNotEmpty;
 
 @Resource
-public class EmbeddedTomcatStarter {
+public class EmbeddedTomcatStarter implements IWarmUpTask {
     private final Logger logger = LoggerFactory.getLogger (EmbeddedTomcatStarter.class);
 
     private final Tomcat tomcat = new Tomcat ();
@@ -59,9 +67,28 @@ public class EmbeddedTomcatStarter {
     @AConfigured ("${embedded.httpd.delegate.enabled}")
     private boolean delegate = false;
 
+    /** api 请求的分派模式：{@code standard} 或 {@code lean}. @since 2.1.3 */
+    @AConfigured ("${embedded.httpd.dispatch.mode}")
+    private String dispatchMode = "standard";
+
+    /** json 响应中日期的格式，为空时使用 Gson 的默认格式. @since 2.1.3 */
+    @AConfigured ("${embedded.httpd.json.date-format}")
+    private String jsonDateFormat;
+
+    /** json 响应中是否输出值为 null 的字段. @since 2.1.3 */
+    @AConfigured ("${embedded.httpd.json.serialize-nulls}")
+    private boolean jsonSerializeNulls = false;
+
+    /** AppCDS 训练时额外预热的路径，相对于 context-path. @since 2.1.3 */
+    @AConfigured ("${embedded.httpd.warm-up.paths}")
+    private String[] warmUpPaths = {};
+
     @Resource
     private IObjectContext context;
 
+    @Resource
+    private ExecutorRegistry executors;
+
     private StandardContext webContext;
 
     @SuppressWarnings ("unused")
@@ -202,6 +229,14 @@ public class EmbeddedTomcatStarter {
         app.setAttribute ("embedded.httpd.views.extension", ext);
         if (delegate)
             app.setAttribute ("embedded.httpd.delegate.enabled", true);
+        // @since 2.1.3
+        app.setAttribute ("embedded.httpd.dispatch.mode", dispatchMode);
+        if (!StringUtil.isEmpty (jsonDateFormat)) {
+            app.setAttribute ("embedded.httpd.json.date-format", jsonDateFormat);
+        }
+        if (jsonSerializeNulls) {
+            app.setAttribute ("embedded.httpd.json.serialize-nulls", true);
+        }
 
         // @since 1.1.0
         scanWebComponents (context);
@@ -219,7 +254,8 @@ public class EmbeddedTomcatStarter {
         }
         w.addMapping (mapping + leading);
 
-        Looper.invokeLater (() -> {
+        // @since 2.1.3 在受托管的线程池中启动，线程空闲后自动结束
+        executors.get ("dsi.httpd.starter", 0, 1, 0).execute (() -> {
             try {
                 tomcat.start ();
                 logger.info ("embedded tomcat started.");
@@ -237,6 +273,66 @@ public class EmbeddedTomcatStarter {
         }
     }
 
+    /**
+     * AppCDS 训练模式下的预热：等待 tomcat 启动完成，然后向 webapp 的根路径、{@link BackendServlet}
+     * 和 {@code embedded.httpd.warm-up.paths} 中的路径各发送一个 GET 请求，让连接器、过滤器链和
+     * {@link BackendServlet} 的分派路径上的类在训练期间被加载
+     * @param context 托管容器
+     * @throws Exception 任何异常
+     * @since 2.1.3
+     */
+    @Override
+    public void warmUp (IObjectContext context) throws Exception {
+        long deadline = System.currentTimeMillis () + 30000;
+        LifecycleState state;
+        while ((state = tomcat.getServer ().getState ()) != LifecycleState.STARTED) {
+            if (state == LifecycleState.FAILED || System.currentTimeMillis () > deadline) {
+                throw new IllegalStateException ("embedded tomcat is not started: " + state);
+            }
+            Thread.sleep (100);
+        }
+
+        String base = "http://" + ("0.0.0.0".equals (host) ? "127.0.0.1" : host) + ':' + port +
+                ("/".equals (contextPath) ? "" : contextPath);
+        String api = mapping.endsWith ("/") ? mapping.substring (0, mapping.length () - 1) : mapping;
+        List<String> paths = new ArrayList<> ();
+        paths.add ("/");
+        // 不存在的 api，走完整的分派流程后返回 404
+        paths.add (api + "/.dsi-warm-up");
+        for (String path : warmUpPaths) {
+            path = path.trim ();
+            if (!path.isEmpty ()) {
+                paths.add (path.charAt (0) == '/' ? path : '/' + path);
+            }
+        }
+        for (String path : paths) {
+            request (base + path);
+        }
+    }
+
+    private void request (String url) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL (url).openConnection ();
+        conn.setConnectTimeout (5000);
+        conn.setReadTimeout (30000);
+        try {
+            int code = conn.getResponseCode ();
+            InputStream in = code < 400 ? conn.getInputStream () : conn.getErrorStream ();
+            if (in != null) {
+                try (InputStream body = in) {
+                    byte[] buff = new byte[4096];
+                    while (body.read (buff) >= 0) {
+                        // 丢弃响应内容
+                    }
+                }
+            }
+            if (logger.isInfoEnabled ()) {
+                logger.info ("warm-up request {} -> {}", url, code);
+            }
+        } finally {
+            conn.disconnect ();
+        }
+    }
+
     @PreDestroy
     public void destroy () throws LifecycleException {
         tomcat.stop ();
@@ -1,22 +1,18 @@
 package org.dreamwork.dsi.embedded.httpd.starter;
 
-import org.dreamwork.concurrent.Looper;
 import org.dreamwork.dsi.embedded.httpd.support.ManagedSession;
 import org.dreamwork.injection.AConfigured;
+import org.dreamwork.injection.ITimer;
 import org.dreamwork.util.StringUtil;
-import org.dreamwork.util.ThreadHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
 
 @Resource
 public class SessionManager {
@@ -30,12 +26,13 @@ public class SessionManager {
 
     private final Object LOCKER = new byte[0];
     private final Logger logger = LoggerFactory.getLogger (SessionManager.class);
-    private final String LOOP_NAME = "ManagedSession";
 
     private final Map<String, ManagedSession> session = new ConcurrentHashMap<> ();
+    /** 每个会话的过期检查. @since 2.1.3 */
+    private final Map<String, ITimer.Timeout> timeouts = new ConcurrentHashMap<> ();
 
-    private final Lock locker = new ReentrantLock (false);
-    private final Condition c = locker.newCondition ();
+    @Resource
+    private ITimer timer;
 
     @PostConstruct
     public void startMonitor () {
@@ -44,10 +41,7 @@ public class SessionManager {
         }
         if (logger.isTraceEnabled ()) {
             logger.trace ("session timeout = {} ms.", timeout);
-            logger.trace ("starting the session check monitor");
         }
-        Looper.create (LOOP_NAME, 1, 1);
-        Looper.runInLoop (LOOP_NAME, this::mainLoop);
     }
 
     @PreDestroy
@@ -57,18 +51,11 @@ public class SessionManager {
         }
         running = false;
         synchronized (LOCKER) {
-            LOCKER.notifyAll ();
+            timeouts.values ().forEach (ITimer.Timeout::cancel);
+            timeouts.clear ();
         }
-        try {
-            locker.lockInterruptibly ();
-            c.signalAll ();
-        } catch (InterruptedException ex) {
-            if (logger.isTraceEnabled ()) {
-                logger.warn ("warn in pre-destroy");
-                logger.warn (ex.getMessage (), ex);
-            }
-        } finally {
-            locker.unlock ();
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("the session monitor stopped.");
         }
     }
 
@@ -80,7 +67,7 @@ public class SessionManager {
             if (logger.isTraceEnabled ()) {
                 logger.trace ("a new session created, it = {}", ms.id);
             }
-            LOCKER.notifyAll ();
+            watch (ms, timeout);
         }
         return ms;
     }
@@ -98,65 +85,50 @@ public class SessionManager {
     public void remove (String key) {
         synchronized (LOCKER) {
             session.remove (key);
+            ITimer.Timeout t = timeouts.remove (key);
+            if (t != null) {
+                t.cancel ();
+            }
         }
     }
 
-    private void mainLoop () {
-        while (running) {
-            try {
-                locker.lockInterruptibly ();
-                while (running && session.isEmpty ()) {
-                    c.await ();
-                    if (logger.isTraceEnabled ()) {
-                        logger.trace ("session manager awake and running = {}", running);
-                    }
-                }
-            } catch (InterruptedException ex) {
-                if (logger.isTraceEnabled ()) {
-                    logger.warn (ex.getMessage (), ex);
-                }
-            } finally {
-                locker.unlock ();
-            }
+    /**
+     * 在 {@code delay} 毫秒后检查会话是否过期
+     * @since 2.1.3
+     */
+    private void watch (ManagedSession ms, long delay) {
+        if (!running) {
+            return;
+        }
+        ITimer.Timeout old = timeouts.put (ms.id, timer.schedule (() -> expire (ms), delay, TimeUnit.MILLISECONDS));
+        if (old != null) {
+            old.cancel ();
+        }
+    }
 
-            if (running) {  // double check
-                Map<String, ManagedSession> copied;
-                synchronized (LOCKER) {
-                    copied = new HashMap<> (session);
-                }
-                if (!copied.isEmpty ()) {
-                    Map<String, ManagedSession> temp = new HashMap<> ();
-                    long now = System.currentTimeMillis ();
-                    for (Map.Entry<String, ManagedSession> e : copied.entrySet ()) {
-                        ManagedSession item = e.getValue ();
-                        if (now - item.timestamp > timeout) {
-                            temp.put (e.getKey (), item);
-                        }
-                    }
-
-                    if (!temp.isEmpty ()) {
-                        synchronized (LOCKER) {
-                            for (Map.Entry<String, ManagedSession> e : temp.entrySet ()) {
-                                ManagedSession item = e.getValue ();
-                                if (now - item.timestamp > timeout) {
-                                    session.remove (e.getKey ());
-                                    if (logger.isTraceEnabled ()) {
-                                        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat ("yyyy-MM-dd HH:mm:ss.SSS");
-                                        logger.trace ("the session:{id={}, create at: {}, now = {}} has expired, clear it success",
-                                                e.getKey (), sdf.format (item.timestamp), sdf.format (now));
-                                    }
-                                }
-                            }
-                        }
-                    }
+    /**
+     * 会话空闲超过 {@link #timeout} 时删除它，否则在剩余的时间之后再次检查
+     * @since 2.1.3
+     */
+    private void expire (ManagedSession ms) {
+        synchronized (LOCKER) {
+            if (session.get (ms.id) != ms) {
+                return;
+            }
+            long now  = System.currentTimeMillis ();
+            long idle = now - ms.timestamp;
+            if (idle > timeout) {
+                session.remove (ms.id);
+                timeouts.remove (ms.id);
+                if (logger.isTraceEnabled ()) {
+                    java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat ("yyyy-MM-dd HH:mm:ss.SSS");
+                    logger.trace ("the session:{id={}, create at: {}, now = {}} has expired, clear it success",
+                            ms.id, sdf.format (ms.timestamp), sdf.format (now));
                 }
-
-                ThreadHelper.delay (2000);
+            } else {
+                // 期间被访问过，从最后一次访问开始重新计时
+                watch (ms, timeout - idle + 1);
             }
         }
-        if (logger.isTraceEnabled ()) {
-            logger.trace ("the session monitor stopped.");
-        }
-        Looper.destory (LOOP_NAME);
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package org.dreamwork.dsi.embedded.httpd.starter;
 
 import org.dreamwork.dsi.embedded.httpd.annotation.AWebHandler;
 import org.dreamwork.dsi.embedded.httpd.annotation.AWebMapping;
+import org.dreamwork.dsi.embedded.httpd.support.RouteTable;
 import org.dreamwork.dsi.embedded.httpd.support.WebHandler;
 import org.dreamwork.dsi.embedded.httpd.support.WebMappedMethod;
 import org.dreamwork.injection.IInjectResolvedProcessor;
@@ -13,12 +14,16 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Resource;
 import javax.servlet.ServletException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Resource
 public class WebHandlerScanner implements IInjectResolvedProcessor {
     private final Map<String, Map<String, WebMappedMethod>> mappings = new HashMap<> ();
+    /** 每个 http 方法的路由树. @since 2.1.3 */
+    private final Map<String, RouteTable> routes = new HashMap<> ();
 //    private final Pattern PATTERN = Pattern.compile ("^/?(.*?)(/(.*?))?$");
     private final Logger logger   = LoggerFactory.getLogger (WebHandlerScanner.class);
 
@@ -69,6 +74,12 @@ public class WebHandlerScanner implements IInjectResolvedProcessor {
                                 }
                                 WebMappedMethod wmm = new WebMappedMethod (method, pathInfo, awh.type ());
                                 wmm.beanName = beanName;
+                                // @since 2.1.3 注册时绑定到处理器的实例，请求时不再按名称查找实例
+                                try {
+                                    wmm.bind (bean);
+                                } catch (IllegalAccessException ex) {
+                                    throw new IllegalArgumentException ("cannot access web handler method " + method, ex);
+                                }
                                 wmm.contentType = awm.contentType ();
                                 // @since 1.1.0
                                 // 标记是否自动包裹结果为固定结构的json
@@ -84,6 +95,7 @@ public class WebHandlerScanner implements IInjectResolvedProcessor {
                                     throw new IllegalArgumentException ("pattern " + pathInfo + " already mapped.");
                                 }
                                 map.put (pathInfo, wmm);
+                                routes.computeIfAbsent (key, name -> new RouteTable ()).add (wmm);
                                 if (logger.isTraceEnabled ()) {
                                     logger.trace ("a web mapped method is mapped: {} <=> {}", pathInfo, wmm.method);
                                 }
@@ -95,21 +107,52 @@ public class WebHandlerScanner implements IInjectResolvedProcessor {
         }
     }
 
+    /**
+     * 所有映射的方法
+     * @return 映射的方法
+     * @since 2.1.3
+     */
+    public List<WebMappedMethod> getMappedMethods () {
+        List<WebMappedMethod> list = new ArrayList<> ();
+        for (Map<String, WebMappedMethod> map : mappings.values ()) {
+            list.addAll (map.values ());
+        }
+        return list;
+    }
+
     public WebHandler match (String pathInfo, String method, Map<String, String> parsedArgs) throws ServletException {
         Map<String, WebMappedMethod> map = mappings.get (method);
         if (map == null) {
             throw new ServletException ("Method " + method + " not supported.");
         }
-        if (map.containsKey (pathInfo)) {
-            WebMappedMethod wmm = map.get (pathInfo);
-            return new WebHandler (wmm.beanName, wmm);
+        WebMappedMethod wmm = map.get (pathInfo);
+        if (wmm == null) {
+            // @since 2.1.3 更复杂的情况由路由树按段匹配
+            wmm = routes.get (method).match (pathInfo, parsedArgs);
         }
+        return wmm == null ? null : wmm.handler ();
+    }
 
-        for (WebMappedMethod wmm : map.values ()) {
-            if (wmm.matches (pathInfo, parsedArgs)) {        // 更复杂的情况
-                return new WebHandler (wmm.beanName, wmm);
-            }
+    /**
+     * 查找匹配的处理器，路径变量保存在调用者复用的 {@link RouteTable.Match} 中
+     * @param pathInfo 请求的路径
+     * @param method   小写的 http 方法
+     * @param match    出参，匹配的结果
+     * @return 匹配的处理器，没有时返回 {@code null}
+     * @throws ServletException 不支持指定的 http 方法时
+     * @since 2.1.3
+     */
+    public WebHandler match (String pathInfo, String method, RouteTable.Match match) throws ServletException {
+        Map<String, WebMappedMethod> map = mappings.get (method);
+        if (map == null) {
+            throw new ServletException ("Method " + method + " not supported.");
+        }
+        WebMappedMethod wmm = map.get (pathInfo);
+        if (wmm == null) {
+            wmm = routes.get (method).match (pathInfo, match);
+        } else {
+            match.clear ();
         }
-        return null;
+        return wmm == null ? null : wmm.handler ();
     }
 }
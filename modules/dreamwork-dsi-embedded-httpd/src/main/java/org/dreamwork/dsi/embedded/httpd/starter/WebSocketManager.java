@@ -1,15 +1,17 @@
 package org.dreamwork.dsi.embedded.httpd.starter;
 
 import com.google.gson.Gson;
-import org.dreamwork.concurrent.Looper;
 import org.dreamwork.dsi.embedded.httpd.annotation.AWebSocket;
 import org.dreamwork.dsi.embedded.httpd.support.websocket.AbstractWebSocket;
 import org.dreamwork.dsi.embedded.httpd.support.websocket.IWebSocketExecutor;
 import org.dreamwork.dsi.embedded.httpd.support.websocket.IWebsocketCommand;
 import org.dreamwork.injection.AConfigured;
 import org.dreamwork.injection.IObjectContext;
-import org.dreamwork.util.ReferenceUtil;
-import org.dreamwork.util.ThreadHelper;
+import org.dreamwork.injection.ITimer;
+import org.dreamwork.injection.impl.BeanDescriptor;
+import org.dreamwork.injection.impl.ExecutorRegistry;
+import org.dreamwork.injection.impl.ManagedExecutor;
+import org.dreamwork.injection.impl.MemberAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +22,9 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Websocket 管理器
@@ -114,8 +119,8 @@ public class WebSocketManager {
     }
 
     /////////////////////// instance fields ////////////////////////////////
-    private transient boolean running = true;
-    private final Object LOCKER = new byte[0], SENDER_LOCKER = new byte[0];
+    private volatile boolean running = true;
+    private final Object LOCKER = new byte[0];
     /** 缓存的 websocket 实例 */
     private final Map<Class<? extends AbstractWebSocket<? extends IWebsocketCommand>>, Set<WebsocketWrapper<? extends IWebsocketCommand>>> cache = new ConcurrentHashMap<> ();
     /** 待发送的消息 */
@@ -128,6 +133,16 @@ public class WebSocketManager {
     @Resource
     private IObjectContext context;
 
+    @Resource
+    private ExecutorRegistry executors;
+
+    @Resource
+    private ITimer timer;
+
+    private ManagedExecutor heartbeats, sender;
+    /** 是否已经提交了发送任务. @since 2.1.3 */
+    private final AtomicBoolean flushing = new AtomicBoolean ();
+
     /////////////////////// instance methods ////////////////////////////////
     public WebSocketManager () {
         synchronized (WebSocketManager.class) {
@@ -148,77 +163,9 @@ public class WebSocketManager {
             logger.trace ("starting the websocket manager");
         }
 
-        // 心跳维护线程
-        Looper.create (LOOP_HEARTBEAT_NAME, 1, 1);
-        Looper.runInLoop (LOOP_HEARTBEAT_NAME, () -> {
-            while (running) {
-                Set<Set<WebsocketWrapper<? extends IWebsocketCommand>>> set = new HashSet<> (cache.values ());
-                Set<WebsocketWrapper<? extends IWebsocketCommand>> sockets = new HashSet<> ();
-                set.forEach (sockets::addAll);
-                final long now = System.currentTimeMillis ();
-                sockets.stream().filter (w -> w.timeout != null && now - w.timestamp > w.timeout).forEach (w -> {
-                    try {
-                        w.socket.getSession ().getBasicRemote ().sendText (HEARTBEAT);
-                    } catch (IOException ex) {
-                        logger.warn (ex.getMessage (), ex);
-                    } finally {
-                        w.timestamp = now;
-                    }
-                });
-
-                ThreadHelper.delay (10);
-            }
-            logger.info ("the heartbeat loop complete.");
-            Looper.destory (LOOP_HEARTBEAT_NAME);
-        });
-
-        // 发送线程
-        Looper.create (LOOP_SENDER_NAME, 64, 1);
-        Looper.runInLoop (LOOP_SENDER_NAME, () -> {
-            while (running) {
-                List<MessageWrapper<IWebsocketCommand>> copy = new ArrayList<> ();
-                Set<AbstractWebSocket<IWebsocketCommand>> sockets = new HashSet<> ();
-                // 复制需要发送的消息集合
-                synchronized (messages) {
-                    messages.forEach ((key, list) -> {
-                        if (list != null && !list.isEmpty ()) {
-                            @SuppressWarnings ("unchecked")
-                            Class<? extends AbstractWebSocket<IWebsocketCommand>> type =
-                                    (Class<? extends AbstractWebSocket<IWebsocketCommand>>) key;
-                            // 获取匹配类型的消息集合
-                            sockets.addAll (getSockets (type));
-                            synchronized (SENDER_LOCKER) {
-                                if (!list.isEmpty ()) {
-                                    copy.addAll (list);
-                                    list.clear ();
-                                }
-                            }
-
-                            if (!copy.isEmpty ()) {
-                                // 发送消息
-                                try {
-                                    sockets.forEach (socket -> {
-                                        for (MessageWrapper<IWebsocketCommand> wrapper : copy) {
-                                            if (socket.matches (wrapper.id, wrapper.message)) {
-                                                socket.send (wrapper.message);
-                                            }
-                                        }
-                                    });
-                                } finally {
-                                    sockets.clear ();
-                                    copy.clear ();
-                                }
-                            }
-                        }
-                    });
-                }
-
-                ThreadHelper.delay (10);
-            }
-
-            logger.info ("the sender loop complete.");
-            Looper.destory (LOOP_SENDER_NAME);
-        });
+        // @since 2.1.3 心跳由定时器按每个连接的周期触发，消息在到达时才提交发送，不再轮询
+        heartbeats = executors.get (LOOP_HEARTBEAT_NAME, 1, 1, -1);
+        sender     = executors.get (LOOP_SENDER_NAME, 1, 1, 64);
     }
 
     @PreDestroy
@@ -227,6 +174,9 @@ public class WebSocketManager {
         synchronized (LOCKER) {
             LOCKER.notifyAll ();
         }
+        synchronized (this) {
+            cache.values ().forEach (set -> set.forEach (WebsocketWrapper::stopHeartbeat));
+        }
     }
 
     /**
@@ -245,26 +195,26 @@ public class WebSocketManager {
         AWebSocket ws = type.getAnnotation (AWebSocket.class);
         long time = ws.heartbeat ();
         Long timeout = time > 0 ? time : null;
-        set.add (new WebsocketWrapper<> ((AbstractWebSocket<IWebsocketCommand>) socket, timeout));
+        WebsocketWrapper<IWebsocketCommand> wrapper = new WebsocketWrapper<> ((AbstractWebSocket<IWebsocketCommand>) socket, timeout);
+        set.add (wrapper);
+        if (timeout != null && heartbeats != null && running) {
+            wrapper.heartbeat = timer.scheduleAtFixedRate (
+                    () -> heartbeats.execute (() -> heartbeat (wrapper)), time, time, TimeUnit.MILLISECONDS
+            );
+        }
         // 注入容器
         socket.setContext (context);
         // 注入管理器实例
         socket.setWebsocketManager (instance);
         // 自动注入其他字段
-        Collection<Field> fields = ReferenceUtil.getFields (type);
-        fields.forEach (field -> {
-            if (field.isAnnotationPresent (Resource.class)) {
-                Object o = context.getBean (field.getType ());
-                if (!field.isAccessible ()) {
-                    field.setAccessible (true);
-                }
-                try {
-                    field.set (socket, o);
-                } catch (Exception ex) {
-                    logger.warn (ex.getMessage (), ex);
-                }
+        for (Field field : BeanDescriptor.of (type).resourceFields) {
+            Object o = context.getBean (field.getType ());
+            try {
+                MemberAccessor.set (field, socket, o);
+            } catch (Exception ex) {
+                logger.warn (ex.getMessage (), ex);
             }
-        });
+        }
     }
 
     /**
@@ -286,6 +236,7 @@ public class WebSocketManager {
         }
         if (wrapper != null) {
             set.remove (wrapper);
+            wrapper.stopHeartbeat ();
             if (logger.isDebugEnabled ()) {
                 logger.debug ("websocket {} removed", socket);
             }
@@ -323,14 +274,16 @@ public class WebSocketManager {
             logger.trace ("sending message: {} with id[{}] to {}", message, id, type);
         }
         if (cache.containsKey (type)) { // 当且仅当有这种类型的websocket实例被缓存才需要通知
-            List<MessageWrapper<IWebsocketCommand>> list = messages.computeIfAbsent (type, key -> new ArrayList<> ());
             MessageWrapper<T> wrapper = new MessageWrapper<> ();
             wrapper.id = id;
             wrapper.message = message;
-            list.add ((MessageWrapper<IWebsocketCommand>) wrapper);
+            synchronized (messages) {
+                messages.computeIfAbsent (type, key -> new ArrayList<> ()).add ((MessageWrapper<IWebsocketCommand>) wrapper);
+            }
             if (logger.isTraceEnabled ()) {
                 logger.trace ("message save to type: {}", type);
             }
+            requestFlush ();
         } else if (logger.isTraceEnabled ()) {
             logger.trace ("there's no websocket instance with type: {}", type);
         }
@@ -346,6 +299,66 @@ public class WebSocketManager {
         return set;
     }
 
+    /**
+     * 提交一次发送。发送任务已经在排队时不再重复提交
+     * @since 2.1.3
+     */
+    private void requestFlush () {
+        if (running && sender != null && flushing.compareAndSet (false, true)) {
+            try {
+                sender.execute (this::flush);
+            } catch (RejectedExecutionException ex) {
+                flushing.set (false);
+                logger.warn ("cannot submit the websocket sender: {}", ex.getMessage ());
+            }
+        }
+    }
+
+    /**
+     * 发送所有待发送的消息
+     * @since 2.1.3
+     */
+    private void flush () {
+        // 在复制之前清除标记，复制之后到达的消息会再次提交发送
+        flushing.set (false);
+        Map<Class<? extends AbstractWebSocket<?>>, List<MessageWrapper<IWebsocketCommand>>> copy = new HashMap<> ();
+        synchronized (messages) {
+            messages.forEach ((key, list) -> {
+                if (!list.isEmpty ()) {
+                    copy.put (key, new ArrayList<> (list));
+                    list.clear ();
+                }
+            });
+        }
+        copy.forEach ((key, list) -> {
+            @SuppressWarnings ("unchecked")
+            Class<? extends AbstractWebSocket<IWebsocketCommand>> type =
+                    (Class<? extends AbstractWebSocket<IWebsocketCommand>>) key;
+            for (AbstractWebSocket<IWebsocketCommand> socket : getSockets (type)) {
+                for (MessageWrapper<IWebsocketCommand> wrapper : list) {
+                    if (socket.matches (wrapper.id, wrapper.message)) {
+                        socket.send (wrapper.message);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 向连接发送一次心跳
+     * @since 2.1.3
+     */
+    private void heartbeat (WebsocketWrapper<?> w) {
+        long now = System.currentTimeMillis ();
+        try {
+            w.socket.getSession ().getBasicRemote ().sendText (HEARTBEAT);
+        } catch (IOException ex) {
+            logger.warn (ex.getMessage (), ex);
+        } finally {
+            w.timestamp = now;
+        }
+    }
+
     private static final class MessageWrapper<T extends IWebsocketCommand> {
         long timeout;
         String id;
@@ -356,11 +369,19 @@ public class WebSocketManager {
         public long timestamp;
         public Long timeout;
         public IWebSocketExecutor<T> socket;
+        /** 心跳的定时任务. @since 2.1.3 */
+        private ITimer.Timeout heartbeat;
 
         public WebsocketWrapper (AbstractWebSocket<T> socket, Long timeout) {
             this.socket  = socket;
             this.timeout = timeout;
             timestamp    = System.currentTimeMillis ();
         }
+
+        private void stopHeartbeat () {
+            if (heartbeat != null) {
+                heartbeat.cancel ();
+            }
+        }
     }
 }
\ No newline at end of file
@@ -1,14 +1,13 @@
 package org.dreamwork.dsi.embedded.httpd.support;
 
-import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import org.apache.catalina.core.ApplicationServletRegistration;
 import org.apache.catalina.core.StandardWrapper;
 import org.dreamwork.dsi.embedded.httpd.starter.SessionManager;
 import org.dreamwork.dsi.embedded.httpd.starter.WebHandlerScanner;
-import org.dreamwork.gson.GsonHelper;
 import org.dreamwork.injection.IObjectContext;
+import org.dreamwork.injection.impl.RequestScope;
 import org.dreamwork.util.CollectionCreator;
-import org.dreamwork.util.IOUtil;
 import org.dreamwork.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,26 +17,14 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.net.URLDecoder;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @WebServlet (loadOnStartup = 1)
 public class BackendServlet extends HttpServlet {
-    private static final String UTF_8 = "utf-8";
-    private static final String KEY_MSA = "X-Managed-Session";
     private final Logger logger = LoggerFactory.getLogger (BackendServlet.class);
 
     private WebHandlerScanner scanner;
@@ -49,11 +36,23 @@ public class BackendServlet extends HttpServlet {
 
     private SessionManager manager;
 
-    private static final Pattern STATIC_RESOURCES = Pattern.compile (
-            "^(.*?)\\.(htm|html|xml|png|jpg|jpeg|gif|js|css|mp3|mp4)$",
-            Pattern.CASE_INSENSITIVE
-    );
-    private static final Pattern JAVA_PAGE = Pattern.compile ("^(.*?)\\.(jsp|jspx)", Pattern.CASE_INSENSITIVE);
+    /** 静态资源和 java 页面的扩展名，按扩展名的长度分组. @since 2.1.3 */
+    private static final String[][] STATIC_RESOURCES = {
+            {}, {}, {"js"}, {"htm", "xml", "png", "jpg", "gif", "css", "mp3", "mp4"}, {"html", "jpeg"}
+    };
+    private static final String[][] JAVA_PAGES = {
+            {}, {}, {}, {"jsp"}, {"jspx"}
+    };
+    private static final int RESOURCE = 1, PAGE = 2;
+
+    private static final Object[] NO_ARGS = {};
+    /** 精简分派模式下每个线程复用的分派状态. @since 2.1.3 */
+    private static final ThreadLocal<Dispatch> DISPATCHES = ThreadLocal.withInitial (Dispatch::new);
+
+    /** 是否使用精简的分派模式. @since 2.1.3 */
+    private boolean lean;
+    /** 以流的方式写出 json 结果，所有请求共享同一个 Gson. @since 2.1.3 */
+    private JsonResponses json;
 
     @Override
     public void init () throws ServletException {
@@ -116,6 +115,25 @@ public class BackendServlet extends HttpServlet {
             }
         }
 
+        // @since 2.1.3
+        GsonBuilder builder = new GsonBuilder ();
+        String dateFormat = (String) app.getAttribute ("embedded.httpd.json.date-format");
+        if (!StringUtil.isEmpty (dateFormat)) {
+            builder.setDateFormat (dateFormat);
+        }
+        if (Boolean.TRUE.equals (app.getAttribute ("embedded.httpd.json.serialize-nulls"))) {
+            builder.serializeNulls ();
+        }
+        json = new JsonResponses (builder.create ());
+        for (WebMappedMethod wmm : scanner.getMappedMethods ()) {
+            json.prepare (wmm);
+        }
+
+        lean = "lean".equalsIgnoreCase ((String) app.getAttribute ("embedded.httpd.dispatch.mode"));
+        if (lean) {
+            logger.info ("backend servlet dispatches requests in lean mode.");
+        }
+
         logger.info ("backend servlet initialed.");
     }
 
@@ -139,8 +157,8 @@ public class BackendServlet extends HttpServlet {
             return;
         }
 
-        Matcher m = STATIC_RESOURCES.matcher (pathInfo);
-        if (m.matches ()) {
+        int kind = kindOf (pathInfo);
+        if (kind == RESOURCE) {
             if (logger.isTraceEnabled ()) {
                 logger.trace ("request to a static resource: {}", pathInfo);
             }
@@ -150,8 +168,7 @@ public class BackendServlet extends HttpServlet {
             }
         }
 
-        m = JAVA_PAGE.matcher (pathInfo);
-        if (m.matches ()) {
+        if (kind == PAGE) {
             if (logger.isTraceEnabled ()) {
                 logger.trace ("request to a java server page: {}", pathInfo);
             }
@@ -161,10 +178,29 @@ public class BackendServlet extends HttpServlet {
             }
         }
 
-        Map<String, String> values = new HashMap<> ();
+        // @since 2.1.3 精简模式下复用当前线程的分派状态，嵌套的请求 (比如 include) 使用临时的状态
+        Dispatch dispatch = lean ? DISPATCHES.get () : null;
+        if (dispatch == null || dispatch.busy) {
+            dispatch = new Dispatch ();
+        }
+        dispatch.busy = true;
+        // 请求作用域和 HttpContext 无关，每个请求都要开启
+        dispatch.scope.open ();
+        try {
+            dispatch (request, response, pathInfo, method, dispatch);
+        } finally {
+            dispatch.scope.close ();
+            dispatch.match.clear ();
+            dispatch.busy = false;
+        }
+    }
+
+    private void dispatch (HttpServletRequest request, HttpServletResponse response,
+                           String pathInfo, String method, Dispatch dispatch) throws IOException, ServletException {
+        RouteTable.Match values = dispatch.match;
         WebHandler handler;
         try {
-            handler = scanner.match (pathInfo, method.toLowerCase (), values);
+            handler = scanner.match (pathInfo, lowerCase (method), values);
         } catch (ServletException ex) {
             logger.warn (ex.getMessage (), ex);
             response.setStatus (HttpServletResponse.SC_METHOD_NOT_ALLOWED);
@@ -188,20 +224,29 @@ public class BackendServlet extends HttpServlet {
             return;
         }
 
-        Object bean = context.getBean (handler.beanName);
         Object value;
-        Gson g = new Gson ();
         HttpContext ctx = null;
+        Object[] args = null;
         try {
-            request.getSession ().getId ();
-            ctx = new HttpContext (request, response);
+            // @since 2.1.3 精简模式下，没有声明内部参数的处理器不创建会话和 HttpContext
+            if (!lean || handler.method.hasInternalParameters ()) {
+                request.getSession ().getId ();
+                ctx = new HttpContext (request, response);
+            }
             response.setContentType (handler.method.contentType);
 
             if (handler.method.parameters == null) {
-                value = handler.method.invoke (bean);
+                args = NO_ARGS;
             } else {
-                Object[] args = parseParameters (request, response, handler, values);
-                value = handler.method.invoke (bean, args);
+                int n = handler.method.parameters.size ();
+                args = lean ? dispatch.arguments (n) : new Object[n];
+                parseParameters (request, response, handler, dispatch, args);
+            }
+            // @since 2.1.3 处理器的方法在注册时已经绑定到实例上
+            if (handler.method.isBound ()) {
+                value = handler.method.call (args);
+            } else {
+                value = handler.method.invoke (context.getBean (handler.beanName), args);
             }
 
             if (handler.type == HandlerType.DISPATCHER) {
@@ -223,11 +268,10 @@ public class BackendServlet extends HttpServlet {
             if (contentType.contains ("json")) {
                 if (handler.wrapped) {
                     // since 1.1.0 自动包裹固定结构的json
-                    WebJsonResult wjr = new WebJsonResult (0, "success", value);
-                    response.getWriter ().write (g.toJson (wjr));
+                    json.writeWrapped (response, handler.method, 0, "success", value);
                 } else if (value != null) {
                     // since 1.1.0 输出原始数据的 json 格式
-                    response.getWriter ().write (g.toJson (value));
+                    json.write (response, handler.method, value);
                 }
             } else if (value != null) {
                 response.getWriter ().write (value.toString ());
@@ -242,8 +286,7 @@ public class BackendServlet extends HttpServlet {
                     if (whe.httpStatus >= 200 && whe.httpStatus < 600) {
                         response.setStatus (whe.httpStatus);
                     }
-                    WebJsonResult wjr = new WebJsonResult (whe.code, whe.getMessage (), null);
-                    response.getWriter ().write (g.toJson (wjr));
+                    json.writeWrapped (response, handler.method, whe.code, whe.getMessage (), null);
                 } else {
                     throw new ServletException (t);
                 }
@@ -264,301 +307,99 @@ public class BackendServlet extends HttpServlet {
             response.setContentType (handler.method.contentType);
             if (handler.method.contentType.contains ("json")) {
                 response.setStatus (HttpServletResponse.SC_BAD_REQUEST);
-                response.getWriter ().write (g.toJson (
-                        CollectionCreator.asMap (
-                                "code", HttpServletResponse.SC_BAD_REQUEST,
-                                "error", re.getMessage ()
-                        )
+                json.writeObject (response, CollectionCreator.asMap (
+                        "code", HttpServletResponse.SC_BAD_REQUEST,
+                        "error", re.getMessage ()
                 ));
             }
         } finally {
+            if (args != null && args.length > 0 && lean) {
+                Arrays.fill (args, null);
+            }
             if (ctx != null) {
                 ctx.dispose ();
             }
         }
     }
 
-    private Object[] parseParameters (HttpServletRequest request, HttpServletResponse response,
-                                      WebHandler handler, Map<String, String> values) throws IOException {
-        int n = handler.method.parameters.size ();
-        Object[] args = new Object[n];
-        Class<?>[] types = handler.method.method.getParameterTypes ();
-        // @since 1.1.1
-        String key = request.getHeader (KEY_MSA);
-        ManagedSession session = null;
-        if (!StringUtil.isEmpty (key)) {
-            session = manager.get (key);
-            response.setHeader (KEY_MSA, key);
-        }
-
-        Map<String, String> paramsMap = new HashMap<> ();
-        boolean patched = false;
-
-        for (int i = 0; i < n; i ++) {
-            WebParameter wp = handler.method.parameters.get (i);
-            Class<?> type = types [i];
-            if (wp == null || wp.internal) {
-                if (type == HttpContext.class) {
-                    args[i] = HttpContext.current ();
-                } else if (type == ServletContext.class) {
-                    args[i] = getServletContext ();
-                } else if (type == HttpServletRequest.class) {
-                    args[i] = request;
-                } else if (type == HttpServletResponse.class) {
-                    args[i] = response;
-                } else if (type == HttpSession.class) {
-                    args[i] = request.getSession ();
-                } else if (type == ManagedSession.class) {
-                    // @since 1.1.1
-                    if (session == null) {
-                        // session 还未创建，创建一个
-                        session = manager.create (key);
-                        response.setHeader (KEY_MSA, session.id);
-                    }
-                    args[i] = session;
-                } else {
-                    throw new IllegalArgumentException ("unsupported internal type: " + type);
-                }
-/*
-            } else if (wp.internal) {
-                if (type == HttpContext.class) {
-                    args[i] = HttpContext.current ();
-                } else if (type == ServletContext.class) {
-                    args[i] = getServletContext ();
-                } else if (type == HttpServletRequest.class) {
-                    args[i] = request;
-                } else if (type == HttpServletResponse.class) {
-                    args[i] = response;
-                } else if (type == HttpSession.class) {
-                    args[i] = request.getSession ();
-                } else {
-                    throw new IllegalArgumentException ("unsupported internal type: " + type);
-                }
-*/
-            } else {
-                String temp;
-                switch (wp.location) {
-                    case QueryString:
-                        if (!patched) {
-                            patchPUTParameters (request, paramsMap);
-                            patched = true;
-                        }
-//                        temp = request.getParameter (wp.name);
-                        temp = paramsMap.get (wp.name);
-                        if (StringUtil.isEmpty (temp)) {
-                            if (!StringUtil.isEmpty (wp.defaultValue)) {
-                                temp = wp.defaultValue;
-                            }
-                        }
-                        break;
-                    case Body:
-                        String contentType = request.getContentType ();
-                        if (contentType.contains ("json") || contentType.contains ("text/plain")) {
-                            temp = new String (IOUtil.read (request.getInputStream ()));
-                        } else {
-//                            temp = request.getParameter (wp.name);
-                            temp = paramsMap.get (wp.name);
-                        }
-                        break;
-                    case Path:
-                        temp = values.get (wp.name);
-                        break;
-                    case Header:
-                        temp = request.getHeader (wp.name);
-                        break;
-                    // @since 1.1.0
-                    case Internal:
-                        temp = "0";
-                        break;
-
-                    default:
-                        throw new IllegalArgumentException ("unknown location: " + wp.location);
-                }
-
-                Object o;
-                switch (wp.type) {
-                    case string:
-                        args[i] = temp;
-                        break;
-
-                    case integer:
-                        args[i] = Integer.parseInt (temp);
-                        break;
-
-                    case long_integer:
-                        args[i] = Long.parseLong (temp);
-                        break;
-
-                    case bool:
-                        args[i] = Boolean.parseBoolean (temp);
-                        break;
-
-                    case datetime:
-                        if (!StringUtil.isEmpty (temp)) {
-                            try {
-                                args[i] = new SimpleDateFormat ("yyyy-MM-dd HH:mm:ss").parse (temp);
-                            } catch (ParseException pe) {
-                                try {
-                                    args[i] = new SimpleDateFormat ("yyyy-MM-dd").parse (temp);
-                                } catch (ParseException ex) {
-                                    throw new RuntimeException (ex);
-                                }
-                            }
-                        }
-                        break;
-
-                    case raw:
-                        Class<?> parameterType = handler.method.method.getParameterTypes ()[i];
-                        args[i] = translate (temp, parameterType);
-                        break;
-                    // @since 1.1.0
-                    case request_attribute:
-                        o = request.getAttribute (wp.name);
-                        if (o == null && !wp.nullable) {
-                            throw new RuntimeException ("parameter [request." + wp.name + "] needs value, but meet null!");
-                        }
-                        args[i] = o;
-                        break;
-                    // @since 1.1.0
-                    case session_attribute:
-                        o = request.getSession ().getAttribute (wp.name);
-                        if (o == null && !wp.nullable) {
-                            throw new RuntimeException ("parameter [session." + wp.name + "] needs value, but meet null!");
-                        }
-                        args[i] = o;
-                        break;
-
-                    // @since 1.1.1
-                    case managed_session_attribute:
-                        if (session == null) {
-                            // 已经获取过了，但是没有，说明还未创建，创建一个
-                            session = manager.create (key);
-                            response.setHeader (KEY_MSA, session.id);
-                        }
-                        o = session.get (wp.name);
-                        if (o == null && !wp.nullable) {
-                            throw new RuntimeException ("parameter [MSA." + wp.name + "] needs value, but meet null!");
-                        }
-                        args[i] = o;
-                        break;
-                }
+    private void parseParameters (HttpServletRequest request, HttpServletResponse response,
+                                  WebHandler handler, Dispatch dispatch, Object[] args) throws IOException {
+        // @since 2.1.3 每个参数的来源和转换已经在启动时编译成绑定器
+        ParameterBinder[] binders = handler.method.binders;
+        BindContext ctx = dispatch.binding;
+        ctx.begin (request, response, dispatch.match, manager);
+        try {
+            for (int i = 0; i < args.length; i ++) {
+                args [i] = binders [i].bind (ctx);
             }
+        } finally {
+            ctx.clear ();
         }
-        return args;
     }
 
-    private static final Pattern P_TRUE = Pattern.compile ("^t|y|yes|on$", Pattern.CASE_INSENSITIVE);
-    private static final Pattern P_FALSE = Pattern.compile ("^f|n|no|off$", Pattern.CASE_INSENSITIVE);
-
-    private Object translate (String expression, Class<?> type) {
-
-        if (type == int.class || (type == Integer.class && !StringUtil.isEmpty (expression))) {
-            return Integer.parseInt (expression);
-        }
-        if (type == byte.class || type == Byte.class) {
-            return Byte.parseByte (expression);
-        }
-        if (type == char.class || (type == Character.class && !StringUtil.isEmpty (expression))) {
-            return expression.isEmpty () ? '\u0000' : expression.charAt (0);
-        }
-        if (type == short.class || (type == Short.class && !StringUtil.isEmpty (expression))) {
-            return Short.parseShort (expression);
-        }
-        if (type == long.class || (type == Long.class && !StringUtil.isEmpty (expression))) {
-            return Long.parseLong (expression);
-        }
-        if (type == boolean.class || type == Boolean.class) {
-            try {
-                return Boolean.parseBoolean (expression);
-            } catch (Exception ex) {
-                if (!StringUtil.isEmpty (expression)) {
-                    Matcher m = P_TRUE.matcher (expression);
-                    if (m.matches ()) {
-                        return true;
-                    }
-                    m = P_FALSE.matcher (expression);
-                    if (m.matches ()) {
-                        return false;
-                    }
+    /**
+     * 根据扩展名判断请求的是静态资源还是 java 页面，只比较最后一个 {@code .} 之后的部分，不分配对象
+     * @return {@link #RESOURCE}, {@link #PAGE} 或 0
+     */
+    private static int kindOf (String pathInfo) {
+        int pos = pathInfo.lastIndexOf ('.');
+        if (pos < 0) {
+            return 0;
+        }
+        int length = pathInfo.length () - pos - 1;
+        if (length < STATIC_RESOURCES.length) {
+            for (String ext : STATIC_RESOURCES [length]) {
+                if (pathInfo.regionMatches (true, pos + 1, ext, 0, length)) {
+                    return RESOURCE;
                 }
-                throw new NumberFormatException ("cannot convert " + expression + " to boolean");
             }
-        }
-        if (type == float.class || (type == Float.class && !StringUtil.isEmpty (expression))) {
-            return Float.parseFloat (expression);
-        }
-        if (type == double.class || (type == Double.class && !StringUtil.isEmpty (expression))) {
-            return Double.parseDouble (expression);
-        }
-        if (type.isAssignableFrom (String.class)) {
-            return expression;
-        }
-        if (type == BigDecimal.class && !StringUtil.isEmpty (expression)) {
-            return new BigDecimal (expression);
-        }
-        if (type == BigInteger.class && !StringUtil.isEmpty (expression)) {
-            return new BigInteger (expression);
-        }
-        if (type == Date.class && !StringUtil.isEmpty (expression)) {
-            return toDate (expression);
-        }
-        if (type == java.sql.Date.class && !StringUtil.isEmpty (expression)) {
-            return new java.sql.Date (toDate (expression).getTime ());
-        }
-        if (type == java.sql.Timestamp.class && !StringUtil.isEmpty (expression)) {
-            return new java.sql.Timestamp (toDate (expression).getTime ());
-        }
-        return StringUtil.isEmpty (expression) ? null : GsonHelper.getGson ().fromJson (expression, type);
-    }
-
-    private Date toDate (String expression) {
-        try {
-            return new SimpleDateFormat ("yyyy-MM-dd HH:mm:ss").parse (expression);
-        } catch (ParseException ex) {
-            try {
-                return new SimpleDateFormat ("yyyy-MM-dd").parse (expression);
-            } catch (ParseException e) {
-                throw new RuntimeException (e);
+            for (String ext : JAVA_PAGES [length]) {
+                if (pathInfo.regionMatches (true, pos + 1, ext, 0, length)) {
+                    return PAGE;
+                }
             }
         }
+        return 0;
     }
 
-    private void urlDecode (String body, Map<String, String> map) throws IOException {
-        String[] array = body.split ("&");
-        for (String pair : array) {
-            if (pair.contains ("=")) {
-                String[] parts = pair.trim ().split ("=");
-                String name = URLDecoder.decode (parts[0].trim (), UTF_8);
-                if (!StringUtil.isEmpty (parts[1])) {
-                    String value = URLDecoder.decode (parts[1].trim (), UTF_8);
-                    map.put (name, value);
-                } else {
-                    map.put (name, null);
-                }
-            } else {
-                map.put (URLDecoder.decode (pair.trim (), UTF_8), null);
-            }
+    /**
+     * 常见的 http 方法直接返回常量，避免每次请求都转换大小写
+     */
+    private static String lowerCase (String method) {
+        switch (method) {
+            case "GET":     return "get";
+            case "POST":    return "post";
+            case "PUT":     return "put";
+            case "DELETE":  return "delete";
+            case "PATCH":   return "patch";
+            case "HEAD":    return "head";
+            case "OPTIONS": return "options";
+            default:        return method.toLowerCase ();
         }
     }
 
-    private void patchPUTParameters (HttpServletRequest request, Map<String, String> map) throws IOException {
-        String contentType = request.getContentType ().toLowerCase ();
-        String method = request.getMethod ().toLowerCase ();
-        if ("get".equals (method) || "post".equals (method)) {
-            Enumeration<String> en = request.getParameterNames ();
-            while (en.hasMoreElements ()) {
-                String name = en.nextElement ();
-                map.put (name, request.getParameter (name));
-            }
-        } else if ("put".equals (method) && !StringUtil.isEmpty (contentType) && contentType.contains ("application/x-www-form-urlencoded")) {
-            String query = request.getQueryString ();
-            if (!StringUtil.isEmpty (query)) {
-                urlDecode (query, map);
+    /**
+     * 一个线程的分派状态：请求作用域、路由匹配的结果和按参数个数缓存的参数数组，请求结束时清空，下一个请求复用
+     * @since 2.1.3
+     */
+    private static final class Dispatch {
+        final RequestScope scope = RequestScope.create ();
+        final RouteTable.Match match = new RouteTable.Match ();
+        final BindContext binding = new BindContext ();
+        private Object[][] arguments;
+        boolean busy;
+
+        Object[] arguments (int n) {
+            if (arguments == null) {
+                arguments = new Object[Math.max (8, n + 1)][];
+            } else if (n >= arguments.length) {
+                arguments = Arrays.copyOf (arguments, n + 1);
             }
-            String body = new String (IOUtil.read (request.getInputStream ()));
-            if (!StringUtil.isEmpty (body)) {
-                urlDecode (body, map);
+            Object[] args = arguments [n];
+            if (args == null) {
+                args = arguments [n] = new Object[n];
             }
+            return args;
         }
     }
 }
@@ -0,0 +1,141 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import org.dreamwork.dsi.embedded.httpd.starter.SessionManager;
+import org.dreamwork.util.IOUtil;
+import org.dreamwork.util.StringUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 绑定一次请求的参数时共享的状态.
+ *
+ * <p>表单、请求体和托管的会话都在第一次被某个参数绑定器用到时才解析，之后同一个请求内的绑定器共享解析的结果；
+ * 没有绑定器需要它们时完全不解析。实例在 {@link #clear()} 之后可以被同一个线程的下一个请求复用</p>
+ *
+ * @since 2.1.3
+ */
+final class BindContext {
+    static final String KEY_MSA = "X-Managed-Session";
+    private static final String UTF_8 = "utf-8";
+
+    HttpServletRequest request;
+    HttpServletResponse response;
+    RouteTable.Match values;
+    SessionManager manager;
+
+    private Map<String, String> form;
+    private String body;
+    private boolean bodyRead;
+    private ManagedSession session;
+
+    void begin (HttpServletRequest request, HttpServletResponse response, RouteTable.Match values, SessionManager manager) {
+        this.request  = request;
+        this.response = response;
+        this.values   = values;
+        this.manager  = manager;
+    }
+
+    void clear () {
+        request  = null;
+        response = null;
+        values   = null;
+        manager  = null;
+        form     = null;
+        body     = null;
+        bodyRead = false;
+        session  = null;
+    }
+
+    /**
+     * 请求的表单项。GET 和 POST 请求取自容器解析的参数，{@code application/x-www-form-urlencoded} 的 PUT 请求
+     * 自行解析查询字符串和请求体
+     * @param name 表单项的名称
+     * @return 表单项的值
+     */
+    String form (String name) throws IOException {
+        if (form == null) {
+            form = new HashMap<> ();
+            parseForm (form);
+        }
+        return form.get (name);
+    }
+
+    /**
+     * 整个请求体，只读取一次
+     * @return 请求体
+     */
+    String body () throws IOException {
+        if (!bodyRead) {
+            body = new String (IOUtil.read (request.getInputStream ()));
+            bodyRead = true;
+        }
+        return body;
+    }
+
+    /**
+     * 当前请求的托管会话，请求头中没有指定或者已经过期时创建一个新的会话
+     * @return 托管的会话
+     * @since 1.1.1
+     */
+    ManagedSession managedSession () {
+        if (session == null) {
+            String key = request.getHeader (KEY_MSA);
+            if (!StringUtil.isEmpty (key)) {
+                session = manager.get (key);
+                response.setHeader (KEY_MSA, key);
+            }
+            if (session == null) {
+                // session 还未创建，创建一个
+                session = manager.create (key);
+                response.setHeader (KEY_MSA, session.id);
+            }
+        }
+        return session;
+    }
+
+    private void parseForm (Map<String, String> map) throws IOException {
+        String contentType = request.getContentType ();
+        String method = request.getMethod ();
+        if ("GET".equalsIgnoreCase (method) || "POST".equalsIgnoreCase (method)) {
+            Enumeration<String> en = request.getParameterNames ();
+            while (en.hasMoreElements ()) {
+                String name = en.nextElement ();
+                map.put (name, request.getParameter (name));
+            }
+        } else if ("PUT".equalsIgnoreCase (method) && !StringUtil.isEmpty (contentType) &&
+                contentType.toLowerCase ().contains ("application/x-www-form-urlencoded")) {
+            String query = request.getQueryString ();
+            if (!StringUtil.isEmpty (query)) {
+                urlDecode (query, map);
+            }
+            String body = body ();
+            if (!StringUtil.isEmpty (body)) {
+                urlDecode (body, map);
+            }
+        }
+    }
+
+    private static void urlDecode (String body, Map<String, String> map) throws IOException {
+        String[] array = body.split ("&");
+        for (String pair : array) {
+            if (pair.contains ("=")) {
+                String[] parts = pair.trim ().split ("=");
+                String name = URLDecoder.decode (parts[0].trim (), UTF_8);
+                if (parts.length > 1 && !StringUtil.isEmpty (parts[1])) {
+                    String value = URLDecoder.decode (parts[1].trim (), UTF_8);
+                    map.put (name, value);
+                } else {
+                    map.put (name, null);
+                }
+            } else {
+                map.put (URLDecoder.decode (pair.trim (), UTF_8), null);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.dreamwork.dsi.embedded.httpd.support;
 
 import org.dreamwork.injection.IObjectContext;
+import org.dreamwork.injection.impl.MemberAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,7 +41,7 @@ public abstract class InjectableServlet extends HttpServlet {
     public void destroy () {
         if (cache != null && cache.destroyer != null) {
             try {
-                cache.destroyer.invoke (this);
+                MemberAccessor.invoke (cache.destroyer, this);
             } catch (Exception ex) {
                 logger.warn (ex.getMessage (), ex);
                 throw new RuntimeException (ex);
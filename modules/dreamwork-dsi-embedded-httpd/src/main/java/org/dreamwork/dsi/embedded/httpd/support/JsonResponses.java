@@ -0,0 +1,125 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 把处理方法的结果以 json 格式直接写入响应.
+ *
+ * <p>结果不再先序列化成一个完整的字符串：响应的编码是 UTF-8 时通过缓冲的 {@link JsonWriter} 直接写入响应的输出流，
+ * 其他编码 (或者处理方法已经使用过 {@code getWriter ()}) 时写入 {@code response.getWriter ()}。
+ * {@link WebJsonResult} 的外层结构也是逐个字段写出的，被包裹的结果不需要先变成字符串</p>
+ *
+ * <p>所有请求共享同一个 {@link Gson}，每个处理方法缓存它最近一次返回的结果类型的 {@link TypeAdapter}，
+ * 声明的返回类型是具体类型时在启动时预先生成</p>
+ *
+ * @since 2.1.3
+ */
+final class JsonResponses {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Gson gson;
+
+    JsonResponses (Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * 预先生成处理方法的返回类型的适配器。返回类型是接口、抽象类或 {@code Object} 时，
+     * 真实的类型要到运行时才知道，在第一次写出时生成
+     * @param wmm 处理方法
+     */
+    void prepare (WebMappedMethod wmm) {
+        Class<?> type = wmm.method.getReturnType ();
+        if (type.isPrimitive () || type.isInterface () || type == Object.class || Modifier.isAbstract (type.getModifiers ())) {
+            return;
+        }
+        adapter (wmm, type);
+    }
+
+    /**
+     * 写出处理方法的结果
+     * @param response 响应
+     * @param wmm      处理方法
+     * @param value    结果，不能为 {@code null}
+     */
+    void write (HttpServletResponse response, WebMappedMethod wmm, Object value) throws IOException {
+        JsonWriter writer = open (response);
+        adapter (wmm, value.getClass ()).write (writer, value);
+        writer.flush ();
+    }
+
+    /**
+     * 以 {@link WebJsonResult} 的结构包裹并写出结果，和直接序列化一个 {@code WebJsonResult} 的输出相同
+     * @param response 响应
+     * @param wmm      处理方法
+     * @param code     代码
+     * @param message  消息
+     * @param value    结果
+     */
+    void writeWrapped (HttpServletResponse response, WebMappedMethod wmm, int code, String message, Object value) throws IOException {
+        JsonWriter writer = open (response);
+        writer.beginObject ();
+        writer.name ("code").value (code);
+        writer.name ("message").value (message);
+        writer.name ("result");
+        if (value == null) {
+            // 不输出 null 时，JsonWriter 连同字段名一起丢弃
+            writer.nullValue ();
+        } else {
+            adapter (wmm, value.getClass ()).write (writer, value);
+        }
+        writer.endObject ();
+        writer.flush ();
+    }
+
+    /**
+     * 写出任意的对象，用于错误信息等不频繁的输出
+     * @param response 响应
+     * @param value    对象
+     */
+    void writeObject (HttpServletResponse response, Object value) throws IOException {
+        JsonWriter writer = open (response);
+        gson.toJson (value, value.getClass (), writer);
+        writer.flush ();
+    }
+
+    private JsonWriter open (HttpServletResponse response) throws IOException {
+        Writer out = null;
+        if (StandardCharsets.UTF_8.name ().equalsIgnoreCase (response.getCharacterEncoding ())) {
+            try {
+                out = new OutputStreamWriter (response.getOutputStream (), StandardCharsets.UTF_8);
+            } catch (IllegalStateException ex) {
+                // 处理方法已经使用过 getWriter ()
+                out = null;
+            }
+        }
+        if (out == null) {
+            out = response.getWriter ();
+        }
+        JsonWriter writer = gson.newJsonWriter (new BufferedWriter (out, BUFFER_SIZE));
+        // 和 Gson.toJson 一致
+        writer.setLenient (true);
+        return writer;
+    }
+
+    @SuppressWarnings ("unchecked")
+    private TypeAdapter<Object> adapter (WebMappedMethod wmm, Class<?> type) {
+        WebMappedMethod.ResultAdapter cached = wmm.resultAdapter;
+        if (cached == null || cached.type != type) {
+            // 并发时可能重复生成，但 Gson 自己也有缓存，结果相同
+            cached = new WebMappedMethod.ResultAdapter (type, (TypeAdapter<Object>) gson.getAdapter (type));
+            wmm.resultAdapter = cached;
+        }
+        return cached.adapter;
+    }
+}
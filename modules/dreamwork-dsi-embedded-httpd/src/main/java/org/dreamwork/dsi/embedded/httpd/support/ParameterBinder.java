@@ -0,0 +1,23 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import java.io.IOException;
+
+/**
+ * 处理方法的一个参数的绑定器.
+ *
+ * <p>每个 {@link WebMappedMethod} 在创建时为它的每个参数编译一个绑定器：参数的来源和类型转换都在那时确定，
+ * 处理请求时只需要依次调用绑定器</p>
+ *
+ * @see ParameterBinders
+ * @since 2.1.3
+ */
+@FunctionalInterface
+interface ParameterBinder {
+    /**
+     * 从请求中取得参数的值
+     * @param ctx 请求的绑定状态
+     * @return 参数的值
+     * @throws IOException 读取请求体失败时
+     */
+    Object bind (BindContext ctx) throws IOException;
+}
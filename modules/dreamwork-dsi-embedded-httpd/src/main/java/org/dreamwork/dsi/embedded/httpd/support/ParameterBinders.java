@@ -0,0 +1,284 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import org.dreamwork.gson.GsonHelper;
+import org.dreamwork.util.StringUtil;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.ParsePosition;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 编译 {@link ParameterBinder}.
+ *
+ * <p>参数的来源 (路径、表单、请求体、请求头、内部对象) 和到参数类型的转换都在编译时选定：
+ * 基本类型使用对应的解析方法，枚举使用 {@link Enum#valueOf(Class, String)}，日期使用线程安全的
+ * {@link DateTimeFormatter} (同时支持 {@code java.time} 的类型)，其他类型使用按参数的泛型类型缓存的
+ * Gson {@link TypeAdapter}</p>
+ *
+ * @since 2.1.3
+ */
+final class ParameterBinders {
+    /**
+     * 日期格式 {@code yyyy-MM-dd[ HH:mm[:ss]]}，月、日、时、分、秒可以是一位数字，
+     * 和原先使用的 {@code SimpleDateFormat} 一样忽略末尾无法解析的部分
+     */
+    private static final DateTimeFormatter DATETIME = new DateTimeFormatterBuilder ()
+            .appendPattern ("u-M-d")
+            .optionalStart ().appendLiteral (' ').appendPattern ("H:m")
+            .optionalStart ().appendLiteral (':').appendPattern ("s").optionalEnd ()
+            .optionalEnd ()
+            .parseDefaulting (ChronoField.HOUR_OF_DAY, 0)
+            .parseDefaulting (ChronoField.MINUTE_OF_HOUR, 0)
+            .parseDefaulting (ChronoField.SECOND_OF_MINUTE, 0)
+            .toFormatter ();
+
+    private ParameterBinders () {}
+
+    /**
+     * 为方法的每个参数编译一个绑定器
+     * @param method     方法
+     * @param parameters 方法的参数描述
+     * @return 绑定器，和参数一一对应
+     */
+    static ParameterBinder[] compile (Method method, List<WebParameter> parameters) {
+        Class<?>[] types = method.getParameterTypes ();
+        Type[] generics  = method.getGenericParameterTypes ();
+        ParameterBinder[] binders = new ParameterBinder[parameters.size ()];
+        for (int i = 0; i < binders.length; i ++) {
+            // 参数的批注有误时描述和参数的个数可能不一致，由调用时的参数个数检查报告
+            Class<?> type = i < types.length ? types [i] : Object.class;
+            Type generic  = i < generics.length ? generics [i] : Object.class;
+            binders [i] = compile (parameters.get (i), type, generic);
+        }
+        return binders;
+    }
+
+    private static ParameterBinder compile (WebParameter wp, Class<?> type, Type generic) {
+        if (wp == null || wp.internal) {
+            return internal (type);
+        }
+
+        final String name = wp.name;
+        switch (wp.type) {
+            // @since 1.1.0
+            case request_attribute:
+                return ctx -> required (ctx.request.getAttribute (name), wp, "request.");
+            // @since 1.1.0
+            case session_attribute:
+                return ctx -> required (ctx.request.getSession ().getAttribute (name), wp, "session.");
+            // @since 1.1.1
+            case managed_session_attribute:
+                return ctx -> required (ctx.managedSession ().get (name), wp, "MSA.");
+            default:
+                break;
+        }
+
+        Function<String, Object> converter = converter (wp.type, type, generic);
+        switch (wp.location) {
+            case QueryString: {
+                final String defaultValue = wp.defaultValue;
+                if (StringUtil.isEmpty (defaultValue)) {
+                    return ctx -> converter.apply (ctx.form (name));
+                }
+                return ctx -> {
+                    String text = ctx.form (name);
+                    return converter.apply (StringUtil.isEmpty (text) ? defaultValue : text);
+                };
+            }
+            case Body:
+                return ctx -> {
+                    String contentType = ctx.request.getContentType ();
+                    if (contentType != null && (contentType.contains ("json") || contentType.contains ("text/plain"))) {
+                        return converter.apply (ctx.body ());
+                    }
+                    return converter.apply (ctx.form (name));
+                };
+            case Path:
+                return ctx -> converter.apply (ctx.values.get (name));
+            case Header:
+                return ctx -> converter.apply (ctx.request.getHeader (name));
+            // @since 1.1.0
+            case Internal:
+                return ctx -> converter.apply ("0");
+            default:
+                throw new IllegalArgumentException ("unknown location: " + wp.location);
+        }
+    }
+
+    private static ParameterBinder internal (Class<?> type) {
+        if (type == HttpContext.class) {
+            return ctx -> HttpContext.current ();
+        } else if (type == javax.servlet.ServletContext.class) {
+            return ctx -> ctx.request.getServletContext ();
+        } else if (type == HttpServletRequest.class) {
+            return ctx -> ctx.request;
+        } else if (type == HttpServletResponse.class) {
+            return ctx -> ctx.response;
+        } else if (type == HttpSession.class) {
+            return ctx -> ctx.request.getSession ();
+        } else if (type == ManagedSession.class) {
+            // @since 1.1.1
+            return BindContext::managedSession;
+        }
+        // 和之前一样在请求时才报告，不影响其他处理方法的启动
+        return ctx -> {
+            throw new IllegalArgumentException ("unsupported internal type: " + type);
+        };
+    }
+
+    private static Object required (Object o, WebParameter wp, String scope) {
+        if (o == null && !wp.nullable) {
+            throw new RuntimeException ("parameter [" + scope + wp.name + "] needs value, but meet null!");
+        }
+        return o;
+    }
+
+    /**
+     * 按参数的声明类型选定转换器
+     */
+    private static Function<String, Object> converter (ParameterType pt, Class<?> type, Type generic) {
+        switch (pt) {
+            case integer:
+                return Integer::parseInt;
+            case long_integer:
+                return Long::parseLong;
+            case bool:
+                return Boolean::parseBoolean;
+            case datetime: {
+                Function<String, Object> temporal = temporal (type);
+                Function<String, Object> f = temporal != null ? temporal : ParameterBinders::toDate;
+                return text -> StringUtil.isEmpty (text) ? null : f.apply (text);
+            }
+            case raw:
+                return raw (type, generic);
+            case string:
+            default:
+                return text -> text;
+        }
+    }
+
+    /**
+     * {@link ParameterType#raw} 类型的参数，和原先的转换规则一致：基本类型总是解析 (空值时抛出异常)，
+     * 包装类型和其他类型在空值时为 {@code null}
+     */
+    @SuppressWarnings ({"unchecked", "rawtypes"})
+    private static Function<String, Object> raw (Class<?> type, Type generic) {
+        if (type == int.class)     return Integer::parseInt;
+        if (type == long.class)    return Long::parseLong;
+        if (type == short.class)   return Short::parseShort;
+        if (type == byte.class || type == Byte.class) return Byte::parseByte;
+        if (type == float.class)   return Float::parseFloat;
+        if (type == double.class)  return Double::parseDouble;
+        if (type == boolean.class || type == Boolean.class) return Boolean::parseBoolean;
+        if (type == char.class)    return text -> text.isEmpty () ? '\u0000' : text.charAt (0);
+        if (type.isAssignableFrom (String.class)) {
+            return text -> text;
+        }
+
+        Function<String, Object> f;
+        if (type == Integer.class) {
+            f = Integer::parseInt;
+        } else if (type == Long.class) {
+            f = Long::parseLong;
+        } else if (type == Short.class) {
+            f = Short::parseShort;
+        } else if (type == Float.class) {
+            f = Float::parseFloat;
+        } else if (type == Double.class) {
+            f = Double::parseDouble;
+        } else if (type == Character.class) {
+            f = text -> text.charAt (0);
+        } else if (type == BigDecimal.class) {
+            f = BigDecimal::new;
+        } else if (type == BigInteger.class) {
+            f = BigInteger::new;
+        } else if (type == Date.class) {
+            f = ParameterBinders::toDate;
+        } else if (type == java.sql.Date.class) {
+            f = text -> new java.sql.Date (toDate (text).getTime ());
+        } else if (type == java.sql.Timestamp.class) {
+            f = text -> new java.sql.Timestamp (toDate (text).getTime ());
+        } else if ((f = temporal (type)) == null) {
+            TypeAdapter<?> adapter = GsonHelper.getGson ().getAdapter (TypeToken.get (generic));
+            if (type.isEnum ()) {
+                // 常量名优先，其他写法 (比如 @SerializedName) 交给 Gson
+                Class<? extends Enum> et = (Class<? extends Enum>) type;
+                f = text -> {
+                    try {
+                        return Enum.valueOf (et, text.trim ());
+                    } catch (IllegalArgumentException ex) {
+                        return fromJson (adapter, text);
+                    }
+                };
+            } else {
+                f = text -> fromJson (adapter, text);
+            }
+        }
+        final Function<String, Object> converter = f;
+        return text -> StringUtil.isEmpty (text) ? null : converter.apply (text);
+    }
+
+    /**
+     * {@code java.time} 类型的转换器，不是这些类型时返回 {@code null}
+     */
+    private static Function<String, Object> temporal (Class<?> type) {
+        if (type == LocalDateTime.class) {
+            return text -> LocalDateTime.from (parse (text));
+        } else if (type == LocalDate.class) {
+            return text -> LocalDate.from (parse (text));
+        } else if (type == LocalTime.class) {
+            return text -> LocalTime.parse (text.trim ());
+        } else if (type == Instant.class) {
+            return text -> text.indexOf ('T') > 0 ? Instant.parse (text.trim ()) : toDate (text).toInstant ();
+        } else if (type == OffsetDateTime.class) {
+            return text -> OffsetDateTime.parse (text.trim ());
+        } else if (type == ZonedDateTime.class) {
+            return text -> ZonedDateTime.parse (text.trim ());
+        }
+        return null;
+    }
+
+    private static TemporalAccessor parse (String text) {
+        ParsePosition pos = new ParsePosition (0);
+        TemporalAccessor ta = DATETIME.parse (text.trim (), pos);
+        if (pos.getErrorIndex () >= 0) {
+            throw new DateTimeParseException ("cannot parse date: " + text, text, pos.getErrorIndex ());
+        }
+        return ta;
+    }
+
+    static Date toDate (String text) {
+        LocalDateTime ldt = LocalDateTime.from (parse (text));
+        return Date.from (ldt.atZone (ZoneId.systemDefault ()).toInstant ());
+    }
+
+    private static Object fromJson (TypeAdapter<?> adapter, String text) {
+        try {
+            JsonReader reader = new JsonReader (new StringReader (text));
+            reader.setLenient (true);
+            return adapter.read (reader);
+        } catch (IOException | IllegalStateException ex) {
+            throw new JsonSyntaxException (ex);
+        }
+    }
+}
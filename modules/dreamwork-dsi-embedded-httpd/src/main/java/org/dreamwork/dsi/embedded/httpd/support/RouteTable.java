@@ -0,0 +1,282 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import java.util.*;
+import java.util.regex.Matcher;
+
+/**
+ * 按路径段组织的路由树.
+ *
+ * <p>每个 {@link WebMappedMethod} 的模板按 {@code /} 拆分成段，逐段插入树中。段分为三种：</p>
+ * <ul>
+ * <li>字面段 - 完全匹配，在节点中以 {@code HashMap} 索引</li>
+ * <li>变量段 - 形如 {@code ${name}} 或 {@code prefix${name}suffix}，匹配任意一个以 {@code prefix} 开头、
+ * 以 {@code suffix} 结尾、且去掉前后缀后不为空的段，去掉前后缀的部分作为变量的值。
+ * 注意 2.1.3 之前前后缀不参与匹配，变量的值是整个段</li>
+ * <li>通配段 - 模板最后的 {@code *}，匹配任意一个段</li>
+ * </ul>
+ * <p>匹配时逐段下行，同一层级按 字面段 &gt; 变量段 (前后缀长的优先) &gt; 通配段 的顺序尝试，
+ * 下层匹配失败时回退到下一个候选，所以匹配的代价只和路径的深度有关，和路由的数量无关。
+ * 形状完全相同 (只有变量名不同) 的两个模板无法区分，添加时抛出 {@link IllegalArgumentException}</p>
+ *
+ * <p>路由树在启动时一次构建完成，之后只读，可以被多个线程同时使用</p>
+ *
+ * @since 2.1.3
+ */
+public final class RouteTable {
+    private final Node root = new Node ();
+    private int size;
+
+    /**
+     * 添加一个路由
+     * @param wmm 映射的方法
+     * @throws IllegalArgumentException 和已有的路由形状相同时
+     */
+    public void add (WebMappedMethod wmm) {
+        List<String> parts = split (wmm.pattern);
+        String[] names = new String[parts.size ()];
+        Node node = root;
+        for (int i = 0, n = parts.size (); i < n; i ++) {
+            String part = parts.get (i);
+            if (i == n - 1 && "*".equals (part)) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node ();
+                }
+                node = node.wildcard;
+                continue;
+            }
+            Matcher m = part.contains ("${") ? WebMappedMethod.PARSER.matcher (part) : null;
+            if (m != null && m.matches ()) {
+                names [i] = m.group (2).trim ();
+                node = node.variable (m.group (1) == null ? "" : m.group (1), m.group (3) == null ? "" : m.group (3));
+            } else {
+                if (node.literals == null) {
+                    node.literals = new HashMap<> ();
+                }
+                node = node.literals.computeIfAbsent (part, key -> new Node ());
+            }
+        }
+        if (node.route != null) {
+            // 哪一个先添加取决于扫描的顺序，不确定，所以不能保留其中任何一个
+            throw new IllegalArgumentException ("ambiguous routes: " + node.route.method.pattern + " (" + node.route.method.method +
+                    ") and " + wmm.pattern + " (" + wmm.method + ") have the same shape");
+        }
+        node.route = new Route (wmm, names);
+        size ++;
+    }
+
+    /**
+     * 路由的数量
+     * @return 路由的数量
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * 查找匹配指定路径的方法
+     * @param pathInfo   请求的路径
+     * @param parsedArgs 出参，匹配的模板中变量的值
+     * @return 匹配的方法，没有时返回 {@code null}
+     */
+    public WebMappedMethod match (String pathInfo, Map<String, String> parsedArgs) {
+        Match match = new Match ();
+        WebMappedMethod wmm = match (pathInfo, match);
+        if (wmm != null) {
+            match.copyTo (parsedArgs);
+        }
+        return wmm;
+    }
+
+    /**
+     * 查找匹配指定路径的方法，路径的段和变量的值保存在调用者提供的 {@link Match} 中，
+     * 同一个 {@code Match} 可以在同一个线程内反复使用
+     * @param pathInfo 请求的路径
+     * @param match    出参，匹配的结果
+     * @return 匹配的方法，没有时返回 {@code null}
+     */
+    public WebMappedMethod match (String pathInfo, Match match) {
+        match.split (pathInfo);
+        match.route = find (root, match.segments, match.count, 0, match.values);
+        return match.route == null ? null : match.route.method;
+    }
+
+    private static Route find (Node node, String[] segments, int count, int depth, String[] values) {
+        if (depth == count) {
+            return node.route;
+        }
+        String segment = segments [depth];
+        if (node.literals != null) {
+            Node child = node.literals.get (segment);
+            if (child != null) {
+                Route route = find (child, segments, count, depth + 1, values);
+                if (route != null) {
+                    return route;
+                }
+            }
+        }
+        if (node.variables != null) {
+            for (int i = 0, n = node.variables.size (); i < n; i ++) {
+                Node child = node.variables.get (i);
+                int length = segment.length () - child.prefix.length () - child.suffix.length ();
+                if (length > 0 && segment.startsWith (child.prefix) && segment.endsWith (child.suffix)) {
+                    values [depth] = segment.substring (child.prefix.length (), child.prefix.length () + length);
+                    Route route = find (child, segments, count, depth + 1, values);
+                    if (route != null) {
+                        return route;
+                    }
+                }
+            }
+            values [depth] = null;
+        }
+        if (node.wildcard != null && depth == count - 1) {
+            return node.wildcard.route;
+        }
+        return null;
+    }
+
+    /**
+     * 按 {@code /} 拆分路径，忽略空白的段
+     */
+    private static List<String> split (String path) {
+        List<String> list = new ArrayList<> (8);
+        int start = 0, n = path.length ();
+        while (start < n) {
+            int end = path.indexOf ('/', start);
+            if (end < 0) {
+                end = n;
+            }
+            String part = path.substring (start, end).trim ();
+            if (!part.isEmpty ()) {
+                list.add (part);
+            }
+            start = end + 1;
+        }
+        return list;
+    }
+
+    /**
+     * 一次匹配的结果：路径的段、每一段对应的变量值和匹配到的路由.
+     *
+     * <p>数组按需扩容后一直复用，所以同一个线程反复匹配时不再分配数组，也不需要为变量分配 {@code Map}。
+     * 上一次拆分出的段也被保留，和这次的段内容相同时直接复用，所以反复请求相同的路径时不分配任何对象。
+     * 实例不是线程安全的</p>
+     */
+    public static final class Match {
+        private String[] segments = new String[8];
+        private String[] values   = new String[8];
+        private int count;
+        private Route route;
+
+        /**
+         * 按名称获取路径变量的值
+         * @param name 变量名
+         * @return 变量的值，没有匹配或没有这个变量时返回 {@code null}
+         */
+        public String get (String name) {
+            if (route != null) {
+                String[] names = route.names;
+                for (int i = 0; i < count; i ++) {
+                    if (names [i] != null && names [i].equals (name)) {
+                        return values [i];
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 清除上一次匹配的结果
+         */
+        public void clear () {
+            for (int i = 0; i < count; i ++) {
+                values [i] = null;
+            }
+            count = 0;
+            route = null;
+        }
+
+        void copyTo (Map<String, String> parsedArgs) {
+            for (int i = 0; i < count; i ++) {
+                if (route.names [i] != null) {
+                    parsedArgs.put (route.names [i], values [i]);
+                }
+            }
+        }
+
+        void split (String path) {
+            clear ();
+            int start = 0, n = path.length ();
+            while (start < n) {
+                int end = path.indexOf ('/', start);
+                if (end < 0) {
+                    end = n;
+                }
+                // 逐段去掉空白，只有确实需要时才分配子串
+                int from = start, to = end;
+                while (from < to && path.charAt (from) <= ' ') {
+                    from ++;
+                }
+                while (to > from && path.charAt (to - 1) <= ' ') {
+                    to --;
+                }
+                if (from < to) {
+                    if (count == segments.length) {
+                        segments = Arrays.copyOf (segments, count * 2);
+                        values   = Arrays.copyOf (values, count * 2);
+                    }
+                    String last = segments [count];
+                    if (last == null || last.length () != to - from || !path.regionMatches (from, last, 0, to - from)) {
+                        segments [count] = path.substring (from, to);
+                    }
+                    count ++;
+                }
+                start = end + 1;
+            }
+        }
+    }
+
+    private static final class Route {
+        final WebMappedMethod method;
+        /** 每一段对应的变量名，不是变量段时为 {@code null} */
+        final String[] names;
+
+        Route (WebMappedMethod method, String[] names) {
+            this.method = method;
+            this.names  = names;
+        }
+    }
+
+    private static final class Node {
+        final String prefix, suffix;
+
+        Map<String, Node> literals;
+        /** 变量段，前后缀长的在前 */
+        List<Node> variables;
+        Node wildcard;
+        Route route;
+
+        Node () {
+            this ("", "");
+        }
+
+        Node (String prefix, String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        Node variable (String prefix, String suffix) {
+            if (variables == null) {
+                variables = new ArrayList<> (2);
+            }
+            for (Node child : variables) {
+                if (child.prefix.equals (prefix) && child.suffix.equals (suffix)) {
+                    return child;
+                }
+            }
+            Node child = new Node (prefix, suffix);
+            variables.add (child);
+            variables.sort ((a, b) -> (b.prefix.length () + b.suffix.length ()) - (a.prefix.length () + a.suffix.length ()));
+            return child;
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package org.dreamwork.dsi.embedded.httpd.support;
 
-import com.google.gson.Gson;
 import org.dreamwork.config.IConfiguration;
 import org.dreamwork.injection.AConfigured;
 import org.dreamwork.injection.IObjectContext;
+import org.dreamwork.injection.impl.BeanDescriptor;
+import org.dreamwork.injection.impl.ConfigConverter;
+import org.dreamwork.injection.impl.MemberAccessor;
 import org.dreamwork.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,7 +28,6 @@ public class WebComponentHelper {
     }
 
     public static<T> void injectFields (T instance, Cache c) throws InstantiationException {
-        Gson g = new Gson ();
         if (!c.fields.isEmpty ()) { // 注入字段
             for (Field field : c.fields) {
                 Class<?> ft = field.getType ();
@@ -44,10 +45,7 @@ public class WebComponentHelper {
                 }
                 if (target != null) {
                     try {
-                        if (!field.isAccessible ()) {
-                            field.setAccessible (true);
-                        }
-                        field.set (instance, target);
+                        MemberAccessor.set (field, instance, target);
                     } catch (Exception ex) {
                         throw new InstantiationException ("cannot inject field: " + field.getName ());
                     }
@@ -64,21 +62,14 @@ public class WebComponentHelper {
                 String expression = bean.getString (key);
                 Object target;
                 if (!StringUtil.isEmpty (expression)) {
-                    if (ft.isAssignableFrom (String.class)) {
-                        target = expression;
-                    } else {
-                        try {
-                            target = g.fromJson (expression, ft);
-                        } catch (Exception ex) {
-                            logger.error ("cannot convert {} to {} when injecting {}", expression, field.getDeclaringClass (), field);
-                            throw new RuntimeException (ex);
-                        }
+                    try {
+                        target = ConfigConverter.of (field).convert (expression);
+                    } catch (Exception ex) {
+                        logger.error ("cannot convert {} to {} when injecting {}", expression, ft, field);
+                        throw new RuntimeException (ex);
                     }
                     try {
-                        if (!field.isAccessible ()) {
-                            field.setAccessible (true);
-                        }
-                        field.set (instance, target);
+                        MemberAccessor.set (field, instance, target);
                     } catch (Exception ex) {
                         throw new InstantiationException ("cannot inject field: " + field.getName ());
                     }
@@ -92,9 +83,6 @@ public class WebComponentHelper {
     public static<T> void injectMethod (T instance, Cache c) throws InstantiationException {
         if (!c.methods.isEmpty ()) {
             for (Method method : c.methods) {
-                if (!method.isAccessible ()) {
-                    method.setAccessible (true);
-                }
                 int count = method.getParameterCount ();
                 if (count == 1 && method.isAnnotationPresent (Resources.class)) {
                     Resource res = method.getAnnotation (Resource.class);
@@ -102,7 +90,7 @@ public class WebComponentHelper {
                     Object target = getValue (res, pt);
                     if (target != null) {
                         try {
-                            method.invoke (instance, target);
+                            MemberAccessor.invoke (method, instance, target);
                         } catch (Exception ex) {
                             logger.warn (ex.getMessage (), ex);
                             throw new InstantiationException ("cannot inject method: " + method + ", cause of " + ex.getMessage ());
@@ -130,7 +118,7 @@ public class WebComponentHelper {
                     }
 
                     try {
-                        method.invoke (instance, args);
+                        MemberAccessor.invoke (method, instance, args);
                     } catch (Exception ex) {
                         logger.warn (ex.getMessage (), ex);
                         throw new InstantiationException ("cannot inject resource for method: " + method);
@@ -171,19 +159,9 @@ public class WebComponentHelper {
     }
 
     public static void findField (Class<?> type, Collection<Field> fieldsInjection, Collection<Field> configs) {
-        Field[] fields = type.getDeclaredFields ();
-        for (Field field : fields) {
-            if (field.isAnnotationPresent (Resource.class)) {
-                fieldsInjection.add (field);
-            } else if (field.isAnnotationPresent (AConfigured.class)) {
-                configs.add (field);
-            }
-        }
-
-        Class<?> parent = type.getSuperclass ();
-        if (parent != null && parent != Object.class) {
-            findField (parent, fieldsInjection, configs);
-        }
+        BeanDescriptor descriptor = BeanDescriptor.of (type);
+        fieldsInjection.addAll (descriptor.resourceFields);
+        configs.addAll (descriptor.configuredFields);
     }
 
     public static void findMethods (Class<?> type, Cache c) throws InstantiationException {
@@ -246,7 +224,7 @@ public class WebComponentHelper {
         injectMethod (instance, c);
         if (c.starter != null) {
             try {
-                c.starter.invoke (instance);
+                MemberAccessor.invoke (c.starter, instance);
             } catch (Exception ex) {
                 throw new RuntimeException (ex);
             }
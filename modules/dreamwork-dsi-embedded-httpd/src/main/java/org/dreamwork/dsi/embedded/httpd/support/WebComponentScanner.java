@@ -14,8 +14,10 @@ import javax.servlet.annotation.WebFilter;
 import javax.servlet.annotation.WebInitParam;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
+import java.lang.annotation.Annotation;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Set;
 
 import static org.dreamwork.util.CollectionHelper.isNotEmpty;
@@ -49,6 +51,15 @@ public class WebComponentScanner extends ClassScanner {
         return false;
     }
 
+    /**
+     * 只接受被 {@link WebServlet} 或 {@link WebFilter} 标注的类，编译期组件索引记录了所有这样的类
+     * @since 2.1.3
+     */
+    @Override
+    protected Collection<Class<? extends Annotation>> getIndexedAnnotations () {
+        return Arrays.asList (WebServlet.class, WebFilter.class);
+    }
+
     /**
      * 当扫描器找到所需的类时触发该事件。
      *
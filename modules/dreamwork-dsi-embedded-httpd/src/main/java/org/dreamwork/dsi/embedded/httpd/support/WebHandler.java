@@ -1,11 +1,14 @@
 package org.dreamwork.dsi.embedded.httpd.support;
 
+/**
+ * 匹配到的处理方法。自 2.1.3 起同一个方法的所有匹配共享一个实例，所以字段都是 final 的
+ */
 public class WebHandler {
-    public String beanName;
-    public WebMappedMethod method;
-    public HandlerType type;
+    public final String beanName;
+    public final WebMappedMethod method;
+    public final HandlerType type;
     /** @since  1.1.0 */
-    public boolean wrapped;
+    public final boolean wrapped;
 
     public WebHandler (String beanName, WebMappedMethod method) {
         this.beanName = beanName;
@@ -1,6 +1,8 @@
 package org.dreamwork.dsi.embedded.httpd.support;
 
+import com.google.gson.TypeAdapter;
 import org.dreamwork.dsi.embedded.httpd.annotation.*;
+import org.dreamwork.injection.impl.MemberAccessor;
 import org.dreamwork.util.StringUtil;
 
 import java.lang.annotation.Annotation;
@@ -27,6 +29,17 @@ public class WebMappedMethod {
     /** @since 1.1.0 */
     public boolean wrapped;
 
+    /** 是否声明了内部参数. @since 2.1.3 */
+    private boolean internal;
+    /** 匹配时复用的处理器. @since 2.1.3 */
+    private volatile WebHandler handler;
+    /** 每个参数的绑定器，和 {@link #parameters} 一一对应. @since 2.1.3 */
+    ParameterBinder[] binders;
+    /** 绑定到处理器实例的调用器. @since 2.1.3 */
+    private MemberAccessor.BoundInvoker invoker;
+    /** 最近一次返回的结果类型的 json 适配器. @since 2.1.3 */
+    volatile ResultAdapter resultAdapter;
+
     public WebMappedMethod (Method method, String pattern, HandlerType type) {
         this.method  = method;
         this.pattern = pattern;
@@ -135,7 +148,39 @@ public class WebMappedMethod {
                     parameters.add (wp);
                 }
             }
+
+            for (WebParameter wp : parameters) {
+                if (wp.internal) {
+                    internal = true;
+                    break;
+                }
+            }
+            // @since 2.1.3 启动时编译参数的绑定器
+            binders = ParameterBinders.compile (method, parameters);
+        }
+    }
+
+    /**
+     * 是否声明了内部参数 ({@link HttpContext}, 请求, 响应, 会话等)
+     * @return 声明了内部参数时返回 {@code true}
+     * @since 2.1.3
+     */
+    public boolean hasInternalParameters () {
+        return internal;
+    }
+
+    /**
+     * 这个方法的处理器。处理器在第一次获取时创建，之后所有的匹配共享同一个实例
+     * @return 处理器
+     * @since 2.1.3
+     */
+    public WebHandler handler () {
+        WebHandler h = handler;
+        if (h == null) {
+            // 并发时可能重复创建。处理器的字段都是 final 的，通过 volatile 字段发布，任何线程看到的都是完整的实例
+            handler = h = new WebHandler (beanName, this);
         }
+        return h;
     }
 
     private WebParameter createWebParameter (ParameterType type, ParameterLocation location, String name1, String name2) {
@@ -206,12 +251,47 @@ public class WebMappedMethod {
 
     public Object invoke (Object instance, Object... args) throws InvocationTargetException {
         try {
-            return method.invoke (instance, args);
+            return MemberAccessor.invoke (method, instance, args);
         } catch (IllegalAccessException ex) {
             throw new RuntimeException (ex);
         }
     }
 
+    /**
+     * 把方法绑定到处理器的实例上，之后通过 {@link #call(Object...)} 调用时不再需要查找实例
+     * @param instance 处理器的实例
+     * @throws IllegalAccessException 当无法访问方法时抛出
+     * @since 2.1.3
+     */
+    public void bind (Object instance) throws IllegalAccessException {
+        invoker = MemberAccessor.bind (method, instance);
+    }
+
+    /**
+     * 是否已经绑定到处理器的实例上
+     * @return 已经绑定时返回 {@code true}
+     * @since 2.1.3
+     */
+    public boolean isBound () {
+        return invoker != null;
+    }
+
+    /**
+     * 在绑定的实例上调用方法
+     * @param args 参数
+     * @return 方法的返回值
+     * @throws InvocationTargetException 当目标方法抛出异常时抛出
+     * @throws IllegalStateException 还没有绑定实例时
+     * @since 2.1.3
+     */
+    public Object call (Object... args) throws InvocationTargetException {
+        MemberAccessor.BoundInvoker bound = invoker;
+        if (bound == null) {
+            throw new IllegalStateException ("method " + method + " is not bound to an instance");
+        }
+        return bound.invoke (args);
+    }
+
     private List<String> split (String pattern) {
         String[] tmp = pattern.split ("/");
         List<String> parts = new ArrayList<> (tmp.length);
@@ -228,4 +308,18 @@ public class WebMappedMethod {
         return !StringUtil.isEmpty (value) && !EMPTY_VALUE.equals (value);
     }
     private static final String EMPTY_VALUE = "$$EMPTY$$";
+
+    /**
+     * 结果类型和它的 json 适配器，作为一个整体替换
+     * @since 2.1.3
+     */
+    static final class ResultAdapter {
+        final Class<?> type;
+        final TypeAdapter<Object> adapter;
+
+        ResultAdapter (Class<?> type, TypeAdapter<Object> adapter) {
+            this.type    = type;
+            this.adapter = adapter;
+        }
+    }
 }
\ No newline at end of file
@@ -4,6 +4,9 @@ import org.dreamwork.dsi.embedded.httpd.annotation.AWebSocket;
 import org.dreamwork.injection.impl.ClassScanner;
 
 import javax.websocket.Endpoint;
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 
 public class WebsocketComponentScanner extends ClassScanner {
@@ -18,6 +21,15 @@ public class WebsocketComponentScanner extends ClassScanner {
         return type.isAnnotationPresent (AWebSocket.class) && Endpoint.class.isAssignableFrom (type);
     }
 
+    /**
+     * 只接受被 {@link AWebSocket} 标注的类，编译期组件索引记录了所有这样的类
+     * @since 2.1.3
+     */
+    @Override
+    protected Collection<Class<? extends Annotation>> getIndexedAnnotations () {
+        return Collections.singleton (AWebSocket.class);
+    }
+
     @Override
     @SuppressWarnings ("unchecked")
     protected void onFound (String name, Class<?> type, Set<Wrapper> wrappers) {
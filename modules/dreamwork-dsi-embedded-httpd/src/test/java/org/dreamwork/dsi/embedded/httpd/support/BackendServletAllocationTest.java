@@ -0,0 +1,124 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import org.dreamwork.dsi.embedded.httpd.annotation.APathVariable;
+import org.dreamwork.dsi.embedded.httpd.annotation.AWebHandler;
+import org.dreamwork.dsi.embedded.httpd.annotation.AWebMapping;
+import org.dreamwork.dsi.embedded.httpd.starter.WebHandlerScanner;
+import org.dreamwork.injection.IObjectContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 精简分派模式下每个请求分配的内存不超过预算.
+ *
+ * <p>路由匹配的结果、路径变量和参数数组都按线程复用，没有声明内部参数的处理器不创建会话和 {@link HttpContext}。
+ * 请求和响应是固定的，所以测量到的只有分派本身的分配</p>
+ */
+public class BackendServletAllocationTest {
+    /** 预热和测量的请求数 */
+    private static final int WARMUP = 20_000, REQUESTS = 10_000;
+    /** 每个请求允许分配的字节数 */
+    private static final long BUDGET = 64;
+
+    @AWebHandler ("api")
+    public static class Handler {
+        @AWebMapping (value = "ping", contentType = "text/plain")
+        public String ping () {
+            return "pong";
+        }
+
+        @AWebMapping (value = "echo/${id}", contentType = "text/plain")
+        public String echo (@APathVariable ("id") String id) {
+            return id;
+        }
+    }
+
+    private BackendServlet servlet;
+    private Servlets.Request request;
+    private Servlets.Response response;
+
+    @Before
+    public void setUp () throws Exception {
+        Map<String, Object> beans = new LinkedHashMap<> ();
+        beans.put ("handler", new Handler ());
+        WebHandlerScanner scanner = new WebHandlerScanner ();
+        beans.put ("webHandlerScanner", scanner);
+        IObjectContext context = (IObjectContext) Proxy.newProxyInstance (
+                getClass ().getClassLoader (), new Class<?>[] {IObjectContext.class}, (proxy, method, args) -> {
+                    switch (method.getName ()) {
+                        case "getAllBeanNames":
+                            return beans.keySet ();
+                        case "getBean":
+                            if (args [0] instanceof String) {
+                                return beans.get (args [0]);
+                            }
+                            for (Object bean : beans.values ()) {
+                                if (((Class<?>) args [0]).isInstance (bean)) {
+                                    return bean;
+                                }
+                            }
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException (method.getName ());
+                    }
+                });
+        scanner.perform (context);
+
+        servlet = Servlets.start (context, "lean");
+        request = new Servlets.Request ();
+        response = new Servlets.Response ();
+    }
+
+    @Test
+    public void dispatchesWithoutSession () throws Exception {
+        request.pathInfo = "/api/ping";
+        servlet.service (request, response);
+        assertEquals (HttpServletResponse.SC_OK, response.status);
+        assertEquals ("text/plain", response.contentType);
+        assertEquals ("pong", response.body.toString ());
+
+        request.pathInfo = "/api/echo/42";
+        servlet.service (request, response);
+        assertEquals ("42", response.body.toString ());
+    }
+
+    @Test
+    public void literalRouteStaysWithinBudget () throws Exception {
+        assertWithinBudget ("/api/ping");
+    }
+
+    @Test
+    public void pathVariableRouteStaysWithinBudget () throws Exception {
+        assertWithinBudget ("/api/echo/42");
+    }
+
+    private void assertWithinBudget (String pathInfo) throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean ();
+        assumeTrue (bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue (threads.isThreadAllocatedMemorySupported ());
+        threads.setThreadAllocatedMemoryEnabled (true);
+
+        request.pathInfo = pathInfo;
+        for (int i = 0; i < WARMUP; i ++) {
+            servlet.service (request, response);
+        }
+        long id = Thread.currentThread ().getId ();
+        long before = threads.getThreadAllocatedBytes (id);
+        for (int i = 0; i < REQUESTS; i ++) {
+            servlet.service (request, response);
+        }
+        long perRequest = (threads.getThreadAllocatedBytes (id) - before) / REQUESTS;
+        assertTrue (pathInfo + " allocates " + perRequest + " bytes per request", perRequest <= BUDGET);
+    }
+}
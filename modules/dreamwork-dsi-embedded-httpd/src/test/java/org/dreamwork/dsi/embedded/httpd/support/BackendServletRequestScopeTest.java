@@ -0,0 +1,82 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import org.dreamwork.dsi.embedded.httpd.annotation.AWebHandler;
+import org.dreamwork.dsi.embedded.httpd.annotation.AWebMapping;
+import org.dreamwork.dsi.embedded.httpd.starter.WebHandlerScanner;
+import org.dreamwork.injection.AReset;
+import org.dreamwork.injection.AScope;
+import org.dreamwork.injection.BeanScope;
+import org.dreamwork.injection.impl.RequestScope;
+import org.dreamwork.injection.impl.SimpleObjectContext;
+import org.dreamwork.injection.impl.TestContexts;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Resource;
+
+import static org.junit.Assert.*;
+
+/**
+ * 每个请求都开启请求作用域，精简模式下没有内部参数、不创建 {@link HttpContext} 的处理器也不例外
+ */
+public class BackendServletRequestScopeTest {
+    @AScope (BeanScope.REQUEST)
+    public static class Counter {
+        private int count;
+
+        public int next () {
+            return ++ count;
+        }
+
+        @AReset
+        public void reset () {
+            count = 0;
+        }
+    }
+
+    @AWebHandler ("api")
+    public static class Handler {
+        @Resource
+        private Counter counter;
+
+        @AWebMapping (value = "count", contentType = "text/plain")
+        public String count () {
+            counter.next ();
+            return String.valueOf (counter.next ());
+        }
+    }
+
+    private SimpleObjectContext context;
+
+    @Before
+    public void setUp () throws Exception {
+        context = TestContexts.create ();
+        TestContexts.registerScoped (context, "counter", Counter.class);
+        context.resolve ();
+        // 容器解决依赖之后注册的实例在注册时注入
+        context.register ("handler", new Handler ());
+        WebHandlerScanner scanner = new WebHandlerScanner ();
+        context.register ("webHandlerScanner", scanner);
+        scanner.perform (context);
+    }
+
+    @After
+    public void tearDown () {
+        context.dispose ();
+    }
+
+    @Test
+    public void leanDispatchOpensRequestScope () throws Exception {
+        BackendServlet servlet = Servlets.start (context, "lean");
+        Servlets.Request request = new Servlets.Request ();
+        Servlets.Response response = new Servlets.Response ();
+        request.pathInfo = "/api/count";
+        for (int i = 0; i < 3; i ++) {
+            servlet.service (request, response);
+            // 同一个请求中共享一个实例，请求结束时重置后归还
+            assertEquals ("2", response.body.toString ());
+            assertNull (RequestScope.current ());
+        }
+    }
+}
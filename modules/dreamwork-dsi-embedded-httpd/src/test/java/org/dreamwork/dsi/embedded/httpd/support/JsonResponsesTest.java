@@ -0,0 +1,185 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link JsonResponses} 流式写出的内容和 {@link Gson#toJson(Object)} 的输出相同
+ */
+public class JsonResponsesTest {
+    public static class Item {
+        String name;
+        Integer count;
+        List<String> tags;
+
+        Item (String name, Integer count, List<String> tags) {
+            this.name  = name;
+            this.count = count;
+            this.tags  = tags;
+        }
+    }
+
+    @SuppressWarnings ("unused")
+    public static class Handler {
+        public Item item () {
+            return null;
+        }
+
+        public Object any () {
+            return null;
+        }
+    }
+
+    /** 记录写入输出流或 writer 的内容 */
+    private static final class Capture extends HttpServletResponseWrapper {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream ();
+        final StringWriter chars = new StringWriter ();
+        String encoding = "UTF-8";
+        boolean writerUsed;
+
+        Capture () {
+            super (Servlets.unsupported (HttpServletResponse.class));
+        }
+
+        @Override
+        public String getCharacterEncoding () {
+            return encoding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream () {
+            if (writerUsed) {
+                throw new IllegalStateException ("getWriter () has already been called");
+            }
+            return new ServletOutputStream () {
+                @Override
+                public void write (int b) {
+                    bytes.write (b);
+                }
+
+                @Override
+                public boolean isReady () {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener (WriteListener listener) {
+                    throw new UnsupportedOperationException ();
+                }
+            };
+        }
+
+        @Override
+        public PrintWriter getWriter () {
+            writerUsed = true;
+            return new PrintWriter (chars);
+        }
+
+        String body () {
+            return bytes.size () > 0 ? new String (bytes.toByteArray (), StandardCharsets.UTF_8) : chars.toString ();
+        }
+    }
+
+    private static final Item ITEM = new Item ("<中文> & 'quotes'", null, Arrays.asList ("a", null));
+
+    private WebMappedMethod item, any;
+
+    @Before
+    public void setUp () throws Exception {
+        item = new WebMappedMethod (Handler.class.getMethod ("item"), "/api/item", HandlerType.API_HANDLER);
+        any  = new WebMappedMethod (Handler.class.getMethod ("any"), "/api/any", HandlerType.API_HANDLER);
+    }
+
+    @Test
+    public void streamedOutputMatchesGson () throws Exception {
+        for (Gson gson : new Gson[] {new Gson (), new GsonBuilder ().serializeNulls ().create ()}) {
+            JsonResponses json = new JsonResponses (gson);
+
+            Capture response = new Capture ();
+            json.write (response, item, ITEM);
+            assertEquals (gson.toJson (ITEM), response.body ());
+            // UTF-8 的响应直接写入输出流
+            assertEquals (0, response.chars.getBuffer ().length ());
+
+            response = new Capture ();
+            json.writeWrapped (response, item, 0, "success", ITEM);
+            assertEquals (gson.toJson (new WebJsonResult (0, "success", ITEM)), response.body ());
+
+            // 没有结果时，是否输出 "result": null 取决于 Gson 的配置
+            response = new Capture ();
+            json.writeWrapped (response, item, 500, null, null);
+            assertEquals (gson.toJson (new WebJsonResult (500, null, null)), response.body ());
+
+            Map<String, Object> error = Collections.singletonMap ("message", "not found");
+            response = new Capture ();
+            json.writeObject (response, error);
+            assertEquals (gson.toJson (error), response.body ());
+        }
+    }
+
+    @Test
+    public void otherCharsetsUseTheWriter () throws Exception {
+        Gson gson = new Gson ();
+        JsonResponses json = new JsonResponses (gson);
+        Capture response = new Capture ();
+        response.encoding = "ISO-8859-1";
+        json.write (response, item, ITEM);
+        assertEquals (0, response.bytes.size ());
+        assertEquals (gson.toJson (ITEM), response.chars.toString ());
+
+        response = new Capture ();
+        response.encoding = null;
+        json.writeWrapped (response, item, 0, "success", ITEM);
+        assertEquals (0, response.bytes.size ());
+        assertEquals (gson.toJson (new WebJsonResult (0, "success", ITEM)), response.chars.toString ());
+    }
+
+    @Test
+    public void usedWriterIsReused () throws Exception {
+        Gson gson = new Gson ();
+        Capture response = new Capture ();
+        // 处理方法已经调用过 getWriter ()，不能再使用输出流
+        response.getWriter ();
+        new JsonResponses (gson).write (response, item, ITEM);
+        assertEquals (0, response.bytes.size ());
+        assertEquals (gson.toJson (ITEM), response.chars.toString ());
+    }
+
+    @Test
+    public void adaptersFollowTheRuntimeType () throws Exception {
+        Gson gson = new Gson ();
+        JsonResponses json = new JsonResponses (gson);
+        json.prepare (item);
+        json.prepare (any);
+        assertSame (Item.class, item.resultAdapter.type);
+        assertNull (any.resultAdapter);
+
+        Capture response = new Capture ();
+        json.write (response, any, ITEM);
+        assertEquals (gson.toJson (ITEM), response.body ());
+        assertSame (Item.class, any.resultAdapter.type);
+
+        List<Integer> list = Arrays.asList (1, 2, 3);
+        response = new Capture ();
+        json.write (response, any, list);
+        assertEquals (gson.toJson (list), response.body ());
+        assertSame (list.getClass (), any.resultAdapter.type);
+    }
+}
@@ -0,0 +1,216 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import com.google.gson.annotations.SerializedName;
+import org.dreamwork.dsi.embedded.httpd.annotation.AFormItem;
+import org.dreamwork.dsi.embedded.httpd.annotation.ARequestBody;
+import org.dreamwork.dsi.embedded.httpd.annotation.AWebParameter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ParameterBinders} 编译的绑定器：参数的来源和到参数类型的转换
+ */
+public class ParameterBindersTest {
+    public enum Color {
+        RED,
+        @SerializedName ("green") GREEN
+    }
+
+    public static class Point {
+        int x, y;
+    }
+
+    /** 每个方法声明一组需要绑定的参数，方法名不重复 */
+    @SuppressWarnings ("unused")
+    public static class Handler {
+        public void dates (@AFormItem ("day") LocalDate day,
+                           @AFormItem ("time") LocalDateTime time,
+                           @AFormItem ("date") Date date,
+                           @AFormItem (value = "typed", type = ParameterType.datetime) Date typed,
+                           @AFormItem ("instant") Instant instant) {}
+
+        public void enums (@AFormItem ("color") Color color) {}
+
+        public void primitives (@AFormItem (value = "n", defaultValue = "7") int n,
+                                @AFormItem ("flag") boolean flag,
+                                @AFormItem ("boxed") Integer boxed) {}
+
+        public void required (@AFormItem ("n") int n) {}
+
+        public void arrays (@AFormItem ("ids") int[] ids, @AFormItem ("longs") List<Long> longs) {}
+
+        public void body (@ARequestBody Point point) {}
+
+        public void bodyItem (@AWebParameter (name = "name", location = ParameterLocation.Body) String name) {}
+
+        public void form (@AFormItem ("a") String a, @AFormItem ("b") String b, @AFormItem ("c") String c) {}
+    }
+
+    private Servlets.Request request;
+    private BindContext context;
+
+    @Before
+    public void setUp () {
+        request = new Servlets.Request ();
+        context = new BindContext ();
+    }
+
+    private Object[] bind (String name) throws Exception {
+        Method method = null;
+        for (Method m : Handler.class.getMethods ()) {
+            if (m.getName ().equals (name)) {
+                method = m;
+            }
+        }
+        assertNotNull (name, method);
+        WebMappedMethod wmm = new WebMappedMethod (method, "/api/" + name, HandlerType.API_HANDLER);
+        context.begin (request, new Servlets.Response (), new RouteTable.Match (), null);
+        try {
+            Object[] args = new Object[wmm.binders.length];
+            for (int i = 0; i < args.length; i ++) {
+                args [i] = wmm.binders [i].bind (context);
+            }
+            return args;
+        } finally {
+            context.clear ();
+        }
+    }
+
+    private static Date local (int year, int month, int day, int hour, int minute, int second) {
+        return Date.from (LocalDateTime.of (year, month, day, hour, minute, second)
+                .atZone (ZoneId.systemDefault ()).toInstant ());
+    }
+
+    @Test
+    public void datesAcceptSingleDigitFieldsAndOptionalTime () throws Exception {
+        request.parameters.put ("day", "2024-1-2");
+        request.parameters.put ("time", "2024-01-02 3:04:05");
+        request.parameters.put ("date", "2024-01-02 03:04");
+        request.parameters.put ("typed", "2024-01-02");
+        request.parameters.put ("instant", "2024-01-02T03:04:05Z");
+        Object[] args = bind ("dates");
+        assertEquals (LocalDate.of (2024, 1, 2), args [0]);
+        assertEquals (LocalDateTime.of (2024, 1, 2, 3, 4, 5), args [1]);
+        assertEquals (local (2024, 1, 2, 3, 4, 0), args [2]);
+        assertEquals (local (2024, 1, 2, 0, 0, 0), args [3]);
+        assertEquals (Instant.parse ("2024-01-02T03:04:05Z"), args [4]);
+
+        // 没有 'T' 的时刻按本地时间解析，空值为 null
+        request.parameters.put ("instant", "2024-01-02 03:04:05");
+        request.parameters.put ("day", "");
+        request.parameters.remove ("typed");
+        args = bind ("dates");
+        assertEquals (local (2024, 1, 2, 3, 4, 5).toInstant (), args [4]);
+        assertNull (args [0]);
+        assertNull (args [3]);
+    }
+
+    @Test
+    public void enumsUseConstantNamesThenGson () throws Exception {
+        request.parameters.put ("color", "RED");
+        assertEquals (Color.RED, bind ("enums") [0]);
+        request.parameters.put ("color", "green");
+        assertEquals (Color.GREEN, bind ("enums") [0]);
+        request.parameters.remove ("color");
+        assertNull (bind ("enums") [0]);
+    }
+
+    @Test
+    public void primitivesUseDefaultValues () throws Exception {
+        request.parameters.put ("flag", "");
+        Object[] args = bind ("primitives");
+        assertEquals (7, args [0]);
+        assertEquals (false, args [1]);
+        assertNull (args [2]);
+
+        request.parameters.put ("n", "3");
+        request.parameters.put ("flag", "true");
+        request.parameters.put ("boxed", "42");
+        args = bind ("primitives");
+        assertEquals (3, args [0]);
+        assertEquals (true, args [1]);
+        assertEquals (42, args [2]);
+    }
+
+    @Test (expected = NumberFormatException.class)
+    public void missingPrimitiveWithoutDefaultFails () throws Exception {
+        bind ("required");
+    }
+
+    @Test
+    public void arraysAndCollectionsAreParsedAsJson () throws Exception {
+        request.parameters.put ("ids", "[1, 2, 3]");
+        request.parameters.put ("longs", "[4, 5]");
+        Object[] args = bind ("arrays");
+        assertArrayEquals (new int[] {1, 2, 3}, (int[]) args [0]);
+        // 按参数的泛型类型解析，元素是 Long 而不是 Double
+        assertEquals (Arrays.asList (4L, 5L), args [1]);
+    }
+
+    @Test
+    public void jsonBodyIsReadFromTheStream () throws Exception {
+        request.method = "POST";
+        request.contentType = "application/json;charset=utf-8";
+        request.body = "{\"x\": 1, \"y\": 2}";
+        Point point = (Point) bind ("body") [0];
+        assertEquals (1, point.x);
+        assertEquals (2, point.y);
+
+        request.contentType = "text/plain";
+        request.body = "plain";
+        request.parameters.put ("name", "form");
+        assertEquals ("plain", bind ("bodyItem") [0]);
+    }
+
+    @Test
+    public void formBodyIsReadFromParameters () throws Exception {
+        request.method = "POST";
+        request.contentType = "application/x-www-form-urlencoded";
+        request.body = "name=stream";
+        request.parameters.put ("name", "form");
+        assertEquals ("form", bind ("bodyItem") [0]);
+    }
+
+    @Test
+    public void putFormIsParsedFromQueryAndBody () throws Exception {
+        request.method = "PUT";
+        request.contentType = "application/x-www-form-urlencoded; charset=UTF-8";
+        request.queryString = "a=1";
+        request.body = "b=%E4%B8%AD+%E6%96%87&c=";
+        // PUT 请求不使用容器解析的参数
+        request.parameters.put ("c", "ignored");
+        Object[] args = bind ("form");
+        assertEquals ("1", args [0]);
+        assertEquals ("中 文", args [1]);
+        assertNull (args [2]);
+
+        // 其他内容类型的 PUT 请求没有表单
+        request.contentType = "application/json";
+        args = bind ("form");
+        assertNull (args [0]);
+        assertNull (args [1]);
+    }
+
+    @Test
+    public void missingContentTypeFallsBackToTheForm () throws Exception {
+        request.method = "POST";
+        request.body = "{\"x\": 1}";
+        request.parameters.put ("name", "form");
+        assertEquals ("form", bind ("bodyItem") [0]);
+        assertNull (bind ("body") [0]);
+
+        request.method = "PUT";
+        assertNull (bind ("form") [0]);
+    }
+}
@@ -0,0 +1,114 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RouteTable} 的匹配顺序、回退和变量的值
+ */
+public class RouteTableTest {
+    private RouteTable table;
+    private RouteTable.Match match;
+
+    @Before
+    public void setUp () {
+        table = new RouteTable ();
+        match = new RouteTable.Match ();
+    }
+
+    private WebMappedMethod add (String pattern) throws Exception {
+        WebMappedMethod wmm = new WebMappedMethod (Object.class.getMethod ("toString"), pattern, HandlerType.API_HANDLER);
+        table.add (wmm);
+        return wmm;
+    }
+
+    @Test
+    public void literalBeatsVariableBeatsWildcard () throws Exception {
+        WebMappedMethod list  = add ("/files/list");
+        WebMappedMethod user  = add ("/files/u-${id}");
+        WebMappedMethod any   = add ("/files/${name}");
+        WebMappedMethod other = add ("/static/*");
+
+        assertSame (list, table.match ("/files/list", match));
+        assertNull (match.get ("id"));
+        // 前后缀长的变量优先
+        assertSame (user, table.match ("/files/u-42", match));
+        assertEquals ("42", match.get ("id"));
+        assertSame (any, table.match ("/files/readme", match));
+        assertEquals ("readme", match.get ("name"));
+        assertSame (other, table.match ("/static/app.js", match));
+
+        // 变量不匹配时才使用通配段
+        WebMappedMethod wildcard = add ("/a/*");
+        WebMappedMethod variable = add ("/a/x-${id}");
+        assertSame (variable, table.match ("/a/x-1", match));
+        assertSame (wildcard, table.match ("/a/y-1", match));
+    }
+
+    @Test
+    public void backtracksWhenADeeperLevelFails () throws Exception {
+        WebMappedMethod literal  = add ("/a/b/d");
+        WebMappedMethod variable = add ("/a/${x}/c");
+
+        assertSame (literal, table.match ("/a/b/d", match));
+        assertSame (variable, table.match ("/a/b/c", match));
+        assertEquals ("b", match.get ("x"));
+        assertNull (table.match ("/a/b/e", match));
+        assertNull (match.get ("x"));
+    }
+
+    @Test
+    public void wildcardMatchesExactlyOneTrailingSegment () throws Exception {
+        WebMappedMethod wmm = add ("/static/*");
+
+        assertSame (wmm, table.match ("/static/a", match));
+        assertNull (table.match ("/static", match));
+        assertNull (table.match ("/static/a/b", match));
+    }
+
+    @Test
+    public void prefixAndSuffixAreStrippedFromVariables () throws Exception {
+        WebMappedMethod wmm = add ("/users/u-${id}.json");
+
+        assertSame (wmm, table.match ("/users/u-7.json", match));
+        assertEquals ("7", match.get ("id"));
+        assertNull (table.match ("/users/u-.json", match));
+        assertNull (table.match ("/users/7.json", match));
+        assertNull (table.match ("/users/u-7.xml", match));
+    }
+
+    @Test
+    public void emptySegmentsAndBlanksAreIgnored () throws Exception {
+        WebMappedMethod wmm = add ("/users/${id}/profile");
+
+        Map<String, String> args = new HashMap<> ();
+        assertSame (wmm, table.match ("//users/ 9 //profile/", args));
+        assertEquals ("9", args.get ("id"));
+    }
+
+    @Test
+    public void matchIsReusable () throws Exception {
+        add ("/users/${id}");
+        add ("/groups/${group}/users/${user}");
+
+        assertNotNull (table.match ("/groups/g/users/u", match));
+        assertEquals ("g", match.get ("group"));
+        assertEquals ("u", match.get ("user"));
+        assertNotNull (table.match ("/users/1", match));
+        assertEquals ("1", match.get ("id"));
+        assertNull (match.get ("group"));
+        match.clear ();
+        assertNull (match.get ("id"));
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void ambiguousRoutesAreRejected () throws Exception {
+        add ("/users/${id}");
+        add ("/users/${name}");
+    }
+}
@@ -0,0 +1,193 @@
+package org.dreamwork.dsi.embedded.httpd.support;
+
+import org.dreamwork.injection.IObjectContext;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import javax.servlet.http.HttpSession;
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 不依赖 servlet 容器驱动 {@link BackendServlet} 的测试工具：模拟的请求和响应，以及按分派模式初始化的 servlet
+ */
+final class Servlets {
+    private Servlets () {}
+
+    /** 可以设置方法、内容类型、表单、请求头和请求体的请求，访问会话时失败 */
+    static final class Request extends HttpServletRequestWrapper {
+        final Map<String, String> parameters = new HashMap<> ();
+        final Map<String, String> headers = new HashMap<> ();
+        String method = "GET", pathInfo, contentType, queryString, body = "";
+
+        Request () {
+            super (unsupported (HttpServletRequest.class));
+        }
+
+        @Override
+        public String getMethod () {
+            return method;
+        }
+
+        @Override
+        public String getPathInfo () {
+            return pathInfo;
+        }
+
+        @Override
+        public String getContentType () {
+            return contentType;
+        }
+
+        @Override
+        public String getQueryString () {
+            return queryString;
+        }
+
+        @Override
+        public String getHeader (String name) {
+            return headers.get (name);
+        }
+
+        @Override
+        public String getParameter (String name) {
+            return parameters.get (name);
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames () {
+            return Collections.enumeration (parameters.keySet ());
+        }
+
+        @Override
+        public ServletInputStream getInputStream () {
+            ByteArrayInputStream in = new ByteArrayInputStream (body.getBytes (StandardCharsets.UTF_8));
+            return new ServletInputStream () {
+                @Override
+                public int read () {
+                    return in.read ();
+                }
+
+                @Override
+                public boolean isFinished () {
+                    return in.available () == 0;
+                }
+
+                @Override
+                public boolean isReady () {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener (ReadListener listener) {
+                    throw new UnsupportedOperationException ();
+                }
+            };
+        }
+
+        @Override
+        public HttpSession getSession () {
+            throw new AssertionError ("lean dispatch must not create a session");
+        }
+
+        @Override
+        public HttpSession getSession (boolean create) {
+            throw new AssertionError ("lean dispatch must not create a session");
+        }
+    }
+
+    /** 丢弃输出的响应，记录最后写出的内容 */
+    static final class Response extends HttpServletResponseWrapper {
+        final StringBuilder body = new StringBuilder ();
+        final PrintWriter writer = new PrintWriter (new Writer () {
+            @Override
+            public void write (char[] buff, int off, int len) {}
+
+            @Override
+            public void write (String text, int off, int len) {
+                body.setLength (0);
+                body.append (text, off, off + len);
+            }
+
+            @Override
+            public void flush () {}
+
+            @Override
+            public void close () {}
+        });
+        String contentType;
+        int status = SC_OK;
+
+        Response () {
+            super (unsupported (HttpServletResponse.class));
+        }
+
+        @Override
+        public void setContentType (String contentType) {
+            this.contentType = contentType;
+        }
+
+        @Override
+        public String getContentType () {
+            return contentType;
+        }
+
+        @Override
+        public PrintWriter getWriter () {
+            return writer;
+        }
+
+        @Override
+        public void setStatus (int status) {
+            this.status = status;
+        }
+    }
+
+    /**
+     * 以指定的分派模式初始化一个 servlet
+     * @param context 托管容器，其中必须有扫描过的 {@link org.dreamwork.dsi.embedded.httpd.starter.WebHandlerScanner}
+     * @param mode    分派模式
+     * @return 初始化完成的 servlet
+     */
+    static BackendServlet start (IObjectContext context, String mode) throws ServletException {
+        Map<String, Object> attributes = new HashMap<> ();
+        attributes.put (IObjectContext.class.getCanonicalName (), context);
+        attributes.put ("embedded.httpd.dispatch.mode", mode);
+        ServletContext app = (ServletContext) Proxy.newProxyInstance (
+                Servlets.class.getClassLoader (), new Class<?>[] {ServletContext.class}, (proxy, method, args) ->
+                        "getAttribute".equals (method.getName ()) ? attributes.get (args [0]) : null);
+        ServletConfig config = (ServletConfig) Proxy.newProxyInstance (
+                Servlets.class.getClassLoader (), new Class<?>[] {ServletConfig.class}, (proxy, method, args) ->
+                        "getServletContext".equals (method.getName ()) ? app : null);
+
+        BackendServlet servlet = new BackendServlet ();
+        servlet.init (config);
+        return servlet;
+    }
+
+    /**
+     * 调用任何方法都失败的接口实现，作为请求和响应包装器的底层对象
+     * @param type 接口
+     * @return 接口的实现
+     */
+    @SuppressWarnings ("unchecked")
+    static <T> T unsupported (Class<T> type) {
+        return (T) Proxy.newProxyInstance (type.getClassLoader (), new Class<?>[] {type}, (proxy, method, args) -> {
+            throw new UnsupportedOperationException (method.getName ());
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.AScope;
+
+/**
+ * 其他模块的测试使用的容器：容器的构造器和作用域代理的注册只在包内可见
+ */
+public final class TestContexts {
+    private TestContexts () {}
+
+    /**
+     * 创建一个不监听关闭端口的容器
+     * @return 容器
+     */
+    public static SimpleObjectContext create () {
+        return new SimpleObjectContext (-1);
+    }
+
+    /**
+     * 以作用域代理的方式注册一个被 {@link AScope} 标注的类
+     * @param context 容器
+     * @param name    实例名称
+     * @param type    类型
+     * @throws Exception 注册失败时抛出
+     */
+    public static void registerScoped (SimpleObjectContext context, String name, Class<?> type) throws Exception {
+        if (!context.registerScoped (name, type, BeanDescriptor.of (type), type.getAnnotation (AScope.class))) {
+            throw new IllegalArgumentException (type + " cannot be registered as a scoped bean");
+        }
+    }
+}
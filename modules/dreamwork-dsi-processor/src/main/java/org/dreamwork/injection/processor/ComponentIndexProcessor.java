@@ -0,0 +1,101 @@
+package org.dreamwork.injection.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 编译期组件索引生成器.
+ *
+ * <p>将所有被 {@code @Resource}, {@code @WebServlet}, {@code @WebFilter} 和 {@code @AWebSocket} 标注的类
+ * 写入 {@value #INDEX_LOCATION}，每行一个类的二进制名称。运行时 {@code ClassScanner} 读取这个索引，
+ * 对于所有类路径根都带有索引的包，不再逐个加载包内的类来判断注解</p>
+ *
+ * <p>注解以名称匹配，处理器本身不依赖 servlet 或 dsi 的任何类。增量编译时会合并已有的索引</p>
+ *
+ * @since 2.1.3
+ */
+@SupportedAnnotationTypes ({
+        "javax.annotation.Resource",
+        "javax.servlet.annotation.WebServlet",
+        "javax.servlet.annotation.WebFilter",
+        "org.dreamwork.dsi.embedded.httpd.annotation.AWebSocket"
+})
+public class ComponentIndexProcessor extends AbstractProcessor {
+    /** 索引文件在类路径中的位置 */
+    public static final String INDEX_LOCATION = "META-INF/dsi-components.idx";
+
+    private final Set<String> components = new TreeSet<> ();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion () {
+        return SourceVersion.latestSupported ();
+    }
+
+    @Override
+    public boolean process (Set<? extends TypeElement> annotations, RoundEnvironment env) {
+        if (env.processingOver ()) {
+            if (!components.isEmpty ()) {
+                writeIndex ();
+            }
+            return false;
+        }
+
+        for (TypeElement annotation : annotations) {
+            for (Element e : env.getElementsAnnotatedWith (annotation)) {
+                // @Resource 也可以标注在字段和方法上，只有类才是组件
+                if (e.getKind () == ElementKind.CLASS) {
+                    components.add (processingEnv.getElementUtils ().getBinaryName ((TypeElement) e).toString ());
+                }
+            }
+        }
+        // 不独占这些注解，其他处理器仍然可以处理它们
+        return false;
+    }
+
+    private void writeIndex () {
+        Filer filer = processingEnv.getFiler ();
+        // 增量编译时只有部分源文件参与编译，需要合并之前的索引
+        try {
+            FileObject old = filer.getResource (StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (BufferedReader reader = new BufferedReader (new InputStreamReader (old.openInputStream (), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine ()) != null) {
+                    line = line.trim ();
+                    if (!line.isEmpty () && line.charAt (0) != '#') {
+                        components.add (line);
+                    }
+                }
+            }
+        } catch (IOException ignore) {
+            // 没有旧的索引
+        }
+
+        try {
+            FileObject fo = filer.createResource (StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = new BufferedWriter (new OutputStreamWriter (fo.openOutputStream (), StandardCharsets.UTF_8))) {
+                writer.write ("# generated by dreamwork-dsi-processor, DO NOT EDIT\n");
+                for (String name : components) {
+                    writer.write (name);
+                    writer.write ('\n');
+                }
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager ().printMessage (
+                    Diagnostic.Kind.ERROR, "cannot write " + INDEX_LOCATION + ": " + ex.getMessage ()
+            );
+        }
+    }
+}
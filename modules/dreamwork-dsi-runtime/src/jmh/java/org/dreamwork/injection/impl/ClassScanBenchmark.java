@@ -0,0 +1,184 @@
+package org.dreamwork.injection.impl;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+/**
+ * 扫描一个有 10000 个类的合成项目：顺序扫描、并行扫描和使用编译期组件索引的对比.
+ *
+ * <p>合成项目有 {@value #PACKAGES} 个包，每个包 {@value #CLASSES_PER_PACKAGE} 个类，其中每 10 个类有一个被
+ * {@code @Resource} 标注，组件索引记录了这些类。每次扫描都使用一个新的类加载器，所以每次都要真正地加载类。
+ * 并行扫描的加速比取决于主机的核数</p>
+ *
+ * <pre>mvn -P jmh verify -pl modules/dreamwork-dsi-runtime -Djmh.args="ClassScanBenchmark"</pre>
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.SingleShotTime)
+@OutputTimeUnit (TimeUnit.MILLISECONDS)
+@Warmup (iterations = 3)
+@Measurement (iterations = 5)
+@Fork (1)
+public class ClassScanBenchmark {
+    private static final int PACKAGES = 100;
+    private static final int CLASSES_PER_PACKAGE = 100;
+    private static final String BASE = "dsi/synthetic/p";
+
+    @Param ({"sequential", "parallel", "indexed"})
+    public String mode;
+
+    private Path root;
+    private URL[] urls;
+    private String[] packages;
+
+    /**
+     * 扫描器必须由合成项目的类加载器定义：{@link ClassScanner} 从扫描器自己的类加载器中查找类
+     */
+    public static class CountingScanner extends ClassScanner implements IntSupplier {
+        private int found;
+
+        @Override
+        protected Collection<Class<? extends Annotation>> getIndexedAnnotations () {
+            return Collections.singleton (javax.annotation.Resource.class);
+        }
+
+        @Override
+        protected boolean accept (Class<?> type) {
+            return type.isAnnotationPresent (javax.annotation.Resource.class);
+        }
+
+        @Override
+        protected void onFound (String name, Class<?> type, Set<Wrapper> wrappers) {
+            found ++;
+        }
+
+        @Override
+        protected void onCompleted (Set<Wrapper> wrappers) {}
+
+        @Override
+        public int getAsInt () {
+            return found;
+        }
+    }
+
+    private static final class ScanLoader extends URLClassLoader {
+        ScanLoader (URL[] urls, ClassLoader parent) {
+            super (urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass (String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals (CountingScanner.class.getName ())) {
+                return super.loadClass (name, resolve);
+            }
+            synchronized (getClassLoadingLock (name)) {
+                Class<?> c = findLoadedClass (name);
+                if (c == null) {
+                    String resource = name.replace ('.', '/') + ".class";
+                    try (InputStream in = getParent ().getResourceAsStream (resource)) {
+                        byte[] bytes = readAll (in);
+                        c = defineClass (name, bytes, 0, bytes.length);
+                    } catch (IOException ex) {
+                        throw new ClassNotFoundException (name, ex);
+                    }
+                }
+                return c;
+            }
+        }
+    }
+
+    @Setup (Level.Trial)
+    public void setUp () throws Exception {
+        root = Files.createTempDirectory ("dsi-scan-");
+        packages = new String[PACKAGES];
+        StringBuilder index = new StringBuilder ();
+        for (int p = 0; p < PACKAGES; p ++) {
+            String pkg = BASE + p;
+            packages [p] = pkg.replace ('/', '.');
+            Path dir = Files.createDirectories (root.resolve (pkg));
+            for (int c = 0; c < CLASSES_PER_PACKAGE; c ++) {
+                String name = pkg + "/C" + c;
+                boolean annotated = c % 10 == 0;
+                Files.write (dir.resolve ("C" + c + ".class"), generate (name, annotated));
+                if (annotated) {
+                    index.append (name.replace ('/', '.')).append ('\n');
+                }
+            }
+        }
+        if ("indexed".equals (mode)) {
+            Path idx = Files.createDirectories (root.resolve ("META-INF")).resolve ("dsi-components.idx");
+            try (Writer writer = Files.newBufferedWriter (idx, StandardCharsets.UTF_8)) {
+                writer.write (index.toString ());
+            }
+        }
+        urls = new URL[] {root.toUri ().toURL ()};
+    }
+
+    @TearDown (Level.Trial)
+    public void tearDown () throws IOException {
+        try (Stream<Path> files = Files.walk (root)) {
+            files.sorted (Comparator.reverseOrder ()).map (Path::toFile).forEach (File::delete);
+        }
+    }
+
+    @Benchmark
+    public int scan () throws Exception {
+        try (ScanLoader loader = new ScanLoader (urls, getClass ().getClassLoader ())) {
+            ClassScanner scanner = (ClassScanner) loader.loadClass (CountingScanner.class.getName ()).newInstance ();
+            scanner.setParallel ("parallel".equals (mode));
+            scanner.scan (packages);
+            int found = ((IntSupplier) scanner).getAsInt ();
+            if (found != PACKAGES * CLASSES_PER_PACKAGE / 10) {
+                throw new IllegalStateException ("expect " + PACKAGES * CLASSES_PER_PACKAGE / 10 + " components, but found " + found);
+            }
+            return found;
+        }
+    }
+
+    private static byte[] generate (String name, boolean annotated) {
+        ClassWriter cw = new ClassWriter (0);
+        cw.visit (Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+        if (annotated) {
+            cw.visitAnnotation ("Ljavax/annotation/Resource;", true).visitEnd ();
+        }
+        MethodVisitor mv = cw.visitMethod (Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode ();
+        mv.visitVarInsn (Opcodes.ALOAD, 0);
+        mv.visitMethodInsn (Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitInsn (Opcodes.RETURN);
+        mv.visitMaxs (1, 1);
+        mv.visitEnd ();
+        cw.visitEnd ();
+        return cw.toByteArray ();
+    }
+
+    private static byte[] readAll (InputStream in) throws IOException {
+        byte[] buff = new byte[4096];
+        ByteArrayOutputStream out = new ByteArrayOutputStream ();
+        int n;
+        while ((n = in.read (buff)) != -1) {
+            out.write (buff, 0, n);
+        }
+        return out.toByteArray ();
+    }
+}
@@ -0,0 +1,101 @@
+package org.dreamwork.injection.impl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字段注入和方法调用：{@link MemberAccessor} 和核心反射的对比.
+ *
+ * <p>{@code reflect*} 和 2.1.3 之前的注入路径相同，每次注入都调用 {@code setAccessible} 再通过
+ * {@link Field#set(Object, Object)} / {@link Method#invoke(Object, Object...)} 访问；
+ * {@code accessor*} 使用缓存的方法句柄</p>
+ *
+ * <pre>mvn -P jmh verify -pl modules/dreamwork-dsi-runtime -Djmh.args="MemberAccessorBenchmark"</pre>
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.AverageTime)
+@OutputTimeUnit (TimeUnit.NANOSECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Fork (1)
+public class MemberAccessorBenchmark {
+    public static class Bean {
+        private Object service;
+        private int port;
+        private String name;
+        private int initialized;
+
+        public void setName (String name) {
+            this.name = name;
+        }
+
+        public void init () {
+            initialized ++;
+        }
+    }
+
+    private final Bean bean = new Bean ();
+    private final Object service = new Object ();
+    private final Integer port = 8080;
+    private Field serviceField, portField;
+    private Method setter, init;
+
+    @Setup
+    public void setUp () throws Exception {
+        serviceField = Bean.class.getDeclaredField ("service");
+        portField    = Bean.class.getDeclaredField ("port");
+        setter       = Bean.class.getMethod ("setName", String.class);
+        init         = Bean.class.getMethod ("init");
+    }
+
+    @Benchmark
+    public Object reflectFieldSet () throws Exception {
+        serviceField.setAccessible (true);
+        serviceField.set (bean, service);
+        return bean;
+    }
+
+    @Benchmark
+    public Object accessorFieldSet () throws Exception {
+        MemberAccessor.set (serviceField, bean, service);
+        return bean;
+    }
+
+    @Benchmark
+    public Object reflectPrimitiveFieldSet () throws Exception {
+        portField.setAccessible (true);
+        portField.set (bean, port);
+        return bean;
+    }
+
+    @Benchmark
+    public Object accessorPrimitiveFieldSet () throws Exception {
+        MemberAccessor.set (portField, bean, port);
+        return bean;
+    }
+
+    @Benchmark
+    public Object reflectSetter () throws Exception {
+        setter.setAccessible (true);
+        return setter.invoke (bean, "bench");
+    }
+
+    @Benchmark
+    public Object accessorSetter () throws Exception {
+        return MemberAccessor.invoke (setter, bean, "bench");
+    }
+
+    @Benchmark
+    public Object reflectLifecycle () throws Exception {
+        init.setAccessible (true);
+        return init.invoke (bean);
+    }
+
+    @Benchmark
+    public Object accessorLifecycle () throws Exception {
+        return MemberAccessor.invoke (init, bean);
+    }
+}
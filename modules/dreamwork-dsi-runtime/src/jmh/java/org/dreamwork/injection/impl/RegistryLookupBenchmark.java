@@ -0,0 +1,72 @@
+package org.dreamwork.injection.impl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64 个线程并发查找 {@link SimpleObjectContext} 的基准测试.
+ *
+ * <ul>
+ * <li>{@code locked}: 容器还没有 {@link SimpleObjectContext#resolve() resolve}，每次查找都持有容器的锁，
+ * 和 2.1.3 之前的实现相同</li>
+ * <li>{@code snapshot}: resolve 之后的查找只读取已发布的快照</li>
+ * </ul>
+ *
+ * <pre>mvn -P jmh verify -pl modules/dreamwork-dsi-runtime -Djmh.args="RegistryLookupBenchmark"</pre>
+ */
+@State (Scope.Benchmark)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.MICROSECONDS)
+@Warmup (iterations = 3, time = 1)
+@Measurement (iterations = 5, time = 1)
+@Threads (64)
+@Fork (1)
+public class RegistryLookupBenchmark {
+    private static final int BEANS = 256;
+
+    public interface Service {}
+    public static class ServiceImpl implements Service {}
+    public static class Unique {}
+
+    @Param ({"locked", "snapshot"})
+    public String mode;
+
+    private SimpleObjectContext context;
+    private String[] names;
+
+    @Setup
+    public void setUp () throws Exception {
+        context = new SimpleObjectContext (-1);
+        names   = new String[BEANS];
+        for (int i = 0; i < BEANS; i ++) {
+            names [i] = "bean-" + i;
+            context.register (names [i], new ServiceImpl ());
+        }
+        context.register ("unique", new Unique ());
+        if ("snapshot".equals (mode)) {
+            context.resolve ();
+        }
+    }
+
+    @TearDown
+    public void tearDown () {
+        context.dispose ();
+    }
+
+    @Benchmark
+    public Object getBeanByName () {
+        return context.getBean (names [ThreadLocalRandom.current ().nextInt (BEANS)]);
+    }
+
+    @Benchmark
+    public Object getBeanByType () {
+        return context.getBean (Unique.class);
+    }
+
+    @Benchmark
+    public Object getBeanMap () {
+        return context.getBeanMap (Service.class);
+    }
+}
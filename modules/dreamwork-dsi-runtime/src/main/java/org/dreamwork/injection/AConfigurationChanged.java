@@ -0,0 +1,30 @@
+package org.dreamwork.injection;
+
+import java.lang.annotation.*;
+
+/**
+ * 配置变化的回调.
+ *
+ * <p>开启配置监视 ({@code org.dreamwork.dsi.config.watch = true}) 后，配置文件改变时容器只重新注入值发生了变化的
+ * {@link AConfigured} 字段，然后调用这些实例中被这个注解标注的 public 方法。方法可以没有参数，
+ * 也可以有一个 {@code java.util.Set<String>} 类型的参数，接收和这个实例相关的、发生了变化的配置项。
+ * 没有受影响的字段、也没有匹配 {@link #keys()} 的实例不会被触及</p>
+ *
+ * <p>回调在监视线程中执行，被重新注入的字段应该声明为 {@code volatile} 或由实例自行同步</p>
+ *
+ * @since 2.1.3
+ */
+@Target (ElementType.METHOD)
+@Retention (RetentionPolicy.RUNTIME)
+@Documented
+public @interface AConfigurationChanged {
+    /**
+     * 额外关心的配置项前缀.
+     *
+     * <p>用于实例自己通过 {@code IConfiguration} 读取的配置项。{@code ext.conf.dir} 目录下的文件发生变化时，
+     * 以 {@code ext.conf.dir/文件名} 的形式报告</p>
+     *
+     * @return 配置项前缀
+     */
+    String[] keys () default {};
+}
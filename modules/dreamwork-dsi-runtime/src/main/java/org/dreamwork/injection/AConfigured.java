@@ -7,6 +7,8 @@ import java.lang.annotation.*;
  *
  * <ul>
  * <li>当表达式为 ${a.b.c.d} 时，代表着从全局配置文件中获取 a.b.c.d 的值。当在配置文件中未匹配到键值时不会注入</li>
+ * <li>当表达式为包含 ${a.b} 引用的模板时，如 {@code ${host}:${port}}，用配置项的值替换每个引用后注入。
+ * 任何一个配置项未匹配到时不会注入 (@since 2.1.3)</li>
  * <li>当表达式为常量时，直接将常量赋值给被标注的对象</li>
  * <li>默认值 "" 表示直接使用 package.class.field 的形式作为键值在配置文件中进行匹配</li>
  * </ul>
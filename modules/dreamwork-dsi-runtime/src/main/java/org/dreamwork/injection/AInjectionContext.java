@@ -104,4 +104,13 @@ public @interface AInjectionContext {
      * @since 2.1.2
      */
     String[] websocketPackages () default {};
+
+    /**
+     * 是否并行扫描类路径. 也可以在配置文件中通过 {@code org.dreamwork.dsi.scan.parallel = true} 开启.
+     *
+     * <p>开启后，包的列举和类的加载/检查在 fork-join 池中并行进行，找到的类仍按类名顺序依次处理</p>
+     * @return 是否并行扫描
+     * @since 2.1.3
+     */
+    boolean parallelScan () default false;
 }
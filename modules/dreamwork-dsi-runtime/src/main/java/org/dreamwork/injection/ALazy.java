@@ -2,7 +2,19 @@ package org.dreamwork.injection;
 
 import java.lang.annotation.*;
 
-@Target ({ElementType.FIELD, ElementType.METHOD})
+/**
+ * 延迟创建/延迟查找.
+ *
+ * <ul>
+ * <li>标注在被 {@link javax.annotation.Resource} 标注的类上时，容器启动时只注册这个类的代理，
+ * 真实的实例在代理第一次被调用时才创建、注入并执行预处理方法 (since 2.1.3)</li>
+ * <li>标注在需要注入的字段或 setter 上时，注入一个在第一次调用时才查找资源的代理；
+ * 若注入点的类型为 {@link java.util.function.Supplier}，则注入一个在 {@code get ()} 时查找泛型参数类型的 Supplier (since 2.1.3)</li>
+ * </ul>
+ *
+ * <p>代理由 cglib 生成，被代理的类必须是接口，或是非 final 的、有非私有无参构造器的类，否则将退回到立即创建/查找</p>
+ */
+@Target ({ElementType.TYPE, ElementType.FIELD, ElementType.METHOD})
 @Retention (RetentionPolicy.RUNTIME)
 @Documented
 @Inherited
@@ -0,0 +1,17 @@
+package org.dreamwork.injection;
+
+import java.lang.annotation.*;
+
+/**
+ * 重置作用域实例.
+ *
+ * <p>标注在 {@link AScope} 作用域类的一个无参 public 方法上。实例放回对象池之前调用这个方法，清除上一次使用留下的状态；
+ * 方法抛出异常时实例不再放回对象池，而是被销毁</p>
+ *
+ * @since 2.1.3
+ */
+@Target (ElementType.METHOD)
+@Retention (RetentionPolicy.RUNTIME)
+@Documented
+public @interface AReset {
+}
@@ -0,0 +1,58 @@
+package org.dreamwork.injection;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时执行的方法.
+ *
+ * <p>标注在托管实例的 public 无参方法上，容器完成注入和预处理后由 {@link ITimer} 按时调用：</p>
+ * <ul>
+ * <li>指定 {@link #fixedRate()} - 以固定的频率执行</li>
+ * <li>指定 {@link #fixedDelay()} - 一次执行结束后间隔固定的时间再执行</li>
+ * <li>都不指定 - 在 {@link #initialDelay()} 之后执行一次</li>
+ * </ul>
+ * <p>方法默认在定时器的线程中执行；{@link #executor()} 指定一个受托管的线程池时，在线程池中执行。
+ * 实例从容器中删除或销毁前，它的定时任务被取消。延迟创建和非单例作用域的实例不支持这个注解</p>
+ * <pre>
+ * &#64;AScheduled (fixedDelay = 30, initialDelay = 10, unit = TimeUnit.SECONDS, executor = "io")
+ * public void refresh () { ... }
+ * </pre>
+ *
+ * @see ITimer
+ * @since 2.1.3
+ */
+@Target (ElementType.METHOD)
+@Retention (RetentionPolicy.RUNTIME)
+@Documented
+public @interface AScheduled {
+    /**
+     * 两次执行开始的间隔，不大于 0 表示不使用
+     * @return 间隔
+     */
+    long fixedRate () default -1;
+
+    /**
+     * 一次执行结束到下一次执行开始的间隔，不大于 0 表示不使用
+     * @return 间隔
+     */
+    long fixedDelay () default -1;
+
+    /**
+     * 首次执行的延迟
+     * @return 延迟
+     */
+    long initialDelay () default 0;
+
+    /**
+     * 时间单位
+     * @return 时间单位
+     */
+    TimeUnit unit () default TimeUnit.MILLISECONDS;
+
+    /**
+     * 执行方法的受托管线程池的名称，为空时在定时器的线程中执行
+     * @return 线程池的名称
+     */
+    String executor () default "";
+}
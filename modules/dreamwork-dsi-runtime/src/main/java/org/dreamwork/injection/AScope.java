@@ -0,0 +1,44 @@
+package org.dreamwork.injection;
+
+import java.lang.annotation.*;
+
+/**
+ * 托管实例的作用域.
+ *
+ * <p>标注在被 {@link javax.annotation.Resource} 标注的类上。非单例的类在容器中注册的是一个 cglib 代理 (作用域代理)，
+ * 注入和查找得到的都是这个代理，代理的每次方法调用按作用域转发给真实的实例：</p>
+ * <ul>
+ * <li>{@link BeanScope#PROTOTYPE} - 每次调用借用一个独占的实例，调用结束后归还。适合 {@code SimpleDateFormat} 这类
+ * 非线程安全、但创建代价较高的辅助对象。实例的状态不会跨调用保留</li>
+ * <li>{@link BeanScope#THREAD} - 每个线程第一次调用时创建自己的实例，之后一直使用它</li>
+ * <li>{@link BeanScope#REQUEST} - 同一个请求内的调用共享一个实例，请求结束时归还。
+ * 请求由 {@link org.dreamwork.injection.impl.RequestScope} 界定，embedded-httpd 在每个 http 请求中自动开启；
+ * 没有请求时调用代理会抛出 {@link IllegalStateException}</li>
+ * </ul>
+ *
+ * <p>{@link #pool()} 大于 0 时，归还的实例先经过 {@link AReset} 标注的方法重置，再放回容量为 {@link #pool()}
+ * 的对象池供下次借用；池满或重置失败的实例被销毁 (调用 {@link javax.annotation.PreDestroy} 标注的方法)。
+ * 线程作用域的实例不进入对象池</p>
+ *
+ * <p>作用域实例和 {@link ALazy} 延迟实例的限制相同：类必须能被代理，不能实现 {@link IInjectResolvedProcessor}，
+ * 也不能通过 getter 暴露资源，否则退回到单例</p>
+ *
+ * @since 2.1.3
+ */
+@Target (ElementType.TYPE)
+@Retention (RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface AScope {
+    /**
+     * 作用域
+     * @return 作用域
+     */
+    BeanScope value () default BeanScope.SINGLETON;
+
+    /**
+     * 对象池的容量，0 表示不使用对象池，归还的实例直接销毁
+     * @return 对象池的容量
+     */
+    int pool () default 0;
+}
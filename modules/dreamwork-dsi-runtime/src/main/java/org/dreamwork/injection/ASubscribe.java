@@ -0,0 +1,23 @@
+package org.dreamwork.injection;
+
+import java.lang.annotation.*;
+
+/**
+ * 事件订阅者.
+ *
+ * <p>标注在托管实例的 public 方法上，方法只能有一个参数：</p>
+ * <ul>
+ * <li>参数为事件类型时，每个事件调用一次</li>
+ * <li>参数为 {@code java.util.List<事件类型>} 时，按批次调用，批次的大小不超过 {@code org.dreamwork.dsi.event.batch-size}</li>
+ * </ul>
+ * <p>通过 {@link IEventBus#publish(Object)} 发布的事件，若是参数中事件类型 (或其子类) 的实例，将被投递给这个方法。
+ * 订阅者在事件总线的消费线程中执行，同一个订阅者收到的事件保持发布的顺序，且不会被并发调用</p>
+ *
+ * @see IEventBus
+ * @since 2.1.3
+ */
+@Target (ElementType.METHOD)
+@Retention (RetentionPolicy.RUNTIME)
+@Documented
+public @interface ASubscribe {
+}
@@ -0,0 +1,18 @@
+package org.dreamwork.injection;
+
+/**
+ * 托管实例的作用域
+ *
+ * @see AScope
+ * @since 2.1.3
+ */
+public enum BeanScope {
+    /** 单例，容器中只有一个实例 (缺省) */
+    SINGLETON,
+    /** 原型，代理的每次方法调用都使用一个独占的实例，调用结束后实例被重置并放回对象池 */
+    PROTOTYPE,
+    /** 线程，每个线程使用自己的实例 */
+    THREAD,
+    /** 请求，同一个请求 ({@link org.dreamwork.injection.impl.RequestScope}) 内的调用共享一个实例，请求结束时重置并放回对象池 */
+    REQUEST
+}
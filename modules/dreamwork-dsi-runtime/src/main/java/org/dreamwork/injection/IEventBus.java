@@ -0,0 +1,26 @@
+package org.dreamwork.injection;
+
+/**
+ * 容器内的异步事件总线.
+ *
+ * <p>容器启动时注册一个名为 {@code event-bus} 的实例，托管实例可以直接注入它。
+ * 发布的事件进入一个预先分配的环形缓冲区，由消费线程投递给所有 {@link ASubscribe} 标注的订阅者，
+ * 发布者不会等待订阅者执行</p>
+ *
+ * @since 2.1.3
+ */
+public interface IEventBus {
+    /**
+     * 发布事件。缓冲区已满时等待，直到有空位
+     * @param event 事件，不能为 {@code null}
+     * @throws IllegalStateException 事件总线已经关闭时抛出
+     */
+    void publish (Object event);
+
+    /**
+     * 尝试发布事件，不等待
+     * @param event 事件，不能为 {@code null}
+     * @return 缓冲区已满或事件总线已经关闭时返回 {@code false}
+     */
+    boolean tryPublish (Object event);
+}
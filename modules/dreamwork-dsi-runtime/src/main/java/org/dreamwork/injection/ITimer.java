@@ -0,0 +1,73 @@
+package org.dreamwork.injection;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 容器级的定时器.
+ *
+ * <p>容器启动时注册一个名为 {@code timer} 的实例，托管实例可以直接注入它。定时器基于时间轮实现，
+ * 添加和取消一个超时都是 O(1) 的操作，适合管理大量的超时 (比如每个会话、每个连接一个)，
+ * 精度为一个刻度 ({@code org.dreamwork.dsi.timer.tick}，默认 10ms)</p>
+ *
+ * <p>所有任务在定时器的唯一线程中执行，任务应该尽快返回；耗时的任务应该转交给线程池执行。
+ * 任务抛出的异常只记录日志，周期任务继续执行</p>
+ *
+ * @see AScheduled
+ * @since 2.1.3
+ */
+public interface ITimer {
+    /**
+     * 在指定的延迟之后执行一次任务
+     * @param task  任务
+     * @param delay 延迟
+     * @param unit  时间单位
+     * @return 超时的句柄
+     * @throws IllegalStateException 定时器已经停止时抛出
+     */
+    Timeout schedule (Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * 以固定的频率执行任务。任务执行时间超过周期时跳过错过的执行，不会并发执行
+     * @param task         任务
+     * @param initialDelay 首次执行的延迟
+     * @param period       两次执行开始的间隔，必须大于 0
+     * @param unit         时间单位
+     * @return 超时的句柄
+     * @throws IllegalStateException 定时器已经停止时抛出
+     */
+    Timeout scheduleAtFixedRate (Runnable task, long initialDelay, long period, TimeUnit unit);
+
+    /**
+     * 以固定的间隔执行任务
+     * @param task         任务
+     * @param initialDelay 首次执行的延迟
+     * @param delay        一次执行结束到下一次执行开始的间隔，必须大于 0
+     * @param unit         时间单位
+     * @return 超时的句柄
+     * @throws IllegalStateException 定时器已经停止时抛出
+     */
+    Timeout scheduleWithFixedDelay (Runnable task, long initialDelay, long delay, TimeUnit unit);
+
+    /**
+     * 超时的句柄
+     */
+    interface Timeout {
+        /**
+         * 取消超时。正在执行的任务不会被中断，但周期任务不再执行
+         * @return 本次调用取消了超时返回 {@code true}，已经执行过或已经取消返回 {@code false}
+         */
+        boolean cancel ();
+
+        /**
+         * 是否已经取消
+         * @return 已经取消返回 {@code true}
+         */
+        boolean isCancelled ();
+
+        /**
+         * 一次性的任务是否已经执行。周期任务总是返回 {@code false}
+         * @return 已经执行返回 {@code true}
+         */
+        boolean isExpired ();
+    }
+}
@@ -0,0 +1,27 @@
+package org.dreamwork.injection;
+
+/**
+ * 预热任务.
+ *
+ * <p>在 AppCDS 训练模式 (命令行参数 {@code --cds-train}) 下，容器启动完成后按 {@link #getOrder()} 的顺序
+ * 调用所有受托管的预热任务，让常用的代码路径 (比如一次完整的 http 请求) 在训练期间被加载，
+ * 这些类随后被写入共享归档。正常启动时预热任务不会被调用</p>
+ *
+ * @since 2.1.3
+ */
+public interface IWarmUpTask {
+    /**
+     * 执行预热
+     * @param context 托管容器
+     * @throws Exception 任何异常，只记录日志，不影响训练的继续进行
+     */
+    void warmUp (IObjectContext context) throws Exception;
+
+    /**
+     * 预热的顺序
+     * @return 预热的顺序，小的先执行
+     */
+    default int getOrder () {
+        return 0;
+    }
+}
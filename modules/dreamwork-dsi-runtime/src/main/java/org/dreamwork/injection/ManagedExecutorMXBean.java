@@ -0,0 +1,109 @@
+package org.dreamwork.injection;
+
+import javax.management.MXBean;
+
+/**
+ * 受托管线程池的运行指标.
+ *
+ * <p>每个在配置中声明 (或由托管实例按名称申请) 的线程池都以
+ * {@code org.dreamwork.jmx:type=Executor,name=<名称>} 的名称注册到 JMX</p>
+ *
+ * @since 2.1.3
+ */
+@MXBean
+public interface ManagedExecutorMXBean {
+    /**
+     * 线程池的名称，也是它在容器内注册的名称
+     * @return 名称
+     */
+    String getName ();
+
+    /**
+     * 是否使用虚拟线程
+     * @return 使用虚拟线程时返回 {@code true}
+     */
+    boolean isVirtual ();
+
+    /**
+     * 核心线程数
+     * @return 核心线程数
+     */
+    int getCorePoolSize ();
+
+    /**
+     * 最大线程数
+     * @return 最大线程数
+     */
+    int getMaximumPoolSize ();
+
+    /**
+     * 当前的线程数
+     * @return 线程数
+     */
+    int getPoolSize ();
+
+    /**
+     * 正在执行任务的线程数
+     * @return 活动线程数
+     */
+    int getActiveCount ();
+
+    /**
+     * 队列中等待执行的任务数
+     * @return 队列深度
+     */
+    int getQueueDepth ();
+
+    /**
+     * 队列的剩余容量，无界队列返回 {@link Integer#MAX_VALUE}
+     * @return 剩余容量
+     */
+    int getQueueRemainingCapacity ();
+
+    /**
+     * 已经执行完成的任务数
+     * @return 任务数
+     */
+    long getCompletedTaskCount ();
+
+    /**
+     * 被拒绝的任务数
+     * @return 任务数
+     */
+    long getRejectedCount ();
+
+    /**
+     * 执行时抛出异常的任务数。通过 {@code submit} 提交的任务的异常由返回的 {@code Future} 捕获，不计入
+     * @return 任务数
+     */
+    long getFailedCount ();
+
+    /**
+     * 任务在队列中的平均等待时间
+     * @return 毫秒
+     */
+    double getAverageWaitMillis ();
+
+    /**
+     * 任务在队列中的最长等待时间
+     * @return 毫秒
+     */
+    double getMaxWaitMillis ();
+
+    /**
+     * 任务的平均执行时间
+     * @return 毫秒
+     */
+    double getAverageRunMillis ();
+
+    /**
+     * 任务的最长执行时间
+     * @return 毫秒
+     */
+    double getMaxRunMillis ();
+
+    /**
+     * 清除等待时间和执行时间的统计
+     */
+    void resetStatistics ();
+}
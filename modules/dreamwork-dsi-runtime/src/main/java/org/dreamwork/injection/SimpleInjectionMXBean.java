@@ -1,7 +1,57 @@
 package org.dreamwork.injection;
 
 import javax.management.MXBean;
+import java.util.List;
+import java.util.Map;
 
 @MXBean
 public interface SimpleInjectionMXBean {
+    /**
+     * 容器内已注册的实例数量
+     * @return 实例数量
+     * @since 2.1.3
+     */
+    int getRegisteredBeanCount ();
+
+    /**
+     * 容器启动的总耗时
+     * @return 毫秒
+     * @since 2.1.3
+     */
+    long getStartupMillis ();
+
+    /**
+     * 启动各阶段的耗时，按阶段开始的顺序排列
+     * @return 阶段名称 - 毫秒
+     * @since 2.1.3
+     */
+    Map<String, Long> getStartupPhases ();
+
+    /**
+     * 启动过程中每个托管类的构造耗时
+     * @return 类名 - 毫秒
+     * @since 2.1.3
+     */
+    Map<String, Long> getConstructionMillis ();
+
+    /**
+     * 启动过程中每个托管类的预处理方法的耗时
+     * @return 类名 - 毫秒
+     * @since 2.1.3
+     */
+    Map<String, Long> getPostConstructMillis ();
+
+    /**
+     * 启动过程中执行超时的预处理方法，包含执行线程的堆栈采样
+     * @return 超时的预处理方法
+     * @since 2.1.3
+     */
+    List<String> getSlowPostConstructs ();
+
+    /**
+     * 文本形式的启动时间线
+     * @return 启动时间线
+     * @since 2.1.3
+     */
+    String getStartupTimeline ();
 }
@@ -0,0 +1,199 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.AConfigurationChanged;
+import org.dreamwork.injection.AConfigured;
+import org.dreamwork.injection.AReset;
+import org.dreamwork.injection.AScheduled;
+import org.dreamwork.injection.ASubscribe;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * 托管类的元数据描述.
+ *
+ * <p>同一个类的所有实例共享一个描述，描述在第一次使用时通过反射计算，之后缓存在 {@link ClassValue} 中，
+ * 注册、删除、销毁实例和扫描器都直接使用缓存的结果，不再重复展开继承树和反射查找注解</p>
+ *
+ * @since 2.1.3
+ */
+public final class BeanDescriptor {
+    /**
+     * 排除的包名。
+     *
+     * <p>某些 jdk 自带的接口不适合作为类型索引，应该排除它们</p>
+     */
+    private static final String[] EXCLUDE_PREFIXES = {
+            "java.util.", "java.io."
+    };
+
+    private static final ClassValue<BeanDescriptor> CACHE = new ClassValue<BeanDescriptor> () {
+        @Override
+        protected BeanDescriptor computeValue (Class<?> type) {
+            return new BeanDescriptor (type);
+        }
+    };
+
+    /** 描述的类型 */
+    public final Class<?> type;
+    /** 展开后的继承树，包括所有的父类和接口 ({@code java.lang.Object} 和被排除的接口除外) */
+    public final Set<Class<?>> types;
+    /** 继承链上所有标注为 {@link Resource} 的字段 */
+    public final List<Field> resourceFields;
+    /** 继承链上所有标注为 {@link Resource} 的非原始类型字段 */
+    public final List<Field> injectFields;
+    /** 继承链上所有标注为 {@link AConfigured} 的字段 */
+    public final List<Field> configuredFields;
+    /** 继承链上声明的，标注为 {@link Resource} 的 public 方法 */
+    public final List<Method> resourceMethods;
+    /** 所有标注为 {@link Resource} 的 public 方法，包括继承来的，合成方法除外 */
+    public final List<Method> publicResourceMethods;
+    /** 所有标注为 {@link PostConstruct} 的 public 方法，包括继承来的 */
+    public final List<Method> postConstructs;
+    /** 标注为 {@link PreDestroy} 的 public 方法，没有时为 {@code null} */
+    public final Method preDestroy;
+    /** 标注为 {@link AConfigurationChanged} 的 public 方法，没有时为 {@code null} */
+    public final Method configurationChanged;
+    /** 标注为 {@link AReset} 的 public 方法，没有时为 {@code null} */
+    public final Method reset;
+    /** 继承链上所有标注为 {@link ASubscribe} 的 public 方法，被子类覆盖的只保留一个 */
+    public final List<Method> subscribers;
+    /** 继承链上所有标注为 {@link AScheduled} 的 public 无参方法，被子类覆盖的只保留一个 */
+    public final List<Method> scheduled;
+
+    /**
+     * 获取指定类的描述
+     * @param type java 类型
+     * @return 类的描述
+     */
+    public static BeanDescriptor of (Class<?> type) {
+        return CACHE.get (type);
+    }
+
+    private BeanDescriptor (Class<?> type) {
+        this.type = type;
+
+        Set<Class<?>> types = new LinkedHashSet<> ();
+        findAllType (type, types);
+        this.types = Collections.unmodifiableSet (types);
+
+        List<Field> resourceFields   = new ArrayList<> ();
+        List<Field> injectFields     = new ArrayList<> ();
+        List<Field> configuredFields = new ArrayList<> ();
+        List<Method> resourceMethods = new ArrayList<> ();
+        List<Method> subscribers     = new ArrayList<> ();
+        List<Method> scheduled       = new ArrayList<> ();
+        Set<String> signatures       = new HashSet<> ();
+        for (Class<?> t = type; t != null && t != Object.class; t = t.getSuperclass ()) {
+            for (Field field : t.getDeclaredFields ()) {
+                if (field.isAnnotationPresent (Resource.class)) {
+                    resourceFields.add (field);
+                    if (!field.getType ().isPrimitive ()) {
+                        injectFields.add (field);
+                        continue;
+                    }
+                }
+                if (field.isAnnotationPresent (AConfigured.class)) {
+                    configuredFields.add (field);
+                    // 预先确定字段的转换器
+                    ConfigConverter.of (field);
+                }
+            }
+            for (Method method : t.getDeclaredMethods ()) {
+                if (method.isAnnotationPresent (Resource.class) && Modifier.isPublic (method.getModifiers ())) {
+                    resourceMethods.add (method);
+                }
+                // 从声明的方法中查找，代理类覆盖的方法上没有注解
+                if (method.isAnnotationPresent (ASubscribe.class) && Modifier.isPublic (method.getModifiers ()) &&
+                        method.getParameterCount () == 1 &&
+                        signatures.add (method.getName () + Arrays.toString (method.getParameterTypes ()))) {
+                    subscribers.add (method);
+                }
+                if (method.isAnnotationPresent (AScheduled.class) && Modifier.isPublic (method.getModifiers ()) &&
+                        method.getParameterCount () == 0 && signatures.add (method.getName () + "[]")) {
+                    scheduled.add (method);
+                }
+            }
+        }
+        this.resourceFields   = Collections.unmodifiableList (resourceFields);
+        this.injectFields     = Collections.unmodifiableList (injectFields);
+        this.configuredFields = Collections.unmodifiableList (configuredFields);
+        this.resourceMethods  = Collections.unmodifiableList (resourceMethods);
+        this.subscribers      = Collections.unmodifiableList (subscribers);
+        this.scheduled        = Collections.unmodifiableList (scheduled);
+
+        List<Method> publicResourceMethods = new ArrayList<> ();
+        List<Method> postConstructs = new ArrayList<> ();
+        Method preDestroy = null, configurationChanged = null, reset = null;
+        for (Method method : type.getMethods ()) {
+            if (method.isAnnotationPresent (Resource.class)) {
+                if (!method.isSynthetic ()) {
+                    // 合成方法会被跳过，不管是否有 @Resource 注解
+                    publicResourceMethods.add (method);
+                }
+            } else if (method.isAnnotationPresent (PostConstruct.class)) {
+                postConstructs.add (method);
+            } else if (preDestroy == null && method.isAnnotationPresent (PreDestroy.class)) {
+                preDestroy = method;
+            } else if (configurationChanged == null && method.isAnnotationPresent (AConfigurationChanged.class)) {
+                configurationChanged = method;
+            } else if (reset == null && method.isAnnotationPresent (AReset.class) && method.getParameterCount () == 0) {
+                reset = method;
+            }
+        }
+        this.publicResourceMethods = Collections.unmodifiableList (publicResourceMethods);
+        this.postConstructs = Collections.unmodifiableList (postConstructs);
+        this.preDestroy = preDestroy;
+        this.configurationChanged = configurationChanged;
+        this.reset = reset;
+    }
+
+    /**
+     * 展开类的继承树，并将每个层级的类放在集合中
+     * @param baseType 基本类型
+     * @param types    出参。每个层级的类型都会被放在这个集合中
+     */
+    private static void findAllType (Class<?> baseType, Set<Class<?>> types) {
+        Class<?> type = baseType;
+        while (type != null && type != Object.class) {
+            types.add (type);
+
+            Class<?>[] temp = type.getInterfaces ();
+            for (Class<?> t : temp) {
+                String name = t.getCanonicalName ();
+                if (exclude (name)) {
+                    continue;
+                }
+                findAllType (t, types);
+            }
+
+            type = type.getSuperclass ();
+        }
+    }
+
+    /**
+     * 是否是排除 {@link #EXCLUDE_PREFIXES} 列表中的类
+     * @param name 类的全限定名称
+     * @return 若是返回 {@code true}，否则 {@code false}
+     */
+    private static boolean exclude (String name) {
+        if (name == null) {
+            // 匿名或局部接口没有 canonical name，不可能是 jdk 的接口
+            return false;
+        }
+        if (name.startsWith ("java.util.concurrent.")) {
+            return false;
+        }
+        for (String prefix : EXCLUDE_PREFIXES) {
+            if (name.startsWith (prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,193 @@
+package org.dreamwork.injection.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 托管对象之间的依赖图.
+ *
+ * <p>节点以 identity 比较，依赖关系来自注入时实际注入的对象。图中的环 (字段之间的相互注入是允许的)
+ * 在排序时按节点加入的顺序被打断，打断的边被忽略</p>
+ *
+ * @param <T> 节点类型
+ * @since 2.1.3
+ */
+final class BeanGraph<T> {
+    private static final Logger logger = LoggerFactory.getLogger (BeanGraph.class);
+
+    /** 按加入顺序排列的所有节点 */
+    private final List<T> nodes = new ArrayList<> ();
+    /** 节点 - 它依赖的节点 */
+    private final Map<T, List<T>> dependencies = new IdentityHashMap<> ();
+
+    /**
+     * 节点上执行的动作
+     * @param <T> 节点类型
+     */
+    interface Action<T> {
+        void run (T node) throws Exception;
+    }
+
+    void add (T node) {
+        if (!dependencies.containsKey (node)) {
+            nodes.add (node);
+            dependencies.put (node, new ArrayList<> ());
+        }
+    }
+
+    /**
+     * 添加一条依赖关系，{@code node} 依赖于 {@code dependency}. 不在图中的节点，或自身依赖将被忽略
+     * @param node       节点
+     * @param dependency 被依赖的节点
+     */
+    void addDependency (T node, T dependency) {
+        if (node == dependency || !dependencies.containsKey (dependency)) {
+            return;
+        }
+        List<T> list = dependencies.get (node);
+        if (list != null && !containsIdentity (list, dependency)) {
+            list.add (dependency);
+        }
+    }
+
+    boolean isEmpty () {
+        return nodes.isEmpty ();
+    }
+
+    /**
+     * 拓扑排序
+     * @return 被依赖的节点排在依赖它的节点之前
+     */
+    List<T> sort () {
+        return new Plan ().order;
+    }
+
+    /**
+     * 反转依赖关系：原来被依赖的节点依赖于依赖它的节点. 环在反转之前按 {@link #sort()} 的规则打断
+     * @return 新的依赖图
+     */
+    BeanGraph<T> reverse () {
+        Plan plan = new Plan ();
+        BeanGraph<T> reversed = new BeanGraph<> ();
+        for (int i = plan.order.size () - 1; i >= 0; i --) {
+            reversed.add (plan.order.get (i));
+        }
+        for (T node : plan.order) {
+            for (T dependency : plan.acyclic.get (node)) {
+                reversed.addDependency (dependency, node);
+            }
+        }
+        return reversed;
+    }
+
+    /**
+     * 按依赖关系并行执行动作：一个节点的动作在它所有依赖节点的动作完成后才开始，互不依赖的节点并行执行.
+     *
+     * <p>当任意一个动作失败后，不再开始新的动作，等待已经开始的动作结束后抛出第一个失败的异常</p>
+     *
+     * @param executor 执行器
+     * @param action   动作
+     * @throws Exception 第一个失败的动作抛出的异常
+     */
+    void execute (Executor executor, Action<T> action) throws Exception {
+        Plan plan = new Plan ();
+        AtomicReference<Throwable> failure = new AtomicReference<> ();
+        Map<T, CompletableFuture<Void>> futures = new IdentityHashMap<> ();
+        for (T node : plan.order) {
+            List<T> deps = plan.acyclic.get (node);
+            CompletableFuture<?>[] array = new CompletableFuture<?>[deps.size ()];
+            for (int i = 0; i < array.length; i ++) {
+                array [i] = futures.get (deps.get (i));
+            }
+            CompletableFuture<Void> future = CompletableFuture.allOf (array).thenRunAsync (() -> {
+                if (failure.get () != null) {
+                    // 已经有动作失败了，不再开始新的动作
+                    throw new CancellationMarker ();
+                }
+                try {
+                    action.run (node);
+                } catch (Throwable t) {
+                    failure.compareAndSet (null, t);
+                    throw new CompletionException (t);
+                }
+            }, executor);
+            futures.put (node, future);
+        }
+
+        try {
+            CompletableFuture.allOf (futures.values ().toArray (new CompletableFuture<?>[0])).join ();
+        } catch (CompletionException ignore) {
+            // 失败的原因记录在 failure 中
+        }
+
+        Throwable t = failure.get ();
+        if (t instanceof Exception) {
+            throw (Exception) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new IllegalStateException (t);
+        }
+    }
+
+    private static boolean containsIdentity (List<?> list, Object o) {
+        for (Object e : list) {
+            if (e == o) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 排序的结果：拓扑顺序和去掉环之后的依赖关系
+     */
+    private final class Plan {
+        final List<T> order = new ArrayList<> (nodes.size ());
+        final Map<T, List<T>> acyclic = new IdentityHashMap<> ();
+        private final Map<T, Boolean> visiting = new IdentityHashMap<> ();
+
+        Plan () {
+            for (T node : nodes) {
+                visit (node);
+            }
+        }
+
+        private void visit (T node) {
+            if (acyclic.containsKey (node)) {
+                return;
+            }
+            visiting.put (node, Boolean.TRUE);
+            List<T> kept = new ArrayList<> ();
+            for (T dep : dependencies.get (node)) {
+                if (visiting.containsKey (dep)) {
+                    // 回边，构成了环
+                    if (logger.isTraceEnabled ()) {
+                        logger.trace ("dependency cycle detected between {} and {}, ignore this edge", node, dep);
+                    }
+                    continue;
+                }
+                visit (dep);
+                kept.add (dep);
+            }
+            visiting.remove (node);
+            acyclic.put (node, kept);
+            order.add (node);
+        }
+    }
+
+    /**
+     * 因之前的动作失败而取消的标记
+     */
+    private static final class CancellationMarker extends RuntimeException {
+        CancellationMarker () {
+            super (null, null, false, false);
+        }
+    }
+}
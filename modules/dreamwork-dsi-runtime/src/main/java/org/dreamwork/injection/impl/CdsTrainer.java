@@ -0,0 +1,239 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.IConfiguration;
+import org.dreamwork.injection.IObjectContext;
+import org.dreamwork.injection.IWarmUpTask;
+import org.dreamwork.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * AppCDS 训练模式 (命令行参数 {@code --cds-train}).
+ *
+ * <p>训练分两个进程完成：当前进程 (父进程) 以相同的 jvm 参数、类路径和命令行参数启动一个训练子进程，
+ * 子进程正常启动整个容器，执行所有的 {@link IWarmUpTask}，然后销毁容器并退出；
+ * 子进程退出后，父进程生成共享归档并退出。生成的文件都在 {@value #KEY_DIR} 指定的目录 (默认 {@code ../cds}) 中：</p>
+ * <ul>
+ * <li>{@code classes.lst} - 子进程加载的所有类 ({@code -XX:DumpLoadedClassList})</li>
+ * <li>{@code app.jsa} - 共享归档。JDK 13 及以上由子进程在退出时直接生成动态归档 ({@code -XX:ArchiveClassesAtExit})；
+ * JDK 10 ~ 12 由父进程根据类列表生成静态归档 ({@code -Xshare:dump})；JDK 9 只生成类列表</li>
+ * <li>{@code jvm-options} - 启动脚本使用这个归档所需的 jvm 参数，每行一个</li>
+ * </ul>
+ * <p>归档只对生成它的 JDK 和相同的类路径有效。jvm 只能归档 jar 文件中的类，类路径中有非空目录时
+ * (比如配置目录) 只生成类列表</p>
+ *
+ * @since 2.1.3
+ */
+final class CdsTrainer {
+    /** 命令行参数 */
+    static final String ARG_TRAIN = "cds-train";
+    /** 配置项：训练结果的输出目录，默认 {@code ../cds} */
+    static final String KEY_DIR   = "org.dreamwork.dsi.cds.dir";
+    /** 标记训练子进程的系统属性 */
+    static final String PROP_TRAINING = "org.dreamwork.dsi.cds.training";
+
+    private static final String CLASS_LIST = "classes.lst";
+    private static final String ARCHIVE    = "app.jsa";
+    private static final String OPTIONS    = "jvm-options";
+
+    /** 不传给子进程的 jvm 参数 */
+    private static final String[] EXCLUDED_OPTIONS = {
+            "-XX:SharedArchiveFile", "-XX:ArchiveClassesAtExit", "-XX:DumpLoadedClassList", "-XX:SharedClassListFile",
+            "-XX:+AutoCreateSharedArchive", "-XX:+UseAppCDS", "-Xshare", "-agentlib:jdwp", "-Xrunjdwp",
+            "-D" + PROP_TRAINING
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger (CdsTrainer.class);
+
+    private final Class<?> type;
+    private final Path dir;
+
+    /**
+     * @param conf 全局配置
+     * @param type 被 {@link org.dreamwork.injection.AInjectionContext} 标注的主类
+     */
+    CdsTrainer (IConfiguration conf, Class<?> type) {
+        String dir = conf.getString (KEY_DIR);
+        this.type = type;
+        this.dir  = Paths.get (StringUtil.isEmpty (dir) ? "../cds" : dir.trim ()).toAbsolutePath ().normalize ();
+    }
+
+    /**
+     * 当前进程是否是训练子进程
+     * @return 是训练子进程返回 {@code true}
+     */
+    static boolean isTraining () {
+        return Boolean.getBoolean (PROP_TRAINING);
+    }
+
+    /**
+     * 在训练子进程中执行所有的预热任务。任务的异常只记录日志
+     * @param context 托管容器
+     */
+    static void warmUp (IObjectContext context) {
+        List<IWarmUpTask> tasks = new ArrayList<> (context.getBeanMap (IWarmUpTask.class).values ());
+        tasks.sort (Comparator.comparingInt (IWarmUpTask::getOrder));
+        for (IWarmUpTask task : tasks) {
+            long start = System.currentTimeMillis ();
+            try {
+                task.warmUp (context);
+                if (logger.isInfoEnabled ()) {
+                    logger.info ("warm-up task {} done in {} ms", task.getClass ().getName (), System.currentTimeMillis () - start);
+                }
+            } catch (Exception ex) {
+                logger.warn ("warm-up task {} failed: {}", task.getClass ().getName (), ex.getMessage (), ex);
+            }
+        }
+    }
+
+    /**
+     * 启动训练子进程并生成归档
+     * @param args 命令行参数，原样传给子进程
+     * @return 进程的退出码
+     * @throws IOException 无法创建输出目录或启动进程时
+     * @throws InterruptedException 等待子进程时被中断
+     */
+    int train (String... args) throws IOException, InterruptedException {
+        int version = featureVersion ();
+        if (version < 9) {
+            logger.error ("AppCDS training requires JDK 9 or later, the current is {}", System.getProperty ("java.version"));
+            return 1;
+        }
+
+        Files.createDirectories (dir);
+        Path list    = dir.resolve (CLASS_LIST);
+        Path archive = dir.resolve (ARCHIVE);
+        Files.deleteIfExists (list);
+        Files.deleteIfExists (archive);
+
+        List<String> command = new ArrayList<> ();
+        command.add (java ());
+        for (String option : ManagementFactory.getRuntimeMXBean ().getInputArguments ()) {
+            if (!isExcluded (option)) {
+                command.add (option);
+            }
+        }
+        command.add ("-D" + PROP_TRAINING + "=true");
+        command.add ("-XX:DumpLoadedClassList=" + list);
+        // 类路径中有非空目录时，jvm 拒绝以 -XX:ArchiveClassesAtExit 启动，-Xshare:dump 也会失败
+        List<String> directories = directories ();
+        boolean archivable = directories.isEmpty ();
+        if (!archivable) {
+            logger.warn ("the classpath contains non-empty directories {}, only the class list will be generated", directories);
+        }
+        if (version >= 13 && archivable) {
+            command.add ("-XX:ArchiveClassesAtExit=" + archive);
+        }
+        command.addAll (launcher ());
+        command.addAll (Arrays.asList (args));
+
+        int code = exec ("training", command);
+        if (code != 0) {
+            logger.error ("the training process exited with code {}", code);
+            return code;
+        }
+
+        if (version >= 10 && version < 13 && archivable) {
+            command.clear ();
+            command.add (java ());
+            if (version == 10) {
+                command.add ("-XX:+UseAppCDS");
+            }
+            command.add ("-Xshare:dump");
+            command.add ("-XX:SharedClassListFile=" + list);
+            command.add ("-XX:SharedArchiveFile=" + archive);
+            command.add ("-cp");
+            command.add (System.getProperty ("java.class.path"));
+            code = exec ("dumping", command);
+            if (code != 0) {
+                logger.error ("cannot dump the shared archive, exit code {}", code);
+                return code;
+            }
+        }
+
+        if (!Files.isRegularFile (archive)) {
+            logger.warn ("no shared archive is created on JDK {}, only the class list {} is available", version, list);
+            return 0;
+        }
+
+        List<String> options = new ArrayList<> ();
+        if (version == 10) {
+            options.add ("-XX:+UseAppCDS");
+        }
+        options.add ("-Xshare:auto");
+        options.add ("-XX:SharedArchiveFile=" + archive);
+        Files.write (dir.resolve (OPTIONS), options, StandardCharsets.UTF_8);
+        if (logger.isInfoEnabled ()) {
+            logger.info ("shared archive {} ({} bytes) is ready, launch with: {}",
+                    archive, Files.size (archive), String.join (" ", options));
+        }
+        return 0;
+    }
+
+    /**
+     * 启动当前应用的参数：{@code -jar xxx.jar} 或 {@code -cp <classpath> <main class>}
+     */
+    private List<String> launcher () {
+        String classpath = System.getProperty ("java.class.path", "");
+        String command   = System.getProperty ("sun.java.command", "");
+        if (classpath.endsWith (".jar") && !classpath.contains (File.pathSeparator) && command.startsWith (classpath)) {
+            return Arrays.asList ("-jar", classpath);
+        }
+        String main = command.isEmpty () ? type.getName () : command.split (" ", 2) [0];
+        return Arrays.asList ("-cp", classpath, main);
+    }
+
+    /**
+     * 类路径中的非空目录
+     */
+    private static List<String> directories () {
+        List<String> list = new ArrayList<> ();
+        for (String entry : System.getProperty ("java.class.path", "").split (File.pathSeparator)) {
+            String[] children = entry.isEmpty () ? null : new File (entry).list ();
+            if (children != null && children.length > 0) {
+                list.add (entry);
+            }
+        }
+        return list;
+    }
+
+    private int exec (String name, List<String> command) throws IOException, InterruptedException {
+        if (logger.isInfoEnabled ()) {
+            logger.info ("{}: {}", name, String.join (" ", command));
+        }
+        Process process = new ProcessBuilder (command).inheritIO ().start ();
+        return process.waitFor ();
+    }
+
+    private static String java () {
+        String name = File.separatorChar == '\\' ? "java.exe" : "java";
+        return Paths.get (System.getProperty ("java.home"), "bin", name).toString ();
+    }
+
+    private static boolean isExcluded (String option) {
+        for (String prefix : EXCLUDED_OPTIONS) {
+            if (option.startsWith (prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int featureVersion () {
+        String version = System.getProperty ("java.specification.version");
+        if (version.startsWith ("1.")) {
+            version = version.substring (2);
+        }
+        int pos = version.indexOf ('.');
+        return Integer.parseInt (pos < 0 ? version : version.substring (0, pos));
+    }
+}
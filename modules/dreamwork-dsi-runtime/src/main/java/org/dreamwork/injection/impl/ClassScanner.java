@@ -4,20 +4,109 @@ import org.dreamwork.util.ResourceUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 
 /**
  * 基本的类扫描器
  */
 public abstract class ClassScanner {
     private final Logger logger = LoggerFactory.getLogger (ClassScanner.class);
+
+    /**
+     * 所有扫描器缺省是否并行扫描，由 {@link SimpleObjectContextFactory} 根据配置设置
+     * @since 2.1.3
+     */
+    private static volatile boolean defaultParallel = false;
+
+    /**
+     * 当前扫描器是否并行扫描，{@code null} 表示使用 {@link #defaultParallel}
+     * @since 2.1.3
+     */
+    private Boolean parallel;
+
+    /**
+     * 扫描结果的热启动快照，由 {@link SimpleObjectContextFactory} 在启动期间设置
+     * @since 2.1.3
+     */
+    private static volatile ScanCache scanCache;
+
+    /**
+     * 设置所有扫描器缺省是否并行扫描
+     * @param parallel 是否并行扫描
+     * @since 2.1.3
+     */
+    public static void setDefaultParallel (boolean parallel) {
+        defaultParallel = parallel;
+    }
+
+    /**
+     * 设置当前扫描器是否并行扫描，覆盖缺省设置
+     * @param parallel 是否并行扫描
+     * @since 2.1.3
+     */
+    public void setParallel (boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * 当前扫描器是否并行扫描
+     * @return 并行扫描返回 {@code true}，否则 {@code false}
+     * @since 2.1.3
+     */
+    public boolean isParallel () {
+        return parallel != null ? parallel : defaultParallel;
+    }
+
+    /**
+     * 设置扫描结果的热启动快照，{@code null} 表示不使用快照
+     * @param cache 快照
+     * @since 2.1.3
+     */
+    static void setScanCache (ScanCache cache) {
+        scanCache = cache;
+    }
+
+    /**
+     * 被这个扫描器接受的类至少带有其中的一个注解.
+     *
+     * <p>编译期组件索引 ({@link ComponentIndex}) 只记录了带有特定注解的类。只有当扫描器声明的注解都被索引记录时，
+     * 扫描器才使用索引，只加载索引中的类；否则总是扫描整个包。缺省返回 {@code null}，不使用索引。
+     * 覆盖这个方法的扫描器必须保证 {@link #accept(Class)} 接受的类都带有返回的某个注解</p>
+     *
+     * @return 注解，不使用索引时返回 {@code null}
+     * @since 2.1.3
+     */
+    protected Collection<Class<? extends Annotation>> getIndexedAnnotations () {
+        return null;
+    }
+
     /**
      * 扫描给定名称的所有包下的类。
      *
+     * <p>并行模式下，包的列举和类的加载/检查在一个 fork-join 池中进行。无论是否并行，
+     * 找到的类都按类名排序后再依次触发 {@link #onFound(String, Class, Set)} 事件</p>
+     *
+     * <p>声明了被索引的注解 (见 {@link #getIndexedAnnotations()}) 的扫描器优先使用编译期组件索引</p>
+     *
+     * <p>启动期间若有热启动快照 ({@link ScanCache}) 且类路径没有变化，直接加载快照中记录的类，跳过包的列举。
+     * 快照中的类仍然经过 {@link #accept(Class)} 检查，任何一个类无法加载或不再被接受时退回到完整的扫描</p>
+     *
      * @param packageNames 给定的所有包名
      * @throws Exception 任何异常
      */
@@ -25,19 +114,31 @@ public abstract class ClassScanner {
         ClassLoader loader = getClass ().getClassLoader ();
         Set<Wrapper> wrappers = new HashSet<> ();
         try {
-            Set<Class<?>> matchedClasses = new HashSet<> ();
-            for (String packageName : packageNames) {
-                List<Class<?>> list = ResourceUtil.getClasses (packageName, loader);
-                if (!list.isEmpty ()) {
-                    for (Class<?> type : list) {
-                        if (accept (type)) {
-                            matchedClasses.add (type);
-                        }
+            ScanCache cache = scanCache;
+            String key = cache == null ? null : ScanCache.key (getClass (), packageNames);
+            long start = System.nanoTime ();
+            Set<Class<?>> matchedClasses = key == null ? null : findCached (loader, cache.get (key));
+            if (matchedClasses != null) {
+                cache.hit (key, System.nanoTime () - start);
+            } else {
+                // 扫描器的条件没有被索引覆盖时，不使用索引
+                ComponentIndex index = ComponentIndex.covers (getIndexedAnnotations ()) ? ComponentIndex.of (loader) : null;
+                matchedClasses = isParallel () ?
+                        findParallel (loader, index, packageNames) :
+                        find (loader, index, packageNames);
+                if (key != null) {
+                    List<String> names = new ArrayList<> (matchedClasses.size ());
+                    for (Class<?> type : matchedClasses) {
+                        names.add (type.getName ());
                     }
+                    Collections.sort (names);
+                    cache.put (key, names, System.nanoTime () - start);
                 }
             }
             if (!matchedClasses.isEmpty ()) {
-                for (Class<?> type : matchedClasses) {
+                List<Class<?>> list = new ArrayList<> (matchedClasses);
+                list.sort (Comparator.comparing (Class::getName));
+                for (Class<?> type : list) {
                     try {
                         onFound (type.getSimpleName (), type, wrappers);
                     } catch (Exception ex) {
@@ -51,6 +152,199 @@ public abstract class ClassScanner {
         }
     }
 
+    /**
+     * 加载快照中记录的类，快照不存在或已经不一致时返回 {@code null}
+     */
+    private Set<Class<?>> findCached (ClassLoader loader, List<String> names) {
+        if (names == null) {
+            return null;
+        }
+        Set<Class<?>> matchedClasses = new HashSet<> ();
+        for (String name : names) {
+            Class<?> type;
+            try {
+                type = Class.forName (name, false, loader);
+            } catch (ClassNotFoundException | LinkageError ex) {
+                type = null;
+            }
+            if (type == null || !accept (type)) {
+                if (logger.isDebugEnabled ()) {
+                    logger.debug ("scan snapshot is stale at {}, fall back to a full scan", name);
+                }
+                return null;
+            }
+            matchedClasses.add (type);
+        }
+        return matchedClasses;
+    }
+
+    private Set<Class<?>> find (ClassLoader loader, ComponentIndex index, String... packageNames) throws Exception {
+        Set<Class<?>> matchedClasses = new HashSet<> ();
+        for (String packageName : packageNames) {
+            // 优先使用编译期生成的组件索引，只加载索引中列出的类
+            List<String> names = index == null ? null : index.getClasses (loader, packageName);
+            if (names != null) {
+                if (logger.isTraceEnabled ()) {
+                    logger.trace ("using component index for package: {}", packageName);
+                }
+                for (String name : names) {
+                    Class<?> type = loadClass (loader, name);
+                    if (type != null && accept (type)) {
+                        matchedClasses.add (type);
+                    }
+                }
+                continue;
+            }
+
+            List<Class<?>> list = ResourceUtil.getClasses (packageName, loader);
+            if (!list.isEmpty ()) {
+                for (Class<?> type : list) {
+                    if (accept (type)) {
+                        matchedClasses.add (type);
+                    }
+                }
+            }
+        }
+        return matchedClasses;
+    }
+
+    /**
+     * 并行扫描.
+     *
+     * <p>第一步并行列举所有包内的类名 (索引、目录或 jar 条目)，第二步并行地加载并检查这些类。
+     * 类加载时不做初始化，避免多个线程同时初始化互相依赖的类导致死锁</p>
+     */
+    private Set<Class<?>> findParallel (ClassLoader loader, ComponentIndex index, String... packageNames) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool (Runtime.getRuntime ().availableProcessors ());
+        try {
+            return pool.submit (() -> {
+                Set<Class<?>> matchedClasses = ConcurrentHashMap.newKeySet ();
+                Map<String, List<String>> jars = new ConcurrentHashMap<> ();
+                List<String> names = Arrays.stream (packageNames).parallel ()
+                        .flatMap (packageName -> listClassNames (loader, index, packageName, jars, matchedClasses).stream ())
+                        .collect (Collectors.toList ());
+                if (logger.isTraceEnabled ()) {
+                    logger.trace ("{} classes listed, checking them in parallel", names.size ());
+                }
+                names.parallelStream ()
+                        .map (name -> loadClass (loader, name))
+                        .filter (type -> type != null && accept (type))
+                        .forEach (matchedClasses::add);
+                return matchedClasses;
+            }).get ();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause ();
+            if (cause instanceof CompletionException) {
+                cause = cause.getCause ();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw ex;
+        } finally {
+            pool.shutdown ();
+        }
+    }
+
+    /**
+     * 列举包内的所有类名.
+     *
+     * <p>目录和 jar 中的包直接列举 {@code .class} 条目；其他协议的包退回到 {@link ResourceUtil#getClasses(String, ClassLoader)}，
+     * 它加载的类在这里直接检查并放入 {@code matchedClasses}</p>
+     */
+    private List<String> listClassNames (ClassLoader loader, ComponentIndex index, String packageName,
+                                         Map<String, List<String>> jars, Set<Class<?>> matchedClasses) {
+        try {
+            List<String> indexed = index == null ? null : index.getClasses (loader, packageName);
+            if (indexed != null) {
+                return indexed;
+            }
+
+            String path = packageName.replace ('.', '/');
+            List<String> names = new ArrayList<> ();
+            Enumeration<URL> e = loader.getResources (path);
+            while (e.hasMoreElements ()) {
+                URL url = e.nextElement ();
+                String protocol = url.getProtocol ();
+                if ("file".equals (protocol)) {
+                    File[] files = new File (url.toURI ()).listFiles ((dir, name) -> name.endsWith (".class"));
+                    if (files != null) {
+                        for (File file : files) {
+                            addClassName (names, packageName, file.getName ());
+                        }
+                    }
+                } else if ("jar".equals (protocol)) {
+                    String prefix = path + '/';
+                    for (String entry : listJarEntries (url, jars)) {
+                        if (entry.startsWith (prefix) && entry.indexOf ('/', prefix.length ()) < 0) {
+                            addClassName (names, packageName, entry.substring (prefix.length ()));
+                        }
+                    }
+                } else {
+                    for (Class<?> type : ResourceUtil.getClasses (packageName, loader)) {
+                        if (accept (type)) {
+                            matchedClasses.add (type);
+                        }
+                    }
+                    return Collections.emptyList ();
+                }
+            }
+            return names;
+        } catch (IOException | URISyntaxException | ClassNotFoundException ex) {
+            // 检查型异常在 fork-join 任务外还原
+            throw new CompletionException (ex);
+        }
+    }
+
+    private static void addClassName (List<String> names, String packageName, String fileName) {
+        if (fileName.endsWith (".class") && !fileName.startsWith ("package-info") && !fileName.startsWith ("module-info")) {
+            names.add (packageName + '.' + fileName.substring (0, fileName.length () - 6));
+        }
+    }
+
+    /**
+     * 列出 jar 中的所有 class 条目。同一个 jar 在一次扫描中只打开一次
+     */
+    private static List<String> listJarEntries (URL url, Map<String, List<String>> jars) throws IOException {
+        URLConnection conn = url.openConnection ();
+        if (!(conn instanceof JarURLConnection)) {
+            return Collections.emptyList ();
+        }
+        JarURLConnection jc = (JarURLConnection) conn;
+        String key = jc.getJarFileURL ().toString ();
+        List<String> entries = jars.get (key);
+        if (entries == null) {
+            jc.setUseCaches (false);
+            List<String> list = new ArrayList<> ();
+            try (JarFile jar = jc.getJarFile ()) {
+                Enumeration<JarEntry> e = jar.entries ();
+                while (e.hasMoreElements ()) {
+                    String name = e.nextElement ().getName ();
+                    if (name.endsWith (".class")) {
+                        list.add (name);
+                    }
+                }
+            }
+            List<String> old = jars.putIfAbsent (key, entries = list);
+            if (old != null) {
+                entries = old;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 加载类但不初始化，类已经不存在时 (比如过期的组件索引) 返回 {@code null}
+     */
+    private Class<?> loadClass (ClassLoader loader, String name) {
+        try {
+            return Class.forName (name, false, loader);
+        } catch (ClassNotFoundException | LinkageError ex) {
+            logger.warn ("class {} cannot be loaded: {}", name, ex.getMessage ());
+            return null;
+        }
+    }
+
     /**
      * 当扫描器扫描到一个类时调用这个方法来验证是否是所需的，若是，则触发 {@link #onFound(String, Class, Set)} 事件
      * @param type java 类
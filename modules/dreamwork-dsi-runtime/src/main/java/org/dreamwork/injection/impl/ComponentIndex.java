@@ -0,0 +1,144 @@
+package org.dreamwork.injection.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 编译期生成的组件索引.
+ *
+ * <p>{@code dreamwork-dsi-processor} 在编译时把所有被 {@code @Resource}, {@code @WebServlet}, {@code @WebFilter}
+ * 和 {@code @AWebSocket} 标注的类写入 {@value #LOCATION}. 这个类合并类路径上的所有索引，
+ * 对于一个包，只有当所有包含它的类路径根都带有索引时才使用索引，否则由调用者退回到类路径扫描</p>
+ *
+ * <p>索引只记录了带有 {@link #INDEXED_ANNOTATIONS} 中注解的类，所以只有声明了这些注解的扫描器
+ * (见 {@link ClassScanner#getIndexedAnnotations()}) 才能使用索引</p>
+ *
+ * <p>设置系统属性 {@value #KEY_IGNORE} 为 {@code true} 可以忽略所有索引</p>
+ *
+ * @since 2.1.3
+ */
+final class ComponentIndex {
+    static final String LOCATION   = "META-INF/dsi-components.idx";
+    static final String KEY_IGNORE = "org.dreamwork.dsi.index.ignore";
+
+    /**
+     * {@code dreamwork-dsi-processor} 写入索引的注解，和 {@code ComponentIndexProcessor} 支持的注解一致
+     */
+    static final Set<String> INDEXED_ANNOTATIONS = Collections.unmodifiableSet (new HashSet<> (Arrays.asList (
+            "javax.annotation.Resource",
+            "javax.servlet.annotation.WebServlet",
+            "javax.servlet.annotation.WebFilter",
+            "org.dreamwork.dsi.embedded.httpd.annotation.AWebSocket"
+    )));
+
+    private static final Logger logger = LoggerFactory.getLogger (ComponentIndex.class);
+    private static final Map<ClassLoader, ComponentIndex> CACHE = new WeakHashMap<> ();
+
+    /** 所有带有索引的类路径根 */
+    private final Set<String> roots = new HashSet<> ();
+    /** 包名 - 类名 */
+    private final Map<String, List<String>> classes = new HashMap<> ();
+
+    static ComponentIndex of (ClassLoader loader) {
+        synchronized (CACHE) {
+            ComponentIndex index = CACHE.get (loader);
+            if (index == null) {
+                index = new ComponentIndex (loader);
+                CACHE.put (loader, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * 索引是否记录了所有带有给定注解的类
+     * @param annotations 扫描器接受的类必须带有的注解
+     * @return 所有的注解都被索引时返回 {@code true}；注解为空时返回 {@code false}
+     */
+    static boolean covers (Collection<Class<? extends Annotation>> annotations) {
+        if (annotations == null || annotations.isEmpty ()) {
+            return false;
+        }
+        for (Class<? extends Annotation> type : annotations) {
+            if (!INDEXED_ANNOTATIONS.contains (type.getName ())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ComponentIndex (ClassLoader loader) {
+        if (Boolean.getBoolean (KEY_IGNORE)) {
+            return;
+        }
+        try {
+            Enumeration<URL> e = loader.getResources (LOCATION);
+            while (e.hasMoreElements ()) {
+                URL url = e.nextElement ();
+                String root = url.toString ();
+                roots.add (root.substring (0, root.length () - LOCATION.length ()));
+                load (url);
+            }
+        } catch (IOException ex) {
+            logger.warn ("cannot load component index, fallback to classpath scanning", ex);
+            roots.clear ();
+            classes.clear ();
+        }
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("component index loaded from: {}", roots);
+        }
+    }
+
+    private void load (URL url) throws IOException {
+        try (InputStream in = url.openStream ()) {
+            BufferedReader reader = new BufferedReader (new InputStreamReader (in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine ()) != null) {
+                line = line.trim ();
+                if (line.isEmpty () || line.charAt (0) == '#') {
+                    continue;
+                }
+                int pos = line.lastIndexOf ('.');
+                String packageName = pos < 0 ? "" : line.substring (0, pos);
+                classes.computeIfAbsent (packageName, key -> new ArrayList<> ()).add (line);
+            }
+        }
+    }
+
+    /**
+     * 获取索引中指定包下的所有组件类名
+     * @param loader      类加载器
+     * @param packageName 包名
+     * @return 若包含这个包的所有类路径根都带有索引，返回索引中的类名 (可能为空)，否则返回 {@code null}
+     * @throws IOException 当无法列出包的资源时抛出
+     */
+    List<String> getClasses (ClassLoader loader, String packageName) throws IOException {
+        if (roots.isEmpty ()) {
+            return null;
+        }
+
+        String path = packageName.replace ('.', '/');
+        Enumeration<URL> e = loader.getResources (path);
+        while (e.hasMoreElements ()) {
+            String url = e.nextElement ().toString ();
+            if (url.endsWith ("/")) {
+                url = url.substring (0, url.length () - 1);
+            }
+            if (!url.endsWith (path) || !roots.contains (url.substring (0, url.length () - path.length ()))) {
+                return null;
+            }
+        }
+
+        List<String> list = classes.get (packageName);
+        return list == null ? Collections.emptyList () : list;
+    }
+}
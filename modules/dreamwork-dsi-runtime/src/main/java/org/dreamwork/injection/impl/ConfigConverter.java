@@ -0,0 +1,241 @@
+package org.dreamwork.injection.impl;
+
+import com.google.gson.Gson;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 将配置项的字符串转换成 {@link org.dreamwork.injection.AConfigured} 标注字段的类型.
+ *
+ * <p>每个字段的转换器在第一次使用 (通常是生成 {@link BeanDescriptor} 时) 确定并缓存，之后的转换不再判断类型：</p>
+ * <ul>
+ * <li>{@code String} 及其父类型直接使用原始字符串</li>
+ * <li>基本类型及其包装类直接解析，整数类型还接受 {@code 16K}, {@code 16M}, {@code 1G}, {@code 2T} 这样的容量写法 (以 1024 为基数)</li>
+ * <li>枚举按名称匹配，先区分大小写，再不区分大小写</li>
+ * <li>{@link Duration} 接受 {@code 500ms}, {@code 30s}, {@code 5m}, {@code 1h}, {@code 2d} 等写法、ISO-8601 格式，
+ * 或一个表示毫秒数的整数</li>
+ * <li>元素类型为以上类型的数组接受逗号分隔的写法</li>
+ * <li>其他类型，以及以上解析失败的情况，交给共享的 {@link Gson} 实例按 json 解析，和之前的行为一致</li>
+ * </ul>
+ *
+ * @since 2.1.3
+ */
+public final class ConfigConverter {
+    private static final Gson GSON = new Gson ();
+    /** 按声明字段的类缓存，不阻止类和它的类加载器被回收 */
+    private static final ClassValue<Map<String, ConfigConverter>> CACHE = new ClassValue<Map<String, ConfigConverter>> () {
+        @Override
+        protected Map<String, ConfigConverter> computeValue (Class<?> type) {
+            return new ConcurrentHashMap<> ();
+        }
+    };
+
+    private final Type type;
+    private final Parser parser;
+    /** parser 失败时是否交给 gson 处理 */
+    private final boolean fallback;
+
+    private interface Parser {
+        /**
+         * 解析字符串，无法解析时抛出 {@link RuntimeException}
+         */
+        Object parse (String text);
+    }
+
+    private ConfigConverter (Type type, Parser parser, boolean fallback) {
+        this.type     = type;
+        this.parser   = parser;
+        this.fallback = fallback;
+    }
+
+    /**
+     * 获取字段的转换器
+     * @param field 被 {@link org.dreamwork.injection.AConfigured} 标注的字段
+     * @return 转换器
+     */
+    public static ConfigConverter of (Field field) {
+        Map<String, ConfigConverter> converters = CACHE.get (field.getDeclaringClass ());
+        ConfigConverter converter = converters.get (field.getName ());
+        if (converter == null) {
+            Class<?> type = field.getType ();
+            Parser parser = parserFor (type);
+            // gson 无法处理 Duration，解析失败时直接报告原因
+            converter = new ConfigConverter (field.getGenericType (), parser, type != Duration.class);
+            converters.putIfAbsent (field.getName (), converter);
+        }
+        return converter;
+    }
+
+    /**
+     * 转换配置项
+     * @param expression 配置项的字符串
+     * @return 转换后的值，可能为 {@code null}
+     * @throws com.google.gson.JsonParseException 当交给 gson 也无法解析时抛出
+     */
+    public Object convert (String expression) {
+        if (parser != null) {
+            try {
+                return parser.parse (expression);
+            } catch (RuntimeException ex) {
+                if (!fallback) {
+                    throw ex;
+                }
+            }
+        }
+        return GSON.fromJson (expression, type);
+    }
+
+    private static Parser parserFor (Class<?> type) {
+        if (type.isAssignableFrom (String.class)) {
+            return text -> text;
+        }
+        if (type == int.class || type == Integer.class) {
+            return text -> Math.toIntExact (parseLong (text));
+        }
+        if (type == long.class || type == Long.class) {
+            return ConfigConverter::parseLong;
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return ConfigConverter::parseBoolean;
+        }
+        if (type == double.class || type == Double.class) {
+            return text -> Double.valueOf (text.trim ());
+        }
+        if (type == float.class || type == Float.class) {
+            return text -> Float.valueOf (text.trim ());
+        }
+        if (type == short.class || type == Short.class) {
+            return text -> Short.valueOf (text.trim ());
+        }
+        if (type == byte.class || type == Byte.class) {
+            return text -> Byte.valueOf (text.trim ());
+        }
+        if (type == char.class || type == Character.class) {
+            return text -> {
+                if (text.length () != 1) {
+                    throw new IllegalArgumentException (text);
+                }
+                return text.charAt (0);
+            };
+        }
+        if (type.isEnum ()) {
+            return text -> parseEnum (type, text.trim ());
+        }
+        if (type == Duration.class) {
+            return ConfigConverter::parseDuration;
+        }
+        if (type.isArray ()) {
+            Class<?> component = type.getComponentType ();
+            Parser parser = component.isArray () ? null : parserFor (component);
+            if (parser != null) {
+                return text -> {
+                    String trimmed = text.trim ();
+                    if (trimmed.startsWith ("[")) {
+                        // json 数组
+                        throw new IllegalArgumentException (text);
+                    }
+                    String[] parts = trimmed.isEmpty () ? new String[0] : trimmed.split (",");
+                    Object array = Array.newInstance (component, parts.length);
+                    for (int i = 0; i < parts.length; i ++) {
+                        Array.set (array, i, parser.parse (component == String.class ? parts [i].trim () : parts [i]));
+                    }
+                    return array;
+                };
+            }
+        }
+        return null;
+    }
+
+    private static long parseLong (String text) {
+        String t = text.trim ();
+        try {
+            return Long.parseLong (t);
+        } catch (NumberFormatException ex) {
+            return parseSize (t);
+        }
+    }
+
+    /**
+     * 解析容量，如 {@code 512K}, {@code 16M}, {@code 16MB}, {@code 16MiB}, {@code 1G}
+     */
+    private static long parseSize (String text) {
+        String t = text.toUpperCase (Locale.ROOT);
+        if (t.endsWith ("IB")) {
+            t = t.substring (0, t.length () - 2);
+        } else if (t.endsWith ("B")) {
+            t = t.substring (0, t.length () - 1);
+        }
+        if (t.isEmpty ()) {
+            throw new NumberFormatException (text);
+        }
+        int shift;
+        switch (t.charAt (t.length () - 1)) {
+            case 'K': shift = 10; break;
+            case 'M': shift = 20; break;
+            case 'G': shift = 30; break;
+            case 'T': shift = 40; break;
+            default: throw new NumberFormatException (text);
+        }
+        long value = Long.parseLong (t.substring (0, t.length () - 1).trim ());
+        if (value > (Long.MAX_VALUE >> shift) || value < (Long.MIN_VALUE >> shift)) {
+            throw new NumberFormatException ("size overflow: " + text);
+        }
+        return value << shift;
+    }
+
+    private static Boolean parseBoolean (String text) {
+        String t = text.trim ();
+        if ("true".equalsIgnoreCase (t)) {
+            return Boolean.TRUE;
+        } else if ("false".equalsIgnoreCase (t)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException (text);
+    }
+
+    @SuppressWarnings ({"unchecked", "rawtypes"})
+    private static Object parseEnum (Class<?> type, String text) {
+        try {
+            return Enum.valueOf ((Class<? extends Enum>) type, text);
+        } catch (IllegalArgumentException ex) {
+            for (Object e : type.getEnumConstants ()) {
+                if (((Enum<?>) e).name ().equalsIgnoreCase (text)) {
+                    return e;
+                }
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * 解析时长，如 {@code 500ms}, {@code 30s}, {@code 5m}, {@code 1h}, {@code 2d}, {@code PT30S}，纯数字表示毫秒
+     */
+    static Duration parseDuration (String text) {
+        String t = text.trim ().toLowerCase (Locale.ROOT);
+        if (t.startsWith ("p") || t.startsWith ("-p")) {
+            return Duration.parse (text.trim ());
+        }
+        int pos = t.length ();
+        while (pos > 0 && Character.isLetter (t.charAt (pos - 1))) {
+            pos --;
+        }
+        long value = Long.parseLong (t.substring (0, pos).trim ());
+        switch (t.substring (pos)) {
+            case "":
+            case "ms": return Duration.ofMillis (value);
+            case "ns": return Duration.ofNanos (value);
+            case "us": return Duration.ofNanos (Math.multiplyExact (value, 1000L));
+            case "s":  return Duration.ofSeconds (value);
+            case "m":  return Duration.ofMinutes (value);
+            case "h":  return Duration.ofHours (value);
+            case "d":  return Duration.ofDays (value);
+            default: throw new IllegalArgumentException ("unknown duration unit: " + text);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.dreamwork.injection.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * 监视配置文件和 {@code ext.conf.dir} 目录，在它们改变时更新配置并重新注入受影响的实例.
+ *
+ * <p>配置文件改变时重新解析，通过 {@link EnhancedConfiguration#reload(Properties)} 得到值发生了变化的配置项，
+ * 包括从配置文件中删除的配置项，再由 {@link SimpleObjectContext#reconfigure(Set)} 重新注入；来自命令行参数的配置项不受影响。{@code ext.conf.dir} 目录下的文件改变时，
+ * 以 {@code ext.conf.dir/文件名} 的形式报告。短时间内的连续事件 (比如编辑器的多次写入) 合并为一次处理</p>
+ *
+ * @since 2.1.3
+ */
+final class ConfigurationWatcher implements Runnable {
+    /** 配置项：是否监视配置文件的改变，默认 {@code false} */
+    static final String KEY_WATCH = "org.dreamwork.dsi.config.watch";
+    /** {@code ext.conf.dir} 目录下文件改变时报告的配置项前缀 */
+    static final String EXT_PREFIX = "ext.conf.dir/";
+
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    private final Logger logger = LoggerFactory.getLogger (ConfigurationWatcher.class);
+    private final SimpleObjectContext context;
+    private final EnhancedConfiguration configuration;
+    private final Path file;
+    private final Path extDir;
+
+    private WatchService service;
+    private volatile boolean running;
+
+    /**
+     * @param context       容器
+     * @param configuration 全局配置
+     * @param file          配置文件
+     * @param extDir        扩展配置目录，可以为 {@code null}
+     */
+    ConfigurationWatcher (SimpleObjectContext context, EnhancedConfiguration configuration, Path file, Path extDir) {
+        this.context       = context;
+        this.configuration = configuration;
+        this.file          = file.toAbsolutePath ().normalize ();
+        this.extDir        = extDir == null ? null : extDir.toAbsolutePath ().normalize ();
+    }
+
+    void start () throws IOException {
+        service = FileSystems.getDefault ().newWatchService ();
+        Path parent = file.getParent ();
+        parent.register (service, ENTRY_CREATE, ENTRY_MODIFY);
+        if (extDir != null && Files.isDirectory (extDir) && !extDir.equals (parent)) {
+            extDir.register (service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        }
+        running = true;
+
+        Thread thread = new Thread (this, "dsi-config-watcher");
+        thread.setDaemon (true);
+        thread.start ();
+        if (logger.isInfoEnabled ()) {
+            logger.info ("watching configuration {}{}", file, extDir == null ? "" : " and " + extDir);
+        }
+    }
+
+    @PreDestroy
+    public void stop () {
+        running = false;
+        if (service != null) {
+            try {
+                service.close ();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    @Override
+    public void run () {
+        while (running) {
+            try {
+                Set<Path> changed = new HashSet<> ();
+                collect (service.take (), changed);
+                // 合并短时间内的连续事件
+                WatchKey key;
+                while ((key = service.poll (DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect (key, changed);
+                }
+                handle (changed);
+            } catch (ClosedWatchServiceException | InterruptedException ex) {
+                break;
+            } catch (Exception ex) {
+                logger.warn ("cannot reload configuration: {}", ex.getMessage (), ex);
+            }
+        }
+    }
+
+    private void collect (WatchKey key, Set<Path> changed) {
+        Path dir = (Path) key.watchable ();
+        for (WatchEvent<?> event : key.pollEvents ()) {
+            if (event.kind () != OVERFLOW) {
+                changed.add (dir.resolve ((Path) event.context ()).normalize ());
+            } else {
+                // 丢失了事件，假定配置文件改变了
+                changed.add (file);
+            }
+        }
+        key.reset ();
+    }
+
+    private void handle (Set<Path> changed) throws IOException {
+        Set<String> keys = new TreeSet<> ();
+        if (changed.contains (file) && Files.isRegularFile (file)) {
+            Properties props = new Properties ();
+            try (InputStream in = Files.newInputStream (file)) {
+                props.load (in);
+            }
+            keys.addAll (configuration.reload (props));
+        }
+        if (extDir != null) {
+            for (Path path : changed) {
+                if (extDir.equals (path.getParent ()) && !path.equals (file)) {
+                    keys.add (EXT_PREFIX + path.getFileName ());
+                }
+            }
+        }
+
+        if (!keys.isEmpty ()) {
+            if (logger.isInfoEnabled ()) {
+                logger.info ("configuration changed: {}", keys);
+            }
+            context.reconfigure (keys);
+        }
+    }
+}
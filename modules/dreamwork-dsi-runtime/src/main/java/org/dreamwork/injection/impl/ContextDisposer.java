@@ -0,0 +1,136 @@
+package org.dreamwork.injection.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 容器销毁时调用每个实例的 {@link javax.annotation.PreDestroy} 方法.
+ *
+ * <p>每个销毁方法在独立的线程中执行，调用者最多等待单个实例的超时时间，且不超过全局的截止时间。
+ * 超时的方法不会被中断，它会在后台继续执行，调用者不再等待它并把它记为 <i>未完成</i>；
+ * 过了截止时间还没有开始的销毁方法将被跳过。销毁结束后输出耗时、未完成和被跳过的实例</p>
+ *
+ * @since 2.1.3
+ */
+final class ContextDisposer {
+    private static final Logger logger = LoggerFactory.getLogger (ContextDisposer.class);
+    private static final int TOP_N = 10;
+
+    private final SimpleObjectContext context;
+    private final Map<Object, String> names;
+    private final long deadline;
+    private final long beanTimeout;
+    private final long start = System.nanoTime ();
+
+    private final ExecutorService destroyer;
+    private final Map<String, Long> timings = new LinkedHashMap<> ();
+    private final List<String> stragglers = new CopyOnWriteArrayList<> ();
+    private final List<String> skipped = new CopyOnWriteArrayList<> ();
+
+    /**
+     * @param context     容器
+     * @param names       实例 - 实例名称
+     * @param timeout     全局超时，毫秒
+     * @param beanTimeout 单个实例的超时，毫秒
+     */
+    ContextDisposer (SimpleObjectContext context, Map<Object, String> names, long timeout, long beanTimeout) {
+        this.context     = context;
+        this.names       = names;
+        this.deadline    = start + TimeUnit.MILLISECONDS.toNanos (timeout);
+        this.beanTimeout = TimeUnit.MILLISECONDS.toNanos (beanTimeout);
+
+        AtomicInteger counter = new AtomicInteger ();
+        destroyer = Executors.newCachedThreadPool (r -> {
+            Thread t = new Thread (r, "dsi-destroy-" + counter.incrementAndGet ());
+            t.setDaemon (true);
+            return t;
+        });
+    }
+
+    /**
+     * 销毁一个实例。这个方法不会抛出任何异常
+     * @param bean 实例
+     */
+    void destroy (Object bean) {
+        // 销毁之前停止它的定时任务
+        context.unschedule (bean);
+        if (context.disposeScoped (bean)) {
+            return;
+        }
+        Object target = context.destroyTarget (bean);
+        if (target == null) {
+            return;
+        }
+        Method method = BeanDescriptor.of (target.getClass ()).preDestroy;
+        if (method == null) {
+            return;
+        }
+
+        String name = names.get (bean);
+        long begin = System.nanoTime ();
+        long remain = deadline - begin;
+        if (remain <= 0) {
+            skipped.add (name);
+            return;
+        }
+
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("invoking pre-destroy method: {}", method);
+        }
+        Future<?> future = destroyer.submit (() -> {
+            MemberAccessor.invoke (method, target);
+            return null;
+        });
+        try {
+            future.get (Math.min (remain, beanTimeout), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            stragglers.add (name);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause ();
+            logger.warn ("cannot destroy bean {}: {}", name, cause.getMessage (), cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread ().interrupt ();
+            stragglers.add (name);
+        } finally {
+            synchronized (timings) {
+                timings.put (name, System.nanoTime () - begin);
+            }
+        }
+    }
+
+    /**
+     * 结束销毁，输出耗时和未完成的实例
+     */
+    void close () {
+        // 未完成的销毁方法在守护线程中继续执行
+        destroyer.shutdown ();
+
+        long total = TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - start);
+        if (logger.isInfoEnabled ()) {
+            logger.info ("context disposed in {} ms, {} pre-destroy methods invoked", total, timings.size ());
+        }
+        if (!stragglers.isEmpty ()) {
+            logger.warn ("pre-destroy methods of {} did not complete in time, still running in background", stragglers);
+        }
+        if (!skipped.isEmpty ()) {
+            logger.warn ("shutdown deadline exceeded, pre-destroy methods of {} were skipped", skipped);
+        }
+        if (logger.isDebugEnabled () && !timings.isEmpty ()) {
+            List<Map.Entry<String, Long>> list;
+            synchronized (timings) {
+                list = new ArrayList<> (timings.entrySet ());
+            }
+            list.sort ((a, b) -> Long.compare (b.getValue (), a.getValue ()));
+            StringBuilder builder = new StringBuilder ("slowest pre-destroy methods:");
+            for (Map.Entry<String, Long> e : list.subList (0, Math.min (TOP_N, list.size ()))) {
+                builder.append (String.format ("%n    %-64s %8d ms", e.getKey (), TimeUnit.NANOSECONDS.toMillis (e.getValue ())));
+            }
+            logger.debug (builder.toString ());
+        }
+    }
+}
@@ -3,48 +3,297 @@ package org.dreamwork.injection.impl;
 import org.dreamwork.config.KeyValuePair;
 import org.dreamwork.config.PropertyConfiguration;
 import org.dreamwork.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Properties;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
+/**
+ * 支持 <code>${key}</code> 引用的配置.
+ *
+ * <p>配置项的值中可以通过 <code>${key}</code> 引用其他配置项，引用可以嵌套。
+ * 不带参数的查找结果在第一次访问时解析并缓存在快照中，{@link #getInt(String, int)}, {@link #getLong(String, long)}
+ * 和 {@link #getBoolean(String, boolean)} 的解析结果也一并缓存；只有当 {@link #setRawProperty(String, String)}
+ * 或 {@link #reload(Properties)} 实际改变了配置时，快照才会失效。</p>
+ *
+ * <p>循环引用的配置项不会被展开，保留原来的 <code>${key}</code>；经过循环引用的配置项每次都从自身开始重新解析，
+ * 不进入快照，所以结果和访问的顺序无关</p>
+ */
 public class EnhancedConfiguration extends PropertyConfiguration {
-    private static final Pattern P = Pattern.compile ("\\$\\{(.*?)\\}");
+    private static final Logger logger = LoggerFactory.getLogger (EnhancedConfiguration.class);
+    private static final Object[] EMPTY = new Object[0];
+    /** 缓存中表示配置项不存在的标记 */
+    private static final String MISSING = new String ("<missing>");
+    /** 缓存中表示配置项无法转换成指定类型的标记 */
+    private static final Object INVALID = new Object ();
 
+    private volatile Snapshot snapshot = new Snapshot ();
+
+    /** 最近一次加载的配置文件内容 */
+    private Properties source;
+    /** 覆盖配置文件的配置项，比如来自命令行参数的配置 */
+    private final Map<String, String> overrides = new ConcurrentHashMap<> ();
+    /** 配置文件中没有对应配置项时使用的默认值 */
+    private final Map<String, String> defaults = new ConcurrentHashMap<> ();
+
+    /**
+     * @param props 配置文件的内容
+     */
     public EnhancedConfiguration (Properties props) {
         super (props);
+        source = copy (props);
     }
 
     @Override
     public String getString (String key, Object... params) {
+        if (params == null || params.length == 0) {
+            return resolve (snapshot, key, new Trace ());
+        }
+
         String value = super.getString (key, params);
         if (value != null && value.contains ("${")) {
-            value = replace (value);
+            value = interpolate (snapshot, value, new Trace ());
         }
         return value;
     }
 
     @Override
     public String getString (String key, KeyValuePair<?>... params) {
+        if (params == null || params.length == 0) {
+            return resolve (snapshot, key, new Trace ());
+        }
+
         String value = super.getString (key, params);
         if (value != null && value.contains ("${")) {
-            value = replace (value);
+            value = interpolate (snapshot, value, new Trace ());
+        }
+        return value;
+    }
+
+    @Override
+    public int getInt (String key, int defaultValue) {
+        Object value = typed (snapshot.ints, key, Integer::valueOf);
+        if (value == MISSING) {
+            return defaultValue;
+        }
+        return value == INVALID ? super.getInt (key, defaultValue) : (Integer) value;
+    }
+
+    @Override
+    public long getLong (String key, long defaultValue) {
+        Object value = typed (snapshot.longs, key, Long::valueOf);
+        if (value == MISSING) {
+            return defaultValue;
+        }
+        return value == INVALID ? super.getLong (key, defaultValue) : (Long) value;
+    }
+
+    @Override
+    public boolean getBoolean (String key, boolean defaultValue) {
+        Object value = typed (snapshot.booleans, key, text -> {
+            if ("true".equalsIgnoreCase (text)) {
+                return Boolean.TRUE;
+            } else if ("false".equalsIgnoreCase (text)) {
+                return Boolean.FALSE;
+            }
+            // 其他写法交给父类处理
+            throw new IllegalArgumentException (text);
+        });
+        if (value == MISSING) {
+            return defaultValue;
+        }
+        return value == INVALID ? super.getBoolean (key, defaultValue) : (Boolean) value;
+    }
+
+    @Override
+    public void setRawProperty (String key, String value) {
+        String old = getRawProperties ().getProperty (key);
+        super.setRawProperty (key, value);
+        if (!Objects.equals (old, value)) {
+            snapshot = new Snapshot ();
+        }
+    }
+
+    /**
+     * 设置覆盖配置文件的配置项，比如来自命令行参数的配置。{@link #reload(Properties)} 不会改变这些配置项
+     *
+     * @param key   配置项
+     * @param value 配置项的值
+     * @since 2.1.3
+     */
+    public synchronized void setOverride (String key, String value) {
+        overrides.put (key, value);
+        setRawProperty (key, value);
+    }
+
+    /**
+     * 设置配置项的默认值，只在配置文件中没有这个配置项时生效
+     *
+     * @param key   配置项
+     * @param value 默认值，{@code null} 时忽略
+     * @since 2.1.3
+     */
+    public synchronized void setDefault (String key, String value) {
+        if (value == null) {
+            return;
+        }
+        defaults.put (key, value);
+        if (!contains (key)) {
+            setRawProperty (key, value);
+        }
+    }
+
+    /**
+     * 使用新的配置文件内容更新当前配置.
+     *
+     * <p>和上一次的配置文件内容比较：新增和修改的配置项更新为新的值，被删除的配置项恢复为 {@link #setDefault(String, String) 默认值}
+     * 或者被移除。{@link #setOverride(String, String) 覆盖的配置项}，以及不是来自配置文件的配置项保持不变</p>
+     *
+     * @param props 配置文件的内容
+     * @return 解析后的值发生变化的配置项，包括通过 <code>${key}</code> 间接引用了被修改配置项的配置项
+     * @since 2.1.3
+     */
+    public synchronized Set<String> reload (Properties props) {
+        Properties raw = getRawProperties ();
+        Set<String> keys = new TreeSet<> (raw.stringPropertyNames ());
+        keys.addAll (props.stringPropertyNames ());
+
+        Map<String, String> before = new HashMap<> ();
+        for (String key : keys) {
+            before.put (key, getString (key, EMPTY));
+        }
+
+        Set<String> candidates = new HashSet<> (source.stringPropertyNames ());
+        candidates.addAll (props.stringPropertyNames ());
+        boolean modified = false;
+        for (String key : candidates) {
+            if (overrides.containsKey (key)) {
+                continue;
+            }
+            String value = props.getProperty (key);
+            if (value == null) {
+                value = defaults.get (key);
+            }
+            if (!Objects.equals (value, raw.getProperty (key))) {
+                if (value == null) {
+                    raw.remove (key);
+                } else {
+                    raw.setProperty (key, value);
+                }
+                modified = true;
+            }
+        }
+        source = copy (props);
+        if (!modified) {
+            return Collections.emptySet ();
+        }
+
+        snapshot = new Snapshot ();
+        Set<String> changed = new TreeSet<> ();
+        for (String key : keys) {
+            if (!Objects.equals (before.get (key), getString (key, EMPTY))) {
+                changed.add (key);
+            }
+        }
+        return changed;
+    }
+
+    private static Properties copy (Properties props) {
+        Properties copy = new Properties ();
+        for (String key : props.stringPropertyNames ()) {
+            copy.setProperty (key, props.getProperty (key));
+        }
+        return copy;
+    }
+
+    private String resolve (Snapshot s, String key, Trace trace) {
+        String cached = s.strings.get (key);
+        if (cached != null) {
+            return cached == MISSING ? null : cached;
+        }
+
+        boolean circular = trace.circular;
+        trace.circular = false;
+        String value = super.getString (key, EMPTY);
+        if (value != null && value.contains ("${")) {
+            if (!trace.path.add (key)) {
+                if (s.warned.add (key)) {
+                    logger.warn ("circular reference detected in configuration: {} -> {}", trace.path, key);
+                }
+                trace.circular = true;
+                return null;
+            }
+            value = interpolate (s, value, trace);
+            trace.path.remove (key);
+        }
+        // 经过循环引用得到的结果取决于从哪个配置项开始解析，不能缓存
+        if (!trace.circular) {
+            s.strings.putIfAbsent (key, value == null ? MISSING : value);
         }
+        trace.circular |= circular;
         return value;
     }
 
-    private String replace (String value) {
-        Matcher m = P.matcher (value);
-        Object[] args = new Object[0];
-        StringBuffer buffer = new StringBuffer ();
-        while (m.find ()) {
-            String part = m.group (1);
-            String replacement = getString (part, args);
+    private String interpolate (Snapshot s, String value, Trace trace) {
+        StringBuilder builder = new StringBuilder (value.length ());
+        int pos = 0, start;
+        while ((start = value.indexOf ("${", pos)) >= 0) {
+            int end = value.indexOf ('}', start + 2);
+            if (end < 0) {
+                break;
+            }
+            String replacement = resolve (s, value.substring (start + 2, end), trace);
+            builder.append (value, pos, start);
             if (!StringUtil.isEmpty (replacement)) {
-                m.appendReplacement (buffer, replacement);
+                builder.append (replacement);
+            } else {
+                // 无法解析的引用保持原样
+                builder.append (value, start, end + 1);
+            }
+            pos = end + 1;
+        }
+        return builder.append (value, pos, value.length ()).toString ();
+    }
+
+    private Object typed (Map<String, Object> cache, String key, Function<String, Object> parser) {
+        Object value = cache.get (key);
+        if (value == null) {
+            String text = getString (key, EMPTY);
+            if (text == null || (text = text.trim ()).isEmpty ()) {
+                value = MISSING;
+            } else {
+                try {
+                    value = parser.apply (text);
+                } catch (RuntimeException ex) {
+                    value = INVALID;
+                }
             }
+            cache.putIfAbsent (key, value);
         }
-        m.appendTail (buffer);
-        return buffer.toString ();
+        return value;
+    }
+
+    /**
+     * 解析结果的快照，配置改变时整个替换
+     */
+    private static final class Snapshot {
+        final Map<String, String> strings  = new ConcurrentHashMap<> ();
+        final Map<String, Object> ints     = new ConcurrentHashMap<> ();
+        final Map<String, Object> longs    = new ConcurrentHashMap<> ();
+        final Map<String, Object> booleans = new ConcurrentHashMap<> ();
+        /** 已经报告过循环引用的配置项 */
+        final Set<String> warned = ConcurrentHashMap.newKeySet ();
+    }
+
+    /**
+     * 一次解析的状态
+     */
+    private static final class Trace {
+        /** 正在展开的配置项 */
+        final Set<String> path = new LinkedHashSet<> ();
+        /** 当前配置项的展开过程中是否遇到了循环引用 */
+        boolean circular;
     }
-}
\ No newline at end of file
+}
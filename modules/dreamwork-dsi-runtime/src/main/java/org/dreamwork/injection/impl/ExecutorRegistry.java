@@ -0,0 +1,193 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.IConfiguration;
+import org.dreamwork.config.PropertyConfiguration;
+import org.dreamwork.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 受托管线程池的注册表.
+ *
+ * <p>容器启动时以 {@code executor-registry} 的名称注册，并为配置中声明的每个线程池创建一个
+ * {@link ManagedExecutor}，以线程池的名称注册到容器中。线程池通过以 {@value #PREFIX}{@code <名称>.}
+ * 开头的配置项声明：</p>
+ * <ul>
+ * <li>{@code core-size} - 核心线程数，默认 1</li>
+ * <li>{@code max-size} - 最大线程数，默认等于核心线程数</li>
+ * <li>{@code queue-size} - 队列容量，0 表示不排队，负数表示无界队列，默认 -1</li>
+ * <li>{@code keep-alive} - 超过核心线程数的空闲线程的存活时间，如 {@code 30s}，默认 60 秒</li>
+ * <li>{@code rejection} - 拒绝策略：{@code abort} (默认), {@code caller-runs}, {@code discard}, {@code discard-oldest}</li>
+ * <li>{@code virtual} - 是否使用虚拟线程，默认 {@code false}。需要 JDK 21 及以上，否则退回普通线程</li>
+ * <li>{@code shutdown-timeout} - 容器销毁时等待任务完成的时间，默认 5 秒</li>
+ * </ul>
+ * <pre>
+ * org.dreamwork.dsi.executor.io.core-size = 4
+ * org.dreamwork.dsi.executor.io.max-size = 16
+ * org.dreamwork.dsi.executor.io.queue-size = 1024
+ * org.dreamwork.dsi.executor.io.rejection = caller-runs
+ * </pre>
+ * <p>线程池只以名称注册，不参与按类型的查找，所以应用自己注册的 {@code ExecutorService} 仍然可以按类型注入。
+ * 托管实例可以通过 {@code @Resource (name = "io")} 注入，也可以注入这个注册表后调用
+ * {@link #get(String, int, int, int)} 按名称申请一个线程池：配置中有声明时使用配置，否则使用调用者给出的默认值。
+ * 注册表依赖它创建的所有线程池，所以容器销毁时依赖注册表或线程池的实例先销毁，线程池最后关闭</p>
+ *
+ * @since 2.1.3
+ */
+public class ExecutorRegistry {
+    /** 配置项的前缀 */
+    public static final String PREFIX = "org.dreamwork.dsi.executor.";
+
+    private static final Logger logger = LoggerFactory.getLogger (ExecutorRegistry.class);
+
+    private final SimpleObjectContext context;
+    private final IConfiguration conf;
+    private final boolean jmx;
+    private final Map<String, ManagedExecutor> executors = new LinkedHashMap<> ();
+    private final Lock LOCKER = new ReentrantLock ();
+
+    ExecutorRegistry (SimpleObjectContext context, IConfiguration conf) {
+        this.context = context;
+        this.conf    = conf;
+        this.jmx     = conf.getBoolean ("org.dreamwork.dsi.jmx.enabled", true);
+    }
+
+    /**
+     * 创建配置中声明的所有线程池
+     */
+    void declare () {
+        if (!(conf instanceof PropertyConfiguration)) {
+            return;
+        }
+        Set<String> names = new TreeSet<> ();
+        for (String key : ((PropertyConfiguration) conf).getRawProperties ().stringPropertyNames ()) {
+            if (key.startsWith (PREFIX)) {
+                int pos = key.lastIndexOf ('.');
+                if (pos > PREFIX.length ()) {
+                    names.add (key.substring (PREFIX.length (), pos));
+                }
+            }
+        }
+        for (String name : names) {
+            get (name, 1, 1, -1);
+        }
+    }
+
+    /**
+     * 获取指定名称的线程池
+     * @param name 名称
+     * @return 线程池，没有声明过时返回 {@code null}
+     */
+    public ManagedExecutor get (String name) {
+        try {
+            LOCKER.lock ();
+            return executors.get (name);
+        } finally {
+            LOCKER.unlock ();
+        }
+    }
+
+    /**
+     * 获取指定名称的线程池，不存在时创建它。配置中的声明优先于这里给出的默认值
+     * @param name      名称，同时也是线程池在容器中注册的名称
+     * @param coreSize  默认的核心线程数
+     * @param maxSize   默认的最大线程数
+     * @param queueSize 默认的队列容量，0 表示不排队，负数表示无界队列
+     * @return 线程池
+     * @throws IllegalStateException 名称已经被其他实例占用，或者无法注册到容器时
+     */
+    public ManagedExecutor get (String name, int coreSize, int maxSize, int queueSize) {
+        if (StringUtil.isEmpty (name)) {
+            throw new IllegalArgumentException ("executor name is empty");
+        }
+        try {
+            LOCKER.lock ();
+            ManagedExecutor executor = executors.get (name);
+            if (executor == null) {
+                executor = create (name, coreSize, maxSize, queueSize);
+                try {
+                    context.registerByName (name, executor);
+                } catch (Exception ex) {
+                    executor.shutdownNow ();
+                    throw new IllegalStateException ("cannot register executor " + name + ": " + ex.getMessage (), ex);
+                }
+                context.depend (this, executor);
+                if (jmx) {
+                    executor.registerJMX ();
+                }
+                executors.put (name, executor);
+            }
+            return executor;
+        } finally {
+            LOCKER.unlock ();
+        }
+    }
+
+    /**
+     * 所有已经创建的线程池
+     * @return 线程池列表，按创建的顺序排列
+     */
+    public List<ManagedExecutor> getExecutors () {
+        try {
+            LOCKER.lock ();
+            return new ArrayList<> (executors.values ());
+        } finally {
+            LOCKER.unlock ();
+        }
+    }
+
+    private ManagedExecutor create (String name, int coreSize, int maxSize, int queueSize) {
+        String prefix = PREFIX + name + '.';
+        int core  = Math.max (0, conf.getInt (prefix + "core-size", coreSize));
+        int max   = Math.max (Math.max (1, core), conf.getInt (prefix + "max-size", Math.max (core, maxSize)));
+        int queue = conf.getInt (prefix + "queue-size", queueSize);
+        long keepAlive = millis (prefix + "keep-alive", 60_000);
+        long timeout   = millis (prefix + "shutdown-timeout", 5_000);
+        String text = conf.getString (prefix + "rejection");
+        ManagedExecutor.Rejection rejection = StringUtil.isEmpty (text) ?
+                ManagedExecutor.Rejection.ABORT : ManagedExecutor.Rejection.parse (text);
+
+        ThreadFactory factory = null;
+        if (conf.getBoolean (prefix + "virtual", false)) {
+            factory = VirtualThreads.factory (name);
+            if (factory == null) {
+                logger.warn ("virtual threads require JDK 21 or later, executor {} uses platform threads", name);
+            }
+        }
+        boolean virtual = factory != null;
+        if (factory == null) {
+            factory = new NamedThreadFactory (name);
+        }
+
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("creating executor {}: core = {}, max = {}, queue = {}, rejection = {}, virtual = {}",
+                    name, core, max, queue, rejection, virtual);
+        }
+        return new ManagedExecutor (name, core, max, queue, keepAlive, rejection, factory, virtual, timeout);
+    }
+
+    private long millis (String key, long defaultValue) {
+        String text = conf.getString (key);
+        return StringUtil.isEmpty (text) ? defaultValue : ConfigConverter.parseDuration (text).toMillis ();
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger ();
+
+        NamedThreadFactory (String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread (Runnable r) {
+            return new Thread (r, prefix + "-" + counter.incrementAndGet ());
+        }
+    }
+}
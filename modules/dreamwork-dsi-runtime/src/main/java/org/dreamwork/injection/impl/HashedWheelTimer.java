@@ -0,0 +1,395 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.IConfiguration;
+import org.dreamwork.injection.ITimer;
+import org.dreamwork.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于哈希时间轮的定时器.
+ *
+ * <p>时间轮由 {@value #KEY_WHEEL} 个槽位组成，工作线程每个刻度 ({@value #KEY_TICK}) 前进一个槽位，
+ * 执行这个槽位中到期的超时。新的超时和取消请求先进入无锁队列，由工作线程在每个刻度开始时移入或移出槽位，
+ * 所以添加和取消都是 O(1) 的，且不需要任何锁。工作线程在第一次添加超时时启动</p>
+ *
+ * <p>配置项：</p>
+ * <ul>
+ * <li>{@value #KEY_TICK} - 刻度，如 {@code 10ms}，默认 10 毫秒</li>
+ * <li>{@value #KEY_WHEEL} - 槽位数，向上取整为 2 的幂，默认 512</li>
+ * </ul>
+ *
+ * @since 2.1.3
+ */
+final class HashedWheelTimer implements ITimer {
+    static final String KEY_TICK  = "org.dreamwork.dsi.timer.tick";
+    static final String KEY_WHEEL = "org.dreamwork.dsi.timer.wheel-size";
+
+    private static final Logger logger = LoggerFactory.getLogger (HashedWheelTimer.class);
+    /** 每个刻度最多移入的新超时，防止添加过快时工作线程无法前进 */
+    private static final int MAX_TRANSFER = 100_000;
+
+    private static final int INIT = 0, STARTED = 1, STOPPED = 2;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Node> pending   = new ConcurrentLinkedQueue<> ();
+    private final Queue<Node> cancelled = new ConcurrentLinkedQueue<> ();
+    /** 停止时还没有到期的超时，由工作线程在退出时收集 */
+    private final Set<Timeout> unprocessed = ConcurrentHashMap.newKeySet ();
+    private final AtomicInteger state   = new AtomicInteger (INIT);
+    private final CountDownLatch startup = new CountDownLatch (1);
+    private final Thread worker;
+
+    /** 工作线程启动的时间，所有超时的截止时间都相对于它 */
+    private volatile long startTime;
+    /** 当前的刻度，只由工作线程访问 */
+    private long tick;
+
+    HashedWheelTimer (IConfiguration conf) {
+        String text = conf == null ? null : conf.getString (KEY_TICK);
+        long nanos  = StringUtil.isEmpty (text) ? TimeUnit.MILLISECONDS.toNanos (10) : ConfigConverter.parseDuration (text).toNanos ();
+        tickNanos   = Math.max (TimeUnit.MILLISECONDS.toNanos (1), nanos);
+
+        int size = conf == null ? 512 : conf.getInt (KEY_WHEEL, 512);
+        size  = Integer.highestOneBit (Math.max (2, Math.min (size, 1 << 20)) * 2 - 1);
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i ++) {
+            wheel [i] = new Bucket ();
+        }
+        mask = size - 1;
+
+        worker = new Thread (this::work, "dsi-timer");
+        worker.setDaemon (true);
+    }
+
+    @Override
+    public Timeout schedule (Runnable task, long delay, TimeUnit unit) {
+        return schedule (task, null, delay, 0, unit);
+    }
+
+    @Override
+    public Timeout scheduleAtFixedRate (Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException ("period must be positive");
+        }
+        return schedule (task, null, initialDelay, period, unit);
+    }
+
+    @Override
+    public Timeout scheduleWithFixedDelay (Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException ("delay must be positive");
+        }
+        return schedule (task, null, initialDelay, -delay, unit);
+    }
+
+    /**
+     * 添加一个超时
+     * @param task         任务
+     * @param executor     执行任务的线程池，{@code null} 时在定时器的线程中执行
+     * @param initialDelay 首次执行的延迟
+     * @param period       周期。0 表示只执行一次，正数表示固定频率，负数表示固定间隔
+     * @param unit         时间单位
+     * @return 超时的句柄
+     */
+    Timeout schedule (Runnable task, Executor executor, long initialDelay, long period, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException ("task");
+        }
+        start ();
+        Node node = new Node (task, executor, unit.toNanos (period));
+        node.deadline = System.nanoTime () - startTime + Math.max (0, unit.toNanos (initialDelay));
+        if (!enqueue (node)) {
+            throw new IllegalStateException ("timer is stopped");
+        }
+        return node;
+    }
+
+    /**
+     * 停止定时器，之后不再执行任何超时
+     * @return 还没有到期也没有被取消的超时，已经停止时返回空集合。工作线程在一秒内没有退出时
+     *         (比如任务仍在执行)，只包含还没有移入时间轮的超时
+     */
+    @PreDestroy
+    public Set<Timeout> stop () {
+        int previous = state.getAndSet (STOPPED);
+        if (previous == STOPPED) {
+            return Collections.emptySet ();
+        }
+        if (previous == STARTED) {
+            worker.interrupt ();
+            try {
+                worker.join (1000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread ().interrupt ();
+            }
+        }
+        drain (pending, unprocessed);
+        cancelled.clear ();
+        return Collections.unmodifiableSet (new HashSet<> (unprocessed));
+    }
+
+    private void start () {
+        if (state.get () == INIT && state.compareAndSet (INIT, STARTED)) {
+            worker.start ();
+        }
+        if (state.get () == STOPPED) {
+            throw new IllegalStateException ("timer is stopped");
+        }
+        try {
+            startup.await ();
+        } catch (InterruptedException ex) {
+            Thread.currentThread ().interrupt ();
+            throw new IllegalStateException ("interrupted while starting the timer");
+        }
+    }
+
+    private boolean enqueue (Node node) {
+        if (state.get () == STOPPED) {
+            return false;
+        }
+        pending.add (node);
+        return true;
+    }
+
+    private void work () {
+        long now = System.nanoTime ();
+        startTime = now == 0 ? 1 : now;
+        startup.countDown ();
+
+        while (state.get () == STARTED) {
+            if (waitForNextTick () > 0) {
+                processCancelled ();
+                transfer ();
+                wheel [(int) (tick & mask)].expire ();
+                tick ++;
+            }
+        }
+        for (Bucket bucket : wheel) {
+            bucket.drain (unprocessed);
+        }
+        drain (pending, unprocessed);
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("timer stopped at tick {}, {} timeouts unprocessed", tick, unprocessed.size ());
+        }
+    }
+
+    private static void drain (Queue<Node> queue, Set<Timeout> set) {
+        Node node;
+        while ((node = queue.poll ()) != null) {
+            if (node.state.get () == Node.WAITING) {
+                set.add (node);
+            }
+        }
+    }
+
+    /**
+     * 等待到下一个刻度
+     * @return 当前时间 (相对于启动时间)，被停止时返回 -1
+     */
+    private long waitForNextTick () {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long current = System.nanoTime () - startTime;
+            long millis  = (deadline - current + 999_999) / 1_000_000;
+            if (millis <= 0) {
+                return current;
+            }
+            try {
+                Thread.sleep (millis);
+            } catch (InterruptedException ex) {
+                if (state.get () == STOPPED) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transfer () {
+        for (int i = 0; i < MAX_TRANSFER; i ++) {
+            Node node = pending.poll ();
+            if (node == null) {
+                return;
+            }
+            if (node.state.get () != Node.WAITING) {
+                continue;
+            }
+            long ticks = node.deadline / tickNanos;
+            node.rounds = (ticks - tick) / wheel.length;
+            wheel [(int) (Math.max (ticks, tick) & mask)].add (node);
+        }
+    }
+
+    private void processCancelled () {
+        Node node;
+        while ((node = cancelled.poll ()) != null) {
+            if (node.bucket != null) {
+                node.bucket.remove (node);
+            }
+        }
+    }
+
+    /**
+     * 时间轮的槽位，双向链表，只由工作线程访问
+     */
+    private static final class Bucket {
+        private Node head, tail;
+
+        void add (Node node) {
+            node.bucket = this;
+            if (head == null) {
+                head = tail = node;
+            } else {
+                tail.next = node;
+                node.prev = tail;
+                tail = node;
+            }
+        }
+
+        Node remove (Node node) {
+            Node next = node.next;
+            if (node.prev != null) {
+                node.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = node.prev;
+            }
+            if (node == head) {
+                head = next;
+            }
+            if (node == tail) {
+                tail = node.prev;
+            }
+            node.prev = node.next = null;
+            node.bucket = null;
+            return next;
+        }
+
+        void drain (Set<Timeout> set) {
+            while (head != null) {
+                Node node = head;
+                remove (node);
+                if (node.state.get () == Node.WAITING) {
+                    set.add (node);
+                }
+            }
+        }
+
+        void expire () {
+            Node node = head;
+            while (node != null) {
+                Node next = node.next;
+                if (node.state.get () == Node.CANCELLED) {
+                    next = remove (node);
+                } else if (node.rounds <= 0) {
+                    next = remove (node);
+                    node.expire ();
+                } else {
+                    node.rounds --;
+                }
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * 一个超时。周期任务执行后以新的截止时间重新进入时间轮
+     */
+    private final class Node implements Timeout, Runnable {
+        static final int WAITING = 0, RUNNING = 1, CANCELLED = 2, EXPIRED = 3;
+
+        final Runnable task;
+        final Executor executor;
+        final long period;
+        final AtomicInteger state = new AtomicInteger (WAITING);
+
+        /** 截止时间，相对于定时器的启动时间 */
+        long deadline;
+        long rounds;
+        Bucket bucket;
+        Node prev, next;
+
+        Node (Runnable task, Executor executor, long period) {
+            this.task     = task;
+            this.executor = executor;
+            this.period   = period;
+        }
+
+        @Override
+        public boolean cancel () {
+            while (true) {
+                int s = state.get ();
+                if (s != WAITING && s != RUNNING) {
+                    return false;
+                }
+                if (state.compareAndSet (s, CANCELLED)) {
+                    if (s == WAITING) {
+                        cancelled.add (this);
+                    }
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public boolean isCancelled () {
+            return state.get () == CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired () {
+            return state.get () == EXPIRED;
+        }
+
+        void expire () {
+            if (!state.compareAndSet (WAITING, RUNNING)) {
+                return;
+            }
+            if (executor == null) {
+                run ();
+                return;
+            }
+            try {
+                executor.execute (this);
+            } catch (RejectedExecutionException ex) {
+                state.set (CANCELLED);
+                logger.warn ("timer task {} is rejected by its executor, cancel it: {}", task, ex.getMessage ());
+            }
+        }
+
+        @Override
+        public void run () {
+            try {
+                task.run ();
+            } catch (Throwable t) {
+                logger.warn ("timer task {} failed: {}", task, t.getMessage (), t);
+            } finally {
+                if (period == 0) {
+                    state.compareAndSet (RUNNING, EXPIRED);
+                } else if (state.compareAndSet (RUNNING, WAITING)) {
+                    long now = System.nanoTime () - startTime;
+                    // 固定频率时跳过错过的执行，固定间隔时从本次执行结束开始计算
+                    deadline = period > 0 ? Math.max (deadline + period, now) : now - period;
+                    if (!enqueue (this)) {
+                        state.set (CANCELLED);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString () {
+            return "Timeout{task=" + task + ", state=" + state.get () + "}";
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.dreamwork.injection.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.dreamwork.config.IConfiguration;
+import org.dreamwork.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.*;
+
+/**
+ * 自动装配钩子的磁盘缓存.
+ *
+ * <p>{@code autoWireStarters} 需要遍历类路径上每个 jar 的所有条目来查找 {@code META-INF/dsi-*-hook.properties}。
+ * 这个缓存以 jar 的路径为键，记录 jar 的大小、修改时间和其中找到的钩子配置 (包括内容)，
+ * 大小和修改时间都没有变化的 jar 不再打开。</p>
+ *
+ * <p>缓存保存在 {@value #KEY_DIR} 指定的目录中，默认为 {@code ${user.home}/.dsi/cache/<主类名>}；
+ * 设置 {@value #KEY_ENABLED} 为 {@code false} 可以关闭缓存，命令行参数 {@code --rebuild-cache} 丢弃已有的缓存并重建</p>
+ *
+ * <p>缓存的内容决定了启动时实例化哪些类，所以缓存目录和其中的文件必须属于当前用户，且不能被其他用户写入
+ * (见 {@link #isPrivate(Path)})，否则不使用缓存</p>
+ *
+ * @since 2.1.3
+ */
+final class HookCache {
+    /** 配置项：是否启用启动缓存，默认 {@code true} */
+    static final String KEY_ENABLED = "org.dreamwork.dsi.cache.enabled";
+    /** 配置项：启动缓存的目录 */
+    static final String KEY_DIR     = "org.dreamwork.dsi.cache.dir";
+
+    private static final String FILE_NAME = "hook-cache.json";
+    private static final int VERSION = 1;
+
+    private static final Logger logger = LoggerFactory.getLogger (HookCache.class);
+    private static final Gson gson = new GsonBuilder ().disableHtmlEscaping ().create ();
+
+    private final Path file;
+    private final Map<String, Jar> cached;
+    /** 本次启动用到的 jar，保存时只保留它们 */
+    private final Map<String, Jar> used = new TreeMap<> ();
+    private boolean dirty;
+
+    /** 一个钩子配置文件 */
+    static final class Hook {
+        /** {@code META-INF/} 之后的文件名 */
+        String name;
+        Map<String, String> properties;
+
+        Hook (String name, Properties props) {
+            this.name = name;
+            this.properties = new TreeMap<> ();
+            for (String key : props.stringPropertyNames ()) {
+                properties.put (key, props.getProperty (key));
+            }
+        }
+
+        Properties toProperties () {
+            Properties props = new Properties ();
+            props.putAll (properties);
+            return props;
+        }
+    }
+
+    private static final class Jar {
+        long size;
+        long modified;
+        List<Hook> hooks;
+    }
+
+    private static final class Content {
+        int version;
+        Map<String, Jar> jars;
+    }
+
+    private HookCache (Path file, Map<String, Jar> cached) {
+        this.file   = file;
+        this.cached = cached;
+    }
+
+    /**
+     * 获取启动缓存的目录，目录不存在时创建它 (POSIX 文件系统上只有当前用户可以访问)
+     * @param conf 全局配置
+     * @param type 被 {@link org.dreamwork.injection.AInjectionContext} 标注的主类
+     * @return 缓存目录，关闭缓存，或者目录无法创建、不属于当前用户、可以被其他用户写入时返回 {@code null}
+     */
+    static Path directory (IConfiguration conf, Class<?> type) {
+        if (!conf.getBoolean (KEY_ENABLED, true)) {
+            return null;
+        }
+        String dir = conf.getString (KEY_DIR);
+        Path path = StringUtil.isEmpty (dir) ?
+                Paths.get (System.getProperty ("user.home"), ".dsi", "cache", type.getName ()) :
+                Paths.get (dir.trim ());
+        try {
+            if (!Files.isDirectory (path)) {
+                if (path.getFileSystem ().supportedFileAttributeViews ().contains ("posix")) {
+                    Files.createDirectories (path, PosixFilePermissions.asFileAttribute (PosixFilePermissions.fromString ("rwx------")));
+                } else {
+                    Files.createDirectories (path);
+                }
+            }
+            if (isPrivate (path)) {
+                return path;
+            }
+            logger.warn ("cache directory {} is not owned by the current user or is writable by others, startup cache disabled", path);
+        } catch (IOException ex) {
+            logger.warn ("cannot create cache directory {}, startup cache disabled: {}", path, ex.getMessage ());
+        }
+        return null;
+    }
+
+    /**
+     * 文件或目录是否属于当前用户，且同组用户和其他用户都不能写入。不支持 POSIX 权限的文件系统只检查所有者
+     * @param path 文件或目录
+     * @return 满足条件时返回 {@code true}
+     * @throws IOException 无法读取文件属性时抛出
+     */
+    static boolean isPrivate (Path path) throws IOException {
+        UserPrincipal owner = Files.getOwner (path);
+        UserPrincipal user  = path.getFileSystem ().getUserPrincipalLookupService ()
+                .lookupPrincipalByName (System.getProperty ("user.name"));
+        if (!owner.equals (user)) {
+            return false;
+        }
+        if (path.getFileSystem ().supportedFileAttributeViews ().contains ("posix")) {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions (path);
+            return !permissions.contains (PosixFilePermission.GROUP_WRITE) && !permissions.contains (PosixFilePermission.OTHERS_WRITE);
+        }
+        return true;
+    }
+
+    /**
+     * 是否可以读取缓存文件：文件存在，且满足 {@link #isPrivate(Path)}
+     * @param file 缓存文件
+     * @return 可以读取时返回 {@code true}
+     */
+    static boolean isReadable (Path file) {
+        if (!Files.isRegularFile (file)) {
+            return false;
+        }
+        try {
+            if (isPrivate (file)) {
+                return true;
+            }
+            logger.warn ("cache file {} is not owned by the current user or is writable by others, ignore it", file);
+        } catch (IOException ex) {
+            logger.warn ("cannot check cache file {}, ignore it: {}", file, ex.getMessage ());
+        }
+        return false;
+    }
+
+    /**
+     * 打开缓存
+     * @param directory 缓存目录，为 {@code null} 时返回 {@code null}
+     * @param rebuild   是否丢弃已有的缓存
+     * @return 缓存
+     */
+    static HookCache open (Path directory, boolean rebuild) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve (FILE_NAME);
+        Map<String, Jar> jars = null;
+        if (!rebuild && isReadable (file)) {
+            try (Reader reader = Files.newBufferedReader (file, StandardCharsets.UTF_8)) {
+                Content content = gson.fromJson (reader, Content.class);
+                if (content != null && content.version == VERSION) {
+                    jars = content.jars;
+                }
+            } catch (Exception ex) {
+                logger.warn ("cannot read hook cache {}, rebuild it: {}", file, ex.getMessage ());
+            }
+        }
+        return new HookCache (file, jars == null ? new HashMap<> () : jars);
+    }
+
+    /**
+     * 查找 jar 的缓存
+     * @param jar jar 文件
+     * @return jar 没有变化时返回缓存的钩子配置 (可能为空)，否则返回 {@code null}
+     */
+    List<Hook> get (File jar) {
+        String key = jar.getAbsolutePath ();
+        Jar entry = cached.get (key);
+        if (entry == null || entry.hooks == null || entry.size != jar.length () || entry.modified != jar.lastModified ()) {
+            return null;
+        }
+        used.put (key, entry);
+        return entry.hooks;
+    }
+
+    void put (File jar, List<Hook> hooks) {
+        Jar entry = new Jar ();
+        entry.size     = jar.length ();
+        entry.modified = jar.lastModified ();
+        entry.hooks    = hooks;
+        used.put (jar.getAbsolutePath (), entry);
+        dirty = true;
+    }
+
+    /**
+     * 保存缓存。只有发生变化时 (新的或改变了的 jar，或者有 jar 被移除) 才写入磁盘
+     */
+    void save () {
+        if (!dirty && used.size () == cached.size ()) {
+            return;
+        }
+        Content content = new Content ();
+        content.version = VERSION;
+        content.jars    = used;
+        try {
+            Files.createDirectories (file.getParent ());
+            // 先写临时文件再替换，避免多个进程同时启动时读到写了一半的文件
+            Path temp = Files.createTempFile (file.getParent (), FILE_NAME, ".tmp");
+            try (Writer writer = Files.newBufferedWriter (temp, StandardCharsets.UTF_8)) {
+                gson.toJson (content, writer);
+            }
+            try {
+                Files.move (temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move (temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (logger.isTraceEnabled ()) {
+                logger.trace ("hook cache saved to {}", file);
+            }
+        } catch (IOException ex) {
+            logger.warn ("cannot save hook cache {}: {}", file, ex.getMessage ());
+        }
+    }
+}
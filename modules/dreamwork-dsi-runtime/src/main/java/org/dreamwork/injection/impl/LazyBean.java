@@ -0,0 +1,110 @@
+package org.dreamwork.injection.impl;
+
+import net.sf.cglib.proxy.LazyLoader;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.Callable;
+
+/**
+ * 延迟创建的实例.
+ *
+ * <p>被 {@link org.dreamwork.injection.ALazy} 标注的类或注入点不直接持有实例，而是持有一个 cglib 代理。
+ * 代理的第一次方法调用触发 {@link #get()}，由创建器创建真实的实例 (包括注入和预处理方法)，之后的调用直接转发给这个实例。
+ * 创建是线程安全的，且只会成功一次；创建失败时下一次调用会重试</p>
+ *
+ * <p>代理的 {@code hashCode}/{@code equals} 是 identity 语义，{@code toString} 在实例创建之前不会触发创建，
+ * 所以代理可以安全地放进容器的各种索引和日志里</p>
+ *
+ * @since 2.1.3
+ */
+final class LazyBean implements LazyLoader {
+
+    private final String description;
+    private final Callable<Object> creator;
+    private final Object lock = new Object ();
+    private volatile Object instance;
+
+    LazyBean (String description, Callable<Object> creator) {
+        this.description = description;
+        this.creator     = creator;
+    }
+
+    /**
+     * 获取真实的实例，必要时创建它
+     * @return 真实的实例
+     */
+    Object get () {
+        Object o = instance;
+        if (o == null) {
+            synchronized (lock) {
+                o = instance;
+                if (o == null) {
+                    try {
+                        o = creator.call ();
+                    } catch (RuntimeException ex) {
+                        throw ex;
+                    } catch (Exception ex) {
+                        throw new IllegalStateException ("cannot create lazy bean: " + description, ex);
+                    }
+                    if (o == null) {
+                        throw new IllegalStateException ("lazy bean " + description + " resolves to null");
+                    }
+                    instance = o;
+                }
+            }
+        }
+        return o;
+    }
+
+    /**
+     * 获取已经创建的实例，不会触发创建
+     * @return 若实例已经创建返回这个实例，否则返回 {@code null}
+     */
+    Object peek () {
+        return instance;
+    }
+
+    @Override
+    public Object loadObject () {
+        return get ();
+    }
+
+    /**
+     * 判断一个类型是否可以被代理：接口，或非 final 的、有非私有无参构造器的类
+     * @param type java 类型
+     * @return 可以被代理返回 {@code true}
+     */
+    static boolean canProxy (Class<?> type) {
+        if (type.isInterface ()) {
+            return true;
+        }
+        if (type.isPrimitive () || type.isArray () || Modifier.isFinal (type.getModifiers ())) {
+            return false;
+        }
+        try {
+            Constructor<?> c = type.getDeclaredConstructor ();
+            return !Modifier.isPrivate (c.getModifiers ());
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * 为指定的类型创建一个延迟加载的代理.
+     *
+     * <p>注意：代理是目标类的子类，创建代理时会执行目标类的无参构造器，重量级的初始化应该放在预处理方法中</p>
+     *
+     * @param type 代理的类型
+     * @return 代理实例
+     */
+    Object createProxy (Class<?> type) {
+        return ProxySupport.createProxy (type, this, this);
+    }
+
+    @Override
+    public String toString () {
+        Object o = instance;
+        return o != null ? o.toString () : "lazy[" + description + "]";
+    }
+}
@@ -0,0 +1,299 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.ManagedExecutorMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 受托管的线程池.
+ *
+ * <p>由 {@link ExecutorRegistry} 根据配置创建，并以它的名称注册到容器中，托管实例可以通过
+ * {@code @Resource (name = "...")} 直接注入 (声明为 {@link ExecutorService} 或这个类型)，但不能按类型注入。
+ * 每个任务从提交到开始执行的等待时间和执行时间都被统计，连同队列深度、活动线程数等通过
+ * {@link ManagedExecutorMXBean} 暴露</p>
+ *
+ * <p>容器销毁时，所有依赖它的实例销毁之后才关闭这个线程池：不再接受新的任务，
+ * 在 {@code shutdown-timeout} 内等待已提交的任务执行完成，超时后中断剩余的任务</p>
+ *
+ * @since 2.1.3
+ */
+public class ManagedExecutor extends ThreadPoolExecutor implements ManagedExecutorMXBean {
+    private static final Logger logger = LoggerFactory.getLogger (ManagedExecutor.class);
+    private static final String JMX_GROUP = "org.dreamwork.jmx";
+
+    /** 队列已满且线程数已达上限时的拒绝策略 */
+    enum Rejection {
+        ABORT, CALLER_RUNS, DISCARD, DISCARD_OLDEST;
+
+        static Rejection parse (String text) {
+            return valueOf (text.trim ().toUpperCase ().replace ('-', '_'));
+        }
+
+        RejectedExecutionHandler handler () {
+            switch (this) {
+                case CALLER_RUNS:    return new CallerRunsPolicy ();
+                case DISCARD:        return new DiscardPolicy ();
+                case DISCARD_OLDEST: return new DiscardOldestPolicy ();
+                default:             return new AbortPolicy ();
+            }
+        }
+    }
+
+    private final String name;
+    private final boolean virtual;
+    private final long shutdownTimeout;
+    private final RejectCounter rejected;
+
+    private final LongAdder finished     = new LongAdder ();
+    private final LongAdder failed       = new LongAdder ();
+    private final LongAdder waitNanos    = new LongAdder ();
+    private final LongAdder runNanos     = new LongAdder ();
+    private final AtomicLong maxWaitNanos = new AtomicLong ();
+    private final AtomicLong maxRunNanos  = new AtomicLong ();
+
+    private ObjectName oName;
+
+    /**
+     * @param name            名称
+     * @param coreSize        核心线程数
+     * @param maxSize         最大线程数
+     * @param queueSize       队列容量，0 表示直接交给线程 (不排队)，负数表示无界队列
+     * @param keepAlive       超过核心线程数的空闲线程的存活时间，毫秒
+     * @param rejection       拒绝策略
+     * @param factory         线程工厂
+     * @param virtual         线程工厂是否创建虚拟线程
+     * @param shutdownTimeout 关闭时等待任务完成的时间，毫秒
+     */
+    ManagedExecutor (String name, int coreSize, int maxSize, int queueSize, long keepAlive, Rejection rejection,
+                     ThreadFactory factory, boolean virtual, long shutdownTimeout) {
+        this (name, coreSize, maxSize, queueSize, keepAlive, new RejectCounter (rejection.handler ()),
+                factory, virtual, shutdownTimeout);
+    }
+
+    private ManagedExecutor (String name, int coreSize, int maxSize, int queueSize, long keepAlive, RejectCounter rejected,
+                             ThreadFactory factory, boolean virtual, long shutdownTimeout) {
+        super (coreSize, maxSize, keepAlive, TimeUnit.MILLISECONDS, createQueue (queueSize), factory, rejected);
+        this.name            = name;
+        this.virtual         = virtual;
+        this.shutdownTimeout = shutdownTimeout;
+        this.rejected        = rejected;
+    }
+
+    @Override
+    public void execute (Runnable command) {
+        if (command == null) {
+            throw new NullPointerException ("command");
+        }
+        super.execute (new TimedTask (command));
+    }
+
+    @Override
+    public List<Runnable> shutdownNow () {
+        List<Runnable> list = super.shutdownNow ();
+        List<Runnable> tasks = new ArrayList<> (list.size ());
+        for (Runnable r : list) {
+            tasks.add (r instanceof TimedTask ? ((TimedTask) r).task : r);
+        }
+        return tasks;
+    }
+
+    /**
+     * 关闭线程池：等待已提交的任务完成，超时后中断剩余的任务
+     */
+    @PreDestroy
+    public void destroy () {
+        shutdown ();
+        try {
+            if (!awaitTermination (shutdownTimeout, TimeUnit.MILLISECONDS)) {
+                List<Runnable> dropped = shutdownNow ();
+                logger.warn ("executor {} is not terminated in {} ms, {} queued tasks dropped",
+                        name, shutdownTimeout, dropped.size ());
+            }
+        } catch (InterruptedException ex) {
+            shutdownNow ();
+            Thread.currentThread ().interrupt ();
+        } finally {
+            unregisterJMX ();
+        }
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("executor {} shutdown, {} tasks completed, {} rejected", name, finished.sum (), rejected.count.sum ());
+        }
+    }
+
+    /**
+     * 注册到 JMX
+     */
+    void registerJMX () {
+        try {
+            Hashtable<String, String> table = new Hashtable<> ();
+            table.put ("type", "Executor");
+            table.put ("name", name);
+            ObjectName oName = new ObjectName (JMX_GROUP, table);
+            ManagementFactory.getPlatformMBeanServer ().registerMBean (this, oName);
+            this.oName = oName;
+        } catch (Exception ex) {
+            logger.warn ("cannot register executor {} to jmx: {}", name, ex.getMessage ());
+        }
+    }
+
+    private void unregisterJMX () {
+        if (oName != null) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer ();
+                if (server.isRegistered (oName)) {
+                    server.unregisterMBean (oName);
+                }
+            } catch (Exception ex) {
+                logger.warn ("cannot unregister executor {} from jmx: {}", name, ex.getMessage ());
+            }
+            oName = null;
+        }
+    }
+
+    @Override
+    public String getName () {
+        return name;
+    }
+
+    @Override
+    public boolean isVirtual () {
+        return virtual;
+    }
+
+    @Override
+    public int getQueueDepth () {
+        return getQueue ().size ();
+    }
+
+    @Override
+    public int getQueueRemainingCapacity () {
+        return getQueue ().remainingCapacity ();
+    }
+
+    @Override
+    public long getRejectedCount () {
+        return rejected.count.sum ();
+    }
+
+    @Override
+    public long getFailedCount () {
+        return failed.sum ();
+    }
+
+    @Override
+    public double getAverageWaitMillis () {
+        long count = finished.sum ();
+        return count == 0 ? 0 : waitNanos.sum () / 1e6 / count;
+    }
+
+    @Override
+    public double getMaxWaitMillis () {
+        return maxWaitNanos.get () / 1e6;
+    }
+
+    @Override
+    public double getAverageRunMillis () {
+        long count = finished.sum ();
+        return count == 0 ? 0 : runNanos.sum () / 1e6 / count;
+    }
+
+    @Override
+    public double getMaxRunMillis () {
+        return maxRunNanos.get () / 1e6;
+    }
+
+    @Override
+    public void resetStatistics () {
+        finished.reset ();
+        failed.reset ();
+        waitNanos.reset ();
+        runNanos.reset ();
+        maxWaitNanos.set (0);
+        maxRunNanos.set (0);
+        rejected.count.reset ();
+    }
+
+    @Override
+    public String toString () {
+        return "ManagedExecutor{name=" + name + ", pool=" + getPoolSize () + "/" + getMaximumPoolSize () +
+                ", active=" + getActiveCount () + ", queued=" + getQueueDepth () + (virtual ? ", virtual" : "") + "}";
+    }
+
+    private static BlockingQueue<Runnable> createQueue (int size) {
+        if (size < 0) {
+            return new LinkedBlockingQueue<> ();
+        }
+        if (size == 0) {
+            return new SynchronousQueue<> ();
+        }
+        return new ArrayBlockingQueue<> (size);
+    }
+
+    /**
+     * 记录等待时间和执行时间的任务包装
+     */
+    private final class TimedTask implements Runnable {
+        private final Runnable task;
+        private final long submitted = System.nanoTime ();
+
+        TimedTask (Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run () {
+            long start = System.nanoTime ();
+            boolean success = false;
+            try {
+                task.run ();
+                success = true;
+            } finally {
+                long end  = System.nanoTime ();
+                long wait = start - submitted;
+                long run  = end - start;
+                finished.increment ();
+                waitNanos.add (wait);
+                runNanos.add (run);
+                maxWaitNanos.accumulateAndGet (wait, Math::max);
+                maxRunNanos.accumulateAndGet (run, Math::max);
+                if (!success) {
+                    failed.increment ();
+                }
+            }
+        }
+
+        @Override
+        public String toString () {
+            return task.toString ();
+        }
+    }
+
+    /**
+     * 统计被拒绝的任务数的拒绝策略
+     */
+    private static final class RejectCounter implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler handler;
+        private final LongAdder count = new LongAdder ();
+
+        RejectCounter (RejectedExecutionHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void rejectedExecution (Runnable r, ThreadPoolExecutor executor) {
+            count.increment ();
+            handler.rejectedExecution (r, executor);
+        }
+    }
+}
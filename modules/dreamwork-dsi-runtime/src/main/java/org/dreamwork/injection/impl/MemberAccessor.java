@@ -0,0 +1,399 @@
+package org.dreamwork.injection.impl;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 字段注入和方法调用的访问器.
+ *
+ * <p>字段和方法只在第一次访问时调用 {@code setAccessible}，之后不再重复打开访问权限。
+ * 公开类的公开方法，且参数 (包括实例) 不超过 {@value #MAX_ARITY} 个时，第一次调用时通过 {@link LambdaMetafactory}
+ * 生成一个固定参数个数的函数接口的实现并缓存，之后的调用是一次普通的接口调用；其他方法和所有的字段使用已经打开访问权限的核心反射，
+ * 它比不是常量的 {@link MethodHandle} 的 {@code invokeExact} 更快。所有的注入点 (容器、扫描器、web 组件、websocket) 共享同一份缓存</p>
+ *
+ * <p>异常语义和 {@link Field#set(Object, Object)} / {@link Method#invoke(Object, Object...)} 保持一致：
+ * 参数类型不匹配时抛出 {@link IllegalArgumentException}，目标方法抛出的异常被包装成 {@link InvocationTargetException}</p>
+ *
+ * @since 2.1.3
+ */
+public final class MemberAccessor {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup ();
+    private static final Object[] EMPTY = new Object[0];
+
+    /** 方法的调用器缓存在声明它的类上，不会阻止类和它的类加载器被卸载 */
+    private static final ClassValue<ConcurrentMap<Method, Invoker>> INVOKERS = new ClassValue<ConcurrentMap<Method, Invoker>> () {
+        @Override
+        protected ConcurrentMap<Method, Invoker> computeValue (Class<?> type) {
+            return new ConcurrentHashMap<> ();
+        }
+    };
+
+    private MemberAccessor () {}
+
+    /**
+     * 设置字段的值
+     * @param field  字段
+     * @param target 对象实例，静态字段时忽略
+     * @param value  字段的值
+     * @throws IllegalAccessException 当无法访问字段时抛出
+     */
+    public static void set (Field field, Object target, Object value) throws IllegalAccessException {
+        // 调用者传入的是 BeanDescriptor 等缓存的同一个 Field 实例，访问权限只需要打开一次
+        makeAccessible (field);
+        field.set (target, value);
+    }
+
+    /**
+     * 调用方法
+     * @param method 方法
+     * @param target 对象实例，静态方法时忽略
+     * @param args   参数
+     * @return 方法的返回值，{@code void} 方法返回 {@code null}
+     * @throws IllegalAccessException 当无法访问方法时抛出
+     * @throws InvocationTargetException 当目标方法抛出异常时抛出
+     */
+    public static Object invoke (Method method, Object target, Object... args) throws IllegalAccessException, InvocationTargetException {
+        ConcurrentMap<Method, Invoker> invokers = INVOKERS.get (method.getDeclaringClass ());
+        Invoker invoker = invokers.get (method);
+        if (invoker == null) {
+            Invoker old = invokers.putIfAbsent (method, invoker = new Invoker (method));
+            if (old != null) {
+                invoker = old;
+            }
+        }
+        return invoker.invoke (target, args == null ? EMPTY : args);
+    }
+
+    /**
+     * 生成一个绑定到指定实例的方法调用器。访问检查、实例类型的检查和句柄的适配都在这里一次完成，
+     * 之后的每次调用只检查参数，也不再查找缓存
+     * @param method 方法
+     * @param target 对象实例，静态方法时忽略
+     * @return 绑定的调用器
+     * @throws IllegalAccessException 当无法访问方法时抛出
+     */
+    public static BoundInvoker bind (Method method, Object target) throws IllegalAccessException {
+        return new BoundInvoker (method, target);
+    }
+
+    private static MethodHandle generic (Method method) throws IllegalAccessException {
+        makeAccessible (method);
+        MethodHandle mh = LOOKUP.unreflect (method);
+        if (Modifier.isStatic (method.getModifiers ())) {
+            mh = MethodHandles.dropArguments (mh, 0, Object.class);
+        }
+        return mh.asType (MethodType.genericMethodType (method.getParameterCount () + 1));
+    }
+
+    private static void makeAccessible (AccessibleObject ao) {
+        if (!ao.isAccessible ()) {
+            try {
+                ao.setAccessible (true);
+            } catch (RuntimeException ignore) {
+                // 无法打开访问权限时，由之后的访问抛出 IllegalAccessException
+            }
+        }
+    }
+
+    private static Class<?> box (Class<?> type) {
+        if (!type.isPrimitive ()) {
+            return type;
+        }
+        return MethodType.methodType (type).wrap ().returnType ();
+    }
+
+    private static void check (Class<?> type, Object value, Object member) {
+        if (value == null) {
+            if (type.isPrimitive ()) {
+                throw new IllegalArgumentException ("cannot set null to primitive " + member);
+            }
+        } else if (!box (type).isInstance (value)) {
+            throw new IllegalArgumentException (
+                    "argument type mismatch: " + value.getClass ().getName () + " cannot be assigned to " + type.getName () + " of " + member
+            );
+        }
+    }
+
+    private static final class Invoker {
+        final Method method;
+        final boolean isStatic;
+        final Class<?>[] types;
+        /** 生成的调用器，无法生成时为 {@code null}，使用 {@link Method#invoke(Object, Object...)} */
+        final Unbound unbound;
+
+        Invoker (Method method) {
+            this.method = method;
+            isStatic = Modifier.isStatic (method.getModifiers ());
+            types = method.getParameterTypes ();
+
+            makeAccessible (method);
+            Unbound u = null;
+            if (types.length + (isStatic ? 0 : 1) <= MAX_ARITY && BoundInvoker.canGenerate (method)) {
+                try {
+                    u = unbound (BoundInvoker.generate (method, null), isStatic ? types.length : types.length + 1,
+                            method.getReturnType () == void.class, isStatic);
+                } catch (Throwable t) {
+                    // 无法生成时退回到核心反射
+                    u = null;
+                }
+            }
+            unbound = u;
+        }
+
+        Object invoke (Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+            if (unbound == null) {
+                return method.invoke (target, args);
+            }
+            if (args.length != types.length) {
+                throw new IllegalArgumentException ("wrong number of arguments: " + method);
+            }
+
+            try {
+                return unbound.apply (target, args);
+            } catch (ClassCastException | NullPointerException ex) {
+                // 实例和参数的类型转换、拆箱在调用目标方法之前进行，失败时目标方法没有被调用。
+                // 只在出现这两种异常时才检查，区分是参数不匹配还是目标方法自己抛出的
+                if (!isStatic) {
+                    if (target == null) {
+                        throw new NullPointerException ("target of " + method + " is null");
+                    }
+                    if (!method.getDeclaringClass ().isInstance (target)) {
+                        throw new IllegalArgumentException ("object is not an instance of declaring class: " + method);
+                    }
+                }
+                for (int i = 0; i < args.length; i ++) {
+                    check (types [i], args [i], method);
+                }
+                throw new InvocationTargetException (ex);
+            } catch (Throwable t) {
+                throw new InvocationTargetException (t);
+            }
+        }
+
+        /**
+         * 按参数个数选定展开参数的方式。实例方法生成的函数接口的第一个参数是实例
+         */
+        private static Unbound unbound (Object fn, int n, boolean isVoid, boolean isStatic) {
+            if (isStatic) {
+                Spread spread = BoundInvoker.spread (fn, n, isVoid);
+                return (t, a) -> spread.apply (a);
+            }
+            if (isVoid) {
+                switch (n) {
+                    case 1: return (t, a) -> { ((Run1) fn).run (t); return null; };
+                    case 2: return (t, a) -> { ((Run2) fn).run (t, a [0]); return null; };
+                    case 3: return (t, a) -> { ((Run3) fn).run (t, a [0], a [1]); return null; };
+                    case 4: return (t, a) -> { ((Run4) fn).run (t, a [0], a [1], a [2]); return null; };
+                    default: return (t, a) -> { ((Run5) fn).run (t, a [0], a [1], a [2], a [3]); return null; };
+                }
+            }
+            switch (n) {
+                case 1: return (t, a) -> ((Call1) fn).call (t);
+                case 2: return (t, a) -> ((Call2) fn).call (t, a [0]);
+                case 3: return (t, a) -> ((Call3) fn).call (t, a [0], a [1]);
+                case 4: return (t, a) -> ((Call4) fn).call (t, a [0], a [1], a [2]);
+                default: return (t, a) -> ((Call5) fn).call (t, a [0], a [1], a [2], a [3]);
+            }
+        }
+    }
+
+    /**
+     * 绑定到一个实例的方法调用器，由 {@link #bind(Method, Object)} 生成.
+     *
+     * <p>公开类的公开方法，且参数不超过 {@value #MAX_ARITY} 个时，通过 {@link LambdaMetafactory} 生成一个固定参数个数的函数接口的实现，
+     * 调用是一次普通的接口调用，JIT 可以内联到目标方法中；其他情况退回到绑定了实例的 {@link MethodHandle}。
+     * 异常语义和 {@link #invoke(Method, Object, Object...)} 一致</p>
+     */
+    public static final class BoundInvoker {
+        private final Method method;
+        private final Object target;
+        private final Class<?>[] types;
+        /** 展开参数数组并调用目标方法，按参数个数在创建时选定，保持调用路径足够短以便 JIT 内联 */
+        private final Spread spread;
+
+        private BoundInvoker (Method method, Object target) throws IllegalAccessException {
+            boolean isStatic = Modifier.isStatic (method.getModifiers ());
+            if (!isStatic) {
+                if (target == null) {
+                    throw new NullPointerException ("target of " + method + " is null");
+                }
+                if (!method.getDeclaringClass ().isInstance (target)) {
+                    throw new IllegalArgumentException ("object is not an instance of declaring class: " + method);
+                }
+            }
+            this.method = method;
+            this.target = target;
+            types  = method.getParameterTypes ();
+
+            Spread s = null;
+            if (canGenerate (method)) {
+                try {
+                    s = spread (generate (method, target), types.length, method.getReturnType () == void.class);
+                } catch (Throwable t) {
+                    // 无法生成时退回到方法句柄
+                    s = null;
+                }
+            }
+            if (s == null) {
+                MethodHandle handle = generic (method).bindTo (isStatic ? null : target).asSpreader (Object[].class, types.length);
+                s = handle::invokeExact;
+            }
+            spread = s;
+        }
+
+        /**
+         * 绑定的实例
+         * @return 实例，静态方法时为 {@code null}
+         */
+        public Object target () {
+            return target;
+        }
+
+        /**
+         * 调用方法
+         * @param args 参数
+         * @return 方法的返回值，{@code void} 方法返回 {@code null}
+         * @throws InvocationTargetException 当目标方法抛出异常时抛出
+         */
+        public Object invoke (Object... args) throws InvocationTargetException {
+            if (args == null) {
+                args = EMPTY;
+            }
+            if (args.length != types.length) {
+                throw new IllegalArgumentException ("wrong number of arguments: " + method);
+            }
+
+            try {
+                return spread.apply (args);
+            } catch (ClassCastException | NullPointerException ex) {
+                // 参数的类型转换和拆箱在调用目标方法之前进行，失败时目标方法没有被调用。
+                // 只在出现这两种异常时才检查参数，区分是参数不匹配还是目标方法自己抛出的
+                for (int i = 0; i < args.length; i ++) {
+                    check (types [i], args [i], method);
+                }
+                throw new InvocationTargetException (ex);
+            } catch (Throwable t) {
+                throw new InvocationTargetException (t);
+            }
+        }
+
+        static Spread spread (Object fn, int n, boolean isVoid) {
+            if (isVoid) {
+                switch (n) {
+                    case 0: return a -> { ((Run0) fn).run (); return null; };
+                    case 1: return a -> { ((Run1) fn).run (a [0]); return null; };
+                    case 2: return a -> { ((Run2) fn).run (a [0], a [1]); return null; };
+                    case 3: return a -> { ((Run3) fn).run (a [0], a [1], a [2]); return null; };
+                    case 4: return a -> { ((Run4) fn).run (a [0], a [1], a [2], a [3]); return null; };
+                    default: return a -> { ((Run5) fn).run (a [0], a [1], a [2], a [3], a [4]); return null; };
+                }
+            }
+            switch (n) {
+                case 0: return a -> ((Call0) fn).call ();
+                case 1: return a -> ((Call1) fn).call (a [0]);
+                case 2: return a -> ((Call2) fn).call (a [0], a [1]);
+                case 3: return a -> ((Call3) fn).call (a [0], a [1], a [2]);
+                case 4: return a -> ((Call4) fn).call (a [0], a [1], a [2], a [3]);
+                default: return a -> ((Call5) fn).call (a [0], a [1], a [2], a [3], a [4]);
+            }
+        }
+
+        /**
+         * 生成的类由这个类的类加载器解析，所以方法签名中的所有类型都必须公开且能被它加载
+         */
+        static boolean canGenerate (Method method) {
+            if (method.getParameterCount () > MAX_ARITY || !Modifier.isPublic (method.getModifiers ())) {
+                return false;
+            }
+            if (!isVisible (method.getDeclaringClass ()) || !isVisible (method.getReturnType ())) {
+                return false;
+            }
+            for (Class<?> type : method.getParameterTypes ()) {
+                if (!isVisible (type)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isVisible (Class<?> type) {
+            while (type.isArray ()) {
+                type = type.getComponentType ();
+            }
+            if (type.isPrimitive ()) {
+                return true;
+            }
+            if (!Modifier.isPublic (type.getModifiers ())) {
+                return false;
+            }
+            try {
+                return Class.forName (type.getName (), false, MemberAccessor.class.getClassLoader ()) == type;
+            } catch (ClassNotFoundException | LinkageError ex) {
+                return false;
+            }
+        }
+
+        /**
+         * 生成函数接口的实现
+         * @param method 方法
+         * @param target 绑定的实例；为 {@code null} 的实例方法生成的实现以实例作为第一个参数
+         */
+        static Object generate (Method method, Object target) throws Throwable {
+            Class<?>[] types = method.getParameterTypes ();
+            boolean receiver = target == null && !Modifier.isStatic (method.getModifiers ());
+            int n = types.length + (receiver ? 1 : 0), k = 0;
+            boolean isVoid = method.getReturnType () == void.class;
+            Class<?> face = isVoid ? RUNS [n] : CALLS [n];
+            Class<?>[] boxed = new Class<?>[n];
+            if (receiver) {
+                boxed [k ++] = method.getDeclaringClass ();
+            }
+            for (Class<?> type : types) {
+                boxed [k ++] = box (type);
+            }
+            Class<?> returnType = isVoid ? void.class : box (method.getReturnType ());
+            boolean bound = target != null && !Modifier.isStatic (method.getModifiers ());
+            MethodType factoryType = bound ?
+                    MethodType.methodType (face, method.getDeclaringClass ()) : MethodType.methodType (face);
+            CallSite site = LambdaMetafactory.metafactory (
+                    LOOKUP, isVoid ? "run" : "call", factoryType,
+                    isVoid ? MethodType.genericMethodType (n).changeReturnType (void.class) : MethodType.genericMethodType (n),
+                    LOOKUP.unreflect (method),
+                    MethodType.methodType (returnType, boxed)
+            );
+            return bound ? site.getTarget ().invoke (target) : site.getTarget ().invoke ();
+        }
+    }
+
+    /** 生成函数接口的实现时支持的最多参数个数 */
+    private static final int MAX_ARITY = 5;
+    private static final Class<?>[] CALLS = {Call0.class, Call1.class, Call2.class, Call3.class, Call4.class, Call5.class};
+    private static final Class<?>[] RUNS  = {Run0.class, Run1.class, Run2.class, Run3.class, Run4.class, Run5.class};
+
+    interface Spread { Object apply (Object[] args) throws Throwable; }
+    interface Unbound { Object apply (Object target, Object[] args) throws Throwable; }
+
+    interface Call0 { Object call (); }
+    interface Call1 { Object call (Object a); }
+    interface Call2 { Object call (Object a, Object b); }
+    interface Call3 { Object call (Object a, Object b, Object c); }
+    interface Call4 { Object call (Object a, Object b, Object c, Object d); }
+    interface Call5 { Object call (Object a, Object b, Object c, Object d, Object e); }
+
+    interface Run0 { void run (); }
+    interface Run1 { void run (Object a); }
+    interface Run2 { void run (Object a, Object b); }
+    interface Run3 { void run (Object a, Object b, Object c); }
+    interface Run4 { void run (Object a, Object b, Object c, Object d); }
+    interface Run5 { void run (Object a, Object b, Object c, Object d, Object e); }
+}
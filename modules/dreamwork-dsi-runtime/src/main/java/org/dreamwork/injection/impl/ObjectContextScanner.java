@@ -1,17 +1,22 @@
 package org.dreamwork.injection.impl;
 
 import org.dreamwork.config.IConfiguration;
-import org.dreamwork.injection.AConfigured;
+import org.dreamwork.injection.ALazy;
+import org.dreamwork.injection.AScope;
+import org.dreamwork.injection.BeanScope;
 import org.dreamwork.injection.IInjectResolvedProcessor;
 import org.dreamwork.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.management.IntrospectionException;
-import java.lang.reflect.Field;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -21,6 +26,8 @@ public class ObjectContextScanner extends ClassScanner {
     private final Logger logger = LoggerFactory.getLogger (ObjectContextScanner.class);
 
     private final SimpleObjectContext context;
+    /** 有定时方法的实例，预处理完成后安排定时任务. @since 2.1.3 */
+    private final Map<Object, BeanDescriptor> scheduled = new IdentityHashMap<> ();
 
     public ObjectContextScanner (SimpleObjectContext context) {
         this.context = context;
@@ -31,18 +38,46 @@ public class ObjectContextScanner extends ClassScanner {
         return type.isAnnotationPresent (Resource.class);
     }
 
+    /**
+     * 只接受被 {@link Resource} 标注的类，编译期组件索引记录了所有这样的类
+     * @since 2.1.3
+     */
+    @Override
+    protected Collection<Class<? extends Annotation>> getIndexedAnnotations () {
+        return Collections.singleton (Resource.class);
+    }
+
     @Override
     protected void onFound (String name, Class<?> type, Set<Wrapper> wrappers) throws Exception {
         String beanName = Character.toLowerCase (name.charAt (0)) + name.substring (1);
+        BeanDescriptor descriptor = BeanDescriptor.of (type);
+
+        // @since 2.1.3 被 ALazy 标注的类只注册代理，真实的实例在第一次使用时创建
+        ALazy lazy = type.getAnnotation (ALazy.class);
+        if (lazy != null && lazy.value () && context.registerLazy (beanName, type, descriptor)) {
+            warnScheduled (type, descriptor);
+            return;
+        }
+        // @since 2.1.3 非单例作用域的类只注册作用域代理
+        AScope scope = type.getAnnotation (AScope.class);
+        if (scope != null && scope.value () != BeanScope.SINGLETON && context.registerScoped (beanName, type, descriptor, scope)) {
+            warnScheduled (type, descriptor);
+            return;
+        }
+
+        long start = System.nanoTime ();
         Object bean = type.newInstance ();
+        long nanos = System.nanoTime () - start;
+        context.timeline.construction (type.getName (), nanos);
+        context.timeline.phase ("instantiate", nanos);
         context.register (beanName, bean);
 
         Wrapper w = new Wrapper ();
         w.type = type;
         w.bean = bean;
 
-        findInjectField (type, w);
-        findMethods (type, w);
+        findInjectField (descriptor, w);
+        findMethods (descriptor, w);
 
         if (!w.configuredFields.isEmpty ()) {
             IConfiguration conf = context.getBean (IConfiguration.class);
@@ -59,19 +94,22 @@ public class ObjectContextScanner extends ClassScanner {
                     exposeName = rt.getSimpleName ();
                     exposeName = Character.toLowerCase (exposeName.charAt (0)) + exposeName.substring (1);
                 }
-                if (!mw.method.isAccessible ()) {
-                    mw.method.setAccessible (true);
-                }
-                Object o = mw.method.invoke (bean);
+                Object o = MemberAccessor.invoke (mw.method, bean);
                 if (o == null) {
                     throw new IntrospectionException ("method " + mw.method + " returns a null object!");
                 }
                 context.register (exposeName, o);
+                // 暴露的资源先于它的提供者销毁
+                context.depend (o, bean);
             }
 
             w.exposeMethods.clear ();
         }
 
+        if (!descriptor.scheduled.isEmpty ()) {
+            scheduled.put (bean, descriptor);
+        }
+
         // 判断这个类是否实现了容器注入完成处理器
         w.isProcessor = IInjectResolvedProcessor.class.isAssignableFrom (type);
 
@@ -83,33 +121,32 @@ public class ObjectContextScanner extends ClassScanner {
     @Override
     protected void onCompleted (Set<Wrapper> wrappers) throws Exception {
         context.resolve (wrappers);
+
+        // @since 2.1.3 注入和预处理都完成之后才开始定时任务
+        scheduled.forEach (context::schedule);
+        scheduled.clear ();
+    }
+
+    private void warnScheduled (Class<?> type, BeanDescriptor descriptor) {
+        if (!descriptor.scheduled.isEmpty ()) {
+            logger.warn ("{} is lazy or scoped, its scheduled methods are ignored", type);
+        }
     }
 
     /**
      * 查找所有需要注入的字段
-     * @param type    java 类型
-     * @param wrapper 包裹类
+     * @param descriptor 类的描述
+     * @param wrapper    包裹类
      */
-    private void findInjectField (Class<?> type, Wrapper wrapper) {
-        while (type != null && type != Object.class) {
-            Field[] fields = type.getDeclaredFields ();
-            for (Field field : fields) {
-                Class<?> ft = field.getType ();
-                if (field.isAnnotationPresent (Resource.class) && !ft.isPrimitive ()) {
-                    wrapper.injectFields.add (field);
-                } else if (field.isAnnotationPresent (AConfigured.class)) {
-                    wrapper.configuredFields.add (field);
-                }
-            }
-
-            type = type.getSuperclass ();
-        }
+    private void findInjectField (BeanDescriptor descriptor, Wrapper wrapper) {
+        wrapper.injectFields.addAll (descriptor.injectFields);
+        wrapper.configuredFields.addAll (descriptor.configuredFields);
     }
 
     /**
      * 查找所有需要 注入 / 注册 / 预处理 的方法
-     * @param type    java 类型
-     * @param wrapper 包裹类
+     * @param descriptor 类的描述
+     * @param wrapper    包裹类
      * @throws IntrospectionException 内省异常.
      * <ul>
      * <li>仅标准的 {@code java setter} 允许被标注为 <strong>自动注入</strong></li>
@@ -118,50 +155,46 @@ public class ObjectContextScanner extends ClassScanner {
      * </ul>
      * 若违反了以上规则，将抛出 {@link IntrospectionException} 异常
      */
-    private void findMethods (Class<?> type, Wrapper wrapper) throws IntrospectionException {
-        Method[] methods = type.getMethods ();
-        for (Method method : methods) {
-            if (method.isAnnotationPresent (Resource.class)) {
-                if (method.isSynthetic ()) {
-                    // 合成方法会被跳过，不管是否有 @Resource 注解
-                    continue;
+    private void findMethods (BeanDescriptor descriptor, Wrapper wrapper) throws IntrospectionException {
+        for (Method method : descriptor.publicResourceMethods) {
+            String name = method.getName ();
+            Resource res = method.getAnnotation (Resource.class);
+
+            if (name.startsWith ("set")) {  // setter
+                Class<?>[] pts = method.getParameterTypes ();
+                if (pts.length != 1) {
+                    throw new IntrospectionException ("a method annotated as Resource can ONLY have ONE parameter");
+                }
+                MethodWrapper mw = new MethodWrapper ();
+                mw.method = method;
+
+                if (!StringUtil.isEmpty (res.name ()))
+                    mw.name = res.name ().trim ();
+                wrapper.injectMethods.add (mw);
+            } else if (name.startsWith ("get")) {   // getter
+                if (method.getReturnType () == void.class || method.getReturnType () == Void.class) {
+                    throw new IntrospectionException ("a method annotated as exposed resource MUST return something");
                 }
-                String name = method.getName ();
-                Resource res = method.getAnnotation (Resource.class);
-
-                if (name.startsWith ("set")) {  // setter
-                    Class<?>[] pts = method.getParameterTypes ();
-                    if (pts.length != 1) {
-                        throw new IntrospectionException ("a method annotated as Resource can ONLY have ONE parameter");
-                    }
-                    MethodWrapper mw = new MethodWrapper ();
-                    mw.method = method;
-
-                    if (!StringUtil.isEmpty (res.name ()))
-                        mw.name = res.name ().trim ();
-                    wrapper.injectMethods.add (mw);
-                } else if (name.startsWith ("get")) {   // getter
-                    if (method.getReturnType () == void.class || method.getReturnType () == Void.class) {
-                        throw new IntrospectionException ("a method annotated as exposed resource MUST return something");
-                    }
-                    if (method.getParameterCount () != 0) {
-                        throw new IntrospectionException ("a method annotated as exposed resource cannot contains any parameters");
-                    }
-                    MethodWrapper mw = new MethodWrapper ();
-                    mw.method = method;
-                    if (!StringUtil.isEmpty (res.name ())) {
-                        mw.name = res.name ();
-                    } else if (!StringUtil.isEmpty (res.mappedName ())) {
-                        mw.name = res.mappedName ();
-                    }
-                    wrapper.exposeMethods.add (mw);
+                if (method.getParameterCount () != 0) {
+                    throw new IntrospectionException ("a method annotated as exposed resource cannot contains any parameters");
                 }
-            } else if (method.isAnnotationPresent (PostConstruct.class)) {  // 预加载的方法
-                if (wrapper.postConstruct != null) {
-                    throw new IntrospectionException ("a class can ONLY have ONE method annotated PostConstruct!");
+                MethodWrapper mw = new MethodWrapper ();
+                mw.method = method;
+                if (!StringUtil.isEmpty (res.name ())) {
+                    mw.name = res.name ();
+                } else if (!StringUtil.isEmpty (res.mappedName ())) {
+                    mw.name = res.mappedName ();
                 }
-                wrapper.postConstruct = method;
+                wrapper.exposeMethods.add (mw);
             }
         }
+
+        // 预加载的方法
+        if (descriptor.postConstructs.size () > 1) {
+            throw new IntrospectionException ("a class can ONLY have ONE method annotated PostConstruct!");
+        }
+        if (!descriptor.postConstructs.isEmpty ()) {
+            wrapper.postConstruct = descriptor.postConstructs.get (0);
+        }
     }
 }
@@ -0,0 +1,92 @@
+package org.dreamwork.injection.impl;
+
+import net.sf.cglib.proxy.*;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link LazyBean} 和 {@link ScopedBean} 共用的 cglib 代理.
+ *
+ * <p>代理的 {@code hashCode}/{@code equals} 是 identity 语义，{@code toString} 返回代理的持有者的描述，
+ * {@code finalize} 不转发，其他方法都交给持有者的回调</p>
+ *
+ * @since 2.1.3
+ */
+final class ProxySupport {
+    private static final CallbackFilter FILTER = new ObjectMethodFilter ();
+
+    private ProxySupport () {}
+
+    /**
+     * 为指定的类型创建代理
+     * @param type     代理的类型
+     * @param callback 处理普通方法的回调
+     * @param owner    代理的持有者，代理的 {@code toString} 返回它的 {@code toString}
+     * @return 代理实例
+     */
+    static Object createProxy (Class<?> type, Callback callback, Object owner) {
+        Enhancer enhancer = new Enhancer ();
+        if (type.isInterface ()) {
+            enhancer.setInterfaces (new Class<?>[] {type});
+        } else {
+            enhancer.setSuperclass (type);
+        }
+        enhancer.setUseFactory (false);
+        enhancer.setClassLoader (type.getClassLoader ());
+        enhancer.setCallbackFilter (FILTER);
+        enhancer.setCallbacks (new Callback[] {callback, new ObjectMethodInterceptor (owner), NoOp.INSTANCE});
+        return enhancer.create ();
+    }
+
+    /**
+     * {@code hashCode}, {@code equals}, {@code toString} 由 {@link ObjectMethodInterceptor} 处理，
+     * {@code finalize} 不转发，其他方法都交给第一个回调
+     */
+    private static final class ObjectMethodFilter implements CallbackFilter {
+        @Override
+        public int accept (Method method) {
+            String name = method.getName ();
+            int count = method.getParameterCount ();
+            if (count == 0 && ("hashCode".equals (name) || "toString".equals (name))) {
+                return 1;
+            }
+            if (count == 1 && "equals".equals (name) && method.getParameterTypes ()[0] == Object.class) {
+                return 1;
+            }
+            if (count == 0 && "finalize".equals (name)) {
+                return 2;
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean equals (Object o) {
+            return o instanceof ObjectMethodFilter;
+        }
+
+        @Override
+        public int hashCode () {
+            return ObjectMethodFilter.class.hashCode ();
+        }
+    }
+
+    private static final class ObjectMethodInterceptor implements MethodInterceptor {
+        private final Object owner;
+
+        ObjectMethodInterceptor (Object owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public Object intercept (Object proxy, Method method, Object[] args, MethodProxy mp) {
+            switch (method.getName ()) {
+                case "hashCode":
+                    return System.identityHashCode (proxy);
+                case "equals":
+                    return proxy == args [0];
+                default:
+                    return owner.toString ();
+            }
+        }
+    }
+}
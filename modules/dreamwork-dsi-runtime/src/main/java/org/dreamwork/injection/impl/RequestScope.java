@@ -0,0 +1,110 @@
+package org.dreamwork.injection.impl;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 请求作用域.
+ *
+ * <p>{@link org.dreamwork.injection.BeanScope#REQUEST} 作用域的实例绑定在当前线程的请求作用域上：
+ * 同一个作用域内第一次调用作用域代理时借用一个实例，之后的调用共享它，{@link #close()} 时归还所有借用的实例。
+ * 作用域可以嵌套 (比如请求转发)，关闭内层作用域后恢复外层作用域</p>
+ * <pre>
+ * try (RequestScope ignore = RequestScope.begin ()) {
+ *     ...
+ * }
+ * </pre>
+ * <p>作用域只能在开启它的线程中使用和关闭。按线程复用作用域的调用者可以用 {@link #create()} 创建一个作用域，
+ * 之后反复 {@link #open()} 和 {@link #close()}</p>
+ *
+ * @since 2.1.3
+ */
+public final class RequestScope implements AutoCloseable {
+    private static final ThreadLocal<RequestScope> CURRENT = new ThreadLocal<> ();
+
+    private RequestScope outer;
+    private Map<ScopedBean, Object> instances;
+    private boolean closed = true;
+
+    private RequestScope () {}
+
+    /**
+     * 在当前线程中开启一个请求作用域
+     * @return 请求作用域
+     */
+    public static RequestScope begin () {
+        return new RequestScope ().open ();
+    }
+
+    /**
+     * 创建一个还没有开启的请求作用域
+     * @return 请求作用域
+     */
+    public static RequestScope create () {
+        return new RequestScope ();
+    }
+
+    /**
+     * 在当前线程中开启这个作用域，当前的作用域成为它的外层作用域
+     * @return 这个作用域
+     * @throws IllegalStateException 作用域已经开启时
+     */
+    public RequestScope open () {
+        if (!closed) {
+            throw new IllegalStateException ("request scope is already open");
+        }
+        closed = false;
+        outer  = CURRENT.get ();
+        CURRENT.set (this);
+        return this;
+    }
+
+    /**
+     * 当前线程的请求作用域
+     * @return 请求作用域，没有时返回 {@code null}
+     */
+    public static RequestScope current () {
+        return CURRENT.get ();
+    }
+
+    /**
+     * 获取作用域内的实例，第一次获取时借用
+     */
+    Object get (ScopedBean bean) {
+        if (closed) {
+            throw new IllegalStateException ("request scope is closed");
+        }
+        if (instances == null) {
+            instances = new IdentityHashMap<> (4);
+        }
+        Object o = instances.get (bean);
+        if (o == null) {
+            o = bean.acquire ();
+            instances.put (bean, o);
+        }
+        return o;
+    }
+
+    /**
+     * 关闭作用域，归还所有借用的实例并恢复外层作用域
+     */
+    @Override
+    public void close () {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (outer != null) {
+            CURRENT.set (outer);
+            outer = null;
+        } else {
+            CURRENT.remove ();
+        }
+        if (instances != null && !instances.isEmpty ()) {
+            for (Map.Entry<ScopedBean, Object> e : instances.entrySet ()) {
+                e.getKey ().release (e.getValue ());
+            }
+            instances.clear ();
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.IConfiguration;
+import org.dreamwork.injection.IEventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于环形缓冲区的事件总线.
+ *
+ * <p>缓冲区在创建时一次分配，容量为 2 的幂。发布者通过 CAS 领取一个序号，写入槽位后标记该槽位的轮次，
+ * 整个发布过程没有锁；缓冲区满 (最慢的消费线程还没有处理完一整圈之前的事件) 时 {@link #publish(Object)} 等待，
+ * {@link #tryPublish(Object)} 直接返回 {@code false}</p>
+ *
+ * <p>每个消费线程都按顺序读取所有的事件，但只投递给分配给它的订阅者，订阅者按注册的顺序轮流分配给各个消费线程，
+ * 所以同一个订阅者总是在同一个线程中、按发布的顺序收到事件。消费线程一次最多取 {@value #KEY_BATCH} 个事件，
+ * 以 {@code List} 为参数的订阅者一批只调用一次</p>
+ *
+ * <p>消费线程在第一次订阅或发布时才启动；没有事件时短暂自旋后挂起，直到发布者唤醒它。
+ * 所有消费线程都处理完一个槽位后，槽位中的事件引用被清除</p>
+ *
+ * <p>配置项：</p>
+ * <ul>
+ * <li>{@value #KEY_BUFFER} - 缓冲区的容量，向上取整为 2 的幂，默认 4096</li>
+ * <li>{@value #KEY_THREADS} - 消费线程的数量，默认 1</li>
+ * <li>{@value #KEY_BATCH} - 每批最多处理的事件数，默认 256</li>
+ * </ul>
+ *
+ * @since 2.1.3
+ */
+final class RingEventBus implements IEventBus {
+    static final String KEY_BUFFER  = "org.dreamwork.dsi.event.buffer-size";
+    static final String KEY_THREADS = "org.dreamwork.dsi.event.threads";
+    static final String KEY_BATCH   = "org.dreamwork.dsi.event.batch-size";
+
+    private static final Logger logger = LoggerFactory.getLogger (RingEventBus.class);
+    /** 关闭时等待消费线程处理完剩余事件的时间 */
+    private static final long DRAIN_MILLIS = 5000;
+    /** 消费线程挂起前让出 cpu 的次数 */
+    private static final int SPINS = 64;
+
+    private final Object[] entries;
+    /** 每个槽位当前可读的轮次 */
+    private final AtomicIntegerArray rounds;
+    private final int mask;
+    private final int shift;
+    private final int batchSize;
+
+    /** 已经领取的最大序号 */
+    private final AtomicLong cursor = new AtomicLong (-1);
+    /** 最慢的消费线程处理到的序号的缓存 */
+    private final AtomicLong gating = new AtomicLong (-1);
+    /** 每个槽位还没有处理它的消费线程数，只有一个消费线程时为 {@code null} */
+    private final AtomicIntegerArray remaining;
+    private final Consumer[] consumers;
+    private final AtomicBoolean started = new AtomicBoolean ();
+    private int assigned;
+
+    private volatile boolean running = true;
+
+    RingEventBus (IConfiguration conf) {
+        int size = conf == null ? 4096 : conf.getInt (KEY_BUFFER, 4096);
+        size = Math.max (2, Integer.highestOneBit (Math.max (2, size) * 2 - 1));
+        int threads = conf == null ? 1 : conf.getInt (KEY_THREADS, 1);
+        batchSize   = Math.max (1, conf == null ? 256 : conf.getInt (KEY_BATCH, 256));
+
+        entries = new Object[size];
+        rounds  = new AtomicIntegerArray (size);
+        for (int i = 0; i < size; i ++) {
+            rounds.set (i, -1);
+        }
+        mask  = size - 1;
+        shift = Integer.numberOfTrailingZeros (size);
+
+        consumers = new Consumer[Math.max (1, threads)];
+        for (int i = 0; i < consumers.length; i ++) {
+            consumers [i] = new Consumer ("dsi-event-" + (i + 1));
+        }
+        remaining = consumers.length > 1 ? new AtomicIntegerArray (size) : null;
+    }
+
+    /**
+     * 启动消费线程，只在第一次调用时生效
+     */
+    private void start () {
+        if (!started.get () && started.compareAndSet (false, true)) {
+            for (Consumer consumer : consumers) {
+                consumer.thread.start ();
+            }
+        }
+    }
+
+    @Override
+    public void publish (Object event) {
+        if (event == null) {
+            throw new NullPointerException ("event");
+        }
+        start ();
+        int idle = 0;
+        long seq;
+        while ((seq = claim ()) < 0) {
+            if (!running) {
+                throw new IllegalStateException ("event bus is closed");
+            }
+            idle = idle (idle);
+        }
+        write (seq, event);
+    }
+
+    @Override
+    public boolean tryPublish (Object event) {
+        if (event == null) {
+            throw new NullPointerException ("event");
+        }
+        start ();
+        long seq = claim ();
+        if (seq < 0) {
+            return false;
+        }
+        write (seq, event);
+        return true;
+    }
+
+    /**
+     * 领取下一个序号
+     * @return 序号，缓冲区已满或已经关闭时返回 -1
+     */
+    private long claim () {
+        while (running) {
+            long current = cursor.get ();
+            long next = current + 1;
+            long wrap = next - entries.length;
+            if (wrap > gating.get ()) {
+                long min = minimumSequence ();
+                gating.set (min);
+                if (wrap > min) {
+                    return -1;
+                }
+            }
+            if (cursor.compareAndSet (current, next)) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    private void write (long seq, Object event) {
+        int index = (int) (seq & mask);
+        entries [index] = event;
+        if (remaining != null) {
+            remaining.set (index, consumers.length);
+        }
+        // 标记轮次即发布，消费线程读取轮次后才读取槽位。
+        // 这里必须是 volatile 写：之后读取 waiting 不能被重排到它之前，否则可能错过正在挂起的消费线程
+        rounds.set (index, (int) (seq >>> shift));
+        for (Consumer consumer : consumers) {
+            if (consumer.waiting) {
+                LockSupport.unpark (consumer.thread);
+            }
+        }
+    }
+
+    /**
+     * 一个消费线程处理完了一个槽位，最后一个处理它的线程清除槽位中的事件.
+     *
+     * <p>清除发生在消费线程更新自己的序号之前，而发布者只有在所有消费线程的序号都越过这个槽位之后才能重新写入它</p>
+     */
+    private void consumed (long seq) {
+        int index = (int) (seq & mask);
+        if (remaining == null || remaining.decrementAndGet (index) == 0) {
+            entries [index] = null;
+        }
+    }
+
+    private boolean isAvailable (long seq) {
+        return rounds.get ((int) (seq & mask)) == (int) (seq >>> shift);
+    }
+
+    private long minimumSequence () {
+        long min = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            min = Math.min (min, consumer.sequence.get ());
+        }
+        return min;
+    }
+
+    /**
+     * 注册一个实例的所有订阅方法
+     * @param bean       实例 (可能是代理)
+     * @param descriptor 实例真实类型的描述
+     */
+    void subscribe (Object bean, BeanDescriptor descriptor) {
+        start ();
+        for (Method method : descriptor.subscribers) {
+            Subscriber subscriber = Subscriber.of (bean, method);
+            if (subscriber == null) {
+                logger.warn ("cannot resolve the event type of subscriber {}, ignore it", method);
+                continue;
+            }
+            Consumer consumer;
+            synchronized (consumers) {
+                consumer = consumers [assigned ++ % consumers.length];
+                consumer.add (subscriber);
+            }
+            if (logger.isTraceEnabled ()) {
+                logger.trace ("{} subscribed to {} on {}", method, subscriber.type.getName (), consumer.thread.getName ());
+            }
+        }
+    }
+
+    /**
+     * 取消一个实例的所有订阅
+     * @param bean 实例
+     */
+    void unsubscribe (Object bean) {
+        synchronized (consumers) {
+            for (Consumer consumer : consumers) {
+                consumer.remove (bean);
+            }
+        }
+    }
+
+    /**
+     * 关闭事件总线：不再接受新的事件，等待消费线程处理完已经发布的事件
+     */
+    @PreDestroy
+    public void shutdown () {
+        running = false;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark (consumer.thread);
+        }
+        long deadline = System.currentTimeMillis () + DRAIN_MILLIS;
+        for (Consumer consumer : consumers) {
+            long remain = deadline - System.currentTimeMillis ();
+            try {
+                consumer.thread.join (Math.max (1, remain));
+            } catch (InterruptedException ex) {
+                Thread.currentThread ().interrupt ();
+                break;
+            }
+            if (consumer.thread.isAlive ()) {
+                logger.warn ("event consumer {} does not stop in time, {} events left",
+                        consumer.thread.getName (), cursor.get () - consumer.sequence.get ());
+                consumer.thread.interrupt ();
+            }
+        }
+    }
+
+    /**
+     * 发布者等待缓冲区的空位：先自旋，再让出 cpu，最后短暂地挂起
+     */
+    private static int idle (int count) {
+        if (count < 100) {
+            // 自旋
+        } else if (count < 200) {
+            Thread.yield ();
+        } else {
+            LockSupport.parkNanos (count < 1000 ? 50_000 : 1_000_000);
+        }
+        return count < 1000 ? count + 1 : count;
+    }
+
+    private final class Consumer implements Runnable {
+        final Thread thread;
+        /** 已经处理完的序号 */
+        final AtomicLong sequence = new AtomicLong (-1);
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<> ();
+        /** 订阅者改变时递增 (持有 consumers 的锁)，消费线程据此重建按类型的索引 */
+        volatile int version;
+        /** 消费线程是否 (将要) 挂起等待发布者唤醒 */
+        volatile boolean waiting;
+
+        private int cachedVersion = -1;
+        private final Map<Class<?>, Subscriber[]> byType = new HashMap<> ();
+        private final List<Subscriber> batched = new ArrayList<> ();
+
+        Consumer (String name) {
+            thread = new Thread (this, name);
+            thread.setDaemon (true);
+        }
+
+        void add (Subscriber subscriber) {
+            subscribers.add (subscriber);
+            version ++;
+        }
+
+        void remove (Object bean) {
+            if (subscribers.removeIf (s -> s.bean == bean)) {
+                version ++;
+            }
+        }
+
+        @Override
+        public void run () {
+            long next = sequence.get () + 1;
+            int idle = 0;
+            while (!Thread.currentThread ().isInterrupted ()) {
+                long available = highestAvailable (next, cursor.get ());
+                if (available < next) {
+                    if (!running && next > cursor.get ()) {
+                        // 已经关闭且所有事件都处理完了
+                        break;
+                    }
+                    if (idle ++ < SPINS) {
+                        Thread.yield ();
+                    } else {
+                        await (next);
+                        idle = 0;
+                    }
+                    continue;
+                }
+                idle = 0;
+                long end = Math.min (available, next + batchSize - 1);
+                dispatch (next, end);
+                for (long seq = next; seq <= end; seq ++) {
+                    consumed (seq);
+                }
+                sequence.set (end);
+                next = end + 1;
+            }
+        }
+
+        /**
+         * 挂起，直到序号为 {@code seq} 的事件被发布、事件总线关闭或线程被中断
+         */
+        private void await (long seq) {
+            waiting = true;
+            try {
+                // 标记之后再检查一次，发布者在写入轮次之后检查标记，所以不会错过唤醒
+                while (running && !isAvailable (seq) && !Thread.currentThread ().isInterrupted ()) {
+                    LockSupport.park (this);
+                }
+            } finally {
+                waiting = false;
+            }
+        }
+
+        private long highestAvailable (long from, long to) {
+            for (long seq = from; seq <= to; seq ++) {
+                if (!isAvailable (seq)) {
+                    return seq - 1;
+                }
+            }
+            return to;
+        }
+
+        private void dispatch (long from, long to) {
+            if (cachedVersion != version) {
+                cachedVersion = version;
+                byType.clear ();
+            }
+            for (long seq = from; seq <= to; seq ++) {
+                Object event = entries [(int) (seq & mask)];
+                for (Subscriber subscriber : subscribersOf (event.getClass ())) {
+                    if (subscriber.batch) {
+                        if (subscriber.pending.isEmpty ()) {
+                            batched.add (subscriber);
+                        }
+                        subscriber.pending.add (event);
+                    } else {
+                        subscriber.deliver (event);
+                    }
+                }
+            }
+            if (!batched.isEmpty ()) {
+                for (Subscriber subscriber : batched) {
+                    List<Object> list = new ArrayList<> (subscriber.pending);
+                    subscriber.pending.clear ();
+                    subscriber.deliver (list);
+                }
+                batched.clear ();
+            }
+        }
+
+        private Subscriber[] subscribersOf (Class<?> type) {
+            Subscriber[] array = byType.get (type);
+            if (array == null) {
+                List<Subscriber> list = new ArrayList<> ();
+                for (Subscriber subscriber : subscribers) {
+                    if (subscriber.type.isAssignableFrom (type)) {
+                        list.add (subscriber);
+                    }
+                }
+                byType.put (type, array = list.toArray (new Subscriber[0]));
+            }
+            return array;
+        }
+    }
+
+    private static final class Subscriber {
+        final Object bean;
+        final Method method;
+        /** 事件类型 */
+        final Class<?> type;
+        /** 是否按批次投递 */
+        final boolean batch;
+        /** 本批次待投递的事件，只在消费线程中访问 */
+        final List<Object> pending = new ArrayList<> ();
+
+        private Subscriber (Object bean, Method method, Class<?> type, boolean batch) {
+            this.bean   = bean;
+            this.method = method;
+            this.type   = type;
+            this.batch  = batch;
+        }
+
+        static Subscriber of (Object bean, Method method) {
+            Class<?> type = method.getParameterTypes ()[0];
+            if (type != List.class) {
+                return new Subscriber (bean, method, box (type), false);
+            }
+            Type generic = method.getGenericParameterTypes ()[0];
+            if (generic instanceof ParameterizedType) {
+                Type arg = ((ParameterizedType) generic).getActualTypeArguments ()[0];
+                if (arg instanceof Class) {
+                    return new Subscriber (bean, method, (Class<?>) arg, true);
+                }
+                if (arg instanceof ParameterizedType && ((ParameterizedType) arg).getRawType () instanceof Class) {
+                    return new Subscriber (bean, method, (Class<?>) ((ParameterizedType) arg).getRawType (), true);
+                }
+            }
+            return null;
+        }
+
+        void deliver (Object arg) {
+            try {
+                MemberAccessor.invoke (method, bean, arg);
+            } catch (InvocationTargetException ex) {
+                logger.warn ("subscriber {} failed: {}", method, ex.getCause ().getMessage (), ex.getCause ());
+            } catch (Exception ex) {
+                logger.warn ("cannot deliver event to {}: {}", method, ex.getMessage (), ex);
+            }
+        }
+
+        private static Class<?> box (Class<?> type) {
+            if (!type.isPrimitive ()) {
+                return type;
+            }
+            if (type == int.class) return Integer.class;
+            if (type == long.class) return Long.class;
+            if (type == boolean.class) return Boolean.class;
+            if (type == double.class) return Double.class;
+            if (type == float.class) return Float.class;
+            if (type == short.class) return Short.class;
+            if (type == byte.class) return Byte.class;
+            return Character.class;
+        }
+    }
+}
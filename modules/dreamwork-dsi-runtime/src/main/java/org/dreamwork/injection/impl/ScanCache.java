@@ -0,0 +1,258 @@
+package org.dreamwork.injection.impl;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 类扫描结果的热启动快照.
+ *
+ * <p>以 <i>扫描器类名 + 排序后的包名</i> 为键，记录每次扫描最终被接受的类名。快照带有类路径的指纹
+ * (每个类路径条目的路径、大小和修改时间，目录取其中所有文件的最新修改时间)，指纹相同时
+ * {@link ClassScanner#scan(String...)} 直接加载快照中的类，跳过包的列举和逐个类的检查；
+ * 指纹不同时整个快照作废，扫描结果重新记录</p>
+ *
+ * <p>快照和 {@link HookCache} 保存在同一个目录中，由相同的配置项控制，读取前做相同的所有者和权限检查</p>
+ *
+ * @since 2.1.3
+ */
+final class ScanCache {
+    private static final String FILE_NAME = "scan-cache.json";
+    private static final int VERSION = 1;
+
+    private static final Logger logger = LoggerFactory.getLogger (ScanCache.class);
+    private static final Gson gson = new Gson ();
+
+    private final Path file;
+    private final String fingerprint;
+    private final Map<String, Scan> cached;
+    private final Map<String, Scan> used = new ConcurrentHashMap<> ();
+
+    private final AtomicInteger hits = new AtomicInteger ();
+    private final AtomicLong warmNanos = new AtomicLong ();
+    private final AtomicLong coldNanos = new AtomicLong ();
+    private volatile boolean dirty;
+
+    private static final class Scan {
+        List<String> classes;
+        /** 冷启动时列举和检查的耗时 */
+        long nanos;
+    }
+
+    private static final class Content {
+        int version;
+        String fingerprint;
+        Map<String, Scan> scans;
+    }
+
+    private ScanCache (Path file, String fingerprint, Map<String, Scan> cached) {
+        this.file        = file;
+        this.fingerprint = fingerprint;
+        this.cached      = cached;
+    }
+
+    /**
+     * 打开快照
+     * @param directory 缓存目录，为 {@code null} 时返回 {@code null}
+     * @param rebuild   是否丢弃已有的快照
+     * @param loader    扫描使用的类加载器
+     * @return 快照
+     */
+    static ScanCache open (Path directory, boolean rebuild, ClassLoader loader) {
+        if (directory == null) {
+            return null;
+        }
+        String fingerprint;
+        try {
+            fingerprint = fingerprint (loader);
+        } catch (Exception ex) {
+            logger.warn ("cannot compute classpath fingerprint, scan snapshot disabled: {}", ex.getMessage ());
+            return null;
+        }
+
+        Path file = directory.resolve (FILE_NAME);
+        Map<String, Scan> scans = null;
+        if (!rebuild && HookCache.isReadable (file)) {
+            try (Reader reader = Files.newBufferedReader (file, StandardCharsets.UTF_8)) {
+                Content content = gson.fromJson (reader, Content.class);
+                if (content != null && content.version == VERSION && fingerprint.equals (content.fingerprint)) {
+                    scans = content.scans;
+                } else if (logger.isDebugEnabled ()) {
+                    logger.debug ("classpath changed, scan snapshot discarded");
+                }
+            } catch (Exception ex) {
+                logger.warn ("cannot read scan snapshot {}, rebuild it: {}", file, ex.getMessage ());
+            }
+        }
+        return new ScanCache (file, fingerprint, scans == null ? new HashMap<> () : scans);
+    }
+
+    static String key (Class<?> scanner, String... packageNames) {
+        String[] names = packageNames.clone ();
+        Arrays.sort (names);
+        return scanner.getName () + ':' + String.join (",", names);
+    }
+
+    /**
+     * 获取快照中的扫描结果
+     * @param key 键
+     * @return 被接受的类名，快照中没有时返回 {@code null}
+     */
+    List<String> get (String key) {
+        Scan scan = cached.get (key);
+        return scan == null ? null : scan.classes;
+    }
+
+    /**
+     * 记录一次命中快照的扫描
+     * @param key   键
+     * @param nanos 本次加载快照中的类的耗时
+     */
+    void hit (String key, long nanos) {
+        Scan scan = cached.get (key);
+        used.put (key, scan);
+        hits.incrementAndGet ();
+        warmNanos.addAndGet (nanos);
+        coldNanos.addAndGet (scan.nanos);
+    }
+
+    /**
+     * 记录一次完整扫描的结果
+     * @param key     键
+     * @param classes 被接受的类名
+     * @param nanos   列举和检查的耗时
+     */
+    void put (String key, List<String> classes, long nanos) {
+        Scan scan = new Scan ();
+        scan.classes = classes;
+        scan.nanos   = nanos;
+        used.put (key, scan);
+        dirty = true;
+    }
+
+    /**
+     * 保存快照并报告热启动的收益
+     */
+    void save () {
+        int count = hits.get ();
+        if (count > 0 && logger.isInfoEnabled ()) {
+            logger.info ("warm start: {} of {} class scans served from snapshot in {} ms, a full scan took {} ms",
+                    count, used.size (),
+                    TimeUnit.NANOSECONDS.toMillis (warmNanos.get ()), TimeUnit.NANOSECONDS.toMillis (coldNanos.get ()));
+        }
+        if (!dirty && used.size () == cached.size ()) {
+            return;
+        }
+
+        Content content = new Content ();
+        content.version     = VERSION;
+        content.fingerprint = fingerprint;
+        content.scans       = new TreeMap<> (used);
+        try {
+            Files.createDirectories (file.getParent ());
+            Path temp = Files.createTempFile (file.getParent (), FILE_NAME, ".tmp");
+            try (Writer writer = Files.newBufferedWriter (temp, StandardCharsets.UTF_8)) {
+                gson.toJson (content, writer);
+            }
+            try {
+                Files.move (temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move (temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (logger.isDebugEnabled ()) {
+                logger.debug ("scan snapshot of {} scans saved to {}", used.size (), file);
+            }
+        } catch (IOException ex) {
+            logger.warn ("cannot save scan snapshot {}: {}", file, ex.getMessage ());
+        }
+    }
+
+    /**
+     * 计算类路径的指纹：{@code java.class.path} 和类加载器链上所有 {@link URLClassLoader} 的条目，
+     * 按顺序取每个条目的路径、大小和修改时间
+     */
+    private static String fingerprint (ClassLoader loader) throws IOException, NoSuchAlgorithmException {
+        Set<String> entries = new LinkedHashSet<> ();
+        for (ClassLoader l = loader; l != null; l = l.getParent ()) {
+            if (l instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) l).getURLs ()) {
+                    if ("file".equals (url.getProtocol ())) {
+                        try {
+                            entries.add (new File (url.toURI ()).getAbsolutePath ());
+                        } catch (URISyntaxException | IllegalArgumentException ex) {
+                            entries.add (url.toString ());
+                        }
+                    } else {
+                        entries.add (url.toString ());
+                    }
+                }
+            }
+        }
+        String classpath = System.getProperty ("java.class.path");
+        if (classpath != null) {
+            for (String entry : classpath.split (File.pathSeparator)) {
+                if (!entry.isEmpty ()) {
+                    entries.add (new File (entry).getAbsolutePath ());
+                }
+            }
+        }
+
+        MessageDigest digest = MessageDigest.getInstance ("SHA-256");
+        for (String entry : entries) {
+            Path path = Paths.get (entry);
+            String stamp;
+            if (Files.isDirectory (path)) {
+                stamp = directoryStamp (path);
+            } else if (Files.exists (path)) {
+                stamp = Files.size (path) + "/" + Files.getLastModifiedTime (path).toMillis ();
+            } else {
+                stamp = "-";
+            }
+            digest.update ((entry + '|' + stamp + '\n').getBytes (StandardCharsets.UTF_8));
+        }
+        StringBuilder builder = new StringBuilder ();
+        for (byte b : digest.digest ()) {
+            builder.append (String.format ("%02x", b & 0xff));
+        }
+        return builder.toString ();
+    }
+
+    /**
+     * 目录的指纹：文件数和其中所有文件的最新修改时间
+     */
+    private static String directoryStamp (Path dir) throws IOException {
+        long[] stamp = new long[2];
+        Files.walkFileTree (dir, new SimpleFileVisitor<Path> () {
+            @Override
+            public FileVisitResult visitFile (Path file, BasicFileAttributes attrs) {
+                stamp [0] ++;
+                stamp [1] = Math.max (stamp [1], attrs.lastModifiedTime ().toMillis ());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed (Path file, IOException ex) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return stamp [0] + "/" + stamp [1];
+    }
+}
@@ -0,0 +1,210 @@
+package org.dreamwork.injection.impl;
+
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
+import org.dreamwork.injection.BeanScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 非单例作用域的实例.
+ *
+ * <p>被 {@link org.dreamwork.injection.AScope} 标注的类在容器中注册一个 cglib 代理，代理的每次方法调用
+ * 按作用域找到 (或借用) 真实的实例并转发给它：</p>
+ * <ul>
+ * <li>原型 - 从对象池借用或新建一个实例，调用结束后归还</li>
+ * <li>线程 - 使用当前线程的实例，第一次调用时创建；线程结束后，它的实例在下一次创建实例时销毁</li>
+ * <li>请求 - 使用当前 {@link RequestScope} 中的实例，第一次调用时借用，请求结束时归还</li>
+ * </ul>
+ * <p>归还时先调用 {@link org.dreamwork.injection.AReset} 标注的方法，再放回对象池；
+ * 没有对象池、池已满或重置失败的实例被销毁。代理的 {@code hashCode}/{@code equals}/{@code toString} 不会转发</p>
+ *
+ * @since 2.1.3
+ */
+final class ScopedBean implements MethodInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger (ScopedBean.class);
+
+    private final String description;
+    private final BeanScope scope;
+    private final Callable<Object> creator;
+    private final Method reset;
+    private final Method preDestroy;
+    private final BlockingQueue<Object> pool;
+    private final ThreadLocal<Object> local;
+    /** 线程作用域的实例和它们所属的线程，所属线程结束后的实例在下一次创建实例时销毁 */
+    private final Map<Object, WeakReference<Thread>> threadInstances = new IdentityHashMap<> ();
+
+    private final AtomicLong created  = new AtomicLong ();
+    private final AtomicLong reused   = new AtomicLong ();
+    private volatile boolean disposed;
+
+    /**
+     * @param description 描述，用于日志
+     * @param scope       作用域
+     * @param poolSize    对象池的容量，不大于 0 表示不使用对象池
+     * @param descriptor  真实类型的描述
+     * @param creator     真实实例的创建器，负责注入、配置和预处理
+     */
+    ScopedBean (String description, BeanScope scope, int poolSize, BeanDescriptor descriptor, Callable<Object> creator) {
+        this.description = description;
+        this.scope       = scope;
+        this.creator     = creator;
+        this.reset       = descriptor.reset;
+        this.preDestroy  = descriptor.preDestroy;
+        this.pool        = poolSize > 0 && scope != BeanScope.THREAD ? new ArrayBlockingQueue<> (poolSize) : null;
+        this.local       = scope == BeanScope.THREAD ? ThreadLocal.withInitial (this::createForThread) : null;
+    }
+
+    BeanScope getScope () {
+        return scope;
+    }
+
+    /**
+     * 为指定的类型创建作用域代理
+     * @param type 代理的类型
+     * @return 代理实例
+     */
+    Object createProxy (Class<?> type) {
+        return ProxySupport.createProxy (type, this, this);
+    }
+
+    @Override
+    public Object intercept (Object proxy, Method method, Object[] args, MethodProxy mp) throws Throwable {
+        switch (scope) {
+            case THREAD:
+                return mp.invoke (local.get (), args);
+            case REQUEST: {
+                RequestScope request = RequestScope.current ();
+                if (request == null) {
+                    throw new IllegalStateException ("no active request scope for " + description);
+                }
+                return mp.invoke (request.get (this), args);
+            }
+            default: {
+                Object target = acquire ();
+                try {
+                    return mp.invoke (target, args);
+                } finally {
+                    release (target);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从对象池借用一个实例，池为空时创建新的实例
+     * @return 真实的实例
+     */
+    Object acquire () {
+        Object o = pool == null ? null : pool.poll ();
+        if (o != null) {
+            reused.incrementAndGet ();
+            return o;
+        }
+        return create ();
+    }
+
+    /**
+     * 归还一个实例：重置后放回对象池，无法放回时销毁
+     * @param o 借用的实例
+     */
+    void release (Object o) {
+        if (pool != null && !disposed) {
+            try {
+                if (reset != null) {
+                    MemberAccessor.invoke (reset, o);
+                }
+                if (pool.offer (o)) {
+                    return;
+                }
+            } catch (Exception ex) {
+                logger.warn ("cannot reset an instance of {}, discard it: {}", description, ex.getMessage ());
+            }
+        }
+        destroy (o);
+    }
+
+    /**
+     * 销毁所有空闲的和线程作用域的实例，之后归还的实例直接销毁
+     */
+    void dispose () {
+        disposed = true;
+        List<Object> list = new ArrayList<> ();
+        if (pool != null) {
+            pool.drainTo (list);
+        }
+        synchronized (threadInstances) {
+            list.addAll (threadInstances.keySet ());
+            threadInstances.clear ();
+        }
+        for (Object o : list) {
+            destroy (o);
+        }
+        if (logger.isDebugEnabled ()) {
+            logger.debug ("scoped bean {} disposed, {} instances created, {} reused", description, created.get (), reused.get ());
+        }
+    }
+
+    /**
+     * 为当前线程创建实例，同时销毁所属线程已经结束的实例
+     */
+    private Object createForThread () {
+        Object o = create ();
+        List<Object> expired = new ArrayList<> ();
+        synchronized (threadInstances) {
+            Iterator<Map.Entry<Object, WeakReference<Thread>>> i = threadInstances.entrySet ().iterator ();
+            while (i.hasNext ()) {
+                Map.Entry<Object, WeakReference<Thread>> e = i.next ();
+                Thread owner = e.getValue ().get ();
+                if (owner == null || !owner.isAlive ()) {
+                    expired.add (e.getKey ());
+                    i.remove ();
+                }
+            }
+            threadInstances.put (o, new WeakReference<> (Thread.currentThread ()));
+        }
+        for (Object e : expired) {
+            destroy (e);
+        }
+        return o;
+    }
+
+    private Object create () {
+        Object o;
+        try {
+            o = creator.call ();
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException ("cannot create scoped bean: " + description, ex);
+        }
+        if (o == null) {
+            throw new IllegalStateException ("scoped bean " + description + " resolves to null");
+        }
+        created.incrementAndGet ();
+        return o;
+    }
+
+    private void destroy (Object o) {
+        if (preDestroy != null) {
+            try {
+                MemberAccessor.invoke (preDestroy, o);
+            } catch (Exception ex) {
+                logger.warn ("cannot destroy an instance of {}: {}", description, ex.getMessage ());
+            }
+        }
+    }
+
+    @Override
+    public String toString () {
+        return scope.name ().toLowerCase () + "[" + description + "]";
+    }
+}
@@ -54,7 +54,10 @@ public class ShutdownHook extends Thread {
             server.close ();
         } catch (IOException ignore) {}
 
-        // 异步销毁context，并最长等待 30s
+        // 异步销毁context，最长等待容器的销毁超时再加 5s
+        // @since 2.1.3 等待时间来自容器的配置，原来固定为 30s
+        long timeout = context instanceof SimpleObjectContext ?
+                ((SimpleObjectContext) context).getShutdownTimeout () + 5000 : 30000;
         new Thread (() -> {
             if (context != null) {
                 try {
@@ -67,14 +70,25 @@ public class ShutdownHook extends Thread {
                     throw new RuntimeException (e);
                 }
             }
-        }).start ();
-        if (context != null && !released.get ()){
+        }, "SimpleObjectContext.Disposer").start ();
+        if (context != null) {
+            if (Thread.currentThread () == this) {
+                // 从监听线程自身调用时，清除上面设置的中断标志，否则无法等待
+                Thread.interrupted ();
+            }
+            long deadline = System.currentTimeMillis () + timeout;
             synchronized (LOCKER) {
                 try {
-                    LOCKER.wait (30000);
+                    long remain;
+                    while (!released.get () && (remain = deadline - System.currentTimeMillis ()) > 0) {
+                        LOCKER.wait (remain);
+                    }
                 } catch (InterruptedException ignore) {
                 }
             }
+            if (!released.get ()) {
+                logger.warn ("context not disposed in {} ms, exit anyway", timeout);
+            }
         }
         System.exit (0);
     }
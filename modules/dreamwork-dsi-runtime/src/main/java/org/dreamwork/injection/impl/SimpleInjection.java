@@ -1,13 +1,17 @@
 package org.dreamwork.injection.impl;
 
+import org.dreamwork.injection.SimpleInjectionMXBean;
+
 import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
 
 @Resource
-public class SimpleInjection {
+public class SimpleInjection implements SimpleInjectionMXBean {
     private static final String JMX_NAME = "SimpleObjectContext";
     private static final String JMX_GROUP = "org.dreamwork.jmx";
     private static final MBeanServer server  = ManagementFactory.getPlatformMBeanServer ();
@@ -27,6 +31,41 @@ public class SimpleInjection {
         }
     }
 
+    @Override
+    public int getRegisteredBeanCount () {
+        return context.getAllRegisteredBeans ().size ();
+    }
+
+    @Override
+    public long getStartupMillis () {
+        return context.timeline.getStartupMillis ();
+    }
+
+    @Override
+    public Map<String, Long> getStartupPhases () {
+        return context.timeline.getPhaseMillis ();
+    }
+
+    @Override
+    public Map<String, Long> getConstructionMillis () {
+        return context.timeline.getConstructionMillis ();
+    }
+
+    @Override
+    public Map<String, Long> getPostConstructMillis () {
+        return context.timeline.getPostConstructMillis ();
+    }
+
+    @Override
+    public List<String> getSlowPostConstructs () {
+        return context.timeline.getSlowPostConstructs ();
+    }
+
+    @Override
+    public String getStartupTimeline () {
+        return context.timeline.dump ();
+    }
+
     /**
      * 将指定的对象 {@code mbean} 注册未指定的名称 {@code name}
      * @param name  mbean 注册名称
@@ -1,28 +1,37 @@
 package org.dreamwork.injection.impl;
 
-import com.google.gson.Gson;
 import org.dreamwork.config.IConfiguration;
 import org.dreamwork.injection.*;
 import org.dreamwork.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.annotation.PostConstruct;
-import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import javax.management.InstanceNotFoundException;
 import javax.management.IntrospectionException;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 简单容器
@@ -34,23 +43,105 @@ public class SimpleObjectContext implements IObjectContext {
     private final Logger logger = LoggerFactory.getLogger (SimpleObjectContext.class);
     private final Lock LOCKER = new ReentrantLock ();
 
-    final Map<String, Object> mappedByName = Collections.synchronizedMap (new HashMap<> ());
-    final Map<Class<?>, Object> mappedByType = Collections.synchronizedMap (new HashMap<> ());
+    /**
+     * 名称索引和类型索引的工作副本，所有的读写都必须持有 {@link #LOCKER}
+     *
+     * <p>类型索引中每个类型对应一个 <i>名称 - 实例</i> 的有序映射，
+     * {@link #namesByBean} 则是以实例的identity为键的反向索引，记录实例注册时使用的所有名称</p>
+     */
+    final Map<String, Object> mappedByName = new HashMap<> ();
+    final Map<Class<?>, Map<String, Object>> mappedByType = new HashMap<> ();
+    final Map<Object, Set<String>> namesByBean = new IdentityHashMap<> ();
     final Set<IInjectResolvedProcessor> processors = new HashSet<> ();
 
     /**
-     * 标识容器是否已经解决了依赖注入
+     * 被 {@link ALazy} 标注的类注册的代理 - 延迟创建的实例
+     * @since 2.1.3
      */
-    final AtomicBoolean resolved = new AtomicBoolean (false);
+    private final Map<Object, LazyBean> lazyBeans = Collections.synchronizedMap (new IdentityHashMap<> ());
+
+    /**
+     * 被 {@link AScope} 标注为非单例的类注册的代理 - 作用域实例
+     * @since 2.1.3
+     */
+    private final Map<Object, ScopedBean> scopedBeans = Collections.synchronizedMap (new IdentityHashMap<> ());
+
+    /**
+     * 事件总线，由 {@link SimpleObjectContextFactory} 设置。注册的实例中被 {@link ASubscribe} 标注的方法自动订阅
+     * @since 2.1.3
+     */
+    RingEventBus eventBus;
+
+    /**
+     * 定时器，由 {@link SimpleObjectContextFactory} 设置。注册的实例中被 {@link AScheduled} 标注的方法按时执行
+     * @since 2.1.3
+     */
+    HashedWheelTimer timer;
+
+    /**
+     * 实例 - 它的定时任务
+     * @since 2.1.3
+     */
+    private final Map<Object, List<ITimer.Timeout>> schedules = Collections.synchronizedMap (new IdentityHashMap<> ());
+
+    /**
+     * 实例 - 注入到这个实例中的实例，用于按依赖关系的逆序销毁
+     * @since 2.1.3
+     */
+    private final Map<Object, Set<Object>> dependencies = new IdentityHashMap<> ();
+    private final AtomicBoolean disposed = new AtomicBoolean (false);
+    private final CountDownLatch disposing = new CountDownLatch (1);
+
+    /**
+     * 配置项：是否按依赖关系并行执行预处理方法和同序的注入完成处理器
+     * @since 2.1.3
+     */
+    public static final String KEY_PARALLEL_INIT = "org.dreamwork.dsi.parallel.post-construct";
+    /**
+     * 配置项：并行初始化的线程数，默认为 cpu 核数
+     * @since 2.1.3
+     */
+    public static final String KEY_PARALLEL_THREADS = "org.dreamwork.dsi.parallel.threads";
+    /**
+     * 配置项：销毁时是否并行执行互不依赖的实例的销毁方法，默认 {@code true}
+     * @since 2.1.3
+     */
+    public static final String KEY_SHUTDOWN_PARALLEL = "org.dreamwork.dsi.shutdown.parallel";
+    /**
+     * 配置项：并行销毁的线程数，默认为 cpu 核数
+     * @since 2.1.3
+     */
+    public static final String KEY_SHUTDOWN_THREADS = "org.dreamwork.dsi.shutdown.threads";
+    /**
+     * 配置项：销毁整个容器的最长时间，毫秒，默认 30000
+     * @since 2.1.3
+     */
+    public static final String KEY_SHUTDOWN_TIMEOUT = "org.dreamwork.dsi.shutdown.timeout";
+    /**
+     * 配置项：等待单个实例的销毁方法的最长时间，毫秒，默认 10000
+     * @since 2.1.3
+     */
+    public static final String KEY_SHUTDOWN_BEAN_TIMEOUT = "org.dreamwork.dsi.shutdown.bean-timeout";
 
     /**
-     * 排除的包名。
+     * 已发布的只读快照.
      *
-     * <p>某些 jdk 自带的接口不适合作为类型索引，应该排除它们</p>
+     * <p>在 {@link #resolve()} 之前为 {@code null}，所有查找都需要持有锁；
+     * 之后每次注册/删除都会在锁内重建并替换这个快照，查找只需要一次 volatile 读，不再争用 {@link #LOCKER}</p>
+     * @since 2.1.3
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 启动时间线，由工厂在开始解析配置前创建
+     * @since 2.1.3
      */
-    private static final String[] EXCLUDE_PREFIXES = {
-            "java.util.", "java.io."
-    };
+    StartupTimeline timeline = new StartupTimeline ();
+
+    /**
+     * 标识容器是否已经解决了依赖注入
+     */
+    final AtomicBoolean resolved = new AtomicBoolean (false);
 
     /**
      * 监听应用停止请求的网络端口
@@ -77,6 +168,11 @@ public class SimpleObjectContext implements IObjectContext {
      */
     @Override
     public Object getBean (String name) {
+        Snapshot s = snapshot;
+        if (s != null) {
+            return s.mappedByName.get (name);
+        }
+
         try {
             LOCKER.lock ();
             return mappedByName.get (name);
@@ -86,63 +182,64 @@ public class SimpleObjectContext implements IObjectContext {
     }
 
     @Override
-    @SuppressWarnings ("unchecked")
     public <T> Map<String, T> getBeanMap (Class<T> type) {
+        Snapshot s = snapshot;
+        if (s != null) {
+            return getBeanMap (s.mappedByType, type);
+        }
+
         try {
             LOCKER.lock ();
-
-            Object o = mappedByType.get (type);
-            if (o == null) {
-                return Collections.emptyMap ();
-            }
-
-            if (o.getClass () != InnerList.class) {
-                for (Map.Entry<String, Object> e : mappedByName.entrySet ()) {
-                    if (o == e.getValue ()) {
-                        return Collections.singletonMap (e.getKey (), (T) o);
-                    }
-                }
-            } else {
-                InnerList il = (InnerList) o;
-                Map<String, T> map = new HashMap<> ();
-                for (Object i : il) {
-                    for (Map.Entry<String, Object> e : mappedByName.entrySet ()) {
-                        if (e.getValue () == i) {
-                            map.put (e.getKey (), (T) i);
-                            break;
-                        }
-                    }
-                }
-
-                return Collections.unmodifiableMap (map);
-            }
-            return null;
+            // 工作副本会被后续的注册修改，不能直接交给调用者
+            Map<String, T> map = getBeanMap (mappedByType, type);
+            return map.isEmpty () ? map : Collections.unmodifiableMap (new LinkedHashMap<> (map));
         } finally {
             LOCKER.unlock ();
         }
     }
 
     @Override
-    @SuppressWarnings ("unchecked")
     public <T> T getBean (Class<T> type) {
+        Snapshot s = snapshot;
+        if (s != null) {
+            return getBean (s.mappedByType, type);
+        }
+
         try {
             LOCKER.lock ();
+            return getBean (mappedByType, type);
+        } finally {
+            LOCKER.unlock ();
+        }
+    }
 
-            Object o = mappedByType.get (type);
-            if (o == null) {
-                return null;
-            }
+    @SuppressWarnings ("unchecked")
+    private static <T> Map<String, T> getBeanMap (Map<Class<?>, Map<String, Object>> mappedByType, Class<T> type) {
+        Map<String, Object> map = mappedByType.get (type);
+        if (map == null) {
+            return Collections.emptyMap ();
+        }
+        return (Map<String, T>) map;
+    }
 
-            if (o.getClass () != InnerList.class) {
-                return (T) o;
-            }
+    @SuppressWarnings ("unchecked")
+    private static <T> T getBean (Map<Class<?>, Map<String, Object>> mappedByType, Class<T> type) {
+        Map<String, Object> map = mappedByType.get (type);
+        if (map == null) {
+            return null;
+        }
 
-            throw new InstanceNotUniqueException (
-                    "there are more than one instances marked as " + type.getCanonicalName ()
-            );
-        } finally {
-            LOCKER.unlock ();
+        Iterator<Object> it = map.values ().iterator ();
+        Object bean = it.next ();
+        // 同一个实例可能以不同的名称注册了多次，只有存在不同的实例时才不唯一
+        while (it.hasNext ()) {
+            if (it.next () != bean) {
+                throw new InstanceNotUniqueException (
+                        "there are more than one instances marked as " + type.getCanonicalName ()
+                );
+            }
         }
+        return (T) bean;
     }
 
     @Override
@@ -150,39 +247,15 @@ public class SimpleObjectContext implements IObjectContext {
         try {
             LOCKER.lock ();
 
-            String name = null;
-            for (Map.Entry<String, Object> e : mappedByName.entrySet ()) {
-                if (bean == e.getValue ()) {
-                    name = e.getKey ();
-                    break;
-                }
-            }
-            if (!StringUtil.isEmpty (name)) {
-                mappedByName.remove (name);
-                Set<Class<?>> types = new HashSet<> ();
-                findAllType (bean.getClass (), types);
-
-                if (!types.isEmpty ()) {
-                    Set<Class<?>> temp = new HashSet<> ();
-                    for (Class<?> type : types) {
-                        Object o = mappedByType.get (type);
-                        if (o == bean) {
-                            temp.add (type);
-                        } else if (o instanceof InnerList) {
-                            InnerList il = (InnerList) o;
-                            il.remove (bean);
-                            if (il.isEmpty ()) {
-                                temp.add (type);
-                            }
-                        }
-                    }
-                    if (!temp.isEmpty ()) {
-                        for (Class<?> type : temp) {
-                            mappedByType.remove (type);
-                        }
-                    }
+            Set<String> names = namesByBean.remove (bean);
+            if (names != null) {
+                // 同一个实例可能以多个名称注册，所有的名称都要删除
+                for (String name : names) {
+                    unmapName (name, bean);
                 }
 
+                publish ();
+
                 if (resolved.get ()) {
                     // 查找bean是否有标注为 PreDestroy 的方法
                     try {
@@ -191,6 +264,18 @@ public class SimpleObjectContext implements IObjectContext {
                         logger.warn (ex.getMessage (), ex);
                     }
                 }
+                lazyBeans.remove (bean);
+                if (eventBus != null) {
+                    eventBus.unsubscribe (bean);
+                }
+                unschedule (bean);
+                ScopedBean scoped = scopedBeans.remove (bean);
+                if (scoped != null) {
+                    scoped.dispose ();
+                }
+                synchronized (dependencies) {
+                    dependencies.remove (bean);
+                }
             }
         } finally {
             LOCKER.unlock ();
@@ -199,13 +284,44 @@ public class SimpleObjectContext implements IObjectContext {
 
     @Override
     public void remove (String name) {
-        Object bean = getBean (name);
-        if (bean != null) {
-            remove (bean);
+        try {
+            LOCKER.lock ();
+            Object bean = mappedByName.get (name);
+            if (bean == null) {
+                return;
+            }
+            Set<String> names = namesByBean.get (bean);
+            if (names != null && names.size () > 1) {
+                // @since 2.1.3 实例还有其他名称时只删除这个名称，实例本身仍然有效
+                names.remove (name);
+                unmapName (name, bean);
+                publish ();
+            } else {
+                remove (bean);
+            }
+        } finally {
+            LOCKER.unlock ();
         }
     }
 
     public void register (String name, Object bean) throws InstanceNotFoundException, IllegalAccessException, InvocationTargetException, InstantiationException, IntrospectionException {
+        register (name, bean, true);
+    }
+
+    /**
+     * 只以名称注册一个实例，不加入类型索引：{@link #getBean(Class)} 和按类型的注入都找不到它.
+     *
+     * <p>用于容器和模块内部的基础设施，比如 {@link ExecutorRegistry} 创建的线程池，
+     * 它们不应该和应用自己的同类型实例竞争按类型的查找</p>
+     * @param name 实例名称
+     * @param bean 实例
+     * @since 2.1.3
+     */
+    void registerByName (String name, Object bean) throws InstanceNotFoundException, IllegalAccessException, InvocationTargetException, InstantiationException, IntrospectionException {
+        register (name, bean, false);
+    }
+
+    private void register (String name, Object bean, boolean byType) throws InstanceNotFoundException, IllegalAccessException, InvocationTargetException, InstantiationException, IntrospectionException {
         if (bean == null) {
             throw new InstanceNotFoundException ("cannot register a null object");
         }
@@ -219,78 +335,51 @@ public class SimpleObjectContext implements IObjectContext {
 
             // 添加到命名映射中
             mappedByName.put (name, bean);
+            namesByBean.computeIfAbsent (bean, key -> new LinkedHashSet<> (2)).add (name);
 
             // 为了能够在客户代码中通过实例的任意级别的类 (java.lang.Object除外) 来索引实例
-            // 这里必须展开这个实例的继承树
-            Set<Class<?>> types = new HashSet<> ();
-            // 获取继承树上的各个类型
-            findAllType (bean.getClass (), types);
+            // 这里必须展开这个实例的继承树，展开的结果缓存在类的描述中
+            BeanDescriptor descriptor = BeanDescriptor.of (bean.getClass ());
 
             if (logger.isTraceEnabled ()) {
-                logger.trace ("found all types: {}", types);
+                logger.trace ("found all types: {}", descriptor.types);
             }
 
-            if (!types.isEmpty ()) {
-                // 预处理方法
-                Method postConstruct = null;
-                Set<Field> set = new HashSet<> ();
-                for (Class<?> type : types) {
-                    if (!mappedByType.containsKey (type)) {
-                        // 若这个类型的实例未被映射过，直接映射
-                        mappedByType.put (type, bean);
-                    } else {
-                        // 曾经映射过
-                        Object o = mappedByType.get (type);
-                        if (o instanceof InnerList) {
-                            // 如果类型索引的是一个列表，往列表中添加实例
-                            InnerList il = (InnerList) o;
-                            if (!il.contains (bean)) {
-                                il.add (bean);
-                            }
-                        } else {
-                            // 将原先映射的实例转成列表
-                            InnerList il = new InnerList ();
-                            il.add (o);
-                            il.add (bean);
-                            mappedByType.put (type, il);
-                        }
-                    }
+            if (byType) {
+                for (Class<?> type : descriptor.types) {
+                    mapType (type, name, bean);
+                }
+            }
+            // 在注入之前发布快照，注入过程中的查找就能够看到这个实例
+            publish ();
 
-                    // 曾经已经解决了依赖注入，当对象被注入后，需要再次解决注入依赖
-                    if (resolved.get ()) {
-                        if (!type.isInterface ()) {
-                            Method method = resolve (bean, type);
-                            if (method != null) {
-                                if (postConstruct != null) {
-                                    throw new InvocationTargetException (null, "Only ONE method can be annotated as PostConstruct.");
-                                }
-                                postConstruct = method;
-                            }
-                        }
-                    }
+            // @since 2.1.3 订阅事件
+            if (eventBus != null && !descriptor.subscribers.isEmpty ()) {
+                eventBus.subscribe (bean, descriptor);
+            }
 
-                    Field[] fields = type.getDeclaredFields ();
-                    for (Field field : fields) {
-                        if (field.isAnnotationPresent (AConfigured.class)) {
-                            // 标注为配置注入的字段
-                            set.add (field);
-                        }
-                    }
-                }
+            if (lazyBeans.containsKey (bean) || scopedBeans.containsKey (bean)) {
+                // 延迟创建的实例和作用域实例在创建时才注入
+                return;
+            }
 
-                // 执行预处理方法
-                if (postConstruct != null) {
-                    postConstruct.invoke (bean);
-                }
+            // 曾经已经解决了依赖注入，当对象被注入后，需要再次解决注入依赖
+            if (resolved.get ()) {
+                resolve (bean, descriptor);
+            }
 
-                if (!set.isEmpty ()) {
-                    // 配置注入
-                    IConfiguration conf = getBean (IConfiguration.class);
-                    if (conf != null) {
-                        configureFields (conf, bean, set);
-                    }
+            if (!descriptor.configuredFields.isEmpty ()) {
+                // 配置注入
+                IConfiguration conf = getBean (IConfiguration.class);
+                if (conf != null) {
+                    configureFields (conf, bean, descriptor.configuredFields);
                 }
             }
+
+            // @since 2.1.3 容器启动期间的实例由扫描器在预处理之后统一安排定时任务
+            if (resolved.get ()) {
+                schedule (bean, descriptor);
+            }
         } finally {
             LOCKER.unlock ();
         }
@@ -311,24 +400,14 @@ public class SimpleObjectContext implements IObjectContext {
             if (o != null) {
                 String uuid = StringUtil.uuid ();
                 mappedByName.put (uuid, o);
+                namesByBean.computeIfAbsent (o, key -> new LinkedHashSet<> (2)).add (uuid);
 
                 for (Class<?> type : interfaces) {
                     if (type.isAssignableFrom (o.getClass ())) {
-                        if (!mappedByType.containsKey (type)) {
-                            mappedByType.put (type, o);
-                        } else {
-                            Object old = mappedByType.get (type);
-                            if (old instanceof InnerList) {
-                                ((InnerList) old).add (o);
-                            } else {
-                                InnerList il = new InnerList ();
-                                il.add (old);
-                                il.add (o);
-                                mappedByType.put (type, il);
-                            }
-                        }
+                        mapType (type, uuid, o);
                     }
                 }
+                publish ();
             }
         } finally {
             LOCKER.unlock ();
@@ -337,27 +416,124 @@ public class SimpleObjectContext implements IObjectContext {
 
     /**
      * 销毁托管容器
-     * 分别针对所有受托管对象进行销毁
+     * 分别针对所有受托管对象进行销毁.
+     *
+     * <p>实例按依赖关系的逆序销毁：一个实例的销毁方法在所有依赖它的实例的销毁方法完成 (或超时) 之后才执行，
+     * 互不依赖的实例并行销毁 (见 {@link #KEY_SHUTDOWN_PARALLEL})。
+     * 单个实例的等待时间和整个销毁过程分别受 {@link #KEY_SHUTDOWN_BEAN_TIMEOUT} 和 {@link #KEY_SHUTDOWN_TIMEOUT} 限制。
+     * 这个方法只有第一次调用有效</p>
      *
-     * @see #destroyBean(Object)
+     * @see ContextDisposer
      */
     @Override
     public void dispose () {
+        if (!disposed.compareAndSet (false, true)) {
+            // 其他线程 (比如 jvm 的关闭钩子) 正在销毁，等待它完成
+            try {
+                disposing.await (getShutdownTimeout (), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread ().interrupt ();
+            }
+            return;
+        }
+        try {
+            doDispose ();
+        } finally {
+            disposing.countDown ();
+        }
+    }
+
+    private void doDispose () {
         if (logger.isTraceEnabled ()) {
             logger.trace ("disposing simple object context");
         }
 
-        for (Object o : mappedByName.values ()) {
-            try {
-                destroyBean (o);
-            } catch (Exception ex) {
-                if (logger.isTraceEnabled ()) {
-                    logger.warn (ex.getMessage (), ex);
-                }
+        Map<Object, String> names = new IdentityHashMap<> ();
+        try {
+            LOCKER.lock ();
+            // 销毁时的日志使用实例第一次注册的名称
+            namesByBean.forEach ((bean, set) -> names.put (bean, set.iterator ().next ()));
+        } finally {
+            LOCKER.unlock ();
+        }
+
+        BeanGraph<Object> graph = new BeanGraph<> ();
+        names.keySet ().forEach (graph::add);
+        synchronized (dependencies) {
+            dependencies.forEach ((bean, set) -> set.forEach (dependency -> graph.addDependency (bean, dependency)));
+        }
+        // 依赖它的实例先销毁
+        BeanGraph<Object> order = graph.reverse ();
+
+        IConfiguration conf = getBean (IConfiguration.class);
+        long beanTimeout = conf == null ? 10_000 : conf.getLong (KEY_SHUTDOWN_BEAN_TIMEOUT, 10_000);
+        ContextDisposer disposer = new ContextDisposer (this, names, getShutdownTimeout (), beanTimeout);
+        ExecutorService executor = null;
+        if (conf == null || conf.getBoolean (KEY_SHUTDOWN_PARALLEL, true)) {
+            int threads = conf == null ? Runtime.getRuntime ().availableProcessors () :
+                    conf.getInt (KEY_SHUTDOWN_THREADS, Runtime.getRuntime ().availableProcessors ());
+            AtomicInteger counter = new AtomicInteger ();
+            executor = Executors.newFixedThreadPool (Math.max (1, threads), r -> {
+                Thread t = new Thread (r, "dsi-shutdown-" + counter.incrementAndGet ());
+                t.setDaemon (true);
+                return t;
+            });
+        }
+        try {
+            if (executor == null) {
+                order.sort ().forEach (disposer::destroy);
+            } else {
+                order.execute (executor, disposer::destroy);
+            }
+        } catch (Exception ex) {
+            logger.warn (ex.getMessage (), ex);
+        } finally {
+            if (executor != null) {
+                executor.shutdown ();
+            }
+            disposer.close ();
+        }
+
+        try {
+            LOCKER.lock ();
+            mappedByName.clear ();
+            mappedByType.clear ();
+            namesByBean.clear ();
+            lazyBeans.clear ();
+            scopedBeans.clear ();
+            schedules.clear ();
+            publish ();
+        } finally {
+            LOCKER.unlock ();
+        }
+        synchronized (dependencies) {
+            dependencies.clear ();
+        }
+    }
+
+    /**
+     * 销毁整个容器的最长时间
+     * @return 毫秒
+     * @see #KEY_SHUTDOWN_TIMEOUT
+     * @since 2.1.3
+     */
+    public long getShutdownTimeout () {
+        IConfiguration conf = getBean (IConfiguration.class);
+        return conf == null ? 30_000 : conf.getLong (KEY_SHUTDOWN_TIMEOUT, 30_000);
+    }
+
+    /**
+     * 记录一个依赖关系，{@code bean} 依赖于 {@code dependency}
+     * @param bean       实例
+     * @param dependency 被注入的实例
+     * @since 2.1.3
+     */
+    void depend (Object bean, Object dependency) {
+        if (dependency != null && dependency != this && dependency != bean) {
+            synchronized (dependencies) {
+                dependencies.computeIfAbsent (bean, key -> Collections.newSetFromMap (new IdentityHashMap<> ())).add (dependency);
             }
         }
-        mappedByName.clear ();
-        mappedByType.clear ();
     }
 
     /**
@@ -369,6 +545,14 @@ public class SimpleObjectContext implements IObjectContext {
             throw new IllegalStateException ("context already resolved");
         }
 
+        // 从这里开始，所有的查找都走无锁的快照
+        try {
+            LOCKER.lock ();
+            snapshot = new Snapshot (mappedByName, mappedByType, namesByBean.keySet ());
+        } finally {
+            LOCKER.unlock ();
+        }
+
         if (logger.isTraceEnabled ()) {
             logger.trace ("context resolved");
             logger.trace ("executing all inject resolved processors...");
@@ -376,12 +560,32 @@ public class SimpleObjectContext implements IObjectContext {
         if (!processors.isEmpty ()) {
             List<IInjectResolvedProcessor> list = new ArrayList<> (processors);
             Collections.sort (list);
-            try {
-                for (IInjectResolvedProcessor processor : list) {
-                    processor.perform (this);
+            ExecutorService executor = createParallelExecutor ();
+            try (StartupTimeline.Phase ignore = timeline.phase ("processors")) {
+                int i = 0, count = list.size ();
+                while (i < count) {
+                    // 同序的处理器为一组，开启并行初始化时组内并行执行，组与组之间仍然按顺序执行
+                    int order = list.get (i).getOrder (), j = i + 1;
+                    while (j < count && list.get (j).getOrder () == order) {
+                        j ++;
+                    }
+                    if (executor == null || j - i == 1) {
+                        for (IInjectResolvedProcessor processor : list.subList (i, j)) {
+                            perform (processor);
+                        }
+                    } else {
+                        BeanGraph<IInjectResolvedProcessor> group = new BeanGraph<> ();
+                        list.subList (i, j).forEach (group::add);
+                        group.execute (executor, this::perform);
+                    }
+                    i = j;
                 }
             } catch (Exception ex) {
                 throw new RuntimeException (ex);
+            } finally {
+                if (executor != null) {
+                    executor.shutdown ();
+                }
             }
         }
         if (logger.isTraceEnabled ()) {
@@ -393,13 +597,30 @@ public class SimpleObjectContext implements IObjectContext {
         resolved.set (true);
     }
 
+    private void perform (IInjectResolvedProcessor processor) throws Exception {
+        long start = System.nanoTime ();
+        processor.perform (this);
+        timeline.phase ("processor " + processor.getClass ().getName (), System.nanoTime () - start);
+    }
+
     /**
      * 获取所有已经注册的实例
      * @return 所有已经注册的实例
      */
     public Set<Object> getAllRegisteredBeans () {
-        Set<Object> set = new HashSet<> (mappedByName.values ());
-        return Collections.unmodifiableSet (set);
+        Snapshot s = snapshot;
+        if (s != null) {
+            return s.beans;
+        }
+
+        try {
+            LOCKER.lock ();
+            Set<Object> set = Collections.newSetFromMap (new IdentityHashMap<> ());
+            set.addAll (namesByBean.keySet ());
+            return Collections.unmodifiableSet (set);
+        } finally {
+            LOCKER.unlock ();
+        }
     }
 
     /**
@@ -414,8 +635,18 @@ public class SimpleObjectContext implements IObjectContext {
     }
 
     public Set<String> getAllBeanNames () {
-        Set<String> names = new HashSet<> (mappedByName.keySet ());
-        return Collections.unmodifiableSet (names);
+        Snapshot s = snapshot;
+        if (s != null) {
+            return s.mappedByName.keySet ();
+        }
+
+        try {
+            LOCKER.lock ();
+            Set<String> names = new HashSet<> (mappedByName.keySet ());
+            return Collections.unmodifiableSet (names);
+        } finally {
+            LOCKER.unlock ();
+        }
     }
 
     /**
@@ -424,29 +655,39 @@ public class SimpleObjectContext implements IObjectContext {
      * @throws Exception 任何异常
      */
     void resolve (Set<ClassScanner.Wrapper> wrappers) throws Exception {
+        // 依赖图，边来自实际注入的对象
+        BeanGraph<ClassScanner.Wrapper> graph = new BeanGraph<> ();
+        Map<Object, ClassScanner.Wrapper> owners = new IdentityHashMap<> ();
         for (ClassScanner.Wrapper w : wrappers) {
-            if (logger.isTraceEnabled ()) {
-                logger.trace ("injecting fields in {}...", w.type);
-            }
-            // 若有需要注入的字段
-            if (!w.injectFields.isEmpty ()) {
-                for (Field field : w.injectFields) {
-                    injectField (w.bean, field);
+            graph.add (w);
+            owners.put (w.bean, w);
+        }
+
+        try (StartupTimeline.Phase ignore = timeline.phase ("inject")) {
+            for (ClassScanner.Wrapper w : wrappers) {
+                if (logger.isTraceEnabled ()) {
+                    logger.trace ("injecting fields in {}...", w.type);
+                }
+                // 若有需要注入的字段
+                if (!w.injectFields.isEmpty ()) {
+                    for (Field field : w.injectFields) {
+                        graph.addDependency (w, owners.get (injectField (w.bean, field, w.bean)));
+                    }
                 }
-            }
 
-            if (logger.isTraceEnabled ()) {
-                logger.trace ("all fields injected.");
-                logger.trace ("injecting all methods in {} ...", w.type);
-            }
-            // 若有需要注入的字段
-            if (!w.injectMethods.isEmpty ()) {
-                for (ClassScanner.MethodWrapper mw : w.injectMethods) {
-                    injectMethod (mw.name, w.bean, mw.method);
+                if (logger.isTraceEnabled ()) {
+                    logger.trace ("all fields injected.");
+                    logger.trace ("injecting all methods in {} ...", w.type);
+                }
+                // 若有需要注入的字段
+                if (!w.injectMethods.isEmpty ()) {
+                    for (ClassScanner.MethodWrapper mw : w.injectMethods) {
+                        graph.addDependency (w, owners.get (injectMethod (mw.name, w.bean, mw.method, w.bean)));
+                    }
+                }
+                if (logger.isTraceEnabled ()) {
+                    logger.trace ("all methods injected.");
                 }
-            }
-            if (logger.isTraceEnabled ()) {
-                logger.trace ("all methods injected.");
             }
         }
 
@@ -458,8 +699,21 @@ public class SimpleObjectContext implements IObjectContext {
             if (w.isProcessor) {
                 processors.add ((IInjectResolvedProcessor) w.bean);
             }
-            if (w.postConstruct != null) {
-                w.postConstruct.invoke (w.bean);
+        }
+
+        // 被依赖的对象的预处理方法总是先于依赖它的对象执行
+        ExecutorService executor = createParallelExecutor ();
+        try (StartupTimeline.Phase ignore = timeline.phase ("post-construct")) {
+            if (executor == null) {
+                for (ClassScanner.Wrapper w : graph.sort ()) {
+                    postConstruct (w);
+                }
+            } else {
+                graph.execute (executor, this::postConstruct);
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown ();
             }
         }
         if (logger.isTraceEnabled ()) {
@@ -468,59 +722,55 @@ public class SimpleObjectContext implements IObjectContext {
         }
     }
 
+    private void postConstruct (ClassScanner.Wrapper w) throws Exception {
+        if (w.postConstruct != null) {
+            timeline.postConstruct (w.type.getName (), () -> MemberAccessor.invoke (w.postConstruct, w.bean));
+        }
+    }
+
     /**
      * 解决依赖注入
-     * @param bean 对象实例
-     * @param type 对象类型
-     * @return 如果该类有一个方法被标注为预处理方法，返回这个被标注的方法，否则返回 {@code null}
+     * @param bean       对象实例
+     * @param descriptor 对象类型的描述
      * @throws InvocationTargetException 当无法注入 setter 时抛出
      * @throws IllegalAccessException 当无法调用相应方法时抛出
      * @throws InstanceNotFoundException 当注入的资源不存在时抛出
      * @throws InstantiationException 当无法实例化时抛出
      * @throws IntrospectionException 内省异常
      */
-    private Method resolve (Object bean, Class<?> type) throws InvocationTargetException, IllegalAccessException, InstanceNotFoundException, InstantiationException, IntrospectionException {
-        Method postConstruct = null;
+    private void resolve (Object bean, BeanDescriptor descriptor) throws InvocationTargetException, IllegalAccessException, InstanceNotFoundException, InstantiationException, IntrospectionException {
         // 注入需要注入的字段
-        Field[] fields = type.getDeclaredFields ();
-        for (Field field : fields) {
-            if (field.isAnnotationPresent (Resource.class)) {
-                injectField (bean, field);
-            }
+        for (Field field : descriptor.resourceFields) {
+            injectField (bean, field, bean);
         }
         // 注入需要处理的方法
-        Method[] methods = type.getDeclaredMethods ();
-        for (Method method : methods) {
-            if (method.isAnnotationPresent (Resource.class)) {
-                int code = map (method);
-                switch (code) {
-                    case 1: // 标注为 Resource 的方法
-                        processResourceMethod (bean, method);
-                        break;
-                    case 2: // 标注为 PostConstruct 的方法
-                        postConstruct = method;
-                        break;
-                }
-            }
+        for (Method method : descriptor.resourceMethods) {
+            processResourceMethod (bean, method);
         }
-
-        return postConstruct;
     }
 
     /**
      * 将资源注入字段
-     * @param bean  对象实例
-     * @param field 被标注为自动注入资源的字段
+     * @param bean      对象实例
+     * @param field     被标注为自动注入资源的字段
+     * @param dependent 记录依赖关系的实例，通常就是 {@code bean}，延迟实例和作用域实例是它们的代理
      * @throws InstanceNotFoundException 被注入的资源不存在时抛出
+     * @return 被注入的对象
      * @throws IllegalAccessException 无法访问目标字段时抛出
      */
-    private void injectField (Object bean, Field field) throws InstanceNotFoundException, IllegalAccessException {
+    private Object injectField (Object bean, Field field, Object dependent) throws InstanceNotFoundException, IllegalAccessException {
         Class<?> ft = field.getType ();
         Object value;
         if (IObjectContext.class.isAssignableFrom (ft)) {
             value = this;
         } else {
             Resource res = field.getAnnotation (Resource.class);
+            Object lazy = lazyReference (field, ft, field.getGenericType (), res.name ());
+            if (lazy != null) {
+                // 延迟查找的引用不构成依赖
+                MemberAccessor.set (field, bean, lazy);
+                return null;
+            }
             if (!StringUtil.isEmpty (res.name ())) {
                 value = getBean (res.name ());
             } else {
@@ -532,39 +782,361 @@ public class SimpleObjectContext implements IObjectContext {
             throw new InstanceNotFoundException ("field " + field + " cannot be injected. The annotated object was not registered.");
         }
 
-        if (!field.isAccessible ()) {
-            field.setAccessible (true);
-        }
-
-        field.set (bean, value);
+        MemberAccessor.set (field, bean, value);
+        depend (dependent, value);
+        return value;
     }
 
     /**
      * 将资源通过 setter 方法注入
-     * @param name   资源名称. 若该参数为 "" 或 {@code null} 时将使用 setter 的参数类型为索引来查找资源
-     * @param bean   对象实例
-     * @param method 自动注入的 setter
+     * @param name      资源名称. 若该参数为 "" 或 {@code null} 时将使用 setter 的参数类型为索引来查找资源
+     * @param bean      对象实例
+     * @param method    自动注入的 setter
+     * @param dependent 记录依赖关系的实例，通常就是 {@code bean}，延迟实例和作用域实例是它们的代理
+     * @return 被注入的对象
      * @throws InstanceNotFoundException 被注入的资源不存在时抛出
      * @throws InvocationTargetException 无法调用 setter 时抛出
      * @throws IllegalAccessException 无法访问 setter 时抛出
      */
-    private void injectMethod (String name, Object bean, Method method) throws InstanceNotFoundException, InvocationTargetException, IllegalAccessException {
+    private Object injectMethod (String name, Object bean, Method method, Object dependent) throws InstanceNotFoundException, InvocationTargetException, IllegalAccessException {
+        Class<?> type = method.getParameterTypes ()[0];
         Object value;
-        if (!StringUtil.isEmpty (name)) {
-            value = getBean (name);
+        if (StringUtil.isEmpty (name) && IObjectContext.class.isAssignableFrom (type)) {
+            value = this;
         } else {
-            Class<?> type = method.getParameterTypes ()[0];
-            if (IObjectContext.class.isAssignableFrom (type)) {
-                value = this;
-            } else {
-                value = getBean (type);
+            Object lazy = lazyReference (method, type, method.getGenericParameterTypes ()[0], name);
+            if (lazy != null) {
+                // 延迟查找的引用不构成依赖
+                MemberAccessor.invoke (method, bean, lazy);
+                return null;
             }
+            value = StringUtil.isEmpty (name) ? getBean (type) : getBean (name);
         }
 
         if (value == null) {
             throw new InstanceNotFoundException ("method " + method + " cannot be injected. The annotated object was not registered.");
         }
-        method.invoke (bean, value);
+        MemberAccessor.invoke (method, bean, value);
+        depend (dependent, value);
+        return value;
+    }
+
+    /**
+     * 类型不能以代理 (延迟创建或作用域代理) 的方式注册的原因：
+     * <ul>
+     * <li>实现了 {@link IInjectResolvedProcessor} 的类，它必须在容器启动时执行</li>
+     * <li>无法被代理的类 (final 类，或没有非私有的无参构造器)</li>
+     * <li>有多个预处理方法的类</li>
+     * <li>有被标注为资源的 getter 的类，它暴露的资源必须在启动时注册</li>
+     * </ul>
+     * @param type       类型
+     * @param descriptor 类型的描述
+     * @return 不能代理的原因，可以代理时返回 {@code null}
+     * @since 2.1.3
+     */
+    private static String unproxiable (Class<?> type, BeanDescriptor descriptor) {
+        if (IInjectResolvedProcessor.class.isAssignableFrom (type)) {
+            return "it is an IInjectResolvedProcessor";
+        }
+        if (!LazyBean.canProxy (type)) {
+            return "it cannot be proxied";
+        }
+        if (descriptor.postConstructs.size () > 1) {
+            return "it has more than one post-construct method";
+        }
+        for (Method method : descriptor.publicResourceMethods) {
+            if (method.getName ().startsWith ("get")) {
+                return "it exposes resources by getter";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 以延迟创建的方式注册一个被 {@link ALazy} 标注的类.
+     *
+     * <p>容器中注册的是这个类的代理，真实的实例在代理第一次被调用时才创建、注入、配置并执行预处理方法。
+     * 类型无法被代理时 (见 {@link #unproxiable(Class, BeanDescriptor)}) 返回 {@code false} 由调用者立即创建</p>
+     * @param name       实例名称
+     * @param type       类型
+     * @param descriptor 类型的描述
+     * @return 若成功注册返回 {@code true}，否则 {@code false}
+     * @throws Exception 注册失败时抛出
+     * @since 2.1.3
+     */
+    boolean registerLazy (String name, Class<?> type, BeanDescriptor descriptor) throws Exception {
+        String reason = unproxiable (type, descriptor);
+        if (reason != null) {
+            logger.warn ("{} cannot be created lazily because {}, create it eagerly", type, reason);
+            return false;
+        }
+
+        AtomicReference<Object> owner = new AtomicReference<> ();
+        LazyBean lazy = new LazyBean (name, () -> createLazyInstance (type, descriptor, owner.get ()));
+        Object proxy;
+        try {
+            proxy = lazy.createProxy (type);
+        } catch (RuntimeException | LinkageError ex) {
+            logger.warn ("cannot create lazy proxy for {}, create it eagerly: {}", type, ex.getMessage ());
+            return false;
+        }
+        owner.set (proxy);
+        lazyBeans.put (proxy, lazy);
+        try {
+            register (name, proxy);
+        } catch (Exception ex) {
+            lazyBeans.remove (proxy);
+            throw ex;
+        }
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("{} registered as lazy bean: {}", type, name);
+        }
+        return true;
+    }
+
+    /**
+     * 以作用域代理的方式注册一个被 {@link AScope} 标注为非单例的类.
+     *
+     * <p>容器中注册的是这个类的作用域代理，真实的实例在代理被调用时按作用域创建或借用，
+     * 每个实例都经过注入、配置并执行预处理方法。类型无法被代理时 (见 {@link #unproxiable(Class, BeanDescriptor)})
+     * 返回 {@code false} 由调用者作为单例创建</p>
+     * @param name       实例名称
+     * @param type       类型
+     * @param descriptor 类型的描述
+     * @param scope      作用域
+     * @return 若成功注册返回 {@code true}，否则 {@code false}
+     * @throws Exception 注册失败时抛出
+     * @since 2.1.3
+     */
+    boolean registerScoped (String name, Class<?> type, BeanDescriptor descriptor, AScope scope) throws Exception {
+        String reason = unproxiable (type, descriptor);
+        if (reason != null) {
+            logger.warn ("{} cannot be {} scoped because {}, create it as a singleton", type, scope.value (), reason);
+            return false;
+        }
+
+        AtomicReference<Object> owner = new AtomicReference<> ();
+        ScopedBean scoped = new ScopedBean (name, scope.value (), scope.pool (), descriptor,
+                () -> createLazyInstance (type, descriptor, owner.get ()));
+        Object proxy;
+        try {
+            proxy = scoped.createProxy (type);
+        } catch (RuntimeException | LinkageError ex) {
+            logger.warn ("cannot create scoped proxy for {}, create it as a singleton: {}", type, ex.getMessage ());
+            return false;
+        }
+        owner.set (proxy);
+        scopedBeans.put (proxy, scoped);
+        try {
+            register (name, proxy);
+        } catch (Exception ex) {
+            scopedBeans.remove (proxy);
+            throw ex;
+        }
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("{} registered as {} scoped bean: {}", type, scope.value (), name);
+        }
+        return true;
+    }
+
+    /**
+     * 若实例是作用域代理，销毁它的所有空闲实例
+     * @param bean 注册的实例
+     * @return 是作用域代理返回 {@code true}
+     * @since 2.1.3
+     */
+    boolean disposeScoped (Object bean) {
+        ScopedBean scoped = scopedBeans.get (bean);
+        if (scoped == null) {
+            return false;
+        }
+        scoped.dispose ();
+        return true;
+    }
+
+    /**
+     * 为实例中被 {@link AScheduled} 标注的方法安排定时任务。已经安排过的实例将被忽略
+     * @param bean       实例
+     * @param descriptor 实例类型的描述
+     * @since 2.1.3
+     */
+    void schedule (Object bean, BeanDescriptor descriptor) {
+        if (timer == null || descriptor.scheduled.isEmpty () || schedules.containsKey (bean)) {
+            return;
+        }
+        List<ITimer.Timeout> list = new ArrayList<> (descriptor.scheduled.size ());
+        for (Method method : descriptor.scheduled) {
+            AScheduled as = method.getAnnotation (AScheduled.class);
+            long period;
+            if (as.fixedRate () > 0 && as.fixedDelay () > 0) {
+                logger.warn ("{} cannot have both fixed rate and fixed delay, ignore it", method);
+                continue;
+            } else if (as.fixedRate () > 0) {
+                period = as.fixedRate ();
+            } else if (as.fixedDelay () > 0) {
+                period = -as.fixedDelay ();
+            } else {
+                period = 0;
+            }
+
+            Executor executor = null;
+            String name = as.executor ().trim ();
+            if (!name.isEmpty ()) {
+                Object o = getBean (name);
+                if (o instanceof Executor) {
+                    executor = (Executor) o;
+                    depend (bean, o);
+                } else {
+                    logger.warn ("executor {} for {} not found, run it in the timer thread", name, method);
+                }
+            }
+
+            Runnable task = new Runnable () {
+                @Override
+                public void run () {
+                    try {
+                        MemberAccessor.invoke (method, bean);
+                    } catch (InvocationTargetException ex) {
+                        Throwable cause = ex.getCause ();
+                        logger.warn ("scheduled method {} failed: {}", method, cause.getMessage (), cause);
+                    } catch (IllegalAccessException ex) {
+                        logger.warn ("cannot invoke scheduled method {}: {}", method, ex.getMessage ());
+                    }
+                }
+
+                @Override
+                public String toString () {
+                    return method.toString ();
+                }
+            };
+            list.add (timer.schedule (task, executor, as.initialDelay (), period, as.unit ()));
+        }
+        schedules.put (bean, list);
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("{} scheduled methods of {} started", list.size (), bean.getClass ());
+        }
+    }
+
+    /**
+     * 取消实例的所有定时任务
+     * @param bean 实例
+     * @since 2.1.3
+     */
+    void unschedule (Object bean) {
+        List<ITimer.Timeout> list = schedules.remove (bean);
+        if (list != null) {
+            for (ITimer.Timeout timeout : list) {
+                timeout.cancel ();
+            }
+        }
+    }
+
+    /**
+     * 创建延迟实例或作用域实例：实例化、注入资源、注入配置并执行预处理方法.
+     *
+     * <p>依赖关系记录在容器中注册的代理上，而不是新建的实例上：作用域代理的每个实例的依赖都相同，只记录一次，
+     * 容器也不会持有这些实例</p>
+     * @param proxy 注册在容器中的代理
+     */
+    private Object createLazyInstance (Class<?> type, BeanDescriptor descriptor, Object proxy) throws Exception {
+        if (logger.isTraceEnabled ()) {
+            logger.trace ("creating lazy bean of {}", type);
+        }
+        Object bean = type.newInstance ();
+        for (Field field : descriptor.injectFields) {
+            injectField (bean, field, proxy);
+        }
+        for (Method method : descriptor.publicResourceMethods) {
+            if (method.getName ().startsWith ("set") && method.getParameterCount () == 1) {
+                Resource res = method.getAnnotation (Resource.class);
+                injectMethod (res.name ().trim (), bean, method, proxy);
+            }
+        }
+        if (!descriptor.configuredFields.isEmpty ()) {
+            IConfiguration conf = getBean (IConfiguration.class);
+            if (conf != null) {
+                configureFields (conf, bean, descriptor.configuredFields);
+            }
+        }
+        if (!descriptor.postConstructs.isEmpty ()) {
+            MemberAccessor.invoke (descriptor.postConstructs.get (0), bean);
+        }
+        return bean;
+    }
+
+    /**
+     * 若注入点被标注为 {@link ALazy}，创建一个延迟查找的引用.
+     *
+     * <ul>
+     * <li>注入点的类型为 {@link Supplier} 时，注入一个在 {@code get ()} 时查找泛型参数类型 (或名称) 的 Supplier</li>
+     * <li>否则注入一个代理，第一次调用时查找真实的实例</li>
+     * </ul>
+     * @param point       注入点 (字段或 setter)
+     * @param type        注入点的类型
+     * @param genericType 注入点的泛型类型
+     * @param name        资源名称，为空时按类型查找
+     * @return 若注入点没有被标注为延迟，或无法创建代理时返回 {@code null}
+     * @since 2.1.3
+     */
+    private Object lazyReference (AnnotatedElement point, Class<?> type, Type genericType, String name) {
+        ALazy a = point.getAnnotation (ALazy.class);
+        if (a == null || !a.value ()) {
+            return null;
+        }
+
+        if (type == Supplier.class) {
+            Class<?> target = Object.class;
+            if (genericType instanceof ParameterizedType) {
+                Type arg = ((ParameterizedType) genericType).getActualTypeArguments ()[0];
+                if (arg instanceof Class) {
+                    target = (Class<?>) arg;
+                } else if (arg instanceof ParameterizedType) {
+                    target = (Class<?>) ((ParameterizedType) arg).getRawType ();
+                }
+            }
+            Class<?> lookupType = target;
+            LazyBean lazy = new LazyBean (point.toString (), () -> lookup (lookupType, name, point));
+            return (Supplier<Object>) lazy::get;
+        }
+
+        if (!LazyBean.canProxy (type)) {
+            logger.warn ("{} cannot be proxied, inject it eagerly", point);
+            return null;
+        }
+        LazyBean lazy = new LazyBean (point.toString (), () -> lookup (type, name, point));
+        try {
+            return lazy.createProxy (type);
+        } catch (RuntimeException | LinkageError ex) {
+            logger.warn ("cannot create lazy proxy for {}, inject it eagerly: {}", point, ex.getMessage ());
+            return null;
+        }
+    }
+
+    private Object lookup (Class<?> type, String name, Object point) throws InstanceNotFoundException {
+        Object value = StringUtil.isEmpty (name) ? getBean (type) : getBean (name);
+        if (value == null) {
+            throw new InstanceNotFoundException (point + " cannot be injected. The annotated object was not registered.");
+        }
+        return value;
+    }
+
+    /**
+     * 创建并行初始化使用的线程池
+     * @return 若配置了 {@link #KEY_PARALLEL_INIT} 返回一个新的线程池，调用者负责关闭它；否则返回 {@code null}
+     * @since 2.1.3
+     */
+    private ExecutorService createParallelExecutor () {
+        IConfiguration conf = getBean (IConfiguration.class);
+        if (conf == null || !conf.getBoolean (KEY_PARALLEL_INIT, false)) {
+            return null;
+        }
+        int threads = conf.getInt (KEY_PARALLEL_THREADS, Runtime.getRuntime ().availableProcessors ());
+        AtomicInteger counter = new AtomicInteger ();
+        return Executors.newFixedThreadPool (Math.max (1, threads), r -> {
+            Thread t = new Thread (r, "dsi-init-" + counter.incrementAndGet ());
+            t.setDaemon (true);
+            return t;
+        });
     }
 
     /**
@@ -608,7 +1180,7 @@ public class SimpleObjectContext implements IObjectContext {
                 beanName = type.getSimpleName ();
                 beanName = Character.toLowerCase (beanName.charAt (0)) + beanName.substring (1);
             }
-            Object value = method.invoke (bean);
+            Object value = MemberAccessor.invoke (method, bean);
             if (value == null) {
                 throw new InstantiationException ("The method " + method + " returns null");
             }
@@ -622,6 +1194,11 @@ public class SimpleObjectContext implements IObjectContext {
             if (type.isAssignableFrom (getClass ())) {
                 value = this;
             } else {
+                Object lazy = lazyReference (method, type, method.getGenericParameterTypes ()[0], res.name ());
+                if (lazy != null) {
+                    MemberAccessor.invoke (method, bean, lazy);
+                    return;
+                }
                 if (!StringUtil.isEmpty (res.name ())) {
                     value = getBean (res.name ());
                 } else {
@@ -631,7 +1208,8 @@ public class SimpleObjectContext implements IObjectContext {
             if (value == null) {
                 throw new InstanceNotFoundException ("cannot find bean: " + type);
             }
-            method.invoke (bean, value);
+            MemberAccessor.invoke (method, bean, value);
+            depend (bean, value);
         }
     }
 
@@ -646,89 +1224,126 @@ public class SimpleObjectContext implements IObjectContext {
      * @throws IllegalAccessException 当无法访问销毁前处理方法时抛出
      */
     private void destroyBean (Object bean) throws InvocationTargetException, IllegalAccessException {
-        Class<?> type = bean.getClass ();
-        Method[] methods = type.getMethods ();
-        for (Method method : methods) {
-            if (map (method) == 3) {    // 标注为 PreDestroy 的方法
-                if (logger.isTraceEnabled ()) {
-                    logger.trace ("invoking pre-destroy method: {}", method);
-                }
-                method.invoke (bean);
-                return;
+        bean = destroyTarget (bean);
+        if (bean == null) {
+            return;
+        }
+        Method method = BeanDescriptor.of (bean.getClass ()).preDestroy;
+        if (method != null) {   // 标注为 PreDestroy 的方法
+            if (logger.isTraceEnabled ()) {
+                logger.trace ("invoking pre-destroy method: {}", method);
             }
+            MemberAccessor.invoke (method, bean);
         }
     }
 
     /**
-     * 展开类的继承树，并将每个层级的类放在集合中
-     * @param baseType 基本类型
-     * @param types    出参。每个层级的类型都会被放在这个集合中
+     * 获取需要执行销毁方法的实例
+     * @param bean 注册的实例
+     * @return 真实的实例；对于还没有创建的延迟实例返回 {@code null}
+     * @since 2.1.3
      */
-    private void findAllType (Class<?> baseType, Set<Class<?>> types) {
-        Class<?> type = baseType;
-        while (type != null && type != Object.class) {
-            types.add (type);
-
-            Class<?>[] temp = type.getInterfaces ();
-            for (Class<?> t : temp) {
-                String name = t.getCanonicalName ();
-                if (exclude (name)) {
-                    continue;
-                }
-                findAllType (t, types);
-            }
-
-            type = type.getSuperclass ();
+    Object destroyTarget (Object bean) {
+        if (scopedBeans.containsKey (bean)) {
+            // 作用域实例由 disposeScoped 销毁
+            return null;
         }
+        LazyBean lazy = lazyBeans.get (bean);
+        // 只销毁已经创建了的延迟实例
+        return lazy == null ? bean : lazy.peek ();
     }
 
+    /** 配置表达式中的配置项引用 <code>${key}</code>. @since 2.1.3 */
+    private static final Pattern CONFIG_REFERENCE = Pattern.compile ("\\$\\{([^}]+)}");
+
     /**
-     * 是否是排除 {@link #EXCLUDE_PREFIXES} 列表中的类
-     * @param name 类的全限定名称
-     * @return 若是返回 {@code true}，否则 {@code false}
+     * 字段的配置表达式
+     * @param field 被 {@link AConfigured} 标注的字段
+     * @param ac    字段上的注解
+     * @return <code>${key}</code> 形式的配置项引用，包含配置项引用的模板 (如 <code>${a}/${b}</code>)，或常量
      */
-    private boolean exclude (String name) {
-        if (name.startsWith ("java.util.concurrent.")) {
-            return false;
+    private static String configExpression (Field field, AConfigured ac) {
+        String key = ac.value ();
+        if (StringUtil.isEmpty (key)) {
+            key = ac.key ();
         }
-        for (String prefix : EXCLUDE_PREFIXES) {
-            if (name.startsWith (prefix)) {
-                return true;
-            }
+        if (StringUtil.isEmpty (key)) {
+            Class<?> type = field.getDeclaringClass ();
+            key = "${" + type.getCanonicalName () + "." + field.getName () + "}";
         }
-        return false;
+        return key;
     }
 
     /**
-     * 映射方法类型。
-     * <ul>
-     * <li>只有public方法才会被映射</li>
-     * <li>标注为 {@link Resource} 的方法映射为 1</li>
-     * <li>标注为 {@link PostConstruct} 的方法映射为 2</li>
-     * <li>标注为 {@link PreDestroy} 的方法映射为 3</li>
-     * <li>其他映射为 -1</li>
-     * </ul>
-     * @param method 需要映射的方法
-     * @return 映射后的代码
-     */
-    private int map (Method method) {
-        int code = -1;
-        if (method.isAnnotationPresent (Resource.class)) {
-            code = 1;
-        } else if (method.isAnnotationPresent (PostConstruct.class)) {
-            code = 2;
-        } else if (method.isAnnotationPresent (PreDestroy.class)) {
-            if (logger.isTraceEnabled ()) {
-                logger.trace ("found a pre-destroy method of {}: {}", method.getDeclaringClass (), method);
-            }
-            code = 3;
+     * 配置改变后，重新注入受影响的实例.
+     *
+     * <p>只有引用了 {@code keys} 中配置项的 {@link AConfigured} 字段会被重新注入 (模板引用了多个配置项时，
+     * 任何一个改变都会使整个模板重新求值)，之后调用实例上被
+     * {@link AConfigurationChanged} 标注的方法；没有受影响的实例不会被触及。还没有创建的延迟实例会在创建时读取新的配置</p>
+     *
+     * @param keys 值发生了变化的配置项
+     * @since 2.1.3
+     */
+    void reconfigure (Set<String> keys) {
+        IConfiguration conf = getBean (IConfiguration.class);
+        if (conf == null || keys.isEmpty ()) {
+            return;
         }
+        for (Object registered : getAllRegisteredBeans ()) {
+            Object bean = destroyTarget (registered);
+            if (bean == null) {
+                continue;
+            }
+            BeanDescriptor descriptor = BeanDescriptor.of (bean.getClass ());
+            List<Field> affected = new ArrayList<> ();
+            Set<String> matched = new TreeSet<> ();
+            for (Field field : descriptor.configuredFields) {
+                // 模板中任何一个配置项改变时，整个表达式重新求值
+                Matcher m = CONFIG_REFERENCE.matcher (configExpression (field, field.getAnnotation (AConfigured.class)));
+                boolean hit = false;
+                while (m.find ()) {
+                    String key = m.group (1);
+                    if (keys.contains (key)) {
+                        matched.add (key);
+                        hit = true;
+                    }
+                }
+                if (hit) {
+                    affected.add (field);
+                }
+            }
+            Method callback = descriptor.configurationChanged;
+            if (callback != null) {
+                for (String prefix : callback.getAnnotation (AConfigurationChanged.class).keys ()) {
+                    for (String key : keys) {
+                        if (key.startsWith (prefix)) {
+                            matched.add (key);
+                        }
+                    }
+                }
+            }
+            if (matched.isEmpty ()) {
+                continue;
+            }
 
-        int modifier = method.getModifiers ();
-        if ((modifier & Modifier.PUBLIC) != 0) {
-            return code;
+            try {
+                if (!affected.isEmpty ()) {
+                    configureFields (conf, bean, affected);
+                }
+                if (callback != null) {
+                    if (callback.getParameterCount () == 0) {
+                        MemberAccessor.invoke (callback, bean);
+                    } else {
+                        MemberAccessor.invoke (callback, bean, Collections.unmodifiableSet (matched));
+                    }
+                }
+                if (logger.isDebugEnabled ()) {
+                    logger.debug ("{} reconfigured by {}", bean.getClass ().getName (), matched);
+                }
+            } catch (Exception ex) {
+                logger.warn ("cannot reconfigure {}: {}", bean.getClass ().getName (), ex.getMessage (), ex);
+            }
         }
-        return -1;
     }
 
     /**
@@ -740,47 +1355,48 @@ public class SimpleObjectContext implements IObjectContext {
      */
     static void configureFields (IConfiguration conf, Object bean, Collection<Field> fields) throws IllegalAccessException {
         final Logger logger = LoggerFactory.getLogger (SimpleObjectContext.class);
-        Gson g = new Gson ();
         for (Field field : fields) {
             AConfigured ac = field.getAnnotation (AConfigured.class);
-            String key = ac.value ();
-            if (StringUtil.isEmpty (key)) {
-                key = ac.key ();
-            }
             if (logger.isTraceEnabled ()) {
-                logger.trace ("trying inject field {} with key {}", field, key);
+                logger.trace ("trying inject field {} with key {}", field, StringUtil.isEmpty (ac.value ()) ? ac.key () : ac.value ());
             }
 
-            if (StringUtil.isEmpty (key)) {
-                Class<?> type = field.getDeclaringClass ();
-                key = "${" + type.getCanonicalName () + "." + field.getName () + "}";
-            }
+            String key = configExpression (field, ac);
             String expression;
-            if (key.startsWith ("${") && key.endsWith ("}")) {
-                key = key.substring (2, key.length () - 1);
+            Matcher m = CONFIG_REFERENCE.matcher (key);
+            if (m.matches ()) {
+                key = m.group (1);
                 expression = conf.getString (key);
             } else {
-                expression = key.trim ();
+                // @since 2.1.3 常量或模板，模板中引用的配置项都存在时才注入
+                StringBuffer buff = new StringBuffer ();
+                String missing = null;
+                m.reset ();
+                while (missing == null && m.find ()) {
+                    String value = conf.getString (m.group (1));
+                    if (value == null) {
+                        missing = m.group (1);
+                    } else {
+                        m.appendReplacement (buff, Matcher.quoteReplacement (value));
+                    }
+                }
+                if (missing == null) {
+                    expression = m.appendTail (buff).toString ().trim ();
+                } else {
+                    key = missing;
+                    expression = null;
+                }
             }
             if (expression != null) {
                 Object value;
-                Class<?> type = field.getType ();
-                if (type.isAssignableFrom (String.class)) {
-                    value = expression;
-                } else {
-                    try {
-                        value = g.fromJson (expression, type);
-                    } catch (Exception ex) {
-                        logger.error ("cannot convert {} to {} when injecting {}", expression, type, field);
-                        throw new RuntimeException (ex);
-                    }
+                try {
+                    value = ConfigConverter.of (field).convert (expression);
+                } catch (Exception ex) {
+                    logger.error ("cannot convert {} to {} when injecting {}", expression, field.getType (), field);
+                    throw new RuntimeException (ex);
                 }
                 if (value != null) {
-                    if (!field.isAccessible ()) {
-                        field.setAccessible (true);
-                    }
-
-                    field.set (bean, value);
+                    MemberAccessor.set (field, bean, value);
                 }
             } else if (ac.required ()) {
                 throw new ConfigurationNotFoundException ("configuration item [" + key + "] not found, but it is required");
@@ -832,5 +1448,84 @@ public class SimpleObjectContext implements IObjectContext {
         return Character.toLowerCase (name.charAt (0)) + name.substring (1);
     }
 
-    public static final class InnerList extends ArrayList<Object> {}
+    /**
+     * 若快照已经发布，用当前的工作副本重建快照并替换。调用者必须持有 {@link #LOCKER}
+     * @since 2.1.3
+     */
+    private void publish () {
+        if (snapshot != null) {
+            snapshot = new Snapshot (mappedByName, mappedByType, namesByBean.keySet ());
+        }
+    }
+
+    /**
+     * 将实例以指定的名称映射到类型索引中。调用者必须持有 {@link #LOCKER}
+     * @param type 类型
+     * @param name 实例名称
+     * @param bean 实例
+     * @since 2.1.3
+     */
+    private void mapType (Class<?> type, String name, Object bean) {
+        mappedByType.computeIfAbsent (type, key -> new LinkedHashMap<> (2)).put (name, bean);
+    }
+
+    /**
+     * 从名称索引和类型索引中删除实例的一个名称。调用者必须持有 {@link #LOCKER}
+     * @param name 实例名称
+     * @param bean 实例
+     * @since 2.1.3
+     */
+    private void unmapName (String name, Object bean) {
+        mappedByName.remove (name);
+        for (Class<?> type : BeanDescriptor.of (bean.getClass ()).types) {
+            unmapType (type, name);
+        }
+    }
+
+    /**
+     * 从类型索引中删除指定名称的实例，若该类型下已没有任何实例，删除该类型。调用者必须持有 {@link #LOCKER}
+     * @param type 类型
+     * @param name 实例名称
+     * @since 2.1.3
+     */
+    private void unmapType (Class<?> type, String name) {
+        Map<String, Object> map = mappedByType.get (type);
+        if (map != null) {
+            map.remove (name);
+            if (map.isEmpty ()) {
+                mappedByType.remove (type);
+            }
+        }
+    }
+
+    /**
+     * 名称索引和类型索引的只读快照.
+     *
+     * <p>快照一经创建便不再修改，可以在任意线程中无锁读取</p>
+     * @since 2.1.3
+     */
+    private static final class Snapshot {
+        final Map<String, Object> mappedByName;
+        final Map<Class<?>, Map<String, Object>> mappedByType;
+        final Set<Object> beans;
+
+        Snapshot (Map<String, Object> byName, Map<Class<?>, Map<String, Object>> byType, Set<Object> registered) {
+            Map<Class<?>, Map<String, Object>> types = new HashMap<> (byType.size () * 4 / 3 + 1);
+            for (Map.Entry<Class<?>, Map<String, Object>> e : byType.entrySet ()) {
+                // 类型索引中的映射在工作副本中会被原地修改，快照需要持有自己的拷贝
+                Map<String, Object> map = e.getValue ();
+                if (map.size () == 1) {
+                    Map.Entry<String, Object> only = map.entrySet ().iterator ().next ();
+                    types.put (e.getKey (), Collections.singletonMap (only.getKey (), only.getValue ()));
+                } else {
+                    types.put (e.getKey (), Collections.unmodifiableMap (new LinkedHashMap<> (map)));
+                }
+            }
+            mappedByName = Collections.unmodifiableMap (new HashMap<> (byName));
+            mappedByType = Collections.unmodifiableMap (types);
+            Set<Object> set = Collections.newSetFromMap (new IdentityHashMap<> (registered.size ()));
+            set.addAll (registered);
+            beans        = Collections.unmodifiableSet (set);
+        }
+    }
 }
\ No newline at end of file
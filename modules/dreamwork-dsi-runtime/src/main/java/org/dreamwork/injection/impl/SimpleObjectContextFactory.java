@@ -96,6 +96,12 @@ public class SimpleObjectContextFactory {
     private Logger logger;
     private final Class<?> type;
     private final Path javaHome;
+    /** 实际加载的配置文件，未找到配置文件时为 {@code null}. @since 2.1.3 */
+    private Path configFile;
+    /** 是否丢弃并重建启动缓存 (命令行参数 {@code --rebuild-cache}). @since 2.1.3 */
+    private boolean rebuildCache;
+    /** 当前进程是否是 AppCDS 训练子进程. @since 2.1.3 */
+    private boolean cdsTraining;
 
     /**
      * 对象托管容器的工厂方法
@@ -121,11 +127,17 @@ public class SimpleObjectContextFactory {
     private IObjectContext createObjectContext (String... args) throws Exception {
         ClassLoader loader = type.getClassLoader ();
 
+        // @since 2.1.3 启动时间线
+        StartupTimeline timeline = new StartupTimeline ();
+
         // 解析和处理配置/参数
+        StartupTimeline.Phase phase = timeline.phase ("config");
         PropertyConfiguration configuration = initConfiguration (loader, args);
         if (configuration == null) {
             return null;
         }
+        phase.close ();
+        timeline.configure (configuration);
 
         logger = LoggerFactory.getLogger (getClass ());
         if (logger.isTraceEnabled ()) {
@@ -136,11 +148,27 @@ public class SimpleObjectContextFactory {
         int port = configuration.getInt ("org.dreamwork.dsi.shutdown-port", -1);
         port = Math.max (port, ic.shutdownPort ());
 
+        // @since 2.1.3 并行扫描，对之后创建的所有扫描器生效
+        ClassScanner.setDefaultParallel (
+                ic.parallelScan () || configuration.getBoolean ("org.dreamwork.dsi.scan.parallel", false)
+        );
+
         // 创建 SimpleObjectContext
         // @Since 2.0.0
         SimpleObjectContext root = new SimpleObjectContext (port);
+        root.timeline = timeline;
         // 注册全局配置
         root.register ("global-config", configuration);
+        // @since 2.1.3 注册事件总线
+        root.eventBus = new RingEventBus (configuration);
+        root.register ("event-bus", root.eventBus);
+        // @since 2.1.3 注册配置中声明的线程池
+        ExecutorRegistry executors = new ExecutorRegistry (root, configuration);
+        root.register ("executor-registry", executors);
+        executors.declare ();
+        // @since 2.1.3 注册容器级的定时器
+        root.timer = new HashedWheelTimer (configuration);
+        root.register ("timer", root.timer);
         // 注册全局的懒加载器
         LazyScanner lazy = new LazyScanner ();
         root.register (lazy);
@@ -156,19 +184,78 @@ public class SimpleObjectContextFactory {
         ClassScanner scanner = new ObjectContextScanner (root);
 
         Set<String> packages = new HashSet<> ();
+        Path cacheDir = HookCache.directory (configuration, type);
         // @since 3.1.1 自动装配
-        autoWireStarters (root, loader, packages);
-        scanner.scan (packages.toArray (new String[0]));
+        try (StartupTimeline.Phase ignore = timeline.phase ("auto-wire")) {
+            HookCache cache = HookCache.open (cacheDir, rebuildCache);
+            autoWireStarters (root, loader, packages, cache);
+            if (cache != null) {
+                cache.save ();
+            }
+        }
 
-        packages.clear ();
+        // @since 2.1.3 类路径没有变化时，启动期间的扫描直接使用上次记录的结果
+        ScanCache scanCache;
+        try (StartupTimeline.Phase ignore = timeline.phase ("fingerprint")) {
+            scanCache = ScanCache.open (cacheDir, rebuildCache, loader);
+        }
+        ClassScanner.setScanCache (scanCache);
+        try {
+            try (StartupTimeline.Phase ignore = timeline.phase ("scan starters")) {
+                scanner.scan (packages.toArray (new String[0]));
+            }
 
-        fillPackageNames (type, ic, loader, packages);
-        scanner.scan (packages.toArray (new String[0]));
+            packages.clear ();
 
-        root.resolve ();
+            try (StartupTimeline.Phase ignore = timeline.phase ("scan application")) {
+                fillPackageNames (type, ic, loader, packages);
+                scanner.scan (packages.toArray (new String[0]));
+            }
 
-        // since 1.0.3
-        lazyScan (ic, lazy, root);
+            root.resolve ();
+
+            // since 1.0.3
+            try (StartupTimeline.Phase ignore = timeline.phase ("lazy-scan")) {
+                lazyScan (ic, lazy, root);
+            }
+            if (scanCache != null) {
+                scanCache.save ();
+            }
+        } finally {
+            ClassScanner.setScanCache (null);
+        }
+        timeline.finish ();
+
+        // @since 2.1.3 通过 JMX 暴露容器的状态和启动时间线
+        if (configuration.getBoolean ("org.dreamwork.dsi.jmx.enabled", true)) {
+            try {
+                root.register (new SimpleInjection ());
+            } catch (RuntimeException ex) {
+                logger.warn ("cannot register the jmx service: {}", ex.getMessage ());
+            }
+        }
+
+        // @since 2.1.3 监视配置文件，改变时重新注入受影响的实例
+        if (configFile != null && configuration instanceof EnhancedConfiguration &&
+                configuration.getBoolean (ConfigurationWatcher.KEY_WATCH, false)) {
+            String ext = configuration.getString ("ext.conf.dir");
+            ConfigurationWatcher watcher = new ConfigurationWatcher (
+                    root, (EnhancedConfiguration) configuration, configFile, StringUtil.isEmpty (ext) ? null : Paths.get (ext)
+            );
+            try {
+                watcher.start ();
+                root.register (watcher);
+            } catch (IOException ex) {
+                logger.warn ("cannot watch the configuration: {}", ex.getMessage ());
+            }
+        }
+
+        if (cdsTraining) {
+            // @since 2.1.3 训练子进程：预热后销毁容器并退出，退出时 jvm 写出类列表和归档
+            CdsTrainer.warmUp (root);
+            root.dispose ();
+            System.exit (0);
+        }
 
         Runtime.getRuntime ().addShutdownHook (new Thread (() -> {
             Thread.currentThread ().setName ("SimpleObjectContext.ShutdownHook");
@@ -177,7 +264,7 @@ public class SimpleObjectContextFactory {
         return root;
     }
 
-    private void autoWireStarters (IObjectContext root, ClassLoader loader, Set<String> packages) throws IOException {
+    private void autoWireStarters (IObjectContext root, ClassLoader loader, Set<String> packages, HookCache cache) throws IOException {
         Enumeration<URL> resources = loader.getResources ("META-INF/");
         URL url;
         String protocol;
@@ -187,7 +274,7 @@ public class SimpleObjectContextFactory {
             if ("file".equals (protocol)) {
                 autoWireFileHook (root, url, loader, packages);
             } else if ("jar".equals (protocol)) {
-                autoWireJarHook (root, url, loader, packages);
+                autoWireJarHook (root, url, loader, packages, cache);
             }
         }
     }
@@ -218,8 +305,7 @@ public class SimpleObjectContextFactory {
         }
     }
 
-    private void autoWireJarHook (IObjectContext root, URL url, ClassLoader loader, Set<String> packages) throws IOException {
-        Set<String> set = new HashSet<> ();
+    private void autoWireJarHook (IObjectContext root, URL url, ClassLoader loader, Set<String> packages, HookCache cache) throws IOException {
         String path = url.getFile ();
         int index = path.indexOf ('!');
         path = path.substring (0, index);
@@ -229,30 +315,53 @@ public class SimpleObjectContextFactory {
             return;
         }
 
-        if (logger.isTraceEnabled ()) {
-            logger.trace ("trying find auto wire config from {}", file.getCanonicalPath ());
-        }
-        try (JarFile jar = new JarFile (file)) {
-            Enumeration<JarEntry> entries = jar.entries ();
-            while (entries.hasMoreElements ()) {
-                JarEntry entry = entries.nextElement ();
-                String name = entry.getName ();
-
-                if (name.startsWith ("META-INF/")) {
-                    name = name.substring (PREFIX_LENGTH);
-                    if (accepted (name)) {
-                        String resource = url + name;
-                        try (InputStream in = jar.getInputStream (entry)) {
-                            autoWire (root, resource, in, loader, packages);
-                        } catch (IOException | InstanceAlreadyExistsException ex) {
-                            logger.warn ("cannot open resource: {}", resource);
-                            if (logger.isTraceEnabled ()) {
-                                logger.warn (ex.getMessage (), ex);
+        // @since 2.1.3 没有变化的 jar 直接使用缓存的钩子配置，不再打开
+        List<HookCache.Hook> hooks = cache == null ? null : cache.get (file);
+        if (hooks == null) {
+            if (logger.isTraceEnabled ()) {
+                logger.trace ("trying find auto wire config from {}", file.getCanonicalPath ());
+            }
+            hooks = new ArrayList<> ();
+            try (JarFile jar = new JarFile (file)) {
+                Enumeration<JarEntry> entries = jar.entries ();
+                while (entries.hasMoreElements ()) {
+                    JarEntry entry = entries.nextElement ();
+                    String name = entry.getName ();
+
+                    if (name.startsWith ("META-INF/")) {
+                        name = name.substring (PREFIX_LENGTH);
+                        if (accepted (name)) {
+                            try (InputStream in = jar.getInputStream (entry)) {
+                                Properties props = new Properties ();
+                                props.load (in);
+                                hooks.add (new HookCache.Hook (name, props));
+                            } catch (IOException ex) {
+                                logger.warn ("cannot open resource: {}", url + name);
+                                if (logger.isTraceEnabled ()) {
+                                    logger.warn (ex.getMessage (), ex);
+                                }
                             }
                         }
                     }
                 }
             }
+            if (cache != null) {
+                cache.put (file, hooks);
+            }
+        } else if (logger.isTraceEnabled ()) {
+            logger.trace ("auto wire config of {} found in cache", file);
+        }
+
+        for (HookCache.Hook hook : hooks) {
+            String resource = url + hook.name;
+            try {
+                autoWire (root, resource, hook.toProperties (), loader, packages);
+            } catch (IOException | InstanceAlreadyExistsException ex) {
+                logger.warn ("cannot open resource: {}", resource);
+                if (logger.isTraceEnabled ()) {
+                    logger.warn (ex.getMessage (), ex);
+                }
+            }
         }
     }
 
@@ -260,6 +369,11 @@ public class SimpleObjectContextFactory {
                            ClassLoader loader, Set<String> packages) throws IOException, InstanceAlreadyExistsException {
         Properties props = new Properties ();
         props.load (in);
+        autoWire (root, resource, props, loader, packages);
+    }
+
+    private void autoWire (IObjectContext root, String resource, Properties props,
+                           ClassLoader loader, Set<String> packages) throws IOException, InstanceAlreadyExistsException {
         for (String key : props.stringPropertyNames ()) {
             key = key.trim ();
             if (key.startsWith ("dsi.") && key.endsWith (".hook")) {
@@ -389,6 +503,9 @@ public class SimpleObjectContextFactory {
             return null;
         }
 
+        // @since 2.1.3
+        rebuildCache = parser.isArgPresent ("rebuild-cache");
+
         PropertyConfiguration conf = mergeConfig (parser);
 
         try {
@@ -400,6 +517,20 @@ public class SimpleObjectContextFactory {
 
         // now, we can use the logger
         Logger logger = LoggerFactory.getLogger (SimpleObjectContextFactory.class);
+
+        // @since 2.1.3 AppCDS 训练模式，当前进程只负责启动训练子进程和生成归档
+        if (parser.isArgPresent (CdsTrainer.ARG_TRAIN)) {
+            if (!CdsTrainer.isTraining ()) {
+                try {
+                    System.exit (new CdsTrainer (conf, type).train (args));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread ().interrupt ();
+                    System.exit (1);
+                }
+                return null;
+            }
+            cdsTraining = true;
+        }
         return conf;
     }
 
@@ -475,6 +606,7 @@ public class SimpleObjectContextFactory {
             try (InputStream in = Files.newInputStream (file.toPath ())) {
                 props.load (in);
             }
+            configFile = file.toPath ();
         }
         return props;
     }
@@ -528,22 +660,20 @@ public class SimpleObjectContextFactory {
         logger.trace ("############################");
     }
 
-    private void setDefaultValue (ArgumentParser parser, PropertyConfiguration configuration, String key, char argument) {
+    private void setDefaultValue (ArgumentParser parser, EnhancedConfiguration configuration, String key, char argument) {
+        // @since 2.1.3 命令行参数和默认值分别记录，重新加载配置文件时保持不变
         if (parser.isArgPresent (argument)) {
-            configuration.setRawProperty (key, parser.getValue (argument));
-        }
-        if (!configuration.contains (key)) {
-            configuration.setRawProperty (key, parser.getDefaultValue (argument));
+            configuration.setOverride (key, parser.getValue (argument));
         }
+        configuration.setDefault (key, parser.getDefaultValue (argument));
     }
 
-    private void setDefaultValue (ArgumentParser parser, PropertyConfiguration configuration, String key, String argument) {
+    private void setDefaultValue (ArgumentParser parser, EnhancedConfiguration configuration, String key, String argument) {
+        // @since 2.1.3 命令行参数和默认值分别记录，重新加载配置文件时保持不变
         if (parser.isArgPresent (argument)) {
-            configuration.setRawProperty (key, parser.getValue (argument));
-        }
-        if (!configuration.contains (key)) {
-            configuration.setRawProperty (key, parser.getDefaultValue (argument));
+            configuration.setOverride (key, parser.getValue (argument));
         }
+        configuration.setDefault (key, parser.getDefaultValue (argument));
     }
 
     private static void initLogger (ClassLoader loader, PropertyConfiguration conf, ArgumentParser parser) throws IOException {
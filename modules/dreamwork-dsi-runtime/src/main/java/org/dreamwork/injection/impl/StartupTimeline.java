@@ -0,0 +1,227 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.IConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 容器启动的时间线.
+ *
+ * <p>记录启动的各个阶段 (配置解析、自动装配、扫描、注入、预处理、注入完成处理器、扩展扫描) 的耗时，
+ * 以及每个实例的构造和预处理方法的耗时。启动结束后，若总耗时超过 {@value #KEY_DUMP_THRESHOLD} 将以 INFO 级别输出时间线；
+ * 执行时间超过 {@value #KEY_SLOW_POST_CONSTRUCT} 的预处理方法会被采样一次执行线程的堆栈并以 WARN 级别输出</p>
+ *
+ * <p>时间线通过 {@link SimpleInjection} 暴露为 MXBean 的属性</p>
+ *
+ * @since 2.1.3
+ */
+final class StartupTimeline {
+    /** 配置项：启动耗时超过这个值 (毫秒) 时以 INFO 级别输出时间线，默认 10000 */
+    static final String KEY_DUMP_THRESHOLD      = "org.dreamwork.dsi.startup.dump-threshold";
+    /** 配置项：预处理方法执行超过这个值 (毫秒) 时采样执行线程的堆栈，默认 1000，{@code 0} 表示不采样 */
+    static final String KEY_SLOW_POST_CONSTRUCT = "org.dreamwork.dsi.startup.slow-post-construct";
+
+    private static final int TOP_N = 10;
+
+    private final Logger logger = LoggerFactory.getLogger (StartupTimeline.class);
+
+    private final long origin = System.nanoTime ();
+    private final Map<String, Long> phases        = new LinkedHashMap<> ();
+    private final Map<String, Long> constructions = new LinkedHashMap<> ();
+    private final Map<String, Long> postConstructs = new LinkedHashMap<> ();
+    private final List<String> slowPostConstructs = new CopyOnWriteArrayList<> ();
+
+    private long dumpThreshold = 10_000;
+    private long slowThreshold = 1_000;
+    private ScheduledExecutorService sampler;
+    private volatile long total = -1;
+
+    /**
+     * 一个正在计时的阶段，关闭时记录耗时
+     */
+    interface Phase extends AutoCloseable {
+        @Override
+        void close ();
+    }
+
+    /**
+     * 被计时的动作
+     */
+    interface Action {
+        void run () throws Exception;
+    }
+
+    void configure (IConfiguration conf) {
+        dumpThreshold = conf.getLong (KEY_DUMP_THRESHOLD, dumpThreshold);
+        slowThreshold = conf.getLong (KEY_SLOW_POST_CONSTRUCT, slowThreshold);
+    }
+
+    /**
+     * 开始一个阶段。同名的阶段耗时累加
+     * @param name 阶段名称
+     * @return 正在计时的阶段
+     */
+    Phase phase (String name) {
+        long start = System.nanoTime ();
+        return () -> record (phases, name, System.nanoTime () - start);
+    }
+
+    /**
+     * 记录一个已经结束的阶段
+     * @param name  阶段名称
+     * @param nanos 耗时，纳秒
+     */
+    void phase (String name, long nanos) {
+        record (phases, name, nanos);
+    }
+
+    void construction (String bean, long nanos) {
+        if (total < 0) {
+            record (constructions, bean, nanos);
+        }
+    }
+
+    /**
+     * 执行并记录一个预处理方法.
+     *
+     * <p>启动过程中，若执行超过阈值，将采样一次执行线程的堆栈</p>
+     *
+     * @param bean   实例名称
+     * @param action 预处理方法
+     * @throws Exception 预处理方法抛出的异常
+     */
+    void postConstruct (String bean, Action action) throws Exception {
+        if (total >= 0) {
+            // 启动已经结束 (比如延迟实例)，不再记录
+            action.run ();
+            return;
+        }
+
+        AtomicReference<StackTraceElement[]> sample = new AtomicReference<> ();
+        ScheduledFuture<?> watchdog = null;
+        if (slowThreshold > 0) {
+            Thread thread = Thread.currentThread ();
+            watchdog = sampler ().schedule (() -> sample.set (thread.getStackTrace ()), slowThreshold, TimeUnit.MILLISECONDS);
+        }
+        long start = System.nanoTime ();
+        try {
+            action.run ();
+        } finally {
+            long nanos = System.nanoTime () - start;
+            if (watchdog != null) {
+                watchdog.cancel (false);
+            }
+            record (postConstructs, bean, nanos);
+
+            StackTraceElement[] stack = sample.get ();
+            if (stack != null) {
+                StringBuilder builder = new StringBuilder ();
+                builder.append (bean).append (" post-construct took ").append (TimeUnit.NANOSECONDS.toMillis (nanos))
+                       .append (" ms, stack sampled at ").append (slowThreshold).append (" ms:");
+                for (StackTraceElement e : stack) {
+                    builder.append ("\n\tat ").append (e);
+                }
+                String message = builder.toString ();
+                slowPostConstructs.add (message);
+                logger.warn (message);
+            }
+        }
+    }
+
+    /**
+     * 启动结束，记录总耗时并按需输出时间线
+     */
+    void finish () {
+        total = System.nanoTime () - origin;
+        synchronized (this) {
+            if (sampler != null) {
+                sampler.shutdownNow ();
+                sampler = null;
+            }
+        }
+
+        if (TimeUnit.NANOSECONDS.toMillis (total) >= dumpThreshold) {
+            if (logger.isInfoEnabled ()) {
+                logger.info (dump ());
+            }
+        } else if (logger.isDebugEnabled ()) {
+            logger.debug (dump ());
+        }
+    }
+
+    long getStartupMillis () {
+        long t = total;
+        return TimeUnit.NANOSECONDS.toMillis (t >= 0 ? t : System.nanoTime () - origin);
+    }
+
+    Map<String, Long> getPhaseMillis () {
+        return toMillis (phases);
+    }
+
+    Map<String, Long> getConstructionMillis () {
+        return toMillis (constructions);
+    }
+
+    Map<String, Long> getPostConstructMillis () {
+        return toMillis (postConstructs);
+    }
+
+    List<String> getSlowPostConstructs () {
+        return new ArrayList<> (slowPostConstructs);
+    }
+
+    /**
+     * 以文本形式输出时间线
+     * @return 时间线
+     */
+    String dump () {
+        StringBuilder builder = new StringBuilder ();
+        builder.append ("startup timeline, total ").append (getStartupMillis ()).append (" ms");
+        builder.append ("\n  phases:");
+        getPhaseMillis ().forEach ((name, ms) -> line (builder, name, ms));
+        builder.append ("\n  slowest constructions:");
+        top (getConstructionMillis ()).forEach (e -> line (builder, e.getKey (), e.getValue ()));
+        builder.append ("\n  slowest post-constructs:");
+        top (getPostConstructMillis ()).forEach (e -> line (builder, e.getKey (), e.getValue ()));
+        return builder.toString ();
+    }
+
+    private static void line (StringBuilder builder, String name, long ms) {
+        builder.append (String.format ("%n    %-64s %8d ms", name, ms));
+    }
+
+    private static List<Map.Entry<String, Long>> top (Map<String, Long> map) {
+        List<Map.Entry<String, Long>> list = new ArrayList<> (map.entrySet ());
+        list.sort ((a, b) -> Long.compare (b.getValue (), a.getValue ()));
+        return list.size () > TOP_N ? list.subList (0, TOP_N) : list;
+    }
+
+    private synchronized ScheduledExecutorService sampler () {
+        if (sampler == null) {
+            sampler = Executors.newSingleThreadScheduledExecutor (r -> {
+                Thread t = new Thread (r, "dsi-startup-sampler");
+                t.setDaemon (true);
+                return t;
+            });
+        }
+        return sampler;
+    }
+
+    private void record (Map<String, Long> map, String name, long nanos) {
+        synchronized (map) {
+            map.merge (name, nanos, Long::sum);
+        }
+    }
+
+    private static Map<String, Long> toMillis (Map<String, Long> map) {
+        Map<String, Long> copy = new LinkedHashMap<> ();
+        synchronized (map) {
+            map.forEach ((name, nanos) -> copy.put (name, TimeUnit.NANOSECONDS.toMillis (nanos)));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,24 @@
+package org.dreamwork.injection.impl;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程的支持.
+ *
+ * <p>这是 JDK 21 以下使用的版本，不支持虚拟线程。JDK 21 及以上运行时使用多版本 jar 中
+ * {@code META-INF/versions/21} 下的实现 (源码在 {@code src/main/java21})</p>
+ *
+ * @since 2.1.3
+ */
+final class VirtualThreads {
+    private VirtualThreads () {}
+
+    /**
+     * 创建虚拟线程的工厂
+     * @param prefix 线程名称的前缀
+     * @return 线程工厂，不支持虚拟线程时返回 {@code null}
+     */
+    static ThreadFactory factory (String prefix) {
+        return null;
+    }
+}
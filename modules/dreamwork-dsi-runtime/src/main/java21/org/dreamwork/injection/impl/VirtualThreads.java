@@ -0,0 +1,21 @@
+package org.dreamwork.injection.impl;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程的支持，JDK 21 及以上的版本.
+ *
+ * @since 2.1.3
+ */
+final class VirtualThreads {
+    private VirtualThreads () {}
+
+    /**
+     * 创建虚拟线程的工厂
+     * @param prefix 线程名称的前缀
+     * @return 线程工厂
+     */
+    static ThreadFactory factory (String prefix) {
+        return Thread.ofVirtual ().name (prefix + "-", 1).factory ();
+    }
+}
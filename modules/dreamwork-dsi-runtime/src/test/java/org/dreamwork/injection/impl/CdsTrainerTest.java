@@ -0,0 +1,128 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.PropertyConfiguration;
+import org.dreamwork.injection.IObjectContext;
+import org.dreamwork.injection.IWarmUpTask;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CdsTrainer} 的预热任务和训练进程的退出
+ */
+public class CdsTrainerTest {
+    public static class Task implements IWarmUpTask {
+        final List<String> log;
+        final String name;
+        final int order;
+        final boolean fail;
+
+        Task (List<String> log, String name, int order, boolean fail) {
+            this.log   = log;
+            this.name  = name;
+            this.order = order;
+            this.fail  = fail;
+        }
+
+        @Override
+        public void warmUp (IObjectContext context) {
+            log.add (name);
+            if (fail) {
+                throw new IllegalStateException (name);
+            }
+        }
+
+        @Override
+        public int getOrder () {
+            return order;
+        }
+    }
+
+    /** 在输出目录中留下标记文件的预热任务 */
+    public static class Marker implements IWarmUpTask {
+        private final Path file;
+
+        Marker (Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public void warmUp (IObjectContext context) throws Exception {
+            Files.write (file, "warmed up".getBytes (StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 和 {@link SimpleObjectContextFactory} 相同的训练流程：父进程启动训练子进程，子进程预热、销毁容器后退出
+     */
+    public static final class Main {
+        public static void main (String[] args) throws Exception {
+            Properties props = new Properties ();
+            props.setProperty (CdsTrainer.KEY_DIR, args [0]);
+            if (!CdsTrainer.isTraining ()) {
+                System.exit (new CdsTrainer (new PropertyConfiguration (props), Main.class).train (args));
+            }
+            SimpleObjectContext context = new SimpleObjectContext (-1);
+            context.register ("marker", new Marker (Paths.get (args [0], "warmed-up")));
+            CdsTrainer.warmUp (context);
+            context.dispose ();
+            System.exit (0);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder ();
+
+    @Test
+    public void warmUpRunsEveryTaskInOrder () throws Exception {
+        List<String> log = new ArrayList<> ();
+        SimpleObjectContext context = new SimpleObjectContext (-1);
+        try {
+            context.register ("late", new Task (log, "late", 10, false));
+            context.register ("failing", new Task (log, "failing", 0, true));
+            context.register ("early", new Task (log, "early", -10, false));
+
+            // 任务的异常只记录日志，之后的任务继续执行
+            CdsTrainer.warmUp (context);
+            assertEquals (Arrays.asList ("early", "failing", "late"), log);
+        } finally {
+            context.dispose ();
+        }
+    }
+
+    @Test
+    public void trainingProcessExitsCleanly () throws Exception {
+        Path dir = folder.newFolder ("cds").toPath ();
+        String java = Paths.get (System.getProperty ("java.home"), "bin", File.separatorChar == '\\' ? "java.exe" : "java").toString ();
+        Process process = new ProcessBuilder (java, "-cp", System.getProperty ("java.class.path"), Main.class.getName (), dir.toString ())
+                .redirectErrorStream (true)
+                .redirectOutput (folder.newFile ("training.log"))
+                .start ();
+        if (!process.waitFor (2, TimeUnit.MINUTES)) {
+            process.destroyForcibly ();
+            fail ("the training process did not exit");
+        }
+        String log = new String (Files.readAllBytes (folder.getRoot ().toPath ().resolve ("training.log")), StandardCharsets.UTF_8);
+        assertEquals (log, 0, process.exitValue ());
+
+        // 子进程执行了预热任务，并在退出时写出了加载的类
+        assertTrue (log, Files.isRegularFile (dir.resolve ("warmed-up")));
+        List<String> classes = Files.readAllLines (dir.resolve ("classes.lst"), StandardCharsets.UTF_8);
+        assertTrue (classes.stream ().anyMatch (line -> line.startsWith (CdsTrainer.class.getName ().replace ('.', '/'))));
+        // 类路径中有目录时 jvm 不生成归档，只有生成了归档时才输出启动参数
+        assertEquals (Files.isRegularFile (dir.resolve ("app.jsa")), Files.isRegularFile (dir.resolve ("jvm-options")));
+    }
+}
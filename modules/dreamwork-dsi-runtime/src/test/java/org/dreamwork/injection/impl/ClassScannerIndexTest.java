@@ -0,0 +1,97 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.impl.fixture.IndexedBean;
+import org.dreamwork.injection.impl.fixture.Marker;
+import org.dreamwork.injection.impl.fixture.PlainComponent;
+import org.dreamwork.injection.impl.fixture.UnindexedBean;
+import org.junit.Test;
+
+import javax.annotation.Resource;
+import java.lang.annotation.Annotation;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 只有声明了被索引的注解的扫描器才使用编译期组件索引.
+ *
+ * <p>测试的类路径中的 {@code META-INF/dsi-components.idx} 只记录了 {@link IndexedBean}</p>
+ */
+public class ClassScannerIndexTest {
+    private static final String PACKAGE = IndexedBean.class.getPackage ().getName ();
+
+    private static final class Scanner extends ClassScanner {
+        final Predicate<Class<?>> filter;
+        final Collection<Class<? extends Annotation>> annotations;
+        final List<Class<?>> found = new ArrayList<> ();
+
+        Scanner (Predicate<Class<?>> filter, Collection<Class<? extends Annotation>> annotations) {
+            this.filter = filter;
+            this.annotations = annotations;
+        }
+
+        @Override
+        protected Collection<Class<? extends Annotation>> getIndexedAnnotations () {
+            return annotations;
+        }
+
+        @Override
+        protected boolean accept (Class<?> type) {
+            return filter.test (type);
+        }
+
+        @Override
+        protected void onFound (String name, Class<?> type, Set<Wrapper> wrappers) {
+            found.add (type);
+        }
+
+        @Override
+        protected void onCompleted (Set<Wrapper> wrappers) {}
+    }
+
+    private static List<Class<?>> scan (Scanner scanner, boolean parallel) throws Exception {
+        scanner.setParallel (parallel);
+        scanner.scan (PACKAGE);
+        return scanner.found;
+    }
+
+    private static Predicate<Class<?>> annotated () {
+        return type -> type.isAnnotationPresent (Resource.class);
+    }
+
+    private static Predicate<Class<?>> markers () {
+        return type -> Marker.class.isAssignableFrom (type) && !type.isInterface ();
+    }
+
+    @Test
+    public void indexedScannerLoadsOnlyIndexedClasses () throws Exception {
+        for (boolean parallel : new boolean[] {false, true}) {
+            List<Class<?>> found = scan (new Scanner (annotated (), Collections.singleton (Resource.class)), parallel);
+            assertEquals (Collections.singletonList (IndexedBean.class), found);
+        }
+    }
+
+    @Test
+    public void scannerWithoutAnnotationsScansThePackage () throws Exception {
+        for (boolean parallel : new boolean[] {false, true}) {
+            List<Class<?>> found = scan (new Scanner (markers (), null), parallel);
+            assertEquals (Arrays.asList (IndexedBean.class, PlainComponent.class, UnindexedBean.class), found);
+        }
+    }
+
+    @Test
+    public void uncoveredAnnotationsScanThePackage () throws Exception {
+        for (boolean parallel : new boolean[] {false, true}) {
+            // @Deprecated 没有被索引，即使 @Resource 被索引也不能只看索引
+            List<Class<?>> found = scan (new Scanner (annotated (), Arrays.asList (Resource.class, Deprecated.class)), parallel);
+            assertEquals (Arrays.asList (IndexedBean.class, UnindexedBean.class), found);
+        }
+    }
+
+    @Test
+    public void objectContextScannerOptsIn () {
+        ObjectContextScanner scanner = new ObjectContextScanner (new SimpleObjectContext (-1));
+        assertEquals (Collections.singleton (Resource.class), new HashSet<> (scanner.getIndexedAnnotations ()));
+    }
+}
@@ -0,0 +1,40 @@
+package org.dreamwork.injection.impl;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ConfigConverter} 的转换规则和缓存
+ */
+public class ConfigConverterTest {
+    public static class Settings {
+        long size;
+        Duration timeout;
+        String[] hosts;
+    }
+
+    public static class Other {
+        long size;
+    }
+
+    private static ConfigConverter of (Class<?> type, String name) throws Exception {
+        return ConfigConverter.of (type.getDeclaredField (name));
+    }
+
+    @Test
+    public void converts () throws Exception {
+        assertEquals (16L << 20, of (Settings.class, "size").convert ("16M"));
+        assertEquals (Duration.ofSeconds (30), of (Settings.class, "timeout").convert ("30s"));
+        assertArrayEquals (new String[] {"a", "b"}, (String[]) of (Settings.class, "hosts").convert ("a, b"));
+    }
+
+    @Test
+    public void cachesPerDeclaredField () throws Exception {
+        assertSame (of (Settings.class, "size"), of (Settings.class, "size"));
+        // 不同类中的同名字段各自有转换器
+        assertNotSame (of (Settings.class, "size"), of (Other.class, "size"));
+    }
+}
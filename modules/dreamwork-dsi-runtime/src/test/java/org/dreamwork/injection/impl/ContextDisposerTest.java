@@ -0,0 +1,98 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.PropertyConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.PreDestroy;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ContextDisposer} 的单个实例超时和全局截止时间
+ */
+public class ContextDisposerTest {
+    /** 销毁方法一直阻塞，直到测试结束 */
+    public static class Hanging {
+        static final AtomicInteger started = new AtomicInteger ();
+        static volatile CountDownLatch release;
+
+        @PreDestroy
+        public void destroy () throws InterruptedException {
+            started.incrementAndGet ();
+            release.await (10, TimeUnit.SECONDS);
+        }
+    }
+
+    public static class Closeable {
+        volatile boolean destroyed;
+
+        @PreDestroy
+        public void destroy () {
+            destroyed = true;
+        }
+    }
+
+    private SimpleObjectContext context;
+
+    @Before
+    public void setUp () {
+        Hanging.started.set (0);
+        Hanging.release = new CountDownLatch (1);
+        context = new SimpleObjectContext (-1);
+    }
+
+    @After
+    public void tearDown () {
+        Hanging.release.countDown ();
+    }
+
+    private void configure (long timeout, long beanTimeout) throws Exception {
+        Properties props = new Properties ();
+        props.setProperty (SimpleObjectContext.KEY_SHUTDOWN_TIMEOUT, String.valueOf (timeout));
+        props.setProperty (SimpleObjectContext.KEY_SHUTDOWN_BEAN_TIMEOUT, String.valueOf (beanTimeout));
+        // 依次销毁，阻塞的实例会直接挡住后面的实例
+        props.setProperty (SimpleObjectContext.KEY_SHUTDOWN_PARALLEL, "false");
+        context.register ("conf", new PropertyConfiguration (props));
+    }
+
+    private long dispose () {
+        long start = System.nanoTime ();
+        context.dispose ();
+        return TimeUnit.NANOSECONDS.toMillis (System.nanoTime () - start);
+    }
+
+    @Test
+    public void hangingPreDestroyDoesNotBlockOtherBeans () throws Exception {
+        configure (30_000, 100);
+        Closeable before = new Closeable (), after = new Closeable ();
+        context.register ("before", before);
+        context.register ("hanging", new Hanging ());
+        context.register ("after", after);
+
+        long elapsed = dispose ();
+        assertEquals (1, Hanging.started.get ());
+        assertTrue (before.destroyed);
+        assertTrue (after.destroyed);
+        assertTrue ("disposed in " + elapsed + " ms", elapsed < 5_000);
+    }
+
+    @Test
+    public void preDestroysPastTheDeadlineAreSkipped () throws Exception {
+        configure (150, 100);
+        for (int i = 0; i < 4; i ++) {
+            context.register ("hanging" + i, new Hanging ());
+        }
+
+        long elapsed = dispose ();
+        // 第一个等待到超时，第二个最多等到截止时间，之后的被跳过
+        int started = Hanging.started.get ();
+        assertTrue ("started " + started, started >= 1 && started <= 2);
+        assertTrue ("disposed in " + elapsed + " ms", elapsed < 5_000);
+    }
+}
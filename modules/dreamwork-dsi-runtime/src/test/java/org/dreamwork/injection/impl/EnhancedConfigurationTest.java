@@ -0,0 +1,87 @@
+package org.dreamwork.injection.impl;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link EnhancedConfiguration} 的引用展开
+ */
+public class EnhancedConfigurationTest {
+    private static EnhancedConfiguration create () {
+        Properties props = new Properties ();
+        props.setProperty ("host", "localhost");
+        props.setProperty ("url", "http://${host}:${port}");
+        props.setProperty ("port", "8080");
+        // a -> b -> c -> a, d 引用了循环
+        props.setProperty ("a", "a${b}");
+        props.setProperty ("b", "b${c}");
+        props.setProperty ("c", "c${a}");
+        props.setProperty ("d", "d${b}");
+        return new EnhancedConfiguration (props);
+    }
+
+    private static Map<String, String> read (EnhancedConfiguration conf, List<String> keys) {
+        Map<String, String> values = new TreeMap<> ();
+        for (String key : keys) {
+            values.put (key, conf.getString (key));
+        }
+        return values;
+    }
+
+    @Test
+    public void expandsReferences () {
+        assertEquals ("http://localhost:8080", create ().getString ("url"));
+    }
+
+    @Test
+    public void circularReferencesDoNotDependOnOrder () {
+        List<String> keys = Arrays.asList ("a", "b", "c", "d");
+        Map<String, String> expected = read (create (), keys);
+        assertEquals ("abc${a}", expected.get ("a"));
+        assertEquals ("dbca${b}", expected.get ("d"));
+
+        for (int i = 0; i < keys.size (); i ++) {
+            List<String> order = new ArrayList<> (keys);
+            Collections.rotate (order, i);
+            EnhancedConfiguration conf = create ();
+            assertEquals (expected, read (conf, order));
+            // 第二次读取的结果相同
+            assertEquals (expected, read (conf, keys));
+        }
+    }
+
+    @Test
+    public void reloadKeepsOverridesAndReportsRemovals () {
+        Properties file = new Properties ();
+        file.setProperty ("port", "8080");
+        file.setProperty ("url", "http://localhost:${port}");
+        file.setProperty ("ext.conf.dir", "../conf");
+        file.setProperty ("name", "dsi");
+        EnhancedConfiguration conf = new EnhancedConfiguration (file);
+        conf.setOverride ("ext.conf.dir", "/etc/dsi");
+        conf.setDefault ("shutdown-port", "19191");
+        conf.setDefault ("name", "unnamed");
+
+        Properties next = new Properties ();
+        next.setProperty ("port", "9090");
+        next.setProperty ("url", "http://localhost:${port}");
+        next.setProperty ("ext.conf.dir", "../etc");
+        Set<String> changed = conf.reload (next);
+
+        // name 被删除，恢复为默认值
+        assertEquals (new TreeSet<> (Arrays.asList ("name", "port", "url")), changed);
+        assertEquals ("http://localhost:9090", conf.getString ("url"));
+        assertEquals ("/etc/dsi", conf.getString ("ext.conf.dir"));
+        assertEquals ("19191", conf.getString ("shutdown-port"));
+        assertEquals ("unnamed", conf.getString ("name"));
+
+        // 没有默认值的配置项被删除后不再存在
+        next.remove ("url");
+        assertEquals (Collections.singleton ("url"), conf.reload (next));
+        assertNull (conf.getString ("url"));
+        assertTrue (conf.reload (next).isEmpty ());
+    }
+}
@@ -0,0 +1,73 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.PropertyConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Resource;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ExecutorRegistry} 创建的线程池只以名称注册，不影响应用按类型查找自己的线程池
+ */
+public class ExecutorRegistryTest {
+    public static class Worker {
+        @Resource
+        private ExecutorService executor;
+    }
+
+    private SimpleObjectContext context;
+    private ExecutorRegistry registry;
+    private ExecutorService userPool;
+
+    @Before
+    public void setUp () {
+        Properties props = new Properties ();
+        props.setProperty ("org.dreamwork.dsi.jmx.enabled", "false");
+        context  = new SimpleObjectContext (-1);
+        registry = new ExecutorRegistry (context, new PropertyConfiguration (props));
+        // embedded-httpd 总是创建的线程池
+        registry.get ("dsi.ws.heartbeat", 1, 1, -1);
+        registry.get ("dsi.ws.sender", 1, 4, 1024);
+        registry.get ("dsi.httpd.starter", 1, 1, 0);
+    }
+
+    @After
+    public void tearDown () {
+        context.dispose ();
+        for (ManagedExecutor executor : registry.getExecutors ()) {
+            executor.shutdownNow ();
+        }
+        if (userPool != null) {
+            userPool.shutdownNow ();
+        }
+    }
+
+    @Test
+    public void managedExecutorsAreRegisteredByName () {
+        assertSame (registry.get ("dsi.ws.sender"), context.getBean ("dsi.ws.sender"));
+        assertNull (context.getBean (ExecutorService.class));
+        assertNull (context.getBean (ManagedExecutor.class));
+        assertTrue (context.getBeanMap (Executor.class).isEmpty ());
+    }
+
+    @Test
+    public void userExecutorResolvesByType () throws Exception {
+        userPool = Executors.newSingleThreadExecutor ();
+        context.register ("userPool", userPool);
+        context.resolve ();
+
+        assertSame (userPool, context.getBean (ExecutorService.class));
+        assertSame (userPool, context.getBean (Executor.class));
+
+        Worker worker = new Worker ();
+        context.register ("worker", worker);
+        assertSame (userPool, worker.executor);
+    }
+}
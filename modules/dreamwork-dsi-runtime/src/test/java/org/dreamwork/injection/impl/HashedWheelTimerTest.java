@@ -0,0 +1,161 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.PropertyConfiguration;
+import org.dreamwork.injection.ITimer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link HashedWheelTimer} 的槽位和圈数、取消、周期任务的重新调度和停止.
+ *
+ * <p>时间轮只有 4 个 10ms 的槽位，一圈 40ms，所以较长的延迟要转过多圈才会到期</p>
+ */
+public class HashedWheelTimerTest {
+    /** 到期时间允许的误差，单核的测试机上也足够 */
+    private static final long TOLERANCE = TimeUnit.MILLISECONDS.toNanos (300);
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp () {
+        Properties props = new Properties ();
+        props.setProperty (HashedWheelTimer.KEY_TICK, "10ms");
+        props.setProperty (HashedWheelTimer.KEY_WHEEL, "4");
+        timer = new HashedWheelTimer (new PropertyConfiguration (props));
+    }
+
+    @After
+    public void tearDown () {
+        timer.stop ();
+    }
+
+    @Test
+    public void timeoutsFireInOrderAndNeverEarly () throws Exception {
+        // 同一圈的、正好一圈的和多圈之后的延迟
+        long[] delays = {0, 15, 40, 55, 95, 170};
+        List<Long> fired = Collections.synchronizedList (new ArrayList<> ());
+        long[] elapsed = new long[delays.length];
+        CountDownLatch latch = new CountDownLatch (delays.length);
+        List<ITimer.Timeout> timeouts = new ArrayList<> ();
+        for (int i = 0; i < delays.length; i ++) {
+            final int index = i;
+            final long start = System.nanoTime ();
+            timeouts.add (timer.schedule (() -> {
+                elapsed [index] = System.nanoTime () - start;
+                fired.add (delays [index]);
+                latch.countDown ();
+            }, delays [i], TimeUnit.MILLISECONDS));
+        }
+
+        assertTrue (latch.await (5, TimeUnit.SECONDS));
+        // 任务在唯一的工作线程中依次执行，之后的任务执行时前面的超时都已经标记为到期
+        CountDownLatch barrier = new CountDownLatch (1);
+        timer.schedule (barrier::countDown, 0, TimeUnit.MILLISECONDS);
+        assertTrue (barrier.await (5, TimeUnit.SECONDS));
+
+        List<Long> expected = new ArrayList<> ();
+        for (long delay : delays) {
+            expected.add (delay);
+        }
+        assertEquals (expected, fired);
+        for (int i = 0; i < delays.length; i ++) {
+            long delay = TimeUnit.MILLISECONDS.toNanos (delays [i]);
+            assertTrue (delays [i] + "ms fired after " + elapsed [i] + "ns", elapsed [i] >= delay);
+            assertTrue (delays [i] + "ms fired after " + elapsed [i] + "ns", elapsed [i] < delay + TOLERANCE);
+            assertTrue (timeouts.get (i).isExpired ());
+            assertFalse (timeouts.get (i).cancel ());
+        }
+    }
+
+    @Test
+    public void cancelledTimeoutsNeverFire () throws Exception {
+        AtomicInteger runs = new AtomicInteger ();
+        ITimer.Timeout timeout = timer.schedule (runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        ITimer.Timeout later = timer.schedule (runs::incrementAndGet, 100, TimeUnit.MILLISECONDS);
+        assertTrue (timeout.cancel ());
+        assertFalse (timeout.cancel ());
+        assertTrue (timeout.isCancelled ());
+
+        // 几个刻度之后再取消，这时超时已经在时间轮中
+        Thread.sleep (30);
+        assertTrue (later.cancel ());
+
+        CountDownLatch latch = new CountDownLatch (1);
+        timer.schedule (latch::countDown, 150, TimeUnit.MILLISECONDS);
+        assertTrue (latch.await (5, TimeUnit.SECONDS));
+        assertEquals (0, runs.get ());
+        assertFalse (timeout.isExpired ());
+        assertFalse (later.isExpired ());
+    }
+
+    @Test
+    public void periodicTasksAreRescheduledUntilCancelled () throws Exception {
+        CountDownLatch rate = new CountDownLatch (5), delay = new CountDownLatch (5);
+        AtomicInteger rateRuns = new AtomicInteger (), delayRuns = new AtomicInteger ();
+        ITimer.Timeout fixedRate = timer.scheduleAtFixedRate (() -> {
+            rateRuns.incrementAndGet ();
+            rate.countDown ();
+        }, 0, 20, TimeUnit.MILLISECONDS);
+        ITimer.Timeout fixedDelay = timer.scheduleWithFixedDelay (() -> {
+            delayRuns.incrementAndGet ();
+            delay.countDown ();
+            // 异常不会停止周期任务
+            throw new IllegalStateException ("expected");
+        }, 10, 20, TimeUnit.MILLISECONDS);
+
+        assertTrue (rate.await (5, TimeUnit.SECONDS));
+        assertTrue (delay.await (5, TimeUnit.SECONDS));
+        assertFalse (fixedRate.isExpired ());
+        assertTrue (fixedRate.cancel ());
+        assertTrue (fixedDelay.cancel ());
+
+        int r = rateRuns.get (), d = delayRuns.get ();
+        Thread.sleep (100);
+        assertEquals (r, rateRuns.get ());
+        assertEquals (d, delayRuns.get ());
+    }
+
+    @Test
+    public void stopReturnsTheUnprocessedTimeouts () throws Exception {
+        CountDownLatch latch = new CountDownLatch (1);
+        ITimer.Timeout fired = timer.schedule (latch::countDown, 0, TimeUnit.MILLISECONDS);
+        assertTrue (latch.await (5, TimeUnit.SECONDS));
+
+        ITimer.Timeout soon      = timer.schedule (() -> {}, 200, TimeUnit.MILLISECONDS);
+        ITimer.Timeout cancelled = timer.schedule (() -> {}, 1, TimeUnit.SECONDS);
+        ITimer.Timeout rounds    = timer.schedule (() -> {}, 5, TimeUnit.SECONDS);
+        ITimer.Timeout periodic  = timer.scheduleAtFixedRate (() -> {}, 10, 10, TimeUnit.SECONDS);
+        assertTrue (cancelled.cancel ());
+        // 等到这些超时都移入时间轮
+        Thread.sleep (50);
+        // 可能还在队列中，没有移入时间轮
+        ITimer.Timeout queued = timer.schedule (() -> {}, 1, TimeUnit.SECONDS);
+
+        Set<ITimer.Timeout> unprocessed = timer.stop ();
+        assertEquals (new HashSet<> (Arrays.asList (soon, rounds, periodic, queued)), unprocessed);
+        assertFalse (unprocessed.contains (fired));
+        assertFalse (unprocessed.contains (cancelled));
+        assertTrue (timer.stop ().isEmpty ());
+
+        try {
+            timer.schedule (() -> {}, 0, TimeUnit.MILLISECONDS);
+            fail ("timer is stopped");
+        } catch (IllegalStateException expected) {
+            // 停止之后不再接受新的超时
+        }
+    }
+}
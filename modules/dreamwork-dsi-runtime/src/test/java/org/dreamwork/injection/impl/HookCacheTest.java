@@ -0,0 +1,82 @@
+package org.dreamwork.injection.impl;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 启动缓存只使用属于当前用户、其他用户不能写入的目录和文件
+ */
+public class HookCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder ();
+
+    @Before
+    public void setUp () {
+        assumeTrue (FileSystems.getDefault ().supportedFileAttributeViews ().contains ("posix"));
+    }
+
+    private static EnhancedConfiguration config (Path dir) {
+        Properties props = new Properties ();
+        if (dir != null) {
+            props.setProperty (HookCache.KEY_DIR, dir.toString ());
+        }
+        return new EnhancedConfiguration (props);
+    }
+
+    @Test
+    public void defaultDirectoryIsPrivateUnderUserHome () throws Exception {
+        String home = System.getProperty ("user.home");
+        System.setProperty ("user.home", folder.getRoot ().getAbsolutePath ());
+        try {
+            Path dir = HookCache.directory (config (null), HookCacheTest.class);
+            assertEquals (folder.getRoot ().toPath ().resolve (".dsi/cache/" + HookCacheTest.class.getName ()), dir);
+            assertEquals ("rwx------", PosixFilePermissions.toString (Files.getPosixFilePermissions (dir)));
+        } finally {
+            System.setProperty ("user.home", home);
+        }
+    }
+
+    @Test
+    public void refusesDirectoryWritableByOthers () throws Exception {
+        Path dir = folder.newFolder ("shared").toPath ();
+        Files.setPosixFilePermissions (dir, PosixFilePermissions.fromString ("rwxrwxrwx"));
+        assertNull (HookCache.directory (config (dir), HookCacheTest.class));
+
+        Files.setPosixFilePermissions (dir, PosixFilePermissions.fromString ("rwxr-xr-x"));
+        assertEquals (dir, HookCache.directory (config (dir), HookCacheTest.class));
+    }
+
+    @Test
+    public void ignoresCacheFileWritableByOthers () throws Exception {
+        Path dir = HookCache.directory (config (folder.newFolder ("cache").toPath ()), HookCacheTest.class);
+        File jar = folder.newFile ("a.jar");
+        Properties props = new Properties ();
+        props.setProperty ("starter", "org.example.Starter");
+
+        HookCache cache = HookCache.open (dir, false);
+        assertNull (cache.get (jar));
+        cache.put (jar, Collections.singletonList (new HookCache.Hook ("dsi-a-hook.properties", props)));
+        cache.save ();
+
+        List<HookCache.Hook> hooks = HookCache.open (dir, false).get (jar);
+        assertNotNull (hooks);
+        assertEquals (props, hooks.get (0).toProperties ());
+
+        Files.setPosixFilePermissions (dir.resolve ("hook-cache.json"), PosixFilePermissions.fromString ("rw-rw-rw-"));
+        assertNull (HookCache.open (dir, false).get (jar));
+    }
+}
@@ -0,0 +1,216 @@
+package org.dreamwork.injection.impl;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link MemberAccessor} 的访问和异常语义，和核心反射一致
+ */
+public class MemberAccessorTest {
+    public static class Bean {
+        private String name;
+        private int port;
+        private static final String CONSTANT = "c";
+
+        public String getName () {
+            return name;
+        }
+
+        public void setPort (int port) {
+            this.port = port;
+        }
+
+        public int add (int a, int b) {
+            return a + b;
+        }
+
+        public String join (String a, String b, String c, String d, String e) {
+            return a + b + c + d + e;
+        }
+
+        public static String echo (String text) {
+            return text;
+        }
+
+        public void fail () {
+            throw new IllegalStateException ("failed");
+        }
+
+        public Object cast (Object o) {
+            return (String) o;
+        }
+
+        private String secret () {
+            return "secret";
+        }
+    }
+
+    private static Field field (String name) throws Exception {
+        return Bean.class.getDeclaredField (name);
+    }
+
+    private static Method method (String name) {
+        for (Method m : Bean.class.getDeclaredMethods ()) {
+            if (m.getName ().equals (name)) {
+                return m;
+            }
+        }
+        throw new AssertionError (name);
+    }
+
+    @Test
+    public void setsPrivateFields () throws Exception {
+        Bean bean = new Bean ();
+        MemberAccessor.set (field ("name"), bean, "dsi");
+        MemberAccessor.set (field ("port"), bean, 8080);
+        assertEquals ("dsi", bean.name);
+        assertEquals (8080, bean.port);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void rejectsNullForPrimitiveField () throws Exception {
+        MemberAccessor.set (field ("port"), new Bean (), null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void rejectsMismatchedFieldValue () throws Exception {
+        MemberAccessor.set (field ("name"), new Bean (), 1);
+    }
+
+    @Test (expected = IllegalAccessException.class)
+    public void cannotSetStaticFinalField () throws Exception {
+        MemberAccessor.set (field ("CONSTANT"), null, "x");
+    }
+
+    @Test
+    public void invokesMethods () throws Exception {
+        Bean bean = new Bean ();
+        bean.name = "dsi";
+        assertEquals ("dsi", MemberAccessor.invoke (method ("getName"), bean));
+        assertNull (MemberAccessor.invoke (method ("setPort"), bean, 9090));
+        assertEquals (9090, bean.port);
+        assertEquals (3, MemberAccessor.invoke (method ("add"), bean, 1, 2));
+        assertEquals ("echo", MemberAccessor.invoke (method ("echo"), null, "echo"));
+        // 加上实例超过生成的参数个数，以及私有方法，都退回到核心反射
+        assertEquals ("abcde", MemberAccessor.invoke (method ("join"), bean, "a", "b", "c", "d", "e"));
+        assertEquals ("secret", MemberAccessor.invoke (method ("secret"), bean));
+    }
+
+    @Test
+    public void wrapsTargetExceptions () throws Exception {
+        try {
+            MemberAccessor.invoke (method ("fail"), new Bean ());
+            fail ();
+        } catch (InvocationTargetException ex) {
+            assertTrue (ex.getCause () instanceof IllegalStateException);
+        }
+        // 目标方法自己抛出的 ClassCastException 不是参数不匹配
+        try {
+            MemberAccessor.invoke (method ("cast"), new Bean (), 1);
+            fail ();
+        } catch (InvocationTargetException ex) {
+            assertTrue (ex.getCause () instanceof ClassCastException);
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void rejectsMismatchedArguments () throws Exception {
+        MemberAccessor.invoke (method ("add"), new Bean (), 1, "2");
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void rejectsNullForPrimitiveArgument () throws Exception {
+        MemberAccessor.invoke (method ("setPort"), new Bean (), (Object) null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void rejectsWrongArgumentCount () throws Exception {
+        MemberAccessor.invoke (method ("add"), new Bean (), 1);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void rejectsWrongTarget () throws Exception {
+        MemberAccessor.invoke (method ("getName"), "not a bean");
+    }
+
+    @Test (expected = NullPointerException.class)
+    public void rejectsNullTarget () throws Exception {
+        MemberAccessor.invoke (method ("getName"), null);
+    }
+
+    @Test
+    public void boundInvokerCallsTheBoundInstance () throws Exception {
+        Bean bean = new Bean ();
+        bean.name = "dsi";
+        assertEquals ("dsi", MemberAccessor.bind (method ("getName"), bean).invoke ());
+        assertEquals (3, MemberAccessor.bind (method ("add"), bean).invoke (1, 2));
+        assertEquals ("echo", MemberAccessor.bind (method ("echo"), null).invoke ("echo"));
+        assertNull (MemberAccessor.bind (method ("setPort"), bean).invoke (9090));
+        assertEquals (9090, bean.port);
+        // 不能生成调用器时退回到方法句柄
+        assertEquals ("abcde", MemberAccessor.bind (method ("join"), bean).invoke ("a", "b", "c", "d", "e"));
+        assertEquals ("secret", MemberAccessor.bind (method ("secret"), bean).invoke ());
+    }
+
+    @Test
+    public void boundInvokerHasTheSameExceptionSemantics () throws Exception {
+        MemberAccessor.BoundInvoker add = MemberAccessor.bind (method ("add"), new Bean ());
+        try {
+            add.invoke (1, "2");
+            fail ();
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+        try {
+            add.invoke (1);
+            fail ();
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+        try {
+            MemberAccessor.bind (method ("cast"), new Bean ()).invoke (1);
+            fail ();
+        } catch (InvocationTargetException ex) {
+            assertTrue (ex.getCause () instanceof ClassCastException);
+        }
+    }
+
+    @Test (expected = NullPointerException.class)
+    public void cannotBindToNull () throws Exception {
+        MemberAccessor.bind (method ("getName"), null);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void cannotBindToWrongTarget () throws Exception {
+        MemberAccessor.bind (method ("getName"), "not a bean");
+    }
+
+    @Test
+    public void cacheDoesNotPinClassLoaders () throws Exception {
+        WeakReference<ClassLoader> ref = invokeInIsolatedLoader ();
+        for (int i = 0; i < 50 && ref.get () != null; i ++) {
+            System.gc ();
+            Thread.sleep (20);
+        }
+        assertNull ("the class loader is still reachable", ref.get ());
+    }
+
+    private static WeakReference<ClassLoader> invokeInIsolatedLoader () throws Exception {
+        URL location = Bean.class.getProtectionDomain ().getCodeSource ().getLocation ();
+        try (URLClassLoader loader = new URLClassLoader (new URL[] {location}, null)) {
+            Class<?> type = loader.loadClass (Bean.class.getName ());
+            assertNotSame (Bean.class, type);
+            Object bean = type.newInstance ();
+            assertEquals (3, MemberAccessor.invoke (type.getMethod ("add", int.class, int.class), bean, 1, 2));
+            return new WeakReference<> (loader);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.AConfigurationChanged;
+import org.dreamwork.injection.AConfigured;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 配置项的模板和 {@link SimpleObjectContext#reconfigure(Set)} 重新注入的字段
+ */
+public class ReconfigureTest {
+    public static class Endpoint {
+        @AConfigured ("${host}")
+        volatile String host;
+        @AConfigured ("${host}:${port}")
+        volatile String address;
+        @AConfigured ("http://${host}/api")
+        volatile String url;
+        @AConfigured ("${host}/${missing}")
+        volatile String missing = "unset";
+        @AConfigured (" constant ")
+        String constant;
+
+        volatile Set<String> changed;
+
+        @AConfigurationChanged
+        public void onChanged (Set<String> keys) {
+            changed = keys;
+        }
+    }
+
+    private SimpleObjectContext context;
+    private EnhancedConfiguration conf;
+    private Endpoint endpoint;
+
+    @Before
+    public void setUp () throws Exception {
+        context = new SimpleObjectContext (-1);
+        conf = new EnhancedConfiguration (properties ("localhost", "8080"));
+        context.register ("conf", conf);
+        endpoint = new Endpoint ();
+        context.register ("endpoint", endpoint);
+    }
+
+    @After
+    public void tearDown () {
+        context.dispose ();
+    }
+
+    private static Properties properties (String host, String port) {
+        Properties props = new Properties ();
+        props.setProperty ("host", host);
+        props.setProperty ("port", port);
+        return props;
+    }
+
+    @Test
+    public void templatesAreExpanded () {
+        assertEquals ("localhost", endpoint.host);
+        assertEquals ("localhost:8080", endpoint.address);
+        assertEquals ("http://localhost/api", endpoint.url);
+        // 引用的配置项不存在时不注入
+        assertEquals ("unset", endpoint.missing);
+        assertEquals ("constant", endpoint.constant);
+    }
+
+    @Test
+    public void anyChangedKeyReevaluatesTheWholeTemplate () {
+        endpoint.host = endpoint.url = "stale";
+        context.reconfigure (conf.reload (properties ("localhost", "9090")));
+        assertEquals ("localhost:9090", endpoint.address);
+        assertEquals (Collections.singleton ("port"), endpoint.changed);
+        // 没有引用 port 的字段不会被重新注入
+        assertEquals ("stale", endpoint.host);
+        assertEquals ("stale", endpoint.url);
+
+        context.reconfigure (conf.reload (properties ("example.com", "9090")));
+        assertEquals ("example.com", endpoint.host);
+        assertEquals ("example.com:9090", endpoint.address);
+        assertEquals ("http://example.com/api", endpoint.url);
+        assertEquals ("unset", endpoint.missing);
+        assertEquals (Collections.singleton ("host"), endpoint.changed);
+    }
+}
@@ -0,0 +1,129 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.PropertyConfiguration;
+import org.dreamwork.injection.ASubscribe;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RingEventBus} 的消费线程的启动、等待和槽位的清除
+ */
+public class RingEventBusTest {
+    public static class Listener {
+        final AtomicInteger received = new AtomicInteger ();
+        final AtomicInteger batches  = new AtomicInteger ();
+        volatile CountDownLatch latch;
+
+        @ASubscribe
+        public void onString (String event) {
+            received.incrementAndGet ();
+            latch.countDown ();
+        }
+
+        @ASubscribe
+        public void onIntegers (List<Integer> events) {
+            batches.incrementAndGet ();
+            for (int i = 0; i < events.size (); i ++) {
+                latch.countDown ();
+            }
+        }
+    }
+
+    private RingEventBus bus;
+
+    @After
+    public void tearDown () {
+        if (bus != null) {
+            bus.shutdown ();
+        }
+    }
+
+    private static RingEventBus create (int threads) {
+        Properties props = new Properties ();
+        props.setProperty (RingEventBus.KEY_BUFFER, "64");
+        props.setProperty (RingEventBus.KEY_THREADS, String.valueOf (threads));
+        return new RingEventBus (new PropertyConfiguration (props));
+    }
+
+    private static Object read (Object target, String name) throws Exception {
+        Field field = RingEventBus.class.getDeclaredField (name);
+        field.setAccessible (true);
+        return field.get (target);
+    }
+
+    private static Thread[] threads (RingEventBus bus) throws Exception {
+        Object[] consumers = (Object[]) read (bus, "consumers");
+        Thread[] threads = new Thread[consumers.length];
+        for (int i = 0; i < consumers.length; i ++) {
+            Field field = consumers [i].getClass ().getDeclaredField ("thread");
+            field.setAccessible (true);
+            threads [i] = (Thread) field.get (consumers [i]);
+        }
+        return threads;
+    }
+
+    @Test
+    public void startsConsumersOnFirstUse () throws Exception {
+        bus = create (2);
+        for (Thread t : threads (bus)) {
+            assertEquals (Thread.State.NEW, t.getState ());
+        }
+        bus.subscribe (new Listener (), BeanDescriptor.of (Listener.class));
+        for (Thread t : threads (bus)) {
+            assertNotEquals (Thread.State.NEW, t.getState ());
+        }
+    }
+
+    @Test
+    public void idleConsumersParkAndReleaseSlots () throws Exception {
+        for (int count : new int[] {1, 3}) {
+            bus = create (count);
+            Listener listener = new Listener ();
+            bus.subscribe (listener, BeanDescriptor.of (Listener.class));
+
+            // 多轮发布，缓冲区回绕多次，每轮之间消费线程都会挂起
+            for (int round = 0; round < 5; round ++) {
+                listener.latch = new CountDownLatch (200);
+                for (int i = 0; i < 100; i ++) {
+                    bus.publish ("event-" + i);
+                    bus.publish (i);
+                }
+                assertTrue (listener.latch.await (10, TimeUnit.SECONDS));
+                for (Thread t : threads (bus)) {
+                    assertTrue (waitFor (t, Thread.State.WAITING));
+                }
+            }
+            assertEquals (500, listener.received.get ());
+
+            // 所有消费线程都处理完了，槽位中不再持有事件
+            for (Object entry : (Object[]) read (bus, "entries")) {
+                assertNull (entry);
+            }
+            bus.shutdown ();
+            for (Thread t : threads (bus)) {
+                t.join (5000);
+                assertFalse (t.isAlive ());
+            }
+        }
+    }
+
+    private static boolean waitFor (Thread thread, Thread.State state) throws InterruptedException {
+        long deadline = System.currentTimeMillis () + 5000;
+        while (thread.getState () != state) {
+            if (System.currentTimeMillis () > deadline) {
+                return false;
+            }
+            Thread.sleep (1);
+        }
+        return true;
+    }
+}
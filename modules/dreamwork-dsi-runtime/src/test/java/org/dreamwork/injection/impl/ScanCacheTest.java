@@ -0,0 +1,123 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.impl.fixture.Marker;
+import org.dreamwork.injection.impl.fixture.PlainComponent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * {@link ScanCache} 的命中，以及类路径中的 jar 改变后快照作废
+ */
+public class ScanCacheTest {
+    private static final String PACKAGE = Marker.class.getPackage ().getName ();
+    private static final List<String> CLASSES = Arrays.asList ("a.A", "a.B");
+
+    public static final class Scanner extends ClassScanner {
+        final List<Class<?>> found = new ArrayList<> ();
+
+        @Override
+        protected boolean accept (Class<?> type) {
+            return Marker.class.isAssignableFrom (type) && !type.isInterface ();
+        }
+
+        @Override
+        protected void onFound (String name, Class<?> type, Set<Wrapper> wrappers) {
+            found.add (type);
+        }
+
+        @Override
+        protected void onCompleted (Set<Wrapper> wrappers) {}
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder ();
+
+    private Path dir, jar;
+    private URLClassLoader loader;
+
+    @Before
+    public void setUp () throws Exception {
+        assumeTrue (FileSystems.getDefault ().supportedFileAttributeViews ().contains ("posix"));
+        dir = folder.newFolder ("cache").toPath ();
+        jar = folder.newFile ("lib.jar").toPath ();
+        Files.write (jar, new byte[] {1, 2, 3});
+        loader = new URLClassLoader (new URL[] {jar.toUri ().toURL ()}, null);
+    }
+
+    @After
+    public void tearDown () throws Exception {
+        ClassScanner.setScanCache (null);
+        loader.close ();
+    }
+
+    private void save (String key, List<String> classes) {
+        ScanCache cache = ScanCache.open (dir, false, loader);
+        cache.put (key, classes, 1);
+        cache.save ();
+    }
+
+    @Test
+    public void unchangedClasspathHitsTheSnapshot () {
+        String key = ScanCache.key (Scanner.class, "b", "a");
+        assertNull (ScanCache.open (dir, false, loader).get (key));
+        save (key, CLASSES);
+
+        ScanCache cache = ScanCache.open (dir, false, loader);
+        // 包的顺序不影响键
+        assertEquals (CLASSES, cache.get (ScanCache.key (Scanner.class, "a", "b")));
+        assertNull (cache.get (ScanCache.key (ClassScanner.class, "a", "b")));
+        // 重建时丢弃已有的快照
+        assertNull (ScanCache.open (dir, true, loader).get (key));
+    }
+
+    @Test
+    public void changedJarInvalidatesTheSnapshot () throws Exception {
+        String key = ScanCache.key (Scanner.class, PACKAGE);
+        save (key, CLASSES);
+
+        FileTime modified = Files.getLastModifiedTime (jar);
+        Files.setLastModifiedTime (jar, FileTime.fromMillis (modified.toMillis () + 60_000));
+        assertNull (ScanCache.open (dir, false, loader).get (key));
+
+        save (key, CLASSES);
+        assertEquals (CLASSES, ScanCache.open (dir, false, loader).get (key));
+        // 大小改变同样使快照作废
+        Files.write (jar, new byte[] {1, 2, 3, 4});
+        Files.setLastModifiedTime (jar, FileTime.fromMillis (modified.toMillis () + 60_000));
+        assertNull (ScanCache.open (dir, false, loader).get (key));
+    }
+
+    @Test
+    public void scannerLoadsTheSnapshotInsteadOfScanning () throws Exception {
+        Scanner scanner = new Scanner ();
+        // 快照中只记录了一个类，命中时不再列举包
+        save (ScanCache.key (Scanner.class, PACKAGE), Collections.singletonList (PlainComponent.class.getName ()));
+        ClassScanner.setScanCache (ScanCache.open (dir, false, loader));
+        scanner.scan (PACKAGE);
+        assertEquals (Collections.singletonList (PlainComponent.class), scanner.found);
+
+        // 没有快照时扫描整个包
+        ClassScanner.setScanCache (null);
+        scanner.found.clear ();
+        scanner.scan (PACKAGE);
+        assertTrue (scanner.found.size () > 1);
+    }
+}
@@ -0,0 +1,71 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.BeanScope;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 线程作用域实例的生命周期和作用域代理的 {@code Object} 方法
+ */
+public class ScopedBeanTest {
+    private static final AtomicInteger DESTROYED = new AtomicInteger ();
+
+    public static class Counter {
+        private int count;
+
+        public int next () {
+            return ++ count;
+        }
+
+        @PreDestroy
+        public void destroy () {
+            DESTROYED.incrementAndGet ();
+        }
+    }
+
+    private ScopedBean scoped;
+    private Counter proxy;
+
+    @Before
+    public void setUp () {
+        DESTROYED.set (0);
+        scoped = new ScopedBean ("counter", BeanScope.THREAD, 0, BeanDescriptor.of (Counter.class), Counter::new);
+        proxy  = (Counter) scoped.createProxy (Counter.class);
+    }
+
+    @Test
+    public void destroysInstancesOfFinishedThreads () throws Exception {
+        int threads = 20;
+        for (int i = 0; i < threads; i ++) {
+            Thread t = new Thread (() -> {
+                assertEquals (1, proxy.next ());
+                assertEquals (2, proxy.next ());
+            });
+            t.start ();
+            t.join ();
+        }
+        // 每次创建实例时，已经结束的线程的实例被销毁
+        assertEquals (threads - 1, DESTROYED.get ());
+        assertEquals (1, proxy.next ());
+        assertEquals (threads, DESTROYED.get ());
+
+        scoped.dispose ();
+        assertEquals (threads + 1, DESTROYED.get ());
+    }
+
+    @Test
+    public void objectMethodsAreNotForwarded () {
+        assertEquals (System.identityHashCode (proxy), proxy.hashCode ());
+        assertTrue (proxy.equals (proxy));
+        assertFalse (proxy.equals (new Counter ()));
+        assertEquals ("thread[counter]", proxy.toString ());
+        // 以上调用都没有创建实例
+        scoped.dispose ();
+        assertEquals (0, DESTROYED.get ());
+    }
+}
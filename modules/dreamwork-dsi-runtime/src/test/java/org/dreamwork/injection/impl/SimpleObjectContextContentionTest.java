@@ -0,0 +1,151 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.IObjectContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多线程并发查找 {@link SimpleObjectContext} 的测试.
+ *
+ * <p>{@link SimpleObjectContext#resolve()} 之后的查找走已发布的快照，不再争用容器的锁：
+ * 即使有线程持有锁 (正在注册实例) 时，其他线程的查找也不会被阻塞</p>
+ */
+public class SimpleObjectContextContentionTest {
+    private static final int THREADS = 64;
+    private static final int BEANS   = 32;
+
+    private SimpleObjectContext context;
+    private ExecutorService executor;
+
+    public interface Service {}
+    public static class ServiceImpl implements Service {}
+    public static class Transient {}
+
+    /**
+     * 注册时 setter 在容器的锁内被调用，用它把锁一直占住
+     */
+    public static class Blocker {
+        static final CountDownLatch entered = new CountDownLatch (1);
+        static final CountDownLatch release = new CountDownLatch (1);
+
+        @Resource
+        public void setContext (IObjectContext context) throws InterruptedException {
+            entered.countDown ();
+            release.await (30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Before
+    public void setUp () throws Exception {
+        // 无效的端口，不绑定关闭钩子
+        context  = new SimpleObjectContext (-1);
+        for (int i = 0; i < BEANS; i ++) {
+            context.register ("bean-" + i, new ServiceImpl ());
+        }
+        context.register ("unique", new Transient ());
+        executor = Executors.newFixedThreadPool (THREADS);
+    }
+
+    @After
+    public void tearDown () {
+        executor.shutdownNow ();
+        context.dispose ();
+    }
+
+    @Test
+    public void lookupsDoNotWaitForTheLock () throws Exception {
+        context.resolve ();
+
+        Thread writer = new Thread (() -> {
+            try {
+                context.register ("blocker", new Blocker ());
+            } catch (Exception ex) {
+                throw new RuntimeException (ex);
+            }
+        }, "blocking-writer");
+        writer.start ();
+        try {
+            assertTrue ("writer never took the lock", Blocker.entered.await (10, TimeUnit.SECONDS));
+
+            // 写线程持有锁期间，64 个线程的查找都必须完成
+            List<Future<Integer>> futures = new ArrayList<> ();
+            for (int t = 0; t < THREADS; t ++) {
+                futures.add (executor.submit (() -> {
+                    int found = 0;
+                    for (int i = 0; i < 10_000; i ++) {
+                        if (context.getBean ("bean-" + (i % BEANS)) != null) {
+                            found ++;
+                        }
+                        assertNotNull (context.getBean (Transient.class));
+                    }
+                    return found;
+                }));
+            }
+            for (Future<Integer> f : futures) {
+                assertEquals (10_000, (int) f.get (10, TimeUnit.SECONDS));
+            }
+        } finally {
+            Blocker.release.countDown ();
+            writer.join (10_000);
+        }
+        assertNotNull (context.getBean ("blocker"));
+    }
+
+    @Test
+    public void concurrentLookupsSeeConsistentSnapshots () throws Exception {
+        context.resolve ();
+
+        AtomicReference<Throwable> error = new AtomicReference<> ();
+        AtomicInteger rounds = new AtomicInteger ();
+        CountDownLatch done = new CountDownLatch (1);
+        Thread writer = new Thread (() -> {
+            try {
+                for (int i = 0; i < 200; i ++) {
+                    Transient t = new Transient ();
+                    context.register ("transient-" + i, t);
+                    context.remove (t);
+                    rounds.incrementAndGet ();
+                }
+            } catch (Throwable ex) {
+                error.set (ex);
+            } finally {
+                done.countDown ();
+            }
+        }, "writer");
+        writer.start ();
+
+        List<Future<?>> futures = new ArrayList<> ();
+        for (int t = 0; t < THREADS; t ++) {
+            futures.add (executor.submit (() -> {
+                while (done.getCount () > 0) {
+                    Map<String, Service> services = context.getBeanMap (Service.class);
+                    assertEquals (BEANS, services.size ());
+                    // 写线程注册的实例使同一类型暂时有两个实例，快照中不会出现只改了一半的索引
+                    Map<String, Transient> transients = context.getBeanMap (Transient.class);
+                    assertTrue (transients.size () == 1 || transients.size () == 2);
+                    assertTrue (transients.containsKey ("unique"));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get (60, TimeUnit.SECONDS);
+        }
+        writer.join ();
+        assertNull (error.get ());
+        assertEquals (200, rounds.get ());
+        assertEquals (1, context.getBeanMap (Transient.class).size ());
+        assertEquals (BEANS + 1, context.getAllRegisteredBeans ().size ());
+    }
+}
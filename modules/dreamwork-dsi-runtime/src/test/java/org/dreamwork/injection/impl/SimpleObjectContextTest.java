@@ -0,0 +1,153 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.injection.AScope;
+import org.dreamwork.injection.BeanScope;
+import org.dreamwork.injection.InstanceNotUniqueException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SimpleObjectContext} 的名称索引和类型索引
+ */
+public class SimpleObjectContextTest {
+    public interface Service {}
+    public static class ServiceImpl implements Service {}
+
+    public static class Closeable implements Service {
+        int destroyed;
+
+        @PreDestroy
+        public void destroy () {
+            destroyed ++;
+        }
+    }
+
+    @AScope (BeanScope.PROTOTYPE)
+    public static class Prototype {
+        @Resource
+        private Service service;
+
+        public Service getService () {
+            return service;
+        }
+    }
+
+    private SimpleObjectContext context;
+
+    @Before
+    public void setUp () {
+        context = new SimpleObjectContext (-1);
+    }
+
+    @After
+    public void tearDown () {
+        context.dispose ();
+    }
+
+    @Test
+    public void sameInstanceUnderTwoNamesIsUnique () throws Exception {
+        ServiceImpl service = new ServiceImpl ();
+        context.register ("a", service);
+        context.register ("b", service);
+
+        assertSame (service, context.getBean (Service.class));
+        assertEquals (2, context.getBeanMap (Service.class).size ());
+
+        // 快照中的查找规则相同
+        context.resolve ();
+        assertSame (service, context.getBean (Service.class));
+        assertSame (service, context.getBean (ServiceImpl.class));
+    }
+
+    @Test (expected = InstanceNotUniqueException.class)
+    public void distinctInstancesAreNotUnique () throws Exception {
+        ServiceImpl service = new ServiceImpl ();
+        context.register ("a", service);
+        context.register ("b", service);
+        context.register ("c", new ServiceImpl ());
+        context.resolve ();
+
+        context.getBean (Service.class);
+    }
+
+    @Test
+    public void removedTypeIsUnmapped () throws Exception {
+        ServiceImpl service = new ServiceImpl ();
+        context.register ("a", service);
+        context.resolve ();
+        context.remove (service);
+
+        assertNull (context.getBean ("a"));
+        assertNull (context.getBean (Service.class));
+        assertTrue (context.getBeanMap (Service.class).isEmpty ());
+    }
+
+    @Test
+    public void scopedInstancesAreNotTracked () throws Exception {
+        ServiceImpl service = new ServiceImpl ();
+        context.register ("service", service);
+        assertTrue (context.registerScoped ("prototype", Prototype.class, BeanDescriptor.of (Prototype.class),
+                Prototype.class.getAnnotation (AScope.class)));
+        context.resolve ();
+
+        Prototype proxy = context.getBean (Prototype.class);
+        for (int i = 0; i < 100; i ++) {
+            assertSame (service, proxy.getService ());
+        }
+
+        // 依赖只记录在代理上一次
+        Field field = SimpleObjectContext.class.getDeclaredField ("dependencies");
+        field.setAccessible (true);
+        @SuppressWarnings ("unchecked")
+        Map<Object, Set<Object>> dependencies = (Map<Object, Set<Object>>) field.get (context);
+        synchronized (dependencies) {
+            assertEquals (1, dependencies.size ());
+            assertEquals (1, dependencies.get (proxy).size ());
+            assertTrue (dependencies.get (proxy).contains (service));
+        }
+    }
+
+    @Test
+    public void removingOneNameKeepsTheOthers () throws Exception {
+        Closeable bean = new Closeable ();
+        context.register ("a", bean);
+        context.register ("b", bean);
+        context.resolve ();
+
+        context.remove ("b");
+        assertNull (context.getBean ("b"));
+        assertSame (bean, context.getBean ("a"));
+        assertSame (bean, context.getBean (Service.class));
+        assertEquals (Collections.singleton ("a"), context.getBeanMap (Service.class).keySet ());
+        assertEquals (0, bean.destroyed);
+
+        // 实例仍然被托管，销毁时调用一次销毁方法
+        context.dispose ();
+        assertEquals (1, bean.destroyed);
+    }
+
+    @Test
+    public void removingTheInstanceUnmapsAllNames () throws Exception {
+        Closeable bean = new Closeable ();
+        context.register ("a", bean);
+        context.register ("b", bean);
+        context.resolve ();
+
+        context.remove (bean);
+        assertNull (context.getBean ("a"));
+        assertNull (context.getBean ("b"));
+        assertNull (context.getBean (Service.class));
+        assertTrue (context.getBeanMap (Service.class).isEmpty ());
+        assertEquals (1, bean.destroyed);
+    }
+}
@@ -0,0 +1,102 @@
+package org.dreamwork.injection.impl;
+
+import org.dreamwork.config.PropertyConfiguration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link StartupTimeline} 记录的阶段、实例和慢预处理方法的堆栈
+ */
+public class StartupTimelineTest {
+    private static StartupTimeline create (long slowMillis) {
+        Properties props = new Properties ();
+        props.setProperty (StartupTimeline.KEY_SLOW_POST_CONSTRUCT, String.valueOf (slowMillis));
+        StartupTimeline timeline = new StartupTimeline ();
+        timeline.configure (new PropertyConfiguration (props));
+        return timeline;
+    }
+
+    @Test
+    public void phasesKeepTheirOrderAndAccumulate () throws Exception {
+        StartupTimeline timeline = create (0);
+        try (StartupTimeline.Phase ignore = timeline.phase ("scan")) {
+            Thread.sleep (20);
+        }
+        timeline.phase ("config", TimeUnit.MILLISECONDS.toNanos (5));
+        try (StartupTimeline.Phase ignore = timeline.phase ("scan")) {
+            Thread.sleep (20);
+        }
+
+        Map<String, Long> phases = timeline.getPhaseMillis ();
+        assertEquals (Arrays.asList ("scan", "config"), new ArrayList<> (phases.keySet ()));
+        assertTrue (phases.get ("scan") >= 40);
+        assertEquals (5L, (long) phases.get ("config"));
+    }
+
+    @Test
+    public void slowPostConstructsAreSampled () throws Exception {
+        StartupTimeline timeline = create (20);
+        timeline.construction ("fast", TimeUnit.MILLISECONDS.toNanos (3));
+        timeline.postConstruct ("fast", () -> {});
+        timeline.postConstruct ("slow", () -> Thread.sleep (200));
+
+        assertEquals (3L, (long) timeline.getConstructionMillis ().get ("fast"));
+        Map<String, Long> postConstructs = timeline.getPostConstructMillis ();
+        assertTrue (postConstructs.containsKey ("fast"));
+        assertTrue (postConstructs.get ("slow") >= 200);
+
+        List<String> slow = timeline.getSlowPostConstructs ();
+        assertEquals (1, slow.size ());
+        assertTrue (slow.get (0), slow.get (0).startsWith ("slow post-construct took "));
+        // 堆栈是在预处理方法执行时采样的
+        assertTrue (slow.get (0), slow.get (0).contains ("slowPostConstructsAreSampled"));
+    }
+
+    @Test
+    public void failedPostConstructsAreStillRecorded () {
+        StartupTimeline timeline = create (0);
+        try {
+            timeline.postConstruct ("broken", () -> {
+                throw new IllegalStateException ("broken");
+            });
+            fail ("the exception of the post-construct must be rethrown");
+        } catch (Exception ex) {
+            assertEquals ("broken", ex.getMessage ());
+        }
+        assertTrue (timeline.getPostConstructMillis ().containsKey ("broken"));
+        assertTrue (timeline.getSlowPostConstructs ().isEmpty ());
+    }
+
+    @Test
+    public void nothingIsRecordedAfterFinish () throws Exception {
+        StartupTimeline timeline = create (20);
+        timeline.postConstruct ("early", () -> {});
+        timeline.finish ();
+        long total = timeline.getStartupMillis ();
+
+        // 启动结束后创建的实例 (比如延迟实例) 照常执行，但不再记录
+        boolean[] ran = {false};
+        timeline.construction ("lazy", 1);
+        timeline.postConstruct ("lazy", () -> {
+            Thread.sleep (50);
+            ran [0] = true;
+        });
+        assertTrue (ran [0]);
+        assertFalse (timeline.getConstructionMillis ().containsKey ("lazy"));
+        assertFalse (timeline.getPostConstructMillis ().containsKey ("lazy"));
+        assertTrue (timeline.getSlowPostConstructs ().isEmpty ());
+        assertEquals (total, timeline.getStartupMillis ());
+
+        String dump = timeline.dump ();
+        assertTrue (dump, dump.startsWith ("startup timeline, total " + total + " ms"));
+        assertTrue (dump, dump.contains ("early"));
+    }
+}
@@ -0,0 +1,9 @@
+package org.dreamwork.injection.impl.fixture;
+
+import javax.annotation.Resource;
+
+/**
+ * 记录在测试的组件索引中
+ */
+@Resource
+public class IndexedBean implements Marker {}
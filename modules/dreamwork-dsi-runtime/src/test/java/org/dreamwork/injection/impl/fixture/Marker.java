@@ -0,0 +1,6 @@
+package org.dreamwork.injection.impl.fixture;
+
+/**
+ * 扫描测试用的标记接口
+ */
+public interface Marker {}
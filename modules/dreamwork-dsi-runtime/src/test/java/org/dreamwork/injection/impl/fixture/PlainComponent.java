@@ -0,0 +1,6 @@
+package org.dreamwork.injection.impl.fixture;
+
+/**
+ * 没有任何注解，只有按其他条件扫描的扫描器才接受
+ */
+public class PlainComponent implements Marker {}
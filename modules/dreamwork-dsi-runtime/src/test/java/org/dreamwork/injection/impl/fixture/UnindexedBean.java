@@ -0,0 +1,9 @@
+package org.dreamwork.injection.impl.fixture;
+
+import javax.annotation.Resource;
+
+/**
+ * 没有记录在测试的组件索引中，只有完整扫描才能找到
+ */
+@Resource
+public class UnindexedBean implements Marker {}